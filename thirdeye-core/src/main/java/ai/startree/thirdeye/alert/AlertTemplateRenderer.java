@@ -27,13 +27,17 @@ import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.template.TemplatePropertyMetadata;
-import ai.startree.thirdeye.util.StringTemplateUtils;
+import ai.startree.thirdeye.util.CompiledTemplate;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
@@ -41,8 +45,13 @@ import org.joda.time.Interval;
 @Singleton
 public class AlertTemplateRenderer {
 
+  private static final int COMPILED_TEMPLATES_CACHE_SIZE = 1000;
+
   private final AlertManager alertManager;
   private final AlertTemplateManager alertTemplateManager;
+  // a template is recompiled when it is updated: its updateTime changes
+  private final Cache<CompiledTemplateKey, CompiledTemplate<AlertTemplateDTO>> compiledTemplates =
+      CacheBuilder.newBuilder().maximumSize(COMPILED_TEMPLATES_CACHE_SIZE).build();
 
   @Inject
   public AlertTemplateRenderer(
@@ -181,16 +190,33 @@ public class AlertTemplateRenderer {
 
     properties.put("startTime", detectionInterval.getStartMillis());
     properties.put("endTime", detectionInterval.getEndMillis());
+
+    final AlertTemplateDTO rendered = compiledTemplate(template).render(properties);
     // add source metadata to each node
-    if (template.getNodes() != null) {
-      template.getNodes().stream()
+    if (rendered.getNodes() != null) {
+      rendered.getNodes().stream()
           // TODO spyne remove magic string. This was done to remove dependency of AnomalyDetector.TYPE on the renderer
           .filter(node -> node.getType().equals("AnomalyDetector"))
           .forEach(node -> node.getParams()
               .putValue("anomaly.source", String.format("%s/%s", alertName, node.getName())));
     }
+    return rendered;
+  }
 
-    return StringTemplateUtils.applyContext(template, properties);
+  private CompiledTemplate<AlertTemplateDTO> compiledTemplate(final AlertTemplateDTO template)
+      throws IOException {
+    if (template.getId() == null || template.getUpdateTime() == null) {
+      // not persisted - the template cannot be identified
+      return CompiledTemplate.compile(template);
+    }
+    final CompiledTemplateKey key = new CompiledTemplateKey(template.getId(),
+        template.getUpdateTime().getTime());
+    try {
+      return compiledTemplates.get(key, () -> CompiledTemplate.compile(template));
+    } catch (final ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      throw new RuntimeException(e.getCause());
+    }
   }
 
   private @NonNull Map<String, Object> defaultProperties(
@@ -209,4 +235,6 @@ public class AlertTemplateRenderer {
 
     return res;
   }
+
+  private record CompiledTemplateKey(long templateId, long updateTime) {}
 }
@@ -15,6 +15,7 @@ package ai.startree.thirdeye.datasource.cache;
 
 import static ai.startree.thirdeye.spi.Constants.METRICS_TIMER_PERCENTILES;
 
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
@@ -22,28 +23,60 @@ import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This class intercepts all data source calls and helps with telemetry, etc.
+ *
+ * Identical requests that are in flight at the same time are coalesced: the delegate executes
+ * the request once and all the callers get the result. Each caller gets its own shallow copy of
+ * the data table, so that callers can add properties or columns without affecting each other.
+ * If the caller that executes the request is interrupted, the waiting callers retry the request.
+ * A waiting caller waits for at most coalescedWaitTimeout, then executes the request itself.
  */
 public class DataSourceWrapper implements ThirdEyeDataSource {
 
+  private static final Duration DEFAULT_COALESCED_WAIT_TIMEOUT = Duration.ofMinutes(5);
+
   private final ThirdEyeDataSource delegate;
+  private final Duration coalescedWaitTimeout;
 
   @Deprecated
   private final Meter fetchTableExceptionMeter;
   @Deprecated
   private final Timer fetchTableTimer;
   private final io.micrometer.core.instrument.Timer fetchTableTimer2;
+  private final Counter coalescedRequestsCounter;
+
+  private final Map<DataSourceRequest, CompletableFuture<DataTable>> inFlightRequests =
+      new ConcurrentHashMap<>();
 
   public DataSourceWrapper(final ThirdEyeDataSource delegate, final MetricRegistry metricRegistry) {
+    this(delegate, metricRegistry, DEFAULT_COALESCED_WAIT_TIMEOUT);
+  }
+
+  @VisibleForTesting
+  DataSourceWrapper(final ThirdEyeDataSource delegate, final MetricRegistry metricRegistry,
+      final Duration coalescedWaitTimeout) {
     this.delegate = delegate;
+    this.coalescedWaitTimeout = coalescedWaitTimeout;
     
     // deprecated with no replacement - should not be used anymore - metric should be inside the delegate
     fetchTableExceptionMeter = metricRegistry.meter("fetchTableExceptionMeter");
@@ -54,6 +87,9 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
         .description("Start: an input SQL query string is passed to the DataSource implementation. End: the result of the query is returned as a dataframe OR an exception is thrown.")
         .publishPercentiles(METRICS_TIMER_PERCENTILES)
         .register(Metrics.globalRegistry);
+    coalescedRequestsCounter = Counter.builder("thirdeye_fetch_data_table_coalesced")
+        .description("Number of fetch data table requests that awaited the result of an identical request in flight instead of querying the DataSource.")
+        .register(Metrics.globalRegistry);
   }
 
   @Override
@@ -78,7 +114,73 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
 
   @Override
   public DataTable fetchDataTable(final DataSourceRequest request) throws Exception {
-    return fetchTableTimer.time(fetchTableTimer2.wrap((Callable<? extends DataTable>) () -> fetchDataTable0(request)));
+    while (true) {
+      final CompletableFuture<DataTable> future = new CompletableFuture<>();
+      final CompletableFuture<DataTable> inFlight = inFlightRequests.putIfAbsent(request, future);
+      if (inFlight == null) {
+        return fetchAndShare(request, future);
+      }
+      coalescedRequestsCounter.increment();
+      try {
+        return copy(await(inFlight));
+      } catch (final CancellationException e) {
+        // the caller that executed the request was interrupted - the request did not fail: retry
+      } catch (final TimeoutException e) {
+        // do not wait for a stuck request forever - the fetched data table is not shared
+        return fetch(request);
+      }
+    }
+  }
+
+  private DataTable fetchAndShare(final DataSourceRequest request,
+      final CompletableFuture<DataTable> future) throws Exception {
+    final DataTable dataTable;
+    try {
+      dataTable = fetch(request);
+    } catch (final Throwable e) {
+      // the future is always completed, even on errors, else the waiting callers would block
+      inFlightRequests.remove(request, future);
+      if (Thread.currentThread().isInterrupted() || Throwables.getCausalChain(e).stream()
+          .anyMatch(InterruptedException.class::isInstance)) {
+        future.cancel(false);
+      } else {
+        future.completeExceptionally(e);
+      }
+      throw e;
+    }
+    inFlightRequests.remove(request, future);
+    future.complete(dataTable);
+    // the fetched data table is shared with the coalesced callers - it is never returned
+    return copy(dataTable);
+  }
+
+  private DataTable fetch(final DataSourceRequest request) throws Exception {
+    return fetchTableTimer.time(fetchTableTimer2.wrap(
+        (Callable<? extends DataTable>) () -> fetchDataTable0(request)));
+  }
+
+  private DataTable await(final CompletableFuture<DataTable> future) throws Exception {
+    try {
+      return future.get(coalescedWaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static DataTable copy(final DataTable dataTable) {
+    if (dataTable == null || dataTable.getDataFrame() == null) {
+      return dataTable;
+    }
+    // series are immutable - a shallow copy of the dataframe is enough
+    final DataTable copy = SimpleDataTable.fromDataFrame(new DataFrame(dataTable.getDataFrame()));
+    copy.addProperties(dataTable.getProperties());
+    return copy;
   }
 
   private DataTable fetchDataTable0(final DataSourceRequest request) throws Exception {
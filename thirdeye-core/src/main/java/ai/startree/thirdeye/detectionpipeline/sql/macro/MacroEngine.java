@@ -15,6 +15,7 @@ package ai.startree.thirdeye.detectionpipeline.sql.macro;
 
 import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.QUERY;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 import static ai.startree.thirdeye.util.CalciteUtils.expressionToNode;
 import static ai.startree.thirdeye.util.CalciteUtils.nodeToQuery;
 import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
@@ -29,19 +30,33 @@ import ai.startree.thirdeye.spi.datasource.macro.MacroFunction;
 import ai.startree.thirdeye.spi.datasource.macro.MacroFunctionContext;
 import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdeyeSqlDialect;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.stream.Collectors;
 import org.apache.calcite.sql.SqlCall;
 import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlNumericLiteral;
+import org.apache.calcite.sql.SqlOrderBy;
+import org.apache.calcite.sql.SqlSelect;
 import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.util.SqlBasicVisitor;
 import org.apache.calcite.sql.util.SqlShuttle;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
+import org.joda.time.Period;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +70,21 @@ public class MacroEngine {
   );
   public static final boolean QUOTE_IDENTIFIERS = false;
 
+  /**
+   * Parsed queries are shared between executions: the parsed trees are never mutated, the
+   * MacroVisitor copies the calls it changes.
+   */
+  private static final int PARSED_CACHE_SIZE = 1000;
+  private static final Cache<ParsedQueryKey, ParsedQuery> PARSED_QUERIES = CacheBuilder.newBuilder()
+      .maximumSize(PARSED_CACHE_SIZE)
+      .build();
+  private static final Cache<ParsedExpressionKey, SqlNode> PARSED_EXPRESSIONS =
+      CacheBuilder.newBuilder()
+      .maximumSize(PARSED_CACHE_SIZE)
+      .build();
+
+  private final ThirdEyeSqlParserConfig thirdEyeSqlParserConfig;
+  private final ThirdeyeSqlDialect thirdEyeSqlDialect;
   private final SqlParser.Config sqlParserConfig;
   private final SqlDialect sqlDialect;
   private final String tableName;
@@ -66,8 +96,10 @@ public class MacroEngine {
   public MacroEngine(final SqlLanguage sqlLanguage, final SqlExpressionBuilder sqlExpressionBuilder,
       final Interval detectionInterval,
       @Nullable final DatasetConfigDTO datasetConfigDTO, String query) {
-    this.sqlParserConfig = SqlLanguageTranslator.translate(sqlLanguage.getSqlParserConfig());
-    this.sqlDialect = SqlLanguageTranslator.translate(sqlLanguage.getSqlDialect());
+    this.thirdEyeSqlParserConfig = sqlLanguage.getSqlParserConfig();
+    this.thirdEyeSqlDialect = sqlLanguage.getSqlDialect();
+    this.sqlParserConfig = SqlLanguageTranslator.translate(thirdEyeSqlParserConfig);
+    this.sqlDialect = SqlLanguageTranslator.translate(thirdEyeSqlDialect);
     this.tableName = optional(datasetConfigDTO).map(DatasetConfigDTO::getDataset).orElse(null);
     this.query = query;
     this.properties = new HashMap<>();
@@ -85,17 +117,224 @@ public class MacroEngine {
   }
 
   public DataSourceRequest prepareRequest() {
-    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
-    final SqlNode appliedMacrosNode = applyMacros(rootNode);
-    final String preparedQuery = nodeToQuery(appliedMacrosNode, sqlDialect, QUOTE_IDENTIFIERS);
+    final ParsedQuery parsedQuery = parsedQuery();
+    final String preparedQuery;
+    if (parsedQuery.queryWithoutMacros() != null) {
+      preparedQuery = parsedQuery.queryWithoutMacros();
+    } else {
+      final SqlNode appliedMacrosNode = applyMacros(parsedQuery);
+      preparedQuery = nodeToQuery(appliedMacrosNode, sqlDialect, QUOTE_IDENTIFIERS);
+    }
 
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
     properties.put(QUERY.toString(), preparedQuery);
     return new DataSourceRequest(tableName, preparedQuery, customOptions, properties);
   }
 
-  private SqlNode applyMacros(SqlNode rootNode) {
-    return rootNode.accept(new MacroVisitor());
+  /**
+   * Returns the granularity of the time buckets of the query if the result of the query on an
+   * interval is the concatenation of its results on consecutive sub-intervals aligned on the
+   * buckets. Returns null otherwise.
+   *
+   * The check is conservative: the query must be a single SELECT on a table, filtered with a
+   * __timeFilter without lookback, grouped by a __timeGroup, without window, subquery, limit or
+   * __timeGroupKey, and ordered by time ascending if it is ordered.
+   */
+  public @Nullable Period timeChunkGranularity() {
+    return parsedQuery().timeChunkGranularity();
+  }
+
+  private ParsedQuery parsedQuery() {
+    final ParsedQueryKey key = new ParsedQueryKey(query, thirdEyeSqlParserConfig,
+        thirdEyeSqlDialect);
+    ParsedQuery parsedQuery = PARSED_QUERIES.getIfPresent(key);
+    if (parsedQuery == null) {
+      // parsing errors are not cached - they are thrown at each execution
+      parsedQuery = parseQuery();
+      PARSED_QUERIES.put(key, parsedQuery);
+    }
+    return parsedQuery;
+  }
+
+  private ParsedQuery parseQuery() {
+    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
+    final Map<SqlCall, List<String>> macroParams = new IdentityHashMap<>();
+    rootNode.accept(new SqlBasicVisitor<Void>() {
+      @Override
+      public Void visit(final SqlCall call) {
+        if (macroOf(call) != null) {
+          macroParams.put(call, paramsFromCall(call));
+        }
+        return super.visit(call);
+      }
+    });
+    final String queryWithoutMacros = macroParams.isEmpty()
+        ? nodeToQuery(rootNode, sqlDialect, QUOTE_IDENTIFIERS)
+        : null;
+    return new ParsedQuery(rootNode, Collections.unmodifiableMap(macroParams),
+        queryWithoutMacros, timeChunkGranularity(rootNode, macroParams));
+  }
+
+  private @Nullable Period timeChunkGranularity(final SqlNode rootNode,
+      final Map<SqlCall, List<String>> macroParams) {
+    SqlNode node = rootNode;
+    SqlNodeList orderList = null;
+    if (node instanceof SqlOrderBy orderBy) {
+      if (orderBy.offset != null || orderBy.fetch != null) {
+        return null;
+      }
+      orderList = orderBy.orderList;
+      node = orderBy.query;
+    }
+    if (!(node instanceof SqlSelect select)
+        || !(select.getFrom() instanceof SqlIdentifier)
+        || select.getOffset() != null
+        || select.getFetch() != null
+        || (select.getWindowList() != null && !select.getWindowList().isEmpty())
+        || select.getGroup() == null) {
+      return null;
+    }
+    if (orderList == null) {
+      orderList = select.getOrderList();
+    }
+    if (containsSubQueryOrWindow(select)) {
+      return null;
+    }
+
+    Period granularity = null;
+    boolean hasTimeFilter = false;
+    for (final Entry<SqlCall, List<String>> entry : macroParams.entrySet()) {
+      final MacroFunction macro = macroOf(entry.getKey());
+      final List<String> params = entry.getValue();
+      try {
+        if (macro instanceof TimeGroupFunction && params.size() == 3) {
+          final Period callGranularity = isoPeriod(sqlDialect.unquoteStringLiteral(params.get(2)));
+          if (granularity != null && !granularity.equals(callGranularity)) {
+            return null;
+          }
+          granularity = callGranularity;
+        } else if (macro instanceof TimeFilterFunction && params.size() >= 2) {
+          for (final String lookback : params.subList(2, params.size())) {
+            if (!isZero(isoPeriod(sqlDialect.unquoteStringLiteral(lookback)))) {
+              return null;
+            }
+          }
+          hasTimeFilter = true;
+        } else {
+          // __timeGroupKey depends on the whole interval
+          return null;
+        }
+      } catch (final IllegalArgumentException e) {
+        // invalid macro params - the error is thrown at macro expansion
+        return null;
+      }
+    }
+    if (granularity == null || !hasTimeFilter) {
+      return null;
+    }
+    // a __timeFilter must restrict the whole query
+    if (conjuncts(select.getWhere()).stream()
+        .noneMatch(n -> n instanceof SqlCall c && macroOf(c) instanceof TimeFilterFunction)) {
+      return null;
+    }
+    final SqlNodeList selectList = select.getSelectList();
+    if (select.getGroup().stream().noneMatch(n -> isTimeGroup(n, selectList))) {
+      return null;
+    }
+    if (orderList != null && !orderList.isEmpty()
+        && !isTimeGroup(orderList.get(0), selectList)) {
+      // DESC and NULLS FIRST/LAST wrap the ordered expression
+      return null;
+    }
+    return granularity;
+  }
+
+  private static boolean containsSubQueryOrWindow(final SqlSelect select) {
+    final boolean[] found = {false};
+    select.accept(new SqlBasicVisitor<Void>() {
+      @Override
+      public Void visit(final SqlCall call) {
+        if (call != select && (call.getKind() == SqlKind.SELECT || call.getKind() == SqlKind.OVER
+            || call.getKind() == SqlKind.ORDER_BY || call.getKind() == SqlKind.WITH)) {
+          found[0] = true;
+        }
+        return super.visit(call);
+      }
+    });
+    return found[0];
+  }
+
+  private static boolean isZero(final Period period) {
+    for (final int value : period.getValues()) {
+      if (value != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<SqlNode> conjuncts(final @Nullable SqlNode node) {
+    if (node == null) {
+      return List.of();
+    }
+    if (node.getKind() == SqlKind.AND) {
+      return ((SqlCall) node).getOperandList().stream()
+          .flatMap(n -> conjuncts(n).stream())
+          .collect(Collectors.toList());
+    }
+    return List.of(node);
+  }
+
+  /**
+   * Returns true if the node is a __timeGroup call, or the alias or the ordinal of a selected
+   * __timeGroup call.
+   */
+  private boolean isTimeGroup(final SqlNode node, final SqlNodeList selectList) {
+    if (node instanceof SqlCall call && macroOf(call) instanceof TimeGroupFunction) {
+      return true;
+    }
+    if (node instanceof SqlIdentifier identifier && identifier.isSimple()) {
+      return selectList.stream()
+          .filter(item -> item.getKind() == SqlKind.AS)
+          .map(item -> ((SqlCall) item).getOperandList())
+          .anyMatch(operands -> operands.get(1) instanceof SqlIdentifier alias
+              && alias.getSimple().equalsIgnoreCase(identifier.getSimple())
+              && isTimeGroup(operands.get(0), SqlNodeList.EMPTY));
+    }
+    if (node instanceof SqlNumericLiteral literal && literal.isInteger()) {
+      final int index = literal.intValue(true) - 1;
+      if (index < 0 || index >= selectList.size()) {
+        return false;
+      }
+      SqlNode item = selectList.get(index);
+      if (item.getKind() == SqlKind.AS) {
+        item = ((SqlCall) item).operand(0);
+      }
+      return item instanceof SqlCall call && macroOf(call) instanceof TimeGroupFunction;
+    }
+    return false;
+  }
+
+  private SqlNode parseExpression(final String expression) {
+    final ParsedExpressionKey key = new ParsedExpressionKey(expression, thirdEyeSqlParserConfig);
+    SqlNode node = PARSED_EXPRESSIONS.getIfPresent(key);
+    if (node == null) {
+      node = expressionToNode(expression, sqlParserConfig);
+      PARSED_EXPRESSIONS.put(key, node);
+    }
+    return node;
+  }
+
+  private SqlNode applyMacros(final ParsedQuery parsedQuery) {
+    return parsedQuery.rootNode().accept(new MacroVisitor(parsedQuery.macroParams()));
+  }
+
+  private @Nullable MacroFunction macroOf(final SqlCall call) {
+    if (call.getOperator().getKind() != SqlKind.OTHER_FUNCTION) {
+      // cannot be a macro function
+      return null;
+    }
+    return availableMacros.get(call.getOperator().getName());
   }
 
   private List<String> paramsFromCall(final SqlCall call) {
@@ -107,6 +346,12 @@ public class MacroEngine {
 
   private class MacroVisitor extends SqlShuttle {
 
+    private final Map<SqlCall, List<String>> parsedMacroParams;
+
+    private MacroVisitor(final Map<SqlCall, List<String>> parsedMacroParams) {
+      this.parsedMacroParams = parsedMacroParams;
+    }
+
     @Override
     public @Nullable
     SqlNode visit(SqlCall call) {
@@ -118,18 +363,32 @@ public class MacroEngine {
     }
 
     private SqlNode replaceIfMacro(SqlCall call) {
-      if (call.getOperator().getKind() != SqlKind.OTHER_FUNCTION) {
-        // cannot be a macro function
-        return call;
-      }
-      final MacroFunction macroFunction = availableMacros.get(call.getOperator().getName());
+      final MacroFunction macroFunction = macroOf(call);
       if (macroFunction != null) {
-        List<String> macroParams = paramsFromCall(call);
+        // the params are unparsed at parse time, unless an operand was changed by a nested macro
+        List<String> macroParams = parsedMacroParams.get(call);
+        if (macroParams == null) {
+          macroParams = paramsFromCall(call);
+        }
         String expandedMacro = macroFunction.expandMacro(macroParams, macroFunctionContext);
-        return expressionToNode(expandedMacro, sqlParserConfig);
+        return parseExpression(expandedMacro);
       }
       // not a macro OR macro expansion parsing failed: return input unchanged
       return call;
     }
   }
+
+  private record ParsedQueryKey(String query, ThirdEyeSqlParserConfig parserConfig,
+                                ThirdeyeSqlDialect dialect) {}
+
+  private record ParsedExpressionKey(String expression, ThirdEyeSqlParserConfig parserConfig) {}
+
+  /**
+   * @param macroParams unparsed params of the macro calls of the tree, by call identity
+   * @param queryWithoutMacros the prepared query if the query has no macro, null otherwise
+   * @param timeChunkGranularity see {@link #timeChunkGranularity()}
+   */
+  private record ParsedQuery(SqlNode rootNode, Map<SqlCall, List<String>> macroParams,
+                             @Nullable String queryWithoutMacros,
+                             @Nullable Period timeChunkGranularity) {}
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_TEMPLATE_MISSING_PROPERTY;
+
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Map;
+import org.apache.commons.text.StringSubstitutor;
+
+/**
+ * A template serialized once to a sequence of json tokens, with the property placeholders
+ * located at compile time.
+ *
+ * Rendering replays the tokens and only substitutes the placeholders, then binds the tokens to
+ * a new instance of the template class, without going through a json string.
+ * String values are rendered with a {@link StringSubstitutor}. A {@link Templatable} with a
+ * templated value is replaced by the property value, and that value is rendered too.
+ * Missing properties raise a {@link JsonMappingException}.
+ *
+ * A compiled template is immutable and can be rendered concurrently.
+ */
+public class CompiledTemplate<T> {
+
+  // serializers only locate placeholders - they are stateless and can be shared
+  private static final ObjectMapper COMPILE_MAPPER = new ObjectMapper().registerModule(
+      new SimpleModule()
+          .addSerializer(Templatable.class, new TemplatablePlaceholderSerializer())
+          .addSerializer(String.class, new StringPlaceholderSerializer()));
+  private static final ObjectMapper READ_MAPPER = new ObjectMapper();
+
+  private final Class<T> templateClass;
+  private final TokenBuffer tokens;
+
+  private CompiledTemplate(final Class<T> templateClass, final TokenBuffer tokens) {
+    this.templateClass = templateClass;
+    this.tokens = tokens;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> CompiledTemplate<T> compile(final T template) throws IOException {
+    return new CompiledTemplate<>((Class<T>) template.getClass(), serialize(template));
+  }
+
+  private static TokenBuffer serialize(final Object value) throws IOException {
+    final TokenBuffer buffer = new TokenBuffer(COMPILE_MAPPER, false);
+    COMPILE_MAPPER.writeValue(buffer, value);
+    return buffer;
+  }
+
+  public T render(final Map<String, Object> valuesMap) throws IOException {
+    final Renderer renderer = new Renderer(valuesMap);
+    final TokenBuffer rendered = new TokenBuffer(READ_MAPPER, false);
+    try (final JsonParser parser = tokens.asParser()) {
+      renderer.replay(parser, rendered);
+    }
+    try (final JsonParser parser = rendered.asParser(READ_MAPPER)) {
+      return READ_MAPPER.readValue(parser, templateClass);
+    }
+  }
+
+  private static class Renderer {
+
+    private final Map<String, Object> valuesMap;
+    private final StringSubstitutor sub;
+
+    private Renderer(final Map<String, Object> valuesMap) {
+      this.valuesMap = valuesMap;
+      this.sub = new StringSubstitutor(valuesMap).setDisableSubstitutionInValues(true)
+          .setEnableSubstitutionInVariables(true)
+          .setEnableUndefinedVariableException(true);
+    }
+
+    private void replay(final JsonParser parser, final TokenBuffer out) throws IOException {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        switch (token) {
+          case VALUE_EMBEDDED_OBJECT:
+            final Object embedded = parser.getEmbeddedObject();
+            if (embedded instanceof StringPlaceholder) {
+              out.writeString(substitute(((StringPlaceholder) embedded).value));
+            } else if (embedded instanceof TemplatablePlaceholder) {
+              writeProperty(((TemplatablePlaceholder) embedded).property, out);
+            } else {
+              out.copyCurrentEvent(parser);
+            }
+            break;
+          case VALUE_NUMBER_INT:
+            // write numbers as they would be parsed from a json string: as small as possible
+            final Number intValue = parser.getNumberValue();
+            if (intValue instanceof BigInteger) {
+              out.writeNumber((BigInteger) intValue);
+            } else if (intValue.longValue() == intValue.intValue()) {
+              out.writeNumber(intValue.intValue());
+            } else {
+              out.writeNumber(intValue.longValue());
+            }
+            break;
+          case VALUE_NUMBER_FLOAT:
+            out.writeNumber(Double.parseDouble(parser.getText()));
+            break;
+          default:
+            out.copyCurrentEvent(parser);
+        }
+      }
+    }
+
+    private String substitute(final String stringField) throws JsonMappingException {
+      try {
+        return sub.replace(stringField);
+      } catch (final IllegalArgumentException e) {
+        throw new JsonMappingException((Closeable) null, e.getMessage(),
+            new ThirdEyeException(ERR_TEMPLATE_MISSING_PROPERTY, e.getMessage()));
+      }
+    }
+
+    private void writeProperty(final String property, final TokenBuffer out) throws IOException {
+      if (!valuesMap.containsKey(property)) {
+        final String message = String.format(
+            "Property not provided for templatable value: %s", property);
+        throw new JsonMappingException((Closeable) null, message,
+            new IllegalArgumentException(message));
+      }
+      final TokenBuffer value = serialize(Templatable.of(valuesMap.get(property)));
+      try (final JsonParser parser = value.asParser()) {
+        replay(parser, out);
+      }
+    }
+  }
+
+  private static class StringPlaceholder {
+
+    private final String value;
+
+    private StringPlaceholder(final String value) {
+      this.value = value;
+    }
+  }
+
+  private static class TemplatablePlaceholder {
+
+    private final String property;
+
+    private TemplatablePlaceholder(final String property) {
+      this.property = property;
+    }
+  }
+
+  private static class StringPlaceholderSerializer extends JsonSerializer<String> {
+
+    @Override
+    public void serialize(final String stringField, final JsonGenerator jsonGenerator,
+        final SerializerProvider serializerProvider) throws IOException {
+      // a string without a variable prefix is not modified by the substitution
+      if (stringField.contains(StringSubstitutor.DEFAULT_VAR_START)) {
+        jsonGenerator.writeEmbeddedObject(new StringPlaceholder(stringField));
+      } else {
+        jsonGenerator.writeString(stringField);
+      }
+    }
+  }
+
+  private static class TemplatablePlaceholderSerializer extends JsonSerializer<Templatable> {
+
+    @Override
+    public void serialize(final Templatable templatable, final JsonGenerator jsonGenerator,
+        final SerializerProvider serializerProvider) throws IOException {
+      final String templatedValue = templatable.getTemplatedValue();
+      if (templatedValue != null) {
+        final String property = templatedValue.substring(2, templatedValue.length() - 1);
+        jsonGenerator.writeEmbeddedObject(new TemplatablePlaceholder(property));
+      } else {
+        // cannot call writeObject --> this would create an infinite recursive loop
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeObjectField(Templatable.VALUE_FIELD_STRING, templatable.getValue());
+        jsonGenerator.writeEndObject();
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertTemplateManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.Test;
+
+public class AlertTemplateRendererTest {
+
+  private static final long TEMPLATE_ID = 1L;
+  private static final Interval INTERVAL = new Interval(1000L, 2000L, DateTimeZone.UTC);
+
+  private static AlertTemplateDTO template(final String query, final long updateTime) {
+    final Map<String, Object> params = new HashMap<>();
+    params.put("query", query);
+    final AlertTemplateDTO template = new AlertTemplateDTO()
+        .setNodes(List.of(new PlanNodeBean()
+            .setName("detector")
+            .setType("AnomalyDetector")
+            .setParams(TemplatableMap.fromValueMap(params))));
+    template.setId(TEMPLATE_ID);
+    template.setUpdateTime(new Timestamp(updateTime));
+    return template;
+  }
+
+  private static AlertDTO alert(final String name, final Map<String, Object> properties) {
+    final AlertTemplateDTO templateRef = new AlertTemplateDTO();
+    templateRef.setId(TEMPLATE_ID);
+    return new AlertDTO()
+        .setName(name)
+        .setTemplate(templateRef)
+        .setTemplateProperties(properties);
+  }
+
+  private static Object param(final AlertTemplateDTO rendered, final String key) {
+    return rendered.getNodes().get(0).getParams().get(key).getValue();
+  }
+
+  @Test
+  public void testRenderAlertWithCompiledTemplate() throws Exception {
+    final AlertTemplateManager alertTemplateManager = mock(AlertTemplateManager.class);
+    when(alertTemplateManager.findById(TEMPLATE_ID))
+        .thenReturn(template("SELECT ${metric} FROM t WHERE ts < ${endTime}", 1L))
+        .thenReturn(template("SELECT ${metric} FROM t WHERE ts < ${endTime}", 1L))
+        // the template is updated
+        .thenReturn(template("SELECT ${metric} FROM t2", 2L));
+    final AlertTemplateRenderer renderer = new AlertTemplateRenderer(mock(AlertManager.class),
+        alertTemplateManager);
+
+    final AlertTemplateDTO first = renderer.renderAlert(alert("a1", Map.of("metric", "views")),
+        INTERVAL);
+    assertThat(param(first, "query")).isEqualTo("SELECT views FROM t WHERE ts < 2000");
+    assertThat(param(first, "anomaly.source")).isEqualTo("a1/detector");
+
+    final AlertTemplateDTO second = renderer.renderAlert(alert("a2", Map.of("metric", "clicks")),
+        INTERVAL);
+    assertThat(param(second, "query")).isEqualTo("SELECT clicks FROM t WHERE ts < 2000");
+    assertThat(param(second, "anomaly.source")).isEqualTo("a2/detector");
+    // the first rendered template is not modified by the second rendering
+    assertThat(param(first, "query")).isEqualTo("SELECT views FROM t WHERE ts < 2000");
+
+    final AlertTemplateDTO updated = renderer.renderAlert(alert("a1", Map.of("metric", "views")),
+        INTERVAL);
+    assertThat(param(updated, "query")).isEqualTo("SELECT views FROM t2");
+  }
+}
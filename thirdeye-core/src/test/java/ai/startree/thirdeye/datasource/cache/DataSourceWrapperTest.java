@@ -0,0 +1,196 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DataSourceWrapperTest {
+
+  private static final DataSourceRequest REQUEST = new DataSourceRequest("table",
+      "SELECT * FROM table",
+      Map.of(),
+      Map.of());
+
+  private ExecutorService executorService;
+  private ThirdEyeDataSource delegate;
+  private DataSourceWrapper dataSourceWrapper;
+
+  @BeforeMethod
+  public void setUp() {
+    executorService = Executors.newFixedThreadPool(2);
+    delegate = mock(ThirdEyeDataSource.class);
+    dataSourceWrapper = new DataSourceWrapper(delegate, new MetricRegistry());
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void testConcurrentIdenticalRequestsAreCoalesced() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    when(delegate.fetchDataTable(any())).thenAnswer(i -> {
+      started.countDown();
+      release.await();
+      return SimpleDataTable.fromDataFrame(new DataFrame().addSeries("a", 1L, 2L));
+    });
+
+    final Future<DataTable> first = executorService.submit(
+        () -> dataSourceWrapper.fetchDataTable(REQUEST));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    final Future<DataTable> second = executorService.submit(
+        () -> dataSourceWrapper.fetchDataTable(new DataSourceRequest("table",
+            "SELECT * FROM table",
+            Map.of(),
+            Map.of())));
+    // let the second request register as a waiter before releasing the first one
+    Thread.sleep(100);
+    release.countDown();
+
+    final DataTable firstResult = first.get(10, TimeUnit.SECONDS);
+    final DataTable secondResult = second.get(10, TimeUnit.SECONDS);
+    verify(delegate, times(1)).fetchDataTable(any());
+    assertThat(firstResult.getDataFrame().getLongs("a").toList()).containsExactly(1L, 2L);
+    assertThat(secondResult.getDataFrame().getLongs("a").toList()).containsExactly(1L, 2L);
+
+    // callers do not share the data table
+    firstResult.addProperties(Map.of("k", "v"));
+    firstResult.getDataFrame().addSeries("b", 3L, 4L);
+    assertThat(secondResult.getProperties()).isEmpty();
+    assertThat(secondResult.getDataFrame().contains("b")).isFalse();
+  }
+
+  @Test
+  public void testSequentialRequestsAreNotCoalesced() throws Exception {
+    when(delegate.fetchDataTable(any())).thenAnswer(
+        i -> SimpleDataTable.fromDataFrame(new DataFrame().addSeries("a", 1L)));
+
+    dataSourceWrapper.fetchDataTable(REQUEST);
+    dataSourceWrapper.fetchDataTable(REQUEST);
+
+    verify(delegate, times(2)).fetchDataTable(any());
+  }
+
+  @Test
+  public void testFailureIsNotCached() throws Exception {
+    when(delegate.fetchDataTable(any()))
+        .thenThrow(new IllegalStateException("broker down"))
+        .thenAnswer(i -> SimpleDataTable.fromDataFrame(new DataFrame().addSeries("a", 1L)));
+
+    assertThatThrownBy(() -> dataSourceWrapper.fetchDataTable(REQUEST))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(dataSourceWrapper.fetchDataTable(REQUEST).getDataFrame().size()).isEqualTo(1);
+  }
+
+  @Test(timeOut = 10_000)
+  public void testWaitersGetTheErrorOfTheRequest() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    when(delegate.fetchDataTable(any())).thenAnswer(i -> {
+      started.countDown();
+      release.await();
+      throw new AssertionError("not an exception");
+    });
+
+    final Future<DataTable> first = executorService.submit(
+        () -> dataSourceWrapper.fetchDataTable(REQUEST));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    final Future<DataTable> second = executorService.submit(
+        () -> dataSourceWrapper.fetchDataTable(REQUEST));
+    Thread.sleep(100);
+    release.countDown();
+
+    assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(AssertionError.class);
+    assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(AssertionError.class);
+    verify(delegate, times(1)).fetchDataTable(any());
+  }
+
+  @Test(timeOut = 10_000)
+  public void testWaitersRetryWhenTheRequestIsInterrupted() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    when(delegate.fetchDataTable(any()))
+        .thenAnswer(i -> {
+          started.countDown();
+          // blocks until the caller is interrupted
+          new CountDownLatch(1).await();
+          return null;
+        })
+        .thenAnswer(i -> SimpleDataTable.fromDataFrame(new DataFrame().addSeries("a", 1L)));
+
+    final Future<DataTable> first = executorService.submit(
+        () -> dataSourceWrapper.fetchDataTable(REQUEST));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    final Future<DataTable> second = executorService.submit(
+        () -> dataSourceWrapper.fetchDataTable(REQUEST));
+    Thread.sleep(100);
+    first.cancel(true);
+
+    final DataTable secondResult = second.get(10, TimeUnit.SECONDS);
+    assertThat(secondResult.getDataFrame().getLongs("a").toList()).containsExactly(1L);
+    verify(delegate, times(2)).fetchDataTable(any());
+  }
+
+  @Test(timeOut = 10_000)
+  public void testWaitersDoNotWaitForAStuckRequest() throws Exception {
+    dataSourceWrapper = new DataSourceWrapper(delegate, new MetricRegistry(),
+        Duration.ofMillis(200));
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    when(delegate.fetchDataTable(any()))
+        .thenAnswer(i -> {
+          started.countDown();
+          release.await();
+          return SimpleDataTable.fromDataFrame(new DataFrame().addSeries("a", 1L));
+        })
+        .thenAnswer(i -> SimpleDataTable.fromDataFrame(new DataFrame().addSeries("a", 2L)));
+
+    final Future<DataTable> first = executorService.submit(
+        () -> dataSourceWrapper.fetchDataTable(REQUEST));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    final DataTable secondResult = dataSourceWrapper.fetchDataTable(REQUEST);
+    assertThat(secondResult.getDataFrame().getLongs("a").toList()).containsExactly(2L);
+    release.countDown();
+    assertThat(first.get(10, TimeUnit.SECONDS).getDataFrame().getLongs("a").toList())
+        .containsExactly(1L);
+    verify(delegate, times(2)).fetchDataTable(any());
+  }
+}
@@ -734,6 +734,9 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
    * @return series copy without nulls
    */
   public BooleanSeries fillNull(byte value) {
+    if (!this.hasNull()) {
+      return this;
+    }
     byte[] values = Arrays.copyOf(this.values, this.values.length);
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import java.util.Arrays;
+
+/**
+ * Growable, typed column of a DataFrame under construction. Values are written directly into the
+ * primitive array that backs the built Series: no per-cell boxing, no intermediate rows.
+ *
+ * The array is handed over to the Series at build time. Appending after a build copies the array
+ * first, so built Series are never mutated. If the number of values is known up front, the array
+ * is allocated with this capacity and handed over without a trimming copy.
+ */
+abstract class ColumnAppender {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  int size = 0;
+  boolean shared = false;
+
+  static ColumnAppender of(final SeriesType type) {
+    return of(type, 0);
+  }
+
+  /**
+   * Returns an appender for {@code capacity} values. More values can be appended, at the cost of
+   * a copy.
+   */
+  static ColumnAppender of(final SeriesType type, final int capacity) {
+    switch (type) {
+      case DOUBLE:
+        return new DoubleAppender(capacity);
+      case LONG:
+        return new LongAppender(capacity);
+      case STRING:
+        return new StringAppender(capacity);
+      case BOOLEAN:
+        return new BooleanAppender(capacity);
+      case OBJECT:
+        return new ObjectAppender(capacity);
+      default:
+        throw new IllegalArgumentException(String.format("Unknown series type '%s'", type));
+    }
+  }
+
+  static int grownCapacity(final int capacity) {
+    return Math.max(INITIAL_CAPACITY, capacity * 2);
+  }
+
+  int size() {
+    return size;
+  }
+
+  abstract SeriesType type();
+
+  abstract void appendNull();
+
+  /**
+   * Appends a value of any type, converted to the type of the column.
+   */
+  abstract void appendObject(Object o);
+
+  void appendDouble(final double value) {
+    appendObject(value);
+  }
+
+  void appendLong(final long value) {
+    appendObject(value);
+  }
+
+  void appendBoolean(final boolean value) {
+    appendObject(value);
+  }
+
+  void appendString(final String value) {
+    appendObject(value);
+  }
+
+  abstract Series build();
+
+  static final class DoubleAppender extends ColumnAppender {
+
+    private double[] values;
+
+    DoubleAppender(final int capacity) {
+      values = new double[capacity];
+    }
+
+    @Override
+    SeriesType type() {
+      return SeriesType.DOUBLE;
+    }
+
+    private void ensureCapacity() {
+      if (shared || size == values.length) {
+        values = Arrays.copyOf(values, size == values.length ? grownCapacity(size) : values.length);
+        shared = false;
+      }
+    }
+
+    @Override
+    void appendDouble(final double value) {
+      ensureCapacity();
+      values[size++] = value;
+    }
+
+    @Override
+    void appendLong(final long value) {
+      appendDouble(value == LongSeries.NULL ? DoubleSeries.NULL : (double) value);
+    }
+
+    @Override
+    void appendNull() {
+      appendDouble(DoubleSeries.NULL);
+    }
+
+    @Override
+    void appendObject(final Object o) {
+      if (o == null) {
+        appendDouble(DoubleSeries.NULL);
+      } else if (o instanceof Number) {
+        appendDouble(((Number) o).doubleValue());
+      } else {
+        appendDouble(StringSeries.getDouble(o.toString()));
+      }
+    }
+
+    @Override
+    DoubleSeries build() {
+      if (values.length != size) {
+        values = Arrays.copyOf(values, size);
+      }
+      shared = true;
+      return DoubleSeries.buildFrom(values);
+    }
+  }
+
+  static final class LongAppender extends ColumnAppender {
+
+    private long[] values;
+
+    LongAppender(final int capacity) {
+      values = new long[capacity];
+    }
+
+    @Override
+    SeriesType type() {
+      return SeriesType.LONG;
+    }
+
+    private void ensureCapacity() {
+      if (shared || size == values.length) {
+        values = Arrays.copyOf(values, size == values.length ? grownCapacity(size) : values.length);
+        shared = false;
+      }
+    }
+
+    @Override
+    void appendLong(final long value) {
+      ensureCapacity();
+      values[size++] = value;
+    }
+
+    @Override
+    void appendDouble(final double value) {
+      appendLong(DoubleSeries.isNull(value) ? LongSeries.NULL : (long) value);
+    }
+
+    @Override
+    void appendNull() {
+      appendLong(LongSeries.NULL);
+    }
+
+    @Override
+    void appendObject(final Object o) {
+      if (o == null) {
+        appendLong(LongSeries.NULL);
+      } else if (o instanceof Number) {
+        appendLong(((Number) o).longValue());
+      } else {
+        appendLong(StringSeries.getLong(o.toString()));
+      }
+    }
+
+    @Override
+    LongSeries build() {
+      if (values.length != size) {
+        values = Arrays.copyOf(values, size);
+      }
+      shared = true;
+      return LongSeries.buildFrom(values);
+    }
+  }
+
+  static final class BooleanAppender extends ColumnAppender {
+
+    private byte[] values;
+
+    BooleanAppender(final int capacity) {
+      values = new byte[capacity];
+    }
+
+    @Override
+    SeriesType type() {
+      return SeriesType.BOOLEAN;
+    }
+
+    private void ensureCapacity() {
+      if (shared || size == values.length) {
+        values = Arrays.copyOf(values, size == values.length ? grownCapacity(size) : values.length);
+        shared = false;
+      }
+    }
+
+    private void appendByte(final byte value) {
+      ensureCapacity();
+      values[size++] = value;
+    }
+
+    @Override
+    void appendBoolean(final boolean value) {
+      appendByte(BooleanSeries.valueOf(value));
+    }
+
+    @Override
+    void appendNull() {
+      appendByte(BooleanSeries.NULL);
+    }
+
+    @Override
+    void appendObject(final Object o) {
+      if (o == null) {
+        appendByte(BooleanSeries.NULL);
+      } else if (o instanceof Number) {
+        appendByte(BooleanSeries.valueOf(((Number) o).doubleValue() != 0.0d));
+      } else {
+        appendByte(StringSeries.getBoolean(o.toString()));
+      }
+    }
+
+    @Override
+    BooleanSeries build() {
+      if (values.length != size) {
+        values = Arrays.copyOf(values, size);
+      }
+      shared = true;
+      return BooleanSeries.buildFrom(values);
+    }
+  }
+
+  static final class StringAppender extends ColumnAppender {
+
+    private String[] values;
+
+    StringAppender(final int capacity) {
+      values = new String[capacity];
+    }
+
+    @Override
+    SeriesType type() {
+      return SeriesType.STRING;
+    }
+
+    private void ensureCapacity() {
+      if (shared || size == values.length) {
+        values = Arrays.copyOf(values, size == values.length ? grownCapacity(size) : values.length);
+        shared = false;
+      }
+    }
+
+    @Override
+    void appendString(final String value) {
+      ensureCapacity();
+      values[size++] = StringSeries.getString(value);
+    }
+
+    @Override
+    void appendNull() {
+      appendString(StringSeries.NULL);
+    }
+
+    @Override
+    void appendObject(final Object o) {
+      appendString(o == null ? StringSeries.NULL : o.toString());
+    }
+
+    @Override
+    StringSeries build() {
+      if (values.length != size) {
+        values = Arrays.copyOf(values, size);
+      }
+      shared = true;
+      return StringSeries.buildFrom(values);
+    }
+  }
+
+  static final class ObjectAppender extends ColumnAppender {
+
+    private Object[] values;
+
+    ObjectAppender(final int capacity) {
+      values = new Object[capacity];
+    }
+
+    @Override
+    SeriesType type() {
+      return SeriesType.OBJECT;
+    }
+
+    private void ensureCapacity() {
+      if (shared || size == values.length) {
+        values = Arrays.copyOf(values, size == values.length ? grownCapacity(size) : values.length);
+        shared = false;
+      }
+    }
+
+    @Override
+    void appendNull() {
+      appendObject(ObjectSeries.NULL);
+    }
+
+    @Override
+    void appendObject(final Object o) {
+      ensureCapacity();
+      values[size++] = o;
+    }
+
+    @Override
+    ObjectSeries build() {
+      if (values.length != size) {
+        values = Arrays.copyOf(values, size);
+      }
+      shared = true;
+      return ObjectSeries.buildFrom(values);
+    }
+  }
+}
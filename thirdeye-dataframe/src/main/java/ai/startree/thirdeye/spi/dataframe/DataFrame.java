@@ -75,7 +75,7 @@ public class DataFrame {
   /**
    * Creates a new DataFrame with a column "index" (as determined by {@code COLUMN_INDEX_DEFAULT})
    * that
-   * wraps the array {@code indexValues}.
+   * wraps the array {@code indexValues}. The array must not be modified afterwards.
    *
    * @param indexValues index values
    */
@@ -128,7 +128,7 @@ public class DataFrame {
   }
 
   /**
-   * Returns a DoubleSeries wrapping the values array
+   * Returns a DoubleSeries wrapping the values array. The array must not be modified afterwards.
    *
    * @param values base array
    * @return LongSeries wrapping the array
@@ -138,7 +138,7 @@ public class DataFrame {
   }
 
   /**
-   * Returns a LongSeries wrapping the values array
+   * Returns a LongSeries wrapping the values array. The array must not be modified afterwards.
    *
    * @param values base array
    * @return LongSeries wrapping the array
@@ -207,6 +207,33 @@ public class DataFrame {
     return new Builder(seriesNames);
   }
 
+  /**
+   * Returns a builder instance for DataFrame with a schema known up front. Values are written
+   * directly into columns of the given native types.
+   *
+   * @param seriesNames series names of the DataFrame
+   * @param seriesTypes native types of the series
+   * @return DataFrame builder
+   */
+  public static Builder builder(List<String> seriesNames, List<Series.SeriesType> seriesTypes) {
+    return new Builder(seriesNames, seriesTypes, 0);
+  }
+
+  /**
+   * Returns a builder instance for DataFrame with a schema and a number of rows known up front.
+   * Columns are allocated for {@code expectedRowCount} rows: if exactly this number of rows is
+   * appended, the columns are handed over to the DataFrame without a copy.
+   *
+   * @param seriesNames series names of the DataFrame
+   * @param seriesTypes native types of the series
+   * @param expectedRowCount expected number of rows. More rows can be appended
+   * @return DataFrame builder
+   */
+  public static Builder builder(List<String> seriesNames, List<Series.SeriesType> seriesTypes,
+      int expectedRowCount) {
+    return new Builder(seriesNames, seriesTypes, expectedRowCount);
+  }
+
   /**
    * Returns a builder instance for DoubleSeries
    *
@@ -577,6 +604,10 @@ public class DataFrame {
     }
   }
 
+  /**
+   * Columns are built with the native type of the JDBC column. The native type of object columns is
+   * inferred.
+   */
   public static DataFrame fromResultSet(final ResultSet resultSet) throws SQLException {
     final List<String> columns = new ArrayList<>();
     final List<SeriesType> columnTypes = new ArrayList<>();
@@ -587,37 +618,53 @@ public class DataFrame {
       columns.add(resultSetMetaData.getColumnLabel(i + 1).toLowerCase(Locale.ENGLISH));
       columnTypes.add(jdbcTypeToSeriesType(resultSetMetaData.getColumnType(i + 1)));
     }
-    final DataFrame.Builder builder = DataFrame.builder(columns);
+    final DataFrame.Builder builder = DataFrame.builder(columns, columnTypes);
     while (resultSet.next()) {
-      final Object[] rowData = new Object[columnCount];
       for (int i = 0; i < columnCount; i++) {
-        final SeriesType columnType = columnTypes.get(i);
-        switch (columnType) {
+        switch (columnTypes.get(i)) {
           case DOUBLE:
-            rowData[i] = resultSet.getDouble(i + 1);
+            final double d = resultSet.getDouble(i + 1);
+            if (resultSet.wasNull()) {
+              builder.appendNull(i);
+            } else {
+              builder.appendDouble(i, d);
+            }
             break;
           case LONG:
-            rowData[i] = resultSet.getLong(i + 1);
-            break;
-          case STRING:
-            rowData[i] = resultSet.getString(i + 1);
+            final long l = resultSet.getLong(i + 1);
+            if (resultSet.wasNull()) {
+              builder.appendNull(i);
+            } else {
+              builder.appendLong(i, l);
+            }
             break;
           case BOOLEAN:
-            rowData[i] = resultSet.getBoolean(i + 1);
+            final boolean b = resultSet.getBoolean(i + 1);
+            if (resultSet.wasNull()) {
+              builder.appendNull(i);
+            } else {
+              builder.appendBoolean(i, b);
+            }
+            break;
+          case STRING:
+            builder.appendString(i, resultSet.getString(i + 1));
             break;
           case OBJECT:
-            rowData[i] = resultSet.getObject(i + 1);
+            final Object o = resultSet.getObject(i + 1);
+            builder.appendObject(i, resultSet.wasNull() ? null : o);
             break;
           default:
-            throw new RuntimeException("Unrecognized data type - " + columnTypes.get(i + 1));
-        }
-        if (resultSet.wasNull()) {
-          rowData[i] = null;
+            throw new RuntimeException("Unrecognized data type - " + columnTypes.get(i));
         }
       }
-      builder.append(rowData);
     }
-    return builder.build();
+    final DataFrame df = builder.build();
+    for (int i = 0; i < columnCount; i++) {
+      if (columnTypes.get(i) == SeriesType.OBJECT) {
+        df.addSeries(columns.get(i), df.getObjects(columns.get(i)).toInferredType());
+      }
+    }
+    return df;
   }
 
   private static SeriesType jdbcTypeToSeriesType(final int columnType) {
@@ -1563,12 +1610,26 @@ public class DataFrame {
    * @throws IllegalArgumentException if the series does not exist
    */
   public DataFrame sortedBy(List<String> seriesNames) {
-    DataFrame df = this;
+    if (seriesNames.isEmpty()) {
+      return this;
+    }
+    // compose the stable sorts on the row indices - the DataFrame is projected once
+    int[] fromIndex = null;
     for (int i = seriesNames.size() - 1; i >= 0; i--) {
       // TODO support "-series" order inversion
-      df = df.project(df.get(seriesNames.get(i)).sortedIndex());
+      Series s = this.get(seriesNames.get(i));
+      if (fromIndex == null) {
+        fromIndex = s.sortedIndex();
+      } else {
+        int[] sortedIndex = s.project(fromIndex).sortedIndex();
+        int[] composed = new int[sortedIndex.length];
+        for (int j = 0; j < sortedIndex.length; j++) {
+          composed[j] = fromIndex[sortedIndex[j]];
+        }
+        fromIndex = composed;
+      }
     }
-    return df;
+    return this.project(fromIndex);
   }
 
   /**
@@ -1855,20 +1916,37 @@ public class DataFrame {
    * @return DataFrame copy without null rows
    */
   public DataFrame dropNull(List<String> seriesNames) {
-    BooleanSeries isNull = BooleanSeries.fillValues(this.size(), false);
+    // union of the null bitmaps - series without null are skipped
+    long[] nullRows = null;
     for (Series s : assertSeriesExist(seriesNames)) {
-      isNull = isNull.or(s.isNull());
+      long[] bitmap = s.nullBitmap();
+      if (bitmap.length == 0) {
+        continue;
+      }
+      if (nullRows == null) {
+        nullRows = new long[bitmap.length];
+      }
+      for (int w = 0; w < bitmap.length; w++) {
+        nullRows[w] |= bitmap[w];
+      }
+    }
+    if (nullRows == null) {
+      return new DataFrame(this);
     }
 
-    int[] fromIndex = new int[isNull.count(false)];
+    int countNull = 0;
+    for (long word : nullRows) {
+      countNull += Long.bitCount(word);
+    }
+    int[] fromIndex = new int[this.size() - countNull];
     int countNotNull = 0;
     for (int i = 0; i < this.size(); i++) {
-      if (BooleanSeries.isFalse(isNull.getBoolean(i))) {
+      if (!Series.isNull(nullRows, i)) {
         fromIndex[countNotNull++] = i;
       }
     }
 
-    return this.project(Arrays.copyOf(fromIndex, countNotNull));
+    return this.project(fromIndex);
   }
 
   /* **************************************************************************
@@ -2428,53 +2506,61 @@ public class DataFrame {
   }
 
   /**
-   * Builder for DataFrame in row-by-row sequence. Constructs each column as a StringSeries
-   * and attempts to infer a tighter native type on completion.
+   * Builder for DataFrame in row-by-row sequence. Series names may specify the native type of the
+   * column with a "name:TYPE" suffix. Columns without a type are constructed as ObjectSeries and a
+   * tighter native type is inferred on completion.
+   *
+   * Values are written directly into typed columns. The typed append methods write primitive
+   * values without boxing. They must be called in row order: every column of a row before the
+   * next row.
    */
   public static final class Builder {
 
     final List<String> seriesNames;
-    final List<Object[]> rows = new ArrayList<>();
+    final List<ColumnAppender> columns;
+    /**
+     * true for columns without user specified type.
+     */
+    final boolean[] inferred;
 
     Builder(List<String> seriesNames) {
-      this.seriesNames = seriesNames;
-    }
-
-    private static double toDouble(Object o) {
-      if (o == null) {
-        return DoubleSeries.NULL;
-      }
-      if (o instanceof Number) {
-        return ((Number) o).doubleValue();
-      }
-      return StringSeries.getDouble(o.toString());
-    }
+      this.seriesNames = new ArrayList<>(seriesNames.size());
+      this.columns = new ArrayList<>(seriesNames.size());
+      this.inferred = new boolean[seriesNames.size()];
+      for (int i = 0; i < seriesNames.size(); i++) {
+        String rawName = seriesNames.get(i);
+        String[] parts = rawName.split(":");
+        String typeString = parts[parts.length - 1];
 
-    private static long toLong(Object o) {
-      if (o == null) {
-        return LongSeries.NULL;
-      }
-      if (o instanceof Number) {
-        return ((Number) o).longValue();
+        if (parts.length > 1 && getValidTypes().contains(typeString)) {
+          // user specified type
+          this.seriesNames.add(StringUtils.join(Arrays.copyOf(parts, parts.length - 1), ":"));
+          this.columns.add(ColumnAppender.of(Series.SeriesType.valueOf(typeString)));
+        } else {
+          // dynamic type
+          this.seriesNames.add(rawName);
+          this.columns.add(ColumnAppender.of(Series.SeriesType.OBJECT));
+          this.inferred[i] = true;
+        }
       }
-      return StringSeries.getLong(o.toString());
     }
 
-    private static String toString(Object o) {
-      if (o == null) {
-        return StringSeries.NULL;
+    Builder(List<String> seriesNames, List<Series.SeriesType> seriesTypes,
+        int expectedRowCount) {
+      if (seriesNames.size() != seriesTypes.size()) {
+        throw new IllegalArgumentException(
+            String.format("Expected %d types, but got %d", seriesNames.size(), seriesTypes.size()));
       }
-      return StringSeries.getString(o.toString());
-    }
-
-    private static byte toBoolean(Object o) {
-      if (o == null) {
-        return BooleanSeries.NULL;
+      if (expectedRowCount < 0) {
+        throw new IllegalArgumentException(
+            String.format("Expected row count must be >= 0, but got %d", expectedRowCount));
       }
-      if (o instanceof Number) {
-        return BooleanSeries.valueOf(((Number) o).doubleValue() != 0.0d);
+      this.seriesNames = new ArrayList<>(seriesNames);
+      this.columns = new ArrayList<>(seriesNames.size());
+      this.inferred = new boolean[seriesNames.size()];
+      for (Series.SeriesType type : seriesTypes) {
+        this.columns.add(ColumnAppender.of(type, expectedRowCount));
       }
-      return StringSeries.getBoolean(o.toString());
     }
 
     public Builder append(Collection<Object[]> rows) {
@@ -2483,7 +2569,9 @@ public class DataFrame {
           throw new IllegalArgumentException(
               String.format("Expected %d values, but got %d", seriesNames.size(), row.length));
         }
-        this.rows.add(row);
+        for (int i = 0; i < row.length; i++) {
+          this.columns.get(i).appendObject(row[i]);
+        }
       }
       return this;
     }
@@ -2496,94 +2584,54 @@ public class DataFrame {
       return this.append(Collections.singleton(row));
     }
 
-    public DataFrame build() {
-      DataFrame df = new DataFrame();
-
-      // infer column types
-      for (int i = 0; i < seriesNames.size(); i++) {
-        String rawName = seriesNames.get(i);
-
-        String[] parts = rawName.split(":");
-        String typeString = parts[parts.length - 1];
-
-        if (parts.length > 1 && getValidTypes().contains(typeString)) {
-          // user specified type
-          String name = StringUtils.join(Arrays.copyOf(parts, parts.length - 1), ":");
-          Series.SeriesType type = Series.SeriesType.valueOf(typeString);
-          Series series = buildSeries(type, i);
-          df.addSeries(name, series);
-        } else {
-          // dynamic type
-          ObjectSeries series = buildObjectSeries(i);
-          Series.SeriesType type = series.inferType();
-          df.addSeries(rawName, series.get(type));
-        }
-      }
-
-      return df;
+    public Builder appendDouble(int columnIndex, double value) {
+      this.columns.get(columnIndex).appendDouble(value);
+      return this;
     }
 
-    private Series buildSeries(Series.SeriesType type, int columnIndex) {
-      switch (type) {
-        case DOUBLE:
-          return buildDoubleSeries(columnIndex);
-        case LONG:
-          return buildLongSeries(columnIndex);
-        case STRING:
-          return buildStringSeries(columnIndex);
-        case BOOLEAN:
-          return buildBooleanSeries(columnIndex);
-        case OBJECT:
-          return buildObjectSeries(columnIndex);
-        default:
-          throw new IllegalArgumentException(String.format("Unknown series type '%s'", type));
-      }
+    public Builder appendLong(int columnIndex, long value) {
+      this.columns.get(columnIndex).appendLong(value);
+      return this;
     }
 
-    // TODO implement ObjectSeries
-    private DoubleSeries buildDoubleSeries(int columnIndex) {
-      double[] values = new double[this.rows.size()];
-      int i = 0;
-      for (Object[] r : this.rows) {
-        values[i++] = toDouble(r[columnIndex]);
-      }
-      return DoubleSeries.buildFrom(values);
+    public Builder appendBoolean(int columnIndex, boolean value) {
+      this.columns.get(columnIndex).appendBoolean(value);
+      return this;
     }
 
-    private LongSeries buildLongSeries(int columnIndex) {
-      long[] values = new long[this.rows.size()];
-      int i = 0;
-      for (Object[] r : this.rows) {
-        values[i++] = toLong(r[columnIndex]);
-      }
-      return LongSeries.buildFrom(values);
+    public Builder appendString(int columnIndex, String value) {
+      this.columns.get(columnIndex).appendString(value);
+      return this;
     }
 
-    private StringSeries buildStringSeries(int columnIndex) {
-      String[] values = new String[this.rows.size()];
-      int i = 0;
-      for (Object[] r : this.rows) {
-        values[i++] = toString(r[columnIndex]);
-      }
-      return StringSeries.buildFrom(values);
+    public Builder appendObject(int columnIndex, Object value) {
+      this.columns.get(columnIndex).appendObject(value);
+      return this;
     }
 
-    private BooleanSeries buildBooleanSeries(int columnIndex) {
-      byte[] values = new byte[this.rows.size()];
-      int i = 0;
-      for (Object[] r : this.rows) {
-        values[i++] = toBoolean(r[columnIndex]);
-      }
-      return BooleanSeries.buildFrom(values);
+    public Builder appendNull(int columnIndex) {
+      this.columns.get(columnIndex).appendNull();
+      return this;
     }
 
-    private ObjectSeries buildObjectSeries(int columnIndex) {
-      Object[] values = new Object[this.rows.size()];
-      int i = 0;
-      for (Object[] r : this.rows) {
-        values[i++] = r[columnIndex];
+    public DataFrame build() {
+      DataFrame df = new DataFrame();
+
+      for (int i = 0; i < seriesNames.size(); i++) {
+        ColumnAppender column = this.columns.get(i);
+        if (column.size() != this.columns.get(0).size()) {
+          throw new IllegalStateException(String.format(
+              "Column '%s' has %d values, but column '%s' has %d values", seriesNames.get(i),
+              column.size(), seriesNames.get(0), this.columns.get(0).size()));
+        }
+        Series series = column.build();
+        if (this.inferred[i]) {
+          series = ((ObjectSeries) series).toInferredType();
+        }
+        df.addSeries(seriesNames.get(i), series);
       }
-      return ObjectSeries.buildFrom(values);
+
+      return df;
     }
   }
 
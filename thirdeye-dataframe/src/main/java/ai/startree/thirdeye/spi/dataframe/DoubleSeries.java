@@ -13,11 +13,10 @@
  */
 package ai.startree.thirdeye.spi.dataframe;
 
+import ai.startree.thirdeye.spi.dataframe.SeriesKernels.Operation;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import org.apache.commons.math3.stat.correlation.Covariance;
 import org.apache.commons.math3.stat.correlation.PearsonsCorrelation;
@@ -54,11 +53,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
         return NULL;
       }
       // TODO sort, add low to high for accuracy?
-      double result = 0.0d;
-      for (double v : values) {
-        result += v;
-      }
-      return result;
+      return SeriesKernels.INSTANCE.sum(values);
     }
   }
 
@@ -87,13 +82,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
       }
 
       // TODO sort, add low to high for accuracy?
-      double sum = 0.0d;
-      int count = 0;
-      for (double v : values) {
-        sum += v;
-        count++;
-      }
-      return sum / count;
+      return SeriesKernels.INSTANCE.sum(values) / values.length;
     }
   }
 
@@ -147,11 +136,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
       if (values.length <= 0) {
         return NULL;
       }
-      double min = values[0];
-      for (double v : values) {
-        min = Math.min(min, v);
-      }
-      return min;
+      return SeriesKernels.INSTANCE.min(values);
     }
   }
 
@@ -162,11 +147,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
       if (values.length <= 0) {
         return NULL;
       }
-      double max = values[0];
-      for (double v : values) {
-        max = Math.max(max, v);
-      }
-      return max;
+      return SeriesKernels.INSTANCE.max(values);
     }
   }
 
@@ -189,10 +170,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
         return NULL;
       }
       double mean = MEAN.apply(values);
-      double var = 0.0;
-      for (double v : values) {
-        var += (v - mean) * (v - mean);
-      }
+      double var = SeriesKernels.INSTANCE.sumSquaredDeviations(values, mean);
       return Math.sqrt(var / (values.length - 1));
     }
   }
@@ -336,6 +314,13 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     return new Builder();
   }
 
+  /**
+   * Returns a series wrapping {@code values}, without a copy. The array must not be modified
+   * afterwards: series are immutable and cache their null bitmap.
+   *
+   * @param values series values
+   * @return series wrapping the values
+   */
   public static DoubleSeries buildFrom(double... values) {
     return new DoubleSeries(values);
   }
@@ -456,6 +441,11 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     return SeriesType.DOUBLE;
   }
 
+  /**
+   * Returns the backing array of the series, without a copy. The array must not be modified.
+   *
+   * @return series values
+   */
   public double[] values() {
     return this.values;
   }
@@ -650,72 +640,48 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (other.size() == 1) {
       return this.add(other.getDouble(0));
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] + values[1];
-      }
-    }, this, other);
+    DoubleSeries o = other.getDoubles();
+    assertSameLength(this, o);
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.ADD, this.values, o.values));
   }
 
   public DoubleSeries add(final double constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] + constant;
-      }
-    });
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.ADD, this.values, constant));
   }
 
   public DoubleSeries subtract(Series other) {
     if (other.size() == 1) {
       return this.subtract(other.getDouble(0));
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] - values[1];
-      }
-    }, this, other);
+    DoubleSeries o = other.getDoubles();
+    assertSameLength(this, o);
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.SUBTRACT, this.values, o.values));
   }
 
   public DoubleSeries subtract(final double constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] - constant;
-      }
-    });
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.SUBTRACT, this.values, constant));
   }
 
   public DoubleSeries multiply(Series other) {
     if (other.size() == 1) {
       return this.multiply(other.getDouble(0));
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] * values[1];
-      }
-    }, this, other);
+    DoubleSeries o = other.getDoubles();
+    assertSameLength(this, o);
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.MULTIPLY, this.values, o.values));
   }
 
   public DoubleSeries multiply(final double constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] * constant;
-      }
-    });
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.MULTIPLY, this.values, constant));
   }
 
   public DoubleSeries divide(Series other) {
@@ -726,12 +692,8 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (o.contains(0.0d)) {
       throw new ArithmeticException("/ by zero");
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] / values[1];
-      }
-    }, this, o);
+    assertSameLength(this, o);
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.DIVIDE, this.values, o.values));
   }
 
   public DoubleSeries divide(final double constant) {
@@ -741,12 +703,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (constant == 0.0d) {
       throw new ArithmeticException("/ by zero");
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] / constant;
-      }
-    });
+    return buildFrom(SeriesKernels.INSTANCE.apply(Operation.DIVIDE, this.values, constant));
   }
 
   public DoubleSeries pow(Series other) {
@@ -1005,6 +962,9 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    * @return series copy without nulls
    */
   public DoubleSeries fillNull(double value) {
+    if (!this.hasNull()) {
+      return this;
+    }
     double[] values = Arrays.copyOf(this.values, this.values.length);
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
@@ -1104,6 +1064,12 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   private static DoubleSeries mapUnrolled(DoubleFunction function, Series a) {
     double[] output = new double[a.size()];
+    if (!a.hasNull()) {
+      for (int i = 0; i < a.size(); i++) {
+        output[i] = function.apply(a.getDouble(i));
+      }
+      return buildFrom(output);
+    }
     for (int i = 0; i < a.size(); i++) {
       if (a.isNull(i)) {
         output[i] = NULL;
@@ -1116,6 +1082,12 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   private static DoubleSeries mapUnrolled(DoubleFunction function, Series a, Series b) {
     double[] output = new double[a.size()];
+    if (!a.hasNull() && !b.hasNull()) {
+      for (int i = 0; i < a.size(); i++) {
+        output[i] = function.apply(a.getDouble(i), b.getDouble(i));
+      }
+      return buildFrom(output);
+    }
     for (int i = 0; i < a.size(); i++) {
       if (a.isNull(i) || b.isNull(i)) {
         output[i] = NULL;
@@ -1128,6 +1100,12 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   private static DoubleSeries mapUnrolled(DoubleFunction function, Series a, Series b, Series c) {
     double[] output = new double[a.size()];
+    if (!a.hasNull() && !b.hasNull() && !c.hasNull()) {
+      for (int i = 0; i < a.size(); i++) {
+        output[i] = function.apply(a.getDouble(i), b.getDouble(i), c.getDouble(i));
+      }
+      return buildFrom(output);
+    }
     for (int i = 0; i < a.size(); i++) {
       if (a.isNull(i) || b.isNull(i) || c.isNull(i)) {
         output[i] = NULL;
@@ -1272,33 +1250,10 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   int[] sortedIndex() {
-    List<DoubleSortTuple> tuples = new ArrayList<>();
-    for (int i = 0; i < this.values.length; i++) {
-      tuples.add(new DoubleSortTuple(this.values[i], i));
-    }
-
-    Collections.sort(tuples, new Comparator<DoubleSortTuple>() {
-      @Override
-      public int compare(DoubleSortTuple a, DoubleSortTuple b) {
-        return nullSafeDoubleComparator(a.value, b.value);
-      }
-    });
-
-    int[] fromIndex = new int[tuples.size()];
-    for (int i = 0; i < tuples.size(); i++) {
-      fromIndex[i] = tuples.get(i).index;
-    }
-    return fromIndex;
-  }
-
-  static final class DoubleSortTuple {
-
-    final double value;
-    final int index;
-
-    DoubleSortTuple(double value, int index) {
-      this.value = value;
-      this.index = index;
+    long[] keys = new long[this.values.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = PrimitiveSort.sortableKey(this.values[i]);
     }
+    return PrimitiveSort.sortedIndex(keys);
   }
 }
@@ -16,9 +16,8 @@ package ai.startree.thirdeye.spi.dataframe;
 import ai.startree.thirdeye.spi.dataframe.Series.LongConditional;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.BitSet;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -223,7 +222,7 @@ public abstract class Grouping {
    */
   abstract Series apply(Series s, int groupIndex);
 
-  private GroupingDataFrame makeResult(Series s) {
+  GroupingDataFrame makeResult(Series s) {
     return new GroupingDataFrame(GROUP_KEY, GROUP_VALUE, this.keys, s);
   }
 
@@ -623,97 +622,260 @@ public abstract class Grouping {
    */
   public static final class GroupingByValue extends Grouping {
 
-    private final List<int[]> buckets;
+    private final PrimitiveGroupIndex index;
 
-    private GroupingByValue(Series keys, List<int[]> buckets) {
+    private GroupingByValue(Series keys, PrimitiveGroupIndex index) {
       super(keys);
-      this.buckets = buckets;
+      this.index = index;
     }
 
     @Override
     Series apply(Series s, int groupIndex) {
-      return s.project(this.buckets.get(groupIndex));
+      return s.project(this.index.rows(groupIndex));
     }
 
-    public static GroupingByValue from(Series series) {
-      if (series.isEmpty()) {
-        return new GroupingByValue(series.getBuilder().build(), new ArrayList<int[]>());
+    @Override
+    GroupingDataFrame count(Series s) {
+      long[] values = new long[this.size()];
+      for (int i = 0; i < this.size(); i++) {
+        values[i] = this.index.size(i);
       }
-      if (Series.SeriesType.OBJECT.equals(series.type())) {
-        return from(series.getObjects());
+      return makeResult(LongSeries.buildFrom(values));
+    }
+
+    @Override
+    GroupingDataFrame sum(Series s) {
+      switch (s.type()) {
+        case DOUBLE:
+          return makeResult(DoubleSeries.buildFrom(this.sumDoubles(s.getDoubles().values())));
+        case LONG:
+          return makeResult(LongSeries.buildFrom(this.sumLongs(s.getLongs().values())));
+        default:
+          return super.sum(s);
       }
+    }
 
-      List<int[]> buckets = new ArrayList<>();
-      int[] sref = series.sortedIndex();
+    @Override
+    GroupingDataFrame min(Series s) {
+      switch (s.type()) {
+        case DOUBLE:
+          return makeResult(
+              DoubleSeries.buildFrom(this.minMaxDoubles(s.getDoubles().values(), true)));
+        case LONG:
+          return makeResult(LongSeries.buildFrom(this.minMaxLongs(s.getLongs().values(), true)));
+        default:
+          return super.min(s);
+      }
+    }
 
-      int bucketOffset = 0;
-      for (int i = 1; i < sref.length; i++) {
-        if (!series.equals(series, sref[i - 1], sref[i])) {
-          int[] fromIndex = Arrays.copyOfRange(sref, bucketOffset, i);
-          buckets.add(fromIndex);
-          bucketOffset = i;
-        }
+    @Override
+    GroupingDataFrame max(Series s) {
+      switch (s.type()) {
+        case DOUBLE:
+          return makeResult(
+              DoubleSeries.buildFrom(this.minMaxDoubles(s.getDoubles().values(), false)));
+        case LONG:
+          return makeResult(LongSeries.buildFrom(this.minMaxLongs(s.getLongs().values(), false)));
+        default:
+          return super.max(s);
+      }
+    }
+
+    @Override
+    GroupingDataFrame mean(Series s) {
+      switch (s.type()) {
+        case DOUBLE:
+          return makeResult(DoubleSeries.buildFrom(this.meanDoubles(s.getDoubles().values())));
+        case LONG:
+          return makeResult(DoubleSeries.buildFrom(this.meanLongs(s.getLongs().values())));
+        default:
+          return super.mean(s);
       }
+    }
 
-      int[] fromIndex = Arrays.copyOfRange(sref, bucketOffset, sref.length);
-      buckets.add(fromIndex);
+    // typed aggregations scan the source once in row order. Nulls are skipped and groups without
+    // values aggregate to null, same as aggregating each group separately.
 
-      return new GroupingByValue(series.project(keysFromBuckets(buckets)), buckets);
+    private double[] sumDoubles(double[] values) {
+      int[] counts = new int[this.size()];
+      double[] sums = this.laneSums(values, counts);
+      for (int g = 0; g < sums.length; g++) {
+        if (counts[g] == 0) {
+          sums[g] = DoubleSeries.NULL;
+        }
+      }
+      return sums;
     }
 
-    public static GroupingByValue from(ObjectSeries series) {
-      Map<Object, List<Integer>> dynBuckets = new LinkedHashMap<>();
+    private long[] sumLongs(long[] values) {
+      int[] groupIds = this.index.groupIds;
+      long[] sums = new long[this.size()];
+      int[] counts = new int[this.size()];
+      for (int i = 0; i < values.length; i++) {
+        if (!LongSeries.isNull(values[i])) {
+          sums[groupIds[i]] += values[i];
+          counts[groupIds[i]]++;
+        }
+      }
+      for (int g = 0; g < sums.length; g++) {
+        if (counts[g] == 0) {
+          sums[g] = LongSeries.NULL;
+        }
+      }
+      return sums;
+    }
 
-      for (int i = 0; i < series.size(); i++) {
-        Object key = series.getObject(i);
-        if (!dynBuckets.containsKey(key)) {
-          dynBuckets.put(key, new ArrayList<Integer>());
+    private double[] minMaxDoubles(double[] values, boolean min) {
+      int[] groupIds = this.index.groupIds;
+      double[] results = new double[this.size()];
+      Arrays.fill(results, DoubleSeries.NULL);
+      for (int i = 0; i < values.length; i++) {
+        double v = values[i];
+        if (DoubleSeries.isNull(v)) {
+          continue;
+        }
+        int g = groupIds[i];
+        double r = results[g];
+        if (DoubleSeries.isNull(r)) {
+          results[g] = v;
+        } else {
+          results[g] = min ? Math.min(r, v) : Math.max(r, v);
         }
-        dynBuckets.get(key).add(i);
       }
+      return results;
+    }
 
-      List<int[]> buckets = new ArrayList<>();
-      for (Map.Entry<Object, List<Integer>> entry : dynBuckets.entrySet()) {
-        buckets.add(ArrayUtils.toPrimitive(
-            entry.getValue().toArray(new Integer[0])));
+    private long[] minMaxLongs(long[] values, boolean min) {
+      int[] groupIds = this.index.groupIds;
+      long[] results = new long[this.size()];
+      boolean[] seen = new boolean[this.size()];
+      for (int i = 0; i < values.length; i++) {
+        long v = values[i];
+        if (LongSeries.isNull(v)) {
+          continue;
+        }
+        int g = groupIds[i];
+        if (!seen[g]) {
+          results[g] = v;
+          seen[g] = true;
+        } else {
+          results[g] = min ? Math.min(results[g], v) : Math.max(results[g], v);
+        }
+      }
+      for (int g = 0; g < results.length; g++) {
+        if (!seen[g]) {
+          results[g] = LongSeries.NULL;
+        }
       }
+      return results;
+    }
 
-      return new GroupingByValue(series.project(keysFromBuckets(buckets)), buckets);
+    private double[] meanDoubles(double[] values) {
+      int[] counts = new int[this.size()];
+      return divide(this.laneSums(values, counts), counts);
     }
 
-    public static GroupingByValue from(Series[] series) {
-      Series.assertSameLength(series);
+    private double[] meanLongs(long[] values) {
+      int[] groupIds = this.index.groupIds;
+      double[] lanes = new double[this.size() * SeriesKernels.LANES];
+      int[] counts = new int[this.size()];
+      for (int i = 0; i < values.length; i++) {
+        if (!LongSeries.isNull(values[i])) {
+          int g = groupIds[i];
+          lanes[g * SeriesKernels.LANES + counts[g] % SeriesKernels.LANES] += (double) values[i];
+          counts[g]++;
+        }
+      }
+      return divide(reduceLanes(lanes), counts);
+    }
 
-      List<int[]> buckets = new ArrayList<>();
-      PrimitiveMultimap m = new PrimitiveMultimap(series);
-      BitSet b = new BitSet(series[0].size());
+    /**
+     * Returns the sums of the non-null values of each group, in the order of
+     * {@link SeriesKernels#sum(double[])}, so that they are identical to the sums of the groups
+     * as separate series. Sets the number of non-null values of each group in {@code counts}.
+     */
+    private double[] laneSums(double[] values, int[] counts) {
+      int[] groupIds = this.index.groupIds;
+      double[] lanes = new double[this.size() * SeriesKernels.LANES];
+      for (int i = 0; i < values.length; i++) {
+        if (!DoubleSeries.isNull(values[i])) {
+          int g = groupIds[i];
+          lanes[g * SeriesKernels.LANES + counts[g] % SeriesKernels.LANES] += values[i];
+          counts[g]++;
+        }
+      }
+      return reduceLanes(lanes);
+    }
 
-      for (int i = 0; i < series[0].size(); i++) {
-        if (!b.get(i)) {
-          int[] keys = m.get(series, i, series);
-          for (int k : keys) {
-            b.set(k);
+    private static double[] reduceLanes(double[] lanes) {
+      double[] sums = new double[lanes.length / SeriesKernels.LANES];
+      for (int g = 0; g < sums.length; g++) {
+        sums[g] = SeriesKernels.reduceLanes(lanes, g * SeriesKernels.LANES);
+      }
+      return sums;
+    }
+
+    private static double[] divide(double[] sums, int[] counts) {
+      for (int g = 0; g < sums.length; g++) {
+        sums[g] = counts[g] == 0 ? DoubleSeries.NULL : sums[g] / counts[g];
+      }
+      return sums;
+    }
+
+    public static GroupingByValue from(Series series) {
+      switch (series.type()) {
+        case OBJECT:
+          return from(series.getObjects());
+        case DOUBLE:
+          double[] doubles = series.getDoubles().values();
+          long[] doubleKeys = new long[doubles.length];
+          for (int i = 0; i < doubles.length; i++) {
+            doubleKeys[i] = PrimitiveSort.sortableKey(doubles[i]);
           }
-          buckets.add(keys);
+          return fromIndex(series, PrimitiveGroupIndex.fromKeys(doubleKeys));
+        case LONG:
+          return fromIndex(series, PrimitiveGroupIndex.fromKeys(series.getLongs().values()));
+        default:
+          // hash first, then sort the (few) distinct keys only
+          PrimitiveGroupIndex index = PrimitiveGroupIndex.fromSeries(new Series[]{series});
+          int[] order = series.project(index.firstRows()).sortedIndex();
+          return fromIndex(series, index.reorder(order));
+      }
+    }
+
+    public static GroupingByValue from(ObjectSeries series) {
+      Map<Object, Integer> groups = new HashMap<>();
+      int[] groupIds = new int[series.size()];
+
+      for (int i = 0; i < series.size(); i++) {
+        Object key = series.getObject(i);
+        Integer groupId = groups.get(key);
+        if (groupId == null) {
+          groupId = groups.size();
+          groups.put(key, groupId);
         }
+        groupIds[i] = groupId;
       }
 
-      int[] keys = keysFromBuckets(buckets);
+      return fromIndex(series, PrimitiveGroupIndex.fromGroupIds(groupIds, groups.size()));
+    }
+
+    public static GroupingByValue from(Series[] series) {
+      Series.assertSameLength(series);
+
+      PrimitiveGroupIndex index = PrimitiveGroupIndex.fromSeries(series);
+
+      int[] keys = index.firstRows();
       DataFrame.Tuple[] tuples = new DataFrame.Tuple[keys.length];
       for (int i = 0; i < keys.length; i++) {
         tuples[i] = DataFrame.Tuple.buildFrom(series, keys[i]);
       }
 
-      return new GroupingByValue(ObjectSeries.buildFrom((Object[]) tuples), buckets);
+      return new GroupingByValue(ObjectSeries.buildFrom((Object[]) tuples), index);
     }
 
-    private static int[] keysFromBuckets(List<int[]> buckets) {
-      int[] keyIndex = new int[buckets.size()];
-      int i = 0;
-      for (int[] b : buckets) {
-        keyIndex[i++] = b[0];
-      }
-      return keyIndex;
+    private static GroupingByValue fromIndex(Series series, PrimitiveGroupIndex index) {
+      return new GroupingByValue(series.project(index.firstRows()), index);
     }
   }
 
@@ -16,8 +16,6 @@ package ai.startree.thirdeye.spi.dataframe;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -44,11 +42,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
       if (values.length <= 0) {
         return NULL;
       }
-      long result = 0;
-      for (long v : values) {
-        result += v;
-      }
-      return result;
+      return SeriesKernels.INSTANCE.sum(values);
     }
   }
 
@@ -96,11 +90,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
       if (values.length <= 0) {
         return NULL;
       }
-      long min = values[0];
-      for (long v : values) {
-        min = Math.min(min, v);
-      }
-      return min;
+      return SeriesKernels.INSTANCE.min(values);
     }
   }
 
@@ -111,11 +101,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
       if (values.length <= 0) {
         return NULL;
       }
-      long max = values[0];
-      for (long v : values) {
-        max = Math.max(max, v);
-      }
-      return max;
+      return SeriesKernels.INSTANCE.max(values);
     }
   }
 
@@ -193,6 +179,13 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     return new Builder();
   }
 
+  /**
+   * Returns a series wrapping {@code values}, without a copy. The array must not be modified
+   * afterwards: series are immutable and cache their null bitmap.
+   *
+   * @param values series values
+   * @return series wrapping the values
+   */
   public static LongSeries buildFrom(long... values) {
     return new LongSeries(values);
   }
@@ -322,6 +315,11 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     return SeriesType.LONG;
   }
 
+  /**
+   * Returns the backing array of the series, without a copy. The array must not be modified.
+   *
+   * @return series values
+   */
   public long[] values() {
     return this.values;
   }
@@ -742,6 +740,9 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    * @return series copy without nulls
    */
   public LongSeries fillNull(long value) {
+    if (!this.hasNull()) {
+      return this;
+    }
     long[] values = Arrays.copyOf(this.values, this.values.length);
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
@@ -831,6 +832,12 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   private static LongSeries mapUnrolled(LongFunction function, Series a) {
     long[] output = new long[a.size()];
+    if (!a.hasNull()) {
+      for (int i = 0; i < a.size(); i++) {
+        output[i] = function.apply(a.getLong(i));
+      }
+      return buildFrom(output);
+    }
     for (int i = 0; i < a.size(); i++) {
       if (a.isNull(i)) {
         output[i] = NULL;
@@ -843,6 +850,12 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   private static LongSeries mapUnrolled(LongFunction function, Series a, Series b) {
     long[] output = new long[a.size()];
+    if (!a.hasNull() && !b.hasNull()) {
+      for (int i = 0; i < a.size(); i++) {
+        output[i] = function.apply(a.getLong(i), b.getLong(i));
+      }
+      return buildFrom(output);
+    }
     for (int i = 0; i < a.size(); i++) {
       if (a.isNull(i) || b.isNull(i)) {
         output[i] = NULL;
@@ -855,6 +868,12 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   private static LongSeries mapUnrolled(LongFunction function, Series a, Series b, Series c) {
     long[] output = new long[a.size()];
+    if (!a.hasNull() && !b.hasNull() && !c.hasNull()) {
+      for (int i = 0; i < a.size(); i++) {
+        output[i] = function.apply(a.getLong(i), b.getLong(i), c.getLong(i));
+      }
+      return buildFrom(output);
+    }
     for (int i = 0; i < a.size(); i++) {
       if (a.isNull(i) || b.isNull(i) || c.isNull(i)) {
         output[i] = NULL;
@@ -952,33 +971,6 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   int[] sortedIndex() {
-    List<LongSortTuple> tuples = new ArrayList<>();
-    for (int i = 0; i < this.values.length; i++) {
-      tuples.add(new LongSortTuple(this.values[i], i));
-    }
-
-    Collections.sort(tuples, new Comparator<LongSortTuple>() {
-      @Override
-      public int compare(LongSortTuple a, LongSortTuple b) {
-        return Long.compare(a.value, b.value);
-      }
-    });
-
-    int[] fromIndex = new int[tuples.size()];
-    for (int i = 0; i < tuples.size(); i++) {
-      fromIndex[i] = tuples.get(i).index;
-    }
-    return fromIndex;
-  }
-
-  static final class LongSortTuple {
-
-    final long value;
-    final int index;
-
-    LongSortTuple(long value, int index) {
-      this.value = value;
-      this.index = index;
-    }
+    return PrimitiveSort.sortedIndex(this.values);
   }
 }
@@ -529,6 +529,9 @@ public class ObjectSeries extends TypedSeries<ObjectSeries> {
    * @return series copy without nulls
    */
   public ObjectSeries fillNull(Object value) {
+    if (!this.hasNull()) {
+      return this;
+    }
     Object[] values = Arrays.copyOf(this.values, this.values.length);
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.Arrays;
+
+/**
+ * Group index for group-by operations. Primitive, fixed size. Assigns a dense group id to every
+ * row via an open-addressing hash table with linear probing, and lays out the rows of each group
+ * contiguously: the rows of group {@code g} are {@code rows[offsets[g]]} to
+ * {@code rows[offsets[g + 1] - 1]}, in ascending order.
+ */
+final class PrimitiveGroupIndex {
+
+  private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+  final int[] groupIds;
+  final int groupCount;
+  final int[] offsets;
+  final int[] rows;
+
+  private PrimitiveGroupIndex(int[] groupIds, int groupCount) {
+    this.groupIds = groupIds;
+    this.groupCount = groupCount;
+
+    // counting sort by group id, stable
+    this.offsets = new int[groupCount + 1];
+    for (int g : groupIds) {
+      this.offsets[g + 1]++;
+    }
+    for (int g = 0; g < groupCount; g++) {
+      this.offsets[g + 1] += this.offsets[g];
+    }
+
+    this.rows = new int[groupIds.length];
+    int[] next = Arrays.copyOf(this.offsets, groupCount);
+    for (int i = 0; i < groupIds.length; i++) {
+      this.rows[next[groupIds[i]]++] = i;
+    }
+  }
+
+  /**
+   * Returns the group index of primitive keys. Groups are numbered in the ascending signed order
+   * of their keys.
+   *
+   * @param keys row keys
+   * @return group index
+   */
+  static PrimitiveGroupIndex fromKeys(long[] keys) {
+    final int bits = tableBits(keys.length);
+    final int mask = (1 << bits) - 1;
+    final long[] tableKeys = new long[1 << bits];
+    final int[] tableGroups = new int[1 << bits]; // group id + 1, 0 indicates empty
+
+    long[] groupKeys = new long[Math.max(keys.length, 1)];
+    int[] groupIds = new int[keys.length];
+    int groupCount = 0;
+
+    for (int i = 0; i < keys.length; i++) {
+      long key = keys[i];
+      int slot = (int) ((key * GOLDEN) >>> (64 - bits));
+      while (true) {
+        int g = tableGroups[slot];
+        if (g == 0) {
+          tableKeys[slot] = key;
+          tableGroups[slot] = ++groupCount;
+          groupKeys[groupCount - 1] = key;
+          groupIds[i] = groupCount - 1;
+          break;
+        }
+        if (tableKeys[slot] == key) {
+          groupIds[i] = g - 1;
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    int[] order = PrimitiveSort.sortedIndex(Arrays.copyOf(groupKeys, groupCount));
+    return renumber(groupIds, order);
+  }
+
+  /**
+   * Returns the group index of the rows of multiple series. Groups are numbered in the order of
+   * their first occurrence.
+   *
+   * @param series series with same length
+   * @return group index
+   */
+  static PrimitiveGroupIndex fromSeries(Series[] series) {
+    final int size = series[0].size();
+    final int bits = tableBits(size);
+    final int mask = (1 << bits) - 1;
+    final int[] tableHashes = new int[1 << bits];
+    final int[] tableGroups = new int[1 << bits]; // group id + 1, 0 indicates empty
+
+    int[] groupRows = new int[size];
+    int[] groupIds = new int[size];
+    int groupCount = 0;
+
+    for (int i = 0; i < size; i++) {
+      int hash = PrimitiveMultimap.hashRow(series, i);
+      int slot = (int) (((hash & 0xFFFFFFFFL) * GOLDEN) >>> (64 - bits));
+      while (true) {
+        int g = tableGroups[slot];
+        if (g == 0) {
+          tableHashes[slot] = hash;
+          tableGroups[slot] = ++groupCount;
+          groupRows[groupCount - 1] = i;
+          groupIds[i] = groupCount - 1;
+          break;
+        }
+        if (tableHashes[slot] == hash
+            && Series.equalsMultiple(series, series, groupRows[g - 1], i)) {
+          groupIds[i] = g - 1;
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    return new PrimitiveGroupIndex(groupIds, groupCount);
+  }
+
+  /**
+   * Returns the group index of precomputed group ids.
+   *
+   * @param groupIds group id per row, between {@code 0} and {@code groupCount - 1}
+   * @param groupCount number of groups
+   * @return group index
+   */
+  static PrimitiveGroupIndex fromGroupIds(int[] groupIds, int groupCount) {
+    return new PrimitiveGroupIndex(groupIds, groupCount);
+  }
+
+  /**
+   * Returns a copy of the group index with groups renumbered in the given order.
+   *
+   * @param order old group id for each new group id
+   * @return reordered group index
+   */
+  PrimitiveGroupIndex reorder(int[] order) {
+    return renumber(Arrays.copyOf(this.groupIds, this.groupIds.length), order);
+  }
+
+  /**
+   * Returns the first row of each group.
+   *
+   * @return first row per group
+   */
+  int[] firstRows() {
+    int[] firstRows = new int[this.groupCount];
+    for (int g = 0; g < this.groupCount; g++) {
+      firstRows[g] = this.rows[this.offsets[g]];
+    }
+    return firstRows;
+  }
+
+  /**
+   * Returns the rows of a group, in ascending order.
+   *
+   * @param group group id
+   * @return rows of group
+   */
+  int[] rows(int group) {
+    return Arrays.copyOfRange(this.rows, this.offsets[group], this.offsets[group + 1]);
+  }
+
+  /**
+   * Returns the number of rows in a group.
+   *
+   * @param group group id
+   * @return group size
+   */
+  int size(int group) {
+    return this.offsets[group + 1] - this.offsets[group];
+  }
+
+  private static PrimitiveGroupIndex renumber(int[] groupIds, int[] order) {
+    int[] newIds = new int[order.length];
+    for (int g = 0; g < order.length; g++) {
+      newIds[order[g]] = g;
+    }
+    for (int i = 0; i < groupIds.length; i++) {
+      groupIds[i] = newIds[groupIds[i]];
+    }
+    return new PrimitiveGroupIndex(groupIds, order.length);
+  }
+
+  private static int tableBits(int size) {
+    // load factor <= 0.5
+    int bits = 1;
+    while ((1 << bits) < 2L * size) {
+      bits++;
+    }
+    return bits;
+  }
+}
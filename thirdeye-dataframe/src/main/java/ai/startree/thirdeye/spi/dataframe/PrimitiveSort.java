@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+/**
+ * Stable index sort over primitive keys. Does not allocate per row and does not box. Sorted input,
+ * such as a time column, is detected in a single pass. Small inputs use an insertion sort, larger
+ * ones a LSD radix sort on bytes that skips the bytes all keys share - eg the high bytes of
+ * timestamps.
+ */
+final class PrimitiveSort {
+
+  private static final int INSERTION_SORT_THRESHOLD = 64;
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX_SIZE = 1 << RADIX_BITS;
+  private static final int RADIX_MASK = RADIX_SIZE - 1;
+  private static final int RADIX_PASSES = Long.SIZE / RADIX_BITS;
+
+  private PrimitiveSort() {
+    // left blank
+  }
+
+  /**
+   * Returns the key of a double value such that the signed order of keys is the order of {@code
+   * Double.compare()}, with {@code null} (NaN) first.
+   */
+  static long sortableKey(double value) {
+    if (DoubleSeries.isNull(value)) {
+      return Long.MIN_VALUE;
+    }
+    long bits = Double.doubleToLongBits(value);
+    // negative values: reverse the order of the magnitude bits
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns the indices of the keys in ascending signed order. Equal keys keep their original
+   * order.
+   *
+   * @param keys keys to sort - not modified
+   * @return indices of sorted keys
+   */
+  static int[] sortedIndex(long[] keys) {
+    int[] index = new int[keys.length];
+    for (int i = 0; i < index.length; i++) {
+      index[i] = i;
+    }
+    if (isSorted(keys)) {
+      return index;
+    }
+    if (keys.length < INSERTION_SORT_THRESHOLD) {
+      insertionSort(keys, index);
+      return index;
+    }
+    return radixSort(keys, index);
+  }
+
+  private static boolean isSorted(long[] keys) {
+    for (int i = 1; i < keys.length; i++) {
+      if (keys[i - 1] > keys[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void insertionSort(long[] keys, int[] index) {
+    for (int i = 1; i < index.length; i++) {
+      int current = index[i];
+      long key = keys[current];
+      int j = i - 1;
+      while (j >= 0 && keys[index[j]] > key) {
+        index[j + 1] = index[j];
+        j--;
+      }
+      index[j + 1] = current;
+    }
+  }
+
+  private static int[] radixSort(long[] keys, int[] index) {
+    int n = keys.length;
+
+    // flip the sign bit: unsigned order of the flipped keys is the signed order of the keys
+    long[] srcKeys = new long[n];
+    int[][] counts = new int[RADIX_PASSES][RADIX_SIZE];
+    for (int i = 0; i < n; i++) {
+      long key = keys[i] ^ Long.MIN_VALUE;
+      srcKeys[i] = key;
+      for (int pass = 0; pass < RADIX_PASSES; pass++) {
+        counts[pass][(int) (key >>> (pass * RADIX_BITS)) & RADIX_MASK]++;
+      }
+    }
+
+    long[] dstKeys = new long[n];
+    int[] src = index;
+    int[] dst = new int[n];
+    for (int pass = 0; pass < RADIX_PASSES; pass++) {
+      int shift = pass * RADIX_BITS;
+      int[] count = counts[pass];
+      if (count[(int) (srcKeys[0] >>> shift) & RADIX_MASK] == n) {
+        // all keys share this byte
+        continue;
+      }
+
+      int offset = 0;
+      for (int b = 0; b < RADIX_SIZE; b++) {
+        int c = count[b];
+        count[b] = offset;
+        offset += c;
+      }
+
+      for (int i = 0; i < n; i++) {
+        long key = srcKeys[i];
+        int pos = count[(int) (key >>> shift) & RADIX_MASK]++;
+        dst[pos] = src[i];
+        dstKeys[pos] = key;
+      }
+
+      int[] tmp = src;
+      src = dst;
+      dst = tmp;
+      long[] tmpKeys = srcKeys;
+      srcKeys = dstKeys;
+      dstKeys = tmpKeys;
+    }
+    return src;
+  }
+}
@@ -43,6 +43,17 @@ public abstract class Series {
 
   public static final String TOSTRING_NULL = "null";
 
+  private static final long[] NO_NULL = new long[0];
+
+  /**
+   * Null bitmap: bit {@code i} is set if the value at index {@code i} is null. This is a cache
+   * of a scan of the null sentinels (see {@link #isNull(int)}), not a separate validity vector:
+   * a NaN double reads as null and boolean values stay one byte each. Computed on first use -
+   * series are immutable and their backing arrays must not be modified. {@code NO_NULL} if the
+   * series has no null value.
+   */
+  private volatile long[] nullBitmap;
+
   public enum SeriesType {
     DOUBLE,
     LONG,
@@ -697,6 +708,9 @@ public abstract class Series {
    * @return forward filled series
    */
   public Series fillNullForward() {
+    if (!this.hasNull()) {
+      return this;
+    }
     int lastValueIndex = -1;
     int[] fromIndex = new int[this.size()];
     for (int i = 0; i < this.size(); i++) {
@@ -716,6 +730,9 @@ public abstract class Series {
    * @return backward filled series
    */
   public Series fillNullBackward() {
+    if (!this.hasNull()) {
+      return this;
+    }
     int lastValueIndex = -1;
     int[] fromIndex = new int[this.size()];
     for (int i = this.size() - 1; i >= 0; i--) {
@@ -745,12 +762,7 @@ public abstract class Series {
    * @return {@code true} if empty, {@code false} otherwise
    */
   public final boolean hasNull() {
-    for (int i = 0; i < this.size(); i++) {
-      if (this.isNull(i)) {
-        return true;
-      }
-    }
-    return false;
+    return nullBitmap() != NO_NULL;
   }
 
   /**
@@ -759,12 +771,7 @@ public abstract class Series {
    * @return {@code true} if all null or empty, {@code false} otherwise.
    */
   public final boolean allNull() {
-    for (int i = 0; i < this.size(); i++) {
-      if (!this.isNull(i)) {
-        return false;
-      }
-    }
-    return true;
+    return this.count() == 0;
   }
 
   /**
@@ -773,13 +780,48 @@ public abstract class Series {
    * @return count of non-null values
    */
   public final int count() {
-    int countNotNull = 0;
-    for (int i = 0; i < this.size(); i++) {
-      if (!this.isNull(i)) {
-        countNotNull++;
+    final long[] bitmap = nullBitmap();
+    int countNull = 0;
+    for (final long word : bitmap) {
+      countNull += Long.bitCount(word);
+    }
+    return this.size() - countNull;
+  }
+
+  /**
+   * Returns the null bitmap of the series: bit {@code i} of word {@code i / 64} is set if the
+   * value at index {@code i} is null, i.e. holds the null sentinel of the series type. Returns
+   * an empty array if the series has no null value.
+   * Callers can skip null checks entirely when the array is empty.
+   *
+   * @return null bitmap
+   */
+  final long[] nullBitmap() {
+    long[] bitmap = this.nullBitmap;
+    if (bitmap == null) {
+      // benign race: the bitmap is deterministic
+      bitmap = computeNullBitmap();
+      this.nullBitmap = bitmap;
+    }
+    return bitmap;
+  }
+
+  private long[] computeNullBitmap() {
+    final int size = this.size();
+    long[] bitmap = null;
+    for (int i = 0; i < size; i++) {
+      if (this.isNull(i)) {
+        if (bitmap == null) {
+          bitmap = new long[(size + 63) >>> 6];
+        }
+        bitmap[i >>> 6] |= 1L << i;
       }
     }
-    return countNotNull;
+    return bitmap == null ? NO_NULL : bitmap;
+  }
+
+  static boolean isNull(final long[] nullBitmap, final int index) {
+    return nullBitmap != NO_NULL && (nullBitmap[index >>> 6] & (1L << index)) != 0;
   }
 
   /**
@@ -877,17 +919,18 @@ public abstract class Series {
    * @return series copy without {@code nulls}
    */
   public Series dropNull() {
-    if (!this.hasNull()) {
+    final long[] bitmap = nullBitmap();
+    if (bitmap == NO_NULL) {
       return this;
     }
-    int[] fromIndex = new int[this.size()];
+    int[] fromIndex = new int[this.count()];
     int count = 0;
     for (int i = 0; i < this.size(); i++) {
-      if (!isNull(i)) {
+      if (!isNull(bitmap, i)) {
         fromIndex[count++] = i;
       }
     }
-    return this.project(Arrays.copyOf(fromIndex, count));
+    return this.project(fromIndex);
   }
 
   /**
@@ -897,9 +940,12 @@ public abstract class Series {
    * @return boolean series indicating null-equivalence of each value
    */
   public BooleanSeries isNull() {
+    final long[] bitmap = nullBitmap();
     byte[] values = new byte[this.size()];
-    for (int i = 0; i < this.size(); i++) {
-      values[i] = BooleanSeries.valueOf(this.isNull(i));
+    if (bitmap != NO_NULL) {
+      for (int i = 0; i < this.size(); i++) {
+        values[i] = BooleanSeries.valueOf(isNull(bitmap, i));
+      }
     }
     return BooleanSeries.buildFrom(values);
   }
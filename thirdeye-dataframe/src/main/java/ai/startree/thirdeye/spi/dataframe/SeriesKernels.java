@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+/**
+ * Array kernels for series reductions and element-wise arithmetic. The default implementation
+ * is scalar. If the JVM runs with {@code --add-modules jdk.incubator.vector} on a platform with
+ * vectors of at least {@link #LANES} doubles, the SIMD reductions of {@link VectorSeriesKernels}
+ * are used instead. Set the system property {@code thirdeye.dataframe.vector=false} to force the
+ * scalar kernels.
+ * <br/><b>NOTE:</b> sums of doubles are computed in a fixed order, see {@link #LANES}. Results
+ * are identical on the scalar and the SIMD kernels, on every platform.
+ */
+class SeriesKernels {
+
+  static final String VECTOR_PROPERTY = "thirdeye.dataframe.vector";
+  static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+  /**
+   * Number of partial sums of the double sums: value {@code i} is added to the partial sum
+   * {@code i % LANES}, and the partial sums are added in order, see {@link #reduceLanes}. The
+   * SIMD kernels add one vector of LANES values per step, in the same order. Grouping uses the
+   * same order for the sums and the means of its groups.
+   */
+  static final int LANES = 4;
+
+  static final SeriesKernels INSTANCE = load();
+
+  enum Operation {
+    ADD,
+    SUBTRACT,
+    MULTIPLY,
+    DIVIDE
+  }
+
+  private static SeriesKernels load() {
+    if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+        || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      return new SeriesKernels();
+    }
+    try {
+      // loaded reflectively: the class cannot be linked without the incubator module
+      final SeriesKernels kernels = (SeriesKernels) Class.forName(
+          SeriesKernels.class.getPackageName() + ".VectorSeriesKernels")
+          .getDeclaredConstructor().newInstance();
+      return kernels.isVectorized() ? kernels : new SeriesKernels();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return new SeriesKernels();
+    }
+  }
+
+  /**
+   * Returns {@code true} if the kernels use SIMD instructions.
+   */
+  boolean isVectorized() {
+    return false;
+  }
+
+  /**
+   * Returns the sum of the partial sums {@code lanes[offset]} to {@code lanes[offset + LANES - 1]},
+   * in order.
+   */
+  static double reduceLanes(double[] lanes, int offset) {
+    return lanes[offset] + lanes[offset + 1] + lanes[offset + 2] + lanes[offset + 3];
+  }
+
+  double sum(double[] values) {
+    double[] lanes = new double[LANES];
+    for (int i = 0; i < values.length; i++) {
+      lanes[i % LANES] += values[i];
+    }
+    return reduceLanes(lanes, 0);
+  }
+
+  /**
+   * Returns the sum of squared differences to {@code mean}.
+   */
+  double sumSquaredDeviations(double[] values, double mean) {
+    double[] lanes = new double[LANES];
+    for (int i = 0; i < values.length; i++) {
+      lanes[i % LANES] += (values[i] - mean) * (values[i] - mean);
+    }
+    return reduceLanes(lanes, 0);
+  }
+
+  /**
+   * Returns the minimum value. Requires a non-empty array.
+   */
+  double min(double[] values) {
+    double min = values[0];
+    for (double v : values) {
+      min = Math.min(min, v);
+    }
+    return min;
+  }
+
+  /**
+   * Returns the maximum value. Requires a non-empty array.
+   */
+  double max(double[] values) {
+    double max = values[0];
+    for (double v : values) {
+      max = Math.max(max, v);
+    }
+    return max;
+  }
+
+  long sum(long[] values) {
+    long result = 0;
+    for (long v : values) {
+      result += v;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the minimum value. Requires a non-empty array.
+   */
+  long min(long[] values) {
+    long min = values[0];
+    for (long v : values) {
+      min = Math.min(min, v);
+    }
+    return min;
+  }
+
+  /**
+   * Returns the maximum value. Requires a non-empty array.
+   */
+  long max(long[] values) {
+    long max = values[0];
+    for (long v : values) {
+      max = Math.max(max, v);
+    }
+    return max;
+  }
+
+  /**
+   * Applies {@code operation} element-wise to arrays of same length. Null values (NaN) propagate.
+   */
+  double[] apply(Operation operation, double[] a, double[] b) {
+    double[] output = new double[a.length];
+    switch (operation) {
+      case ADD:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] + b[i];
+        }
+        break;
+      case SUBTRACT:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] - b[i];
+        }
+        break;
+      case MULTIPLY:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] * b[i];
+        }
+        break;
+      case DIVIDE:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] / b[i];
+        }
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown operation '%s'", operation));
+    }
+    return output;
+  }
+
+  /**
+   * Applies {@code operation} with a constant right operand element-wise. Null values (NaN)
+   * propagate.
+   */
+  double[] apply(Operation operation, double[] a, double constant) {
+    double[] output = new double[a.length];
+    switch (operation) {
+      case ADD:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] + constant;
+        }
+        break;
+      case SUBTRACT:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] - constant;
+        }
+        break;
+      case MULTIPLY:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] * constant;
+        }
+        break;
+      case DIVIDE:
+        for (int i = 0; i < a.length; i++) {
+          output[i] = a[i] / constant;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown operation '%s'", operation));
+    }
+    return output;
+  }
+}
@@ -548,6 +548,9 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * @return series copy without nulls
    */
   public StringSeries fillNull(String value) {
+    if (!this.hasNull()) {
+      return this;
+    }
     String[] values = Arrays.copyOf(this.values, this.values.length);
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
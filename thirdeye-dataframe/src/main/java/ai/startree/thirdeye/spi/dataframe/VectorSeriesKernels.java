@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD reductions. Requires the incubator module {@code jdk.incubator.vector} at runtime. Only
+ * instantiated via {@link SeriesKernels}.
+ * Sums of doubles use vectors of {@link SeriesKernels#LANES} doubles, so that they add values in
+ * the order of the scalar kernels. The other reductions do not depend on the order and use the
+ * preferred vector shape of the platform.
+ * <br/><b>NOTE:</b> element-wise arithmetic is inherited from the scalar kernels. The JIT
+ * auto-vectorizes these loops already.
+ */
+final class VectorSeriesKernels extends SeriesKernels {
+
+  private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Double> DOUBLE_LANES = DoubleVector.SPECIES_256;
+
+  static {
+    assert DOUBLE_LANES.length() == LANES;
+  }
+
+  /**
+   * Returns {@code false} if the platform has no vector of {@link SeriesKernels#LANES} doubles.
+   * The sums would be emulated and much slower than the scalar kernels.
+   */
+  @Override
+  boolean isVectorized() {
+    return DOUBLES.length() >= LANES;
+  }
+
+  @Override
+  double sum(double[] values) {
+    int i = 0;
+    int bound = DOUBLE_LANES.loopBound(values.length);
+    DoubleVector acc = DoubleVector.zero(DOUBLE_LANES);
+    for (; i < bound; i += LANES) {
+      acc = acc.add(DoubleVector.fromArray(DOUBLE_LANES, values, i));
+    }
+    // not reduceLanes(ADD): its order is not specified
+    double[] lanes = acc.toArray();
+    for (int lane = 0; i < values.length; i++, lane++) {
+      lanes[lane] += values[i];
+    }
+    return reduceLanes(lanes, 0);
+  }
+
+  @Override
+  double sumSquaredDeviations(double[] values, double mean) {
+    int i = 0;
+    int bound = DOUBLE_LANES.loopBound(values.length);
+    DoubleVector acc = DoubleVector.zero(DOUBLE_LANES);
+    for (; i < bound; i += LANES) {
+      DoubleVector delta = DoubleVector.fromArray(DOUBLE_LANES, values, i).sub(mean);
+      acc = acc.add(delta.mul(delta));
+    }
+    double[] lanes = acc.toArray();
+    for (int lane = 0; i < values.length; i++, lane++) {
+      lanes[lane] += (values[i] - mean) * (values[i] - mean);
+    }
+    return reduceLanes(lanes, 0);
+  }
+
+  @Override
+  double min(double[] values) {
+    int i = 0;
+    int bound = DOUBLES.loopBound(values.length);
+    DoubleVector acc = DoubleVector.broadcast(DOUBLES, values[0]);
+    for (; i < bound; i += DOUBLES.length()) {
+      acc = acc.min(DoubleVector.fromArray(DOUBLES, values, i));
+    }
+    double min = acc.reduceLanes(VectorOperators.MIN);
+    for (; i < values.length; i++) {
+      min = Math.min(min, values[i]);
+    }
+    return min;
+  }
+
+  @Override
+  double max(double[] values) {
+    int i = 0;
+    int bound = DOUBLES.loopBound(values.length);
+    DoubleVector acc = DoubleVector.broadcast(DOUBLES, values[0]);
+    for (; i < bound; i += DOUBLES.length()) {
+      acc = acc.max(DoubleVector.fromArray(DOUBLES, values, i));
+    }
+    double max = acc.reduceLanes(VectorOperators.MAX);
+    for (; i < values.length; i++) {
+      max = Math.max(max, values[i]);
+    }
+    return max;
+  }
+
+  @Override
+  long sum(long[] values) {
+    int i = 0;
+    int bound = LONGS.loopBound(values.length);
+    LongVector acc = LongVector.zero(LONGS);
+    for (; i < bound; i += LONGS.length()) {
+      acc = acc.add(LongVector.fromArray(LONGS, values, i));
+    }
+    long result = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < values.length; i++) {
+      result += values[i];
+    }
+    return result;
+  }
+
+  @Override
+  long min(long[] values) {
+    int i = 0;
+    int bound = LONGS.loopBound(values.length);
+    LongVector acc = LongVector.broadcast(LONGS, values[0]);
+    for (; i < bound; i += LONGS.length()) {
+      acc = acc.min(LongVector.fromArray(LONGS, values, i));
+    }
+    long min = acc.reduceLanes(VectorOperators.MIN);
+    for (; i < values.length; i++) {
+      min = Math.min(min, values[i]);
+    }
+    return min;
+  }
+
+  @Override
+  long max(long[] values) {
+    int i = 0;
+    int bound = LONGS.loopBound(values.length);
+    LongVector acc = LongVector.broadcast(LONGS, values[0]);
+    for (; i < bound; i += LONGS.length()) {
+      acc = acc.max(LongVector.fromArray(LONGS, values, i));
+    }
+    long max = acc.reduceLanes(VectorOperators.MAX);
+    for (; i < values.length; i++) {
+      max = Math.max(max, values[i]);
+    }
+    return max;
+  }
+}
@@ -716,6 +716,62 @@ public class DataFrameBenchmark {
     logResults("benchmarkAggregateLongArray", checksum);
   }
 
+  private void benchmarkAggregateDoubleSeries() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      double[] doubleValues = generateDoubleData(N_ELEMENTS);
+      DoubleSeries series = DoubleSeries.buildFrom(doubleValues);
+
+      startTimer();
+      double out = series.sum().value();
+      stopTimer();
+
+      checksum ^= checksum(out);
+    }
+
+    logResults("benchmarkAggregateDoubleSeries", checksum);
+  }
+
+  private void benchmarkAggregateDoubleArray() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      double[] doubleValues = generateDoubleData(N_ELEMENTS);
+
+      startTimer();
+      double sum = 0;
+      for (int i = 0; i < N_ELEMENTS; i++) {
+        sum += doubleValues[i];
+      }
+      stopTimer();
+
+      checksum ^= checksum(sum);
+    }
+
+    logResults("benchmarkAggregateDoubleArray", checksum);
+  }
+
+  private void benchmarkStdDoubleSeries() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      double[] doubleValues = generateDoubleData(N_ELEMENTS);
+      DoubleSeries series = DoubleSeries.buildFrom(doubleValues);
+
+      startTimer();
+      double out = series.std().value();
+      stopTimer();
+
+      checksum ^= checksum(out);
+    }
+
+    logResults("benchmarkStdDoubleSeries", checksum);
+  }
+
   private void benchmarkHasNullLongSeries() {
     startTimerOuter();
     long checksum = 0;
@@ -1006,6 +1062,9 @@ public class DataFrameBenchmark {
     benchmarkDropNullLongArray();
     benchmarkAggregateLongSeries();
     benchmarkAggregateLongArray();
+    benchmarkAggregateDoubleSeries();
+    benchmarkAggregateDoubleArray();
+    benchmarkStdDoubleSeries();
     benchmarkMinMaxLongSeries();
     benchmarkMinMaxLongArray();
     benchmarkEqualsLongSeries();
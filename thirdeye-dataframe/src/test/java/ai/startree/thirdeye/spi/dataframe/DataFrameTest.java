@@ -514,6 +514,76 @@ public class DataFrameTest {
     DataFrame.builder("long:LONG").append("true").build();
   }
 
+  @Test
+  public void testDataFrameBuilderSchema() {
+    DataFrame.Builder builder = DataFrame.builder(List.of("double", "long", "string", "boolean"),
+        List.of(Series.SeriesType.DOUBLE, Series.SeriesType.LONG, Series.SeriesType.STRING,
+            Series.SeriesType.BOOLEAN));
+    for (int i = 0; i < 20; i++) {
+      builder.appendDouble(0, i + 0.5d)
+          .appendLong(1, i)
+          .appendString(2, String.valueOf(i))
+          .appendBoolean(3, i % 2 == 0);
+    }
+    builder.appendNull(0).appendNull(1).appendNull(2).appendNull(3);
+
+    DataFrame df = builder.build();
+    Assert.assertEquals(df.size(), 21);
+    Assert.assertEquals(df.get("double").type(), Series.SeriesType.DOUBLE);
+    Assert.assertEquals(df.get("long").type(), Series.SeriesType.LONG);
+    Assert.assertEquals(df.get("string").type(), Series.SeriesType.STRING);
+    Assert.assertEquals(df.get("boolean").type(), Series.SeriesType.BOOLEAN);
+    Assert.assertEquals(df.getDouble("double", 19), 19.5d);
+    Assert.assertEquals(df.getLong("long", 19), 19L);
+    Assert.assertEquals(df.getString("string", 19), "19");
+    Assert.assertEquals(df.getBoolean("boolean", 19), BooleanSeries.FALSE);
+    Assert.assertTrue(df.isNull("double", 20));
+    Assert.assertTrue(df.isNull("long", 20));
+    Assert.assertTrue(df.isNull("string", 20));
+    Assert.assertTrue(df.isNull("boolean", 20));
+  }
+
+  @Test
+  public void testDataFrameBuilderAppendAfterBuild() {
+    DataFrame.Builder builder = DataFrame.builder(List.of("long"), List.of(Series.SeriesType.LONG));
+    builder.appendLong(0, 1);
+    DataFrame first = builder.build();
+    builder.appendLong(0, 2);
+    DataFrame second = builder.build();
+
+    assertEquals(first.getLongs("long"), 1);
+    assertEquals(second.getLongs("long"), 1, 2);
+  }
+
+  @Test
+  public void testDataFrameBuilderExpectedRowCount() {
+    DataFrame.Builder builder = DataFrame.builder(List.of("long", "string"),
+        List.of(Series.SeriesType.LONG, Series.SeriesType.STRING), 2);
+    builder.appendLong(0, 1).appendString(1, "a");
+    builder.appendLong(0, 2).appendNull(1);
+    DataFrame first = builder.build();
+    // more rows than expected
+    builder.appendLong(0, 3).appendString(1, "c");
+    DataFrame second = builder.build();
+
+    assertEquals(first.getLongs("long"), 1, 2);
+    assertEquals(first.getStrings("string"), "a", SNULL);
+    assertEquals(second.getLongs("long"), 1, 2, 3);
+    assertEquals(second.getStrings("string"), "a", SNULL, "c");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDataFrameBuilderNegativeExpectedRowCount() {
+    DataFrame.builder(List.of("a"), List.of(Series.SeriesType.LONG), -1);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testDataFrameBuilderIncompleteRow() {
+    DataFrame.builder(List.of("a", "b"), List.of(Series.SeriesType.LONG, Series.SeriesType.LONG))
+        .appendLong(0, 1)
+        .build();
+  }
+
   @Test
   public void testDoubleNull() {
     Series s = DataFrame.toSeries(1.0, DNULL, 2.0);
@@ -1829,6 +1899,72 @@ public class DataFrameTest {
     Assert.assertEquals(df.dropNull().size(), df.size());
   }
 
+  @Test
+  public void testDropNullRowsAcrossBitmapWords() {
+    double[] doubles = new double[200];
+    long[] longs = new long[200];
+    for (int i = 0; i < 200; i++) {
+      doubles[i] = i % 63 == 0 ? DNULL : i;
+      longs[i] = i % 70 == 1 ? LNULL : i;
+    }
+    DataFrame ddf = new DataFrame()
+        .addSeries("double", doubles)
+        .addSeries("long", longs)
+        .dropNull();
+
+    // doubles null at 0, 63, 126, 189 - longs null at 1, 71, 141
+    Assert.assertEquals(ddf.size(), 193);
+    Assert.assertFalse(ddf.get("double").hasNull());
+    Assert.assertFalse(ddf.get("long").hasNull());
+    Assert.assertEquals(ddf.getLong("long", 0), 2L);
+  }
+
+  @Test
+  public void testNullBitmap() {
+    double[] values = new double[130];
+    values[64] = DNULL;
+    values[129] = DNULL;
+    DoubleSeries s = DoubleSeries.buildFrom(values);
+
+    Assert.assertTrue(s.hasNull());
+    Assert.assertFalse(s.allNull());
+    Assert.assertEquals(s.count(), 128);
+    Assert.assertEquals(s.isNull().count(true), 2);
+    Assert.assertEquals(s.isNull().getBoolean(64), TRUE);
+    Assert.assertEquals(s.dropNull().size(), 128);
+  }
+
+  @Test
+  public void testBuildFromWrapsValues() {
+    double[] doubles = new double[]{1.0, 2.0};
+    Assert.assertSame(DoubleSeries.buildFrom(doubles).values(), doubles);
+
+    long[] longs = new long[]{1, 2};
+    Assert.assertSame(LongSeries.buildFrom(longs).values(), longs);
+  }
+
+  @Test
+  public void testNaNIsNull() {
+    DoubleSeries s = DoubleSeries.buildFrom(1.0, Double.NaN);
+
+    Assert.assertTrue(s.hasNull());
+    Assert.assertTrue(s.isNull(1));
+    Assert.assertEquals(s.count(), 1);
+  }
+
+  @Test
+  public void testNoNullShortcuts() {
+    DoubleSeries s = DoubleSeries.buildFrom(1.0, 2.0, 3.0);
+
+    Assert.assertSame(s.fillNull(), s);
+    Assert.assertSame(s.fillNullForward(), s);
+    Assert.assertSame(s.dropNull(), s);
+    Assert.assertEquals(s.count(), 3);
+    Assert.assertTrue(DoubleSeries.empty().allNull());
+    assertEquals(s.add(s), 2.0, 4.0, 6.0);
+    assertEquals(s.add(DoubleSeries.buildFrom(1.0, DNULL, 1.0)), 2.0, DNULL, 4.0);
+  }
+
   @Test
   public void testDropNullColumns() {
     DataFrame mdf = new DataFrame()
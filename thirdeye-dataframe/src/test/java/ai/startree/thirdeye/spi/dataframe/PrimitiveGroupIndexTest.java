@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import ai.startree.thirdeye.spi.dataframe.Grouping.GroupingByValue;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PrimitiveGroupIndexTest {
+
+  @Test
+  public void testFromKeysOrdersGroupsByKey() {
+    PrimitiveGroupIndex index = PrimitiveGroupIndex.fromKeys(
+        new long[]{5, 3, 5, Long.MIN_VALUE, 3, -1});
+    Assert.assertEquals(index.groupCount, 4);
+    Assert.assertEquals(index.groupIds, new int[]{3, 2, 3, 0, 2, 1});
+    Assert.assertEquals(index.offsets, new int[]{0, 1, 2, 4, 6});
+    Assert.assertEquals(index.rows, new int[]{3, 5, 1, 4, 0, 2});
+    Assert.assertEquals(index.firstRows(), new int[]{3, 5, 1, 0});
+    Assert.assertEquals(index.rows(2), new int[]{1, 4});
+    Assert.assertEquals(index.size(3), 2);
+  }
+
+  @Test
+  public void testFromKeysEmpty() {
+    PrimitiveGroupIndex index = PrimitiveGroupIndex.fromKeys(new long[0]);
+    Assert.assertEquals(index.groupCount, 0);
+    Assert.assertEquals(index.firstRows(), new int[0]);
+  }
+
+  @Test
+  public void testFromSeriesFirstOccurrence() {
+    Series[] series = {
+        StringSeries.buildFrom("b", "a", "b", null, "a", null),
+        LongSeries.buildFrom(1, 2, 1, 3, 2, 3)};
+    PrimitiveGroupIndex index = PrimitiveGroupIndex.fromSeries(series);
+    Assert.assertEquals(index.groupCount, 3);
+    Assert.assertEquals(index.groupIds, new int[]{0, 1, 0, 2, 1, 2});
+    Assert.assertEquals(index.rows, new int[]{0, 2, 1, 4, 3, 5});
+  }
+
+  @Test
+  public void testReorder() {
+    PrimitiveGroupIndex index = PrimitiveGroupIndex.fromGroupIds(new int[]{0, 1, 0, 2}, 3)
+        .reorder(new int[]{2, 0, 1});
+    Assert.assertEquals(index.groupIds, new int[]{1, 2, 1, 0});
+    Assert.assertEquals(index.rows, new int[]{3, 0, 2, 1});
+  }
+
+  @Test
+  public void testTypedAggregationsMatchPerGroupAggregations() {
+    Random random = new Random(7);
+    long[] keys = new long[5000];
+    double[] doubles = new double[keys.length];
+    long[] longs = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextInt(300) - 150;
+      doubles[i] = random.nextInt(10) == 0 ? DoubleSeries.NULL : random.nextGaussian() * 1e3;
+      longs[i] = random.nextInt(10) == 0 ? LongSeries.NULL : random.nextInt();
+    }
+    // all-null group
+    keys[0] = 1000;
+    doubles[0] = DoubleSeries.NULL;
+    longs[0] = LongSeries.NULL;
+
+    for (Series key : new Series[]{LongSeries.buildFrom(keys), LongSeries.buildFrom(keys)
+        .getDoubles(), LongSeries.buildFrom(keys).getStrings()}) {
+      GroupingByValue grouping = GroupingByValue.from(key);
+      for (Series values : new Series[]{DoubleSeries.buildFrom(doubles),
+          LongSeries.buildFrom(longs)}) {
+        Series.Builder sums = values.getBuilder();
+        Series.Builder mins = values.getBuilder();
+        Series.Builder maxs = values.getBuilder();
+        Series.Builder means = DoubleSeries.builder();
+        long[] counts = new long[grouping.size()];
+        for (int i = 0; i < grouping.size(); i++) {
+          Series group = grouping.apply(values, i);
+          sums.addSeries(group.sum());
+          mins.addSeries(group.min());
+          maxs.addSeries(group.max());
+          means.addSeries(group.mean());
+          counts[i] = group.size();
+        }
+        Assert.assertEquals(value(grouping.sum(values)), sums.build());
+        Assert.assertEquals(value(grouping.min(values)), mins.build());
+        Assert.assertEquals(value(grouping.max(values)), maxs.build());
+        Assert.assertEquals(value(grouping.mean(values)), means.build());
+        Assert.assertEquals(value(grouping.count(values)), LongSeries.buildFrom(counts));
+      }
+    }
+  }
+
+  @Test
+  public void testKeysSortedForSingleSeries() {
+    Series keys = GroupingByValue.from(StringSeries.buildFrom("b", null, "a", "b", "c", "a"))
+        .keys();
+    Assert.assertEquals(keys, StringSeries.buildFrom(null, "a", "b", "c"));
+    Series doubleKeys = GroupingByValue.from(
+        DoubleSeries.buildFrom(2.5, DoubleSeries.NULL, -1.0, 2.5, 0.0)).keys();
+    Assert.assertEquals(doubleKeys, DoubleSeries.buildFrom(DoubleSeries.NULL, -1.0, 0.0, 2.5));
+  }
+
+  private static Series value(Grouping.GroupingDataFrame df) {
+    return df.get(Grouping.GROUP_VALUE);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PrimitiveSortTest {
+
+  private static int[] referenceSortedIndex(long[] keys) {
+    // stable boxed sort
+    return Arrays.stream(boxedIndex(keys.length))
+        .sorted(Comparator.comparingLong(i -> keys[i]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private static Integer[] boxedIndex(int size) {
+    Integer[] index = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      index[i] = i;
+    }
+    return index;
+  }
+
+  @Test
+  public void testSortableKeyOrder() {
+    double[] ordered = {Double.NaN, Double.NEGATIVE_INFINITY, -1e300, -1.5, -Double.MIN_VALUE, -0.0,
+        0.0, Double.MIN_VALUE, 1.5, 1e300, Double.POSITIVE_INFINITY};
+    for (int i = 1; i < ordered.length; i++) {
+      Assert.assertTrue(
+          PrimitiveSort.sortableKey(ordered[i - 1]) < PrimitiveSort.sortableKey(ordered[i]),
+          ordered[i - 1] + " < " + ordered[i]);
+    }
+  }
+
+  @Test
+  public void testSortedIndexEmptyAndSorted() {
+    Assert.assertEquals(PrimitiveSort.sortedIndex(new long[0]), new int[0]);
+    Assert.assertEquals(PrimitiveSort.sortedIndex(new long[]{1, 1, 2, 5}), new int[]{0, 1, 2, 3});
+  }
+
+  @Test
+  public void testSortedIndexSmallIsStable() {
+    long[] keys = {3, 1, 2, 1, Long.MIN_VALUE, 3, -1};
+    Assert.assertEquals(PrimitiveSort.sortedIndex(keys), referenceSortedIndex(keys));
+  }
+
+  @Test
+  public void testSortedIndexLargeIsStable() {
+    Random random = new Random(0);
+    for (int size : new int[]{64, 1000, 100_000}) {
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        // duplicates, negative values and sentinels
+        keys[i] = random.nextInt(5) == 0 ? Long.MIN_VALUE : random.nextLong() % 1000;
+      }
+      Assert.assertEquals(PrimitiveSort.sortedIndex(keys), referenceSortedIndex(keys));
+    }
+  }
+
+  @Test
+  public void testSortedIndexTimestamps() {
+    // shuffled timestamps share their high bytes
+    long[] keys = new long[10_000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = 1_700_000_000_000L + 60_000L * ((i * 7919L) % keys.length);
+    }
+    Assert.assertEquals(PrimitiveSort.sortedIndex(keys), referenceSortedIndex(keys));
+  }
+
+  @Test
+  public void testDataFrameSortedByMultipleSeries() {
+    Random random = new Random(1);
+    int size = 500;
+    long[] a = new long[size];
+    double[] b = new double[size];
+    long[] row = new long[size];
+    for (int i = 0; i < size; i++) {
+      a[i] = random.nextInt(10);
+      b[i] = random.nextInt(7) == 0 ? DoubleSeries.NULL : random.nextInt(20) - 10;
+      row[i] = i;
+    }
+    DataFrame df = new DataFrame()
+        .addSeries("a", a)
+        .addSeries("b", b)
+        .addSeries("row", row)
+        .sortedBy("a", "b");
+
+    for (int i = 1; i < size; i++) {
+      long prevA = df.getLong("a", i - 1);
+      long currA = df.getLong("a", i);
+      Assert.assertTrue(prevA <= currA);
+      if (prevA == currA) {
+        int cmp = Long.compare(
+            PrimitiveSort.sortableKey(df.getDouble("b", i - 1)),
+            PrimitiveSort.sortableKey(df.getDouble("b", i)));
+        Assert.assertTrue(cmp <= 0);
+        if (cmp == 0) {
+          // stable
+          Assert.assertTrue(df.getLong("row", i - 1) < df.getLong("row", i));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import ai.startree.thirdeye.spi.dataframe.SeriesKernels.Operation;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class SeriesKernelsTest {
+
+  private static final SeriesKernels SCALAR = new SeriesKernels();
+
+  @DataProvider
+  public static Object[][] sizes() {
+    return new Object[][]{{1}, {3}, {8}, {17}, {1000}, {100_003}};
+  }
+
+  private static SeriesKernels vectorKernels() {
+    if (ModuleLayer.boot().findModule(SeriesKernels.VECTOR_MODULE).isEmpty()) {
+      throw new SkipException("module " + SeriesKernels.VECTOR_MODULE + " not available");
+    }
+    return new VectorSeriesKernels();
+  }
+
+  private static double[] doubles(int size) {
+    Random random = new Random(size);
+    double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = random.nextGaussian() * 1e6;
+    }
+    return values;
+  }
+
+  private static long[] longs(int size) {
+    Random random = new Random(size);
+    long[] values = new long[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = random.nextLong();
+    }
+    return values;
+  }
+
+  @Test
+  public void testInstanceMatchesModule() {
+    boolean available = ModuleLayer.boot().findModule(SeriesKernels.VECTOR_MODULE).isPresent()
+        && Boolean.parseBoolean(System.getProperty(SeriesKernels.VECTOR_PROPERTY, "true"))
+        && new VectorSeriesKernels().isVectorized();
+    Assert.assertEquals(SeriesKernels.INSTANCE.isVectorized(), available);
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testDoubleReductions(int size) {
+    SeriesKernels vector = vectorKernels();
+    double[] values = doubles(size);
+    // same order of additions: identical results
+    Assert.assertEquals(Double.doubleToRawLongBits(vector.sum(values)),
+        Double.doubleToRawLongBits(SCALAR.sum(values)));
+    Assert.assertEquals(Double.doubleToRawLongBits(vector.sumSquaredDeviations(values, 5.0)),
+        Double.doubleToRawLongBits(SCALAR.sumSquaredDeviations(values, 5.0)));
+    Assert.assertEquals(vector.min(values), SCALAR.min(values));
+    Assert.assertEquals(vector.max(values), SCALAR.max(values));
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testLongReductions(int size) {
+    SeriesKernels vector = vectorKernels();
+    long[] values = longs(size);
+    Assert.assertEquals(vector.sum(values), SCALAR.sum(values));
+    Assert.assertEquals(vector.min(values), SCALAR.min(values));
+    Assert.assertEquals(vector.max(values), SCALAR.max(values));
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testDoubleReductionsWithNaN(int size) {
+    SeriesKernels vector = vectorKernels();
+    for (int nanIndex : new int[]{0, size / 2, size - 1}) {
+      double[] values = doubles(size);
+      values[nanIndex] = DoubleSeries.NULL;
+      Assert.assertTrue(Double.isNaN(SCALAR.sum(values)));
+      Assert.assertTrue(Double.isNaN(vector.sum(values)));
+      Assert.assertTrue(Double.isNaN(vector.sumSquaredDeviations(values, 5.0)));
+      Assert.assertEquals(vector.min(values), SCALAR.min(values));
+      Assert.assertEquals(vector.max(values), SCALAR.max(values));
+    }
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testLongReductionsWithNull(int size) {
+    SeriesKernels vector = vectorKernels();
+    for (int nullIndex : new int[]{0, size / 2, size - 1}) {
+      long[] values = longs(size);
+      values[nullIndex] = LongSeries.NULL;
+      Assert.assertEquals(vector.sum(values), SCALAR.sum(values));
+      Assert.assertEquals(vector.min(values), LongSeries.NULL);
+      Assert.assertEquals(vector.max(values), SCALAR.max(values));
+    }
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testSeriesReductionsSkipNulls(int size) {
+    // runs on the kernels of the JVM - scalar or SIMD
+    double[] doubles = doubles(size);
+    long[] longs = longs(size);
+    for (int i = 0; i < size; i += 3) {
+      doubles[i] = DoubleSeries.NULL;
+      longs[i] = LongSeries.NULL;
+    }
+    DoubleSeries doubleSeries = DoubleSeries.buildFrom(doubles);
+    double[] nonNullDoubles = doubleSeries.dropNull().values();
+    LongSeries longSeries = LongSeries.buildFrom(longs);
+    long[] nonNullLongs = longSeries.dropNull().values();
+    if (nonNullDoubles.length == 0) {
+      Assert.assertTrue(doubleSeries.sum().isNull(0));
+      Assert.assertTrue(longSeries.sum().isNull(0));
+      return;
+    }
+    Assert.assertEquals(doubleSeries.sum().value(), SCALAR.sum(nonNullDoubles));
+    Assert.assertEquals(doubleSeries.mean().value(),
+        SCALAR.sum(nonNullDoubles) / nonNullDoubles.length);
+    Assert.assertEquals(doubleSeries.min().value(), SCALAR.min(nonNullDoubles));
+    Assert.assertEquals(doubleSeries.max().value(), SCALAR.max(nonNullDoubles));
+    Assert.assertEquals(longSeries.sum().value(), SCALAR.sum(nonNullLongs));
+    Assert.assertEquals(longSeries.min().value(), SCALAR.min(nonNullLongs));
+    Assert.assertEquals(longSeries.max().value(), SCALAR.max(nonNullLongs));
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testElementWise(int size) {
+    SeriesKernels vector = vectorKernels();
+    double[] a = doubles(size);
+    double[] b = doubles(size + 1);
+    a[0] = DoubleSeries.NULL;
+    for (Operation operation : Operation.values()) {
+      Assert.assertEquals(vector.apply(operation, a, b), SCALAR.apply(operation, a, b));
+      Assert.assertEquals(vector.apply(operation, a, 3.5), SCALAR.apply(operation, a, 3.5));
+    }
+  }
+
+  @Test
+  public void testMinMaxSignedZeroAndInfinity() {
+    SeriesKernels vector = vectorKernels();
+    double[] values = new double[]{0.0, -0.0, 1.0, Double.NEGATIVE_INFINITY, 0.0, -0.0, 2.0, 0.0,
+        Double.POSITIVE_INFINITY, -0.0};
+    Assert.assertEquals(vector.min(values), SCALAR.min(values));
+    Assert.assertEquals(vector.max(values), SCALAR.max(values));
+    double[] zeros = new double[]{0.0, -0.0, 0.0, -0.0, 0.0, -0.0, 0.0, -0.0, 0.0};
+    Assert.assertEquals(Double.doubleToRawLongBits(vector.min(zeros)),
+        Double.doubleToRawLongBits(SCALAR.min(zeros)));
+    Assert.assertEquals(Double.doubleToRawLongBits(vector.max(zeros)),
+        Double.doubleToRawLongBits(SCALAR.max(zeros)));
+  }
+
+  @Test
+  public void testSeriesArithmeticNullPropagation() {
+    DoubleSeries a = DoubleSeries.buildFrom(1.0, DoubleSeries.NULL, 3.0);
+    DoubleSeries b = DoubleSeries.buildFrom(2.0, 2.0, DoubleSeries.NULL);
+    Assert.assertEquals(a.add(b), DoubleSeries.buildFrom(3.0, DoubleSeries.NULL,
+        DoubleSeries.NULL));
+    Assert.assertEquals(a.multiply(LongSeries.buildFrom(2, 3, LongSeries.NULL)),
+        DoubleSeries.buildFrom(2.0, DoubleSeries.NULL, DoubleSeries.NULL));
+    Assert.assertEquals(a.subtract(1.0), DoubleSeries.buildFrom(0.0, DoubleSeries.NULL, 2.0));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSeriesArithmeticSizeMismatch() {
+    DoubleSeries.buildFrom(1.0, 2.0, 3.0).add(DoubleSeries.buildFrom(1.0, 2.0));
+  }
+}
@@ -16,6 +16,11 @@ package ai.startree.thirdeye.detectionpipeline;
 public class DetectionPipelineConfiguration {
 
   private ForkJoinConfiguration forkjoin = new ForkJoinConfiguration();
+  /**
+   * Number of threads shared by all pipelines to run independent nodes in parallel. A pipeline
+   * also runs nodes in its caller thread, so it progresses even if all these threads are busy.
+   */
+  private Integer nodeParallelism = 5;
 
   public ForkJoinConfiguration getForkjoin() {
     return forkjoin;
@@ -26,4 +31,13 @@ public class DetectionPipelineConfiguration {
     this.forkjoin = forkjoin;
     return this;
   }
+
+  public Integer getNodeParallelism() {
+    return nodeParallelism;
+  }
+
+  public DetectionPipelineConfiguration setNodeParallelism(final Integer nodeParallelism) {
+    this.nodeParallelism = nodeParallelism;
+    return this;
+  }
 }
@@ -17,7 +17,9 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
 import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
+import org.joda.time.Period;
 
 public class DetectionPipelineContext {
 
@@ -28,6 +30,12 @@ public class DetectionPipelineContext {
   private DetectionPipelineUsage usage;
   private Long alertId;
   private String namespace;
+  private PlanExecutionProfile profile;
+  /**
+   * Mutability period of the alert. Overrides the mutability period of the datasets. Null if the
+   * alert does not set it.
+   */
+  private @Nullable Period mutabilityPeriod;
 
   public ApplicationContext getApplicationContext() {
     return applicationContext;
@@ -94,4 +102,22 @@ public class DetectionPipelineContext {
     this.namespace = namespace;
     return this;
   }
+
+  public PlanExecutionProfile getProfile() {
+    return profile;
+  }
+
+  public DetectionPipelineContext setProfile(final PlanExecutionProfile profile) {
+    this.profile = profile;
+    return this;
+  }
+
+  public @Nullable Period getMutabilityPeriod() {
+    return mutabilityPeriod;
+  }
+
+  public DetectionPipelineContext setMutabilityPeriod(final @Nullable Period mutabilityPeriod) {
+    this.mutabilityPeriod = mutabilityPeriod;
+    return this;
+  }
 }
@@ -14,11 +14,17 @@
 package ai.startree.thirdeye.detectionpipeline;
 
 import java.time.Duration;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 public class ForkJoinConfiguration {
 
   private Integer parallelism = 5;
   private Duration timeout = Duration.ofHours(1);
+  /**
+   * Size of the thread pool that runs the enumeration items of all the fork joins. Parallelism
+   * bounds the items in flight of a single fork join. Defaults to parallelism.
+   */
+  private @Nullable Integer threads;
 
   public Integer getParallelism() {
     return parallelism;
@@ -29,6 +35,15 @@ public class ForkJoinConfiguration {
     return this;
   }
 
+  public @Nullable Integer getThreads() {
+    return threads;
+  }
+
+  public ForkJoinConfiguration setThreads(final @Nullable Integer threads) {
+    this.threads = threads;
+    return this;
+  }
+
   public Duration getTimeout() {
     return timeout;
   }
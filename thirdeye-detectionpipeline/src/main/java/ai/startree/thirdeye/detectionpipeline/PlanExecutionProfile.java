@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Execution profile of a detection pipeline run. Collects the profile of each executed plan
+ * node. Nodes can be executed concurrently, so adding a node profile is thread-safe.
+ *
+ * Set it in the {@link DetectionPipelineContext} to profile a run.
+ */
+public class PlanExecutionProfile {
+
+  private final ConcurrentLinkedQueue<NodeProfile> nodeProfiles = new ConcurrentLinkedQueue<>();
+
+  public void add(final NodeProfile nodeProfile) {
+    nodeProfiles.add(nodeProfile);
+  }
+
+  /**
+   * @return the node profiles, in order of completion.
+   */
+  public List<NodeProfile> getNodeProfiles() {
+    return List.copyOf(nodeProfiles);
+  }
+
+  /**
+   * @param wallTimeNanos time between the start and the end of the operator execution
+   * @param cpuTimeNanos cpu time of the thread executing the operator. -1 if not supported
+   * @param allocatedBytes bytes allocated by the thread executing the operator. -1 if not
+   *     supported
+   * @param outputRows total number of rows of the outputs that are data tables
+   */
+  public record NodeProfile(String nodeName,
+                            String nodeType,
+                            long wallTimeNanos,
+                            long cpuTimeNanos,
+                            long allocatedBytes,
+                            long outputRows) {}
+}
@@ -17,34 +17,58 @@ import static ai.startree.thirdeye.spi.util.ExecutorUtils.shutdownExecutionServi
 import static ai.startree.thirdeye.spi.util.ExecutorUtils.threadsNamed;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static java.util.Collections.emptyList;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.PlanExecutionProfile.NodeProfile;
 import ai.startree.thirdeye.detectionpipeline.persistence.CachedDatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
 public class PlanExecutor implements AutoCloseable {
 
   public static final String ROOT_NODE_NAME = "root";
 
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
   private final PlanNodeFactory planNodeFactory;
 
   private final DataSourceCache dataSourceCache;
@@ -57,6 +81,7 @@ public class PlanExecutor implements AutoCloseable {
   private final EnumerationItemMaintainer enumerationItemMaintainer;
 
   private final ExecutorService subTaskExecutor;
+  private final ExecutorService nodeExecutor;
 
   @Inject
   public PlanExecutor(final PlanNodeFactory planNodeFactory,
@@ -77,17 +102,119 @@ public class PlanExecutor implements AutoCloseable {
     this.detectionPipelineConfiguration = detectionPipelineConfiguration;
     this.enumerationItemMaintainer = enumerationItemMaintainer;
 
-    final int nThreads = detectionPipelineConfiguration.getForkjoin().getParallelism();
+    final ForkJoinConfiguration forkJoinConfiguration =
+        detectionPipelineConfiguration.getForkjoin();
+    final int nThreads = optional(forkJoinConfiguration.getThreads())
+        .orElse(forkJoinConfiguration.getParallelism());
     subTaskExecutor = Executors.newFixedThreadPool(nThreads, threadsNamed("fork-join-%d"));
     new ExecutorServiceMetrics(subTaskExecutor, "fork-join", emptyList()).bindTo(
         Metrics.globalRegistry);
+    // independent nodes of the pipelines - not shared with the fork join items, that can run long
+    final int nodeThreads = detectionPipelineConfiguration.getNodeParallelism();
+    nodeExecutor = Executors.newFixedThreadPool(nodeThreads, threadsNamed("pipeline-node-%d"));
+    new ExecutorServiceMetrics(nodeExecutor, "pipeline-node", emptyList()).bindTo(
+        Metrics.globalRegistry);
   }
 
+  /**
+   * Executes the DAG of nodes needed to compute the outputs of node, sequentially, in the caller
+   * thread.
+   */
   @VisibleForTesting
   public static void executePlanNode(final Map<String, PlanNode> pipelinePlanNodes,
       final PlanNode node,
       final Map<ContextKey, OperatorResult> resultMap)
       throws Exception {
+    executePlanNode(pipelinePlanNodes, node, resultMap, newDirectExecutorService());
+  }
+
+  /**
+   * Executes the DAG of nodes needed to compute the outputs of node.
+   *
+   * A node is ready as soon as the outputs of all its input nodes are available. Ready nodes are
+   * handed to the executor, so independent branches run in parallel. The caller thread does not
+   * only wait: it runs the ready nodes the executor has not started yet. A busy or saturated
+   * executor slows a pipeline down but never blocks it. The resultMap is only accessed by the
+   * caller thread. If a node fails, the other nodes are cancelled at once - the running ones are
+   * interrupted, in the executor or in the caller thread - and the exception of the failed node
+   * is rethrown. The content of the resultMap does not depend on the execution order.
+   */
+  @VisibleForTesting
+  public static void executePlanNode(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final Executor executor)
+      throws Exception {
+    // nodes to execute and their input nodes, in discovery order
+    final Map<String, PlanNode> nodesToExecute = new HashMap<>();
+    final Map<String, Set<String>> nodeToInputNodes = new LinkedHashMap<>();
+    collectInputNodes(pipelinePlanNodes, node, resultMap, nodesToExecute, nodeToInputNodes,
+        new HashSet<>());
+
+    final Map<String, List<String>> nodeToDependentNodes = new HashMap<>();
+    final Map<String, Integer> nodeToPendingInputs = new LinkedHashMap<>();
+    for (final Entry<String, Set<String>> e : nodeToInputNodes.entrySet()) {
+      nodeToPendingInputs.put(e.getKey(), e.getValue().size());
+      for (final String inputNode : e.getValue()) {
+        nodeToDependentNodes.computeIfAbsent(inputNode, k -> new ArrayList<>()).add(e.getKey());
+      }
+    }
+
+    final BlockingQueue<NodeTask> completed = new LinkedBlockingQueue<>();
+    // all the tasks of the DAG - a failed task cancels the others
+    final List<NodeTask> submitted = new CopyOnWriteArrayList<>();
+    // tasks handed to the executor, that the caller thread can run if they are not started yet
+    final Deque<NodeTask> notStarted = new ArrayDeque<>();
+    try {
+      for (final Entry<String, Integer> e : nodeToPendingInputs.entrySet()) {
+        if (e.getValue() == 0) {
+          submitPlanNode(nodesToExecute.get(e.getKey()), resultMap, executor, completed,
+              submitted, notStarted);
+        }
+      }
+      for (int remaining = nodeToInputNodes.size(); remaining > 0; remaining--) {
+        NodeTask task = completed.poll();
+        while (task == null && !notStarted.isEmpty()) {
+          final NodeTask next = notStarted.poll();
+          // no-op if an executor thread already started the task
+          next.run();
+          if (next.isCancelled() && next.runner.get() == Thread.currentThread()) {
+            // clears the interrupt of the cancellation of the task run by the caller thread
+            Thread.interrupted();
+          }
+          task = completed.poll();
+        }
+        final NodeOutputs nodeOutputs = getOrRethrow(task != null ? task : completed.take());
+        for (final Entry<String, OperatorResult> output : nodeOutputs.outputs().entrySet()) {
+          resultMap.put(key(nodeOutputs.nodeName(), output.getKey()), output.getValue());
+        }
+        for (final String dependent : nodeToDependentNodes.getOrDefault(nodeOutputs.nodeName(),
+            emptyList())) {
+          if (nodeToPendingInputs.merge(dependent, -1, Integer::sum) == 0) {
+            submitPlanNode(nodesToExecute.get(dependent), resultMap, executor, completed,
+                submitted, notStarted);
+          }
+        }
+      }
+    } finally {
+      // no-op for the nodes that are completed
+      submitted.forEach(f -> f.cancel(true));
+    }
+  }
+
+  private static void collectInputNodes(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final Map<String, PlanNode> nodesToExecute,
+      final Map<String, Set<String>> nodeToInputNodes,
+      final Set<String> visiting) {
+    if (nodeToInputNodes.containsKey(node.getName())) {
+      return;
+    }
+    checkArgument(visiting.add(node.getName()),
+        "Cycle detected at node \"%s\". Template is invalid.",
+        node.getName());
+    final Set<String> inputNodes = new LinkedHashSet<>();
     for (final InputBean input : optional(node.getPlanNodeInputs()).orElse(emptyList())) {
       final ContextKey contextKey = key(input.getSourcePlanNode(), input.getSourceProperty());
       if (!resultMap.containsKey(contextKey)) {
@@ -96,18 +223,167 @@ public class PlanExecutor implements AutoCloseable {
             "sourcePlanNode \"%s\" found in \"%s\" node configuration does not exist. Template is invalid.",
             input.getSourcePlanNode(),
             node.getName());
-        executePlanNode(pipelinePlanNodes, inputPlanNode, resultMap);
+        collectInputNodes(pipelinePlanNodes, inputPlanNode, resultMap, nodesToExecute,
+            nodeToInputNodes, visiting);
+        inputNodes.add(inputPlanNode.getName());
       }
+    }
+    visiting.remove(node.getName());
+    nodesToExecute.put(node.getName(), node);
+    nodeToInputNodes.put(node.getName(), inputNodes);
+  }
+
+  private static void submitPlanNode(final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final Executor executor,
+      final BlockingQueue<NodeTask> completed,
+      final List<NodeTask> submitted,
+      final Deque<NodeTask> notStarted) {
+    // inputs are set in the caller thread - the resultMap is never accessed concurrently
+    for (final InputBean input : optional(node.getPlanNodeInputs()).orElse(emptyList())) {
+      final ContextKey contextKey = key(input.getSourcePlanNode(), input.getSourceProperty());
       if (!resultMap.containsKey(contextKey)) {
         throw new RuntimeException("Missing resultMap key - " + contextKey);
       }
       node.setInput(input.getTargetProperty(), resultMap.get(contextKey));
     }
+    final NodeTask task = new NodeTask(node, completed, submitted);
+    submitted.add(task);
+    notStarted.add(task);
+    try {
+      executor.execute(task);
+    } catch (final RejectedExecutionException e) {
+      // the caller thread runs the task
+    }
+  }
+
+  private static class NodeTask extends FutureTask<NodeOutputs> {
+
+    private final BlockingQueue<NodeTask> completed;
+    private final List<NodeTask> submitted;
+    // the thread that ran the node
+    private final AtomicReference<Thread> runner;
+
+    private NodeTask(final PlanNode node, final BlockingQueue<NodeTask> completed,
+        final List<NodeTask> submitted) {
+      this(node, completed, submitted, new AtomicReference<>());
+    }
+
+    private NodeTask(final PlanNode node, final BlockingQueue<NodeTask> completed,
+        final List<NodeTask> submitted, final AtomicReference<Thread> runner) {
+      super(() -> {
+        runner.set(Thread.currentThread());
+        return executeNode(node);
+      });
+      this.completed = completed;
+      this.submitted = submitted;
+      this.runner = runner;
+    }
+
+    @Override
+    protected void done() {
+      // queued before the cancelled tasks: the caller rethrows the failure, not a cancellation
+      completed.add(this);
+      if (isFailed()) {
+        submitted.forEach(t -> t.cancel(true));
+      }
+    }
+
+    private boolean isFailed() {
+      if (isCancelled()) {
+        return false;
+      }
+      try {
+        get();
+        return false;
+      } catch (final ExecutionException e) {
+        return true;
+      } catch (final InterruptedException e) {
+        // not thrown: the task is done
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Executes the operator of the node and records its profile. The profile is exported as
+   * metrics tagged by node type, and added to the execution profile of the pipeline if it is set.
+   */
+  private static NodeOutputs executeNode(final PlanNode node) throws Exception {
+    final long threadId = Thread.currentThread().getId();
+    final long startCpuTime = currentThreadCpuTime();
+    final long startAllocatedBytes = allocatedBytes(threadId);
+    final long startTime = System.nanoTime();
+
     final Operator operator = node.buildOperator();
     operator.execute();
-    final Map<String, OperatorResult> outputs = operator.getOutputs();
-    for (final Entry<String, OperatorResult> output : outputs.entrySet()) {
-      resultMap.put(key(node.getName(), output.getKey()), output.getValue());
+
+    final NodeProfile nodeProfile = new NodeProfile(node.getName(),
+        node.getType(),
+        System.nanoTime() - startTime,
+        delta(startCpuTime, currentThreadCpuTime()),
+        delta(startAllocatedBytes, allocatedBytes(threadId)),
+        outputRows(operator.getOutputs()));
+    recordMetrics(nodeProfile);
+    optional(node.getContext().getDetectionPipelineContext())
+        .map(DetectionPipelineContext::getProfile)
+        .ifPresent(profile -> profile.add(nodeProfile));
+    return new NodeOutputs(node.getName(), operator.getOutputs());
+  }
+
+  private static long currentThreadCpuTime() {
+    return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+        ? THREAD_MX_BEAN.getCurrentThreadCpuTime()
+        : -1;
+  }
+
+  private static long allocatedBytes(final long threadId) {
+    // returns -1 if the allocated memory measurement is disabled
+    return THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean sunThreadMXBean
+        && sunThreadMXBean.isThreadAllocatedMemorySupported()
+        ? sunThreadMXBean.getThreadAllocatedBytes(threadId)
+        : -1;
+  }
+
+  private static long delta(final long start, final long end) {
+    return start < 0 || end < 0 ? -1 : end - start;
+  }
+
+  private static long outputRows(final Map<String, OperatorResult> outputs) {
+    long rows = 0;
+    for (final OperatorResult output : outputs.values()) {
+      if (output instanceof DataTable dataTable && dataTable.getDataFrame() != null) {
+        rows += dataTable.getDataFrame().size();
+      }
+    }
+    return rows;
+  }
+
+  private static void recordMetrics(final NodeProfile nodeProfile) {
+    final String type = String.valueOf(nodeProfile.nodeType());
+    Metrics.timer("thirdeye_pipeline_node_execution", "type", type)
+        .record(nodeProfile.wallTimeNanos(), TimeUnit.NANOSECONDS);
+    if (nodeProfile.cpuTimeNanos() >= 0) {
+      Metrics.timer("thirdeye_pipeline_node_cpu", "type", type)
+          .record(nodeProfile.cpuTimeNanos(), TimeUnit.NANOSECONDS);
+    }
+    if (nodeProfile.allocatedBytes() >= 0) {
+      Metrics.summary("thirdeye_pipeline_node_allocated_bytes", "type", type)
+          .record(nodeProfile.allocatedBytes());
+    }
+    Metrics.summary("thirdeye_pipeline_node_output_rows", "type", type)
+        .record(nodeProfile.outputRows());
+  }
+
+  private static <T> T getOrRethrow(final Future<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
     }
   }
 
@@ -200,7 +476,7 @@ public class PlanExecutor implements AutoCloseable {
 
     /* Execute the DAG */
     final PlanNode rootNode = pipelinePlanNodes.get(rootNodeName);
-    executePlanNode(pipelinePlanNodes, rootNode, resultMap);
+    executePlanNode(pipelinePlanNodes, rootNode, resultMap, nodeExecutor);
 
     return resultMap;
   }
@@ -221,8 +497,11 @@ public class PlanExecutor implements AutoCloseable {
     return pipelinePlanNodes;
   }
 
+  private record NodeOutputs(String nodeName, Map<String, OperatorResult> outputs) {}
+
   @Override
   public void close() throws Exception {
+    shutdownExecutionService(nodeExecutor);
     shutdownExecutionService(subTaskExecutor);
   }
 }
@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.detectionpipeline.components;
 
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
@@ -22,6 +23,7 @@ import ai.startree.thirdeye.datasource.query.QueryPredicate;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
 import ai.startree.thirdeye.detectionpipeline.sql.filter.FilterEngine;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.MacroEngine;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
@@ -34,14 +36,25 @@ import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.detection.DataFetcher;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import ai.startree.thirdeye.spi.metric.DimensionType;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
 import org.joda.time.Interval;
+import org.joda.time.Period;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +62,33 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
 
   private static final Logger LOG = LoggerFactory.getLogger(GenericDataFetcher.class);
 
+  /**
+   * Time-series queries are split in time chunks aligned on their time buckets. A chunk is sealed
+   * once it is older than the mutability period of the alert, or else of the dataset: its data is
+   * not expected to change anymore, so its result is cached and shared between executions. Only
+   * the chunks that are not sealed are fetched from the datasource. Alerts on the same data can
+   * have different mutability periods: a cached chunk is only used if it was already sealed for
+   * the alert when it was fetched.
+   */
+  private static final Period DEFAULT_MUTABILITY_PERIOD = Period.days(1);
+  private static final long SEALED_CHUNKS_MAX_CELLS = 10_000_000;
+  private static final Cache<ChunkKey, SealedChunk> SEALED_CHUNKS = CacheBuilder.newBuilder()
+      .maximumWeight(SEALED_CHUNKS_MAX_CELLS)
+      .weigher((ChunkKey key, SealedChunk chunk) -> (int) Math.min(Integer.MAX_VALUE,
+          (long) chunk.df().size() * chunk.df().getSeriesNames().size() + 1))
+      .expireAfterWrite(1, TimeUnit.DAYS)
+      .build();
+  private static final Counter SEALED_CHUNKS_HITS = Counter.builder(
+          "thirdeye_fetch_data_table_sealed_chunks")
+      .description("Number of sealed time chunks, by cache result.")
+      .tag("result", "hit")
+      .register(Metrics.globalRegistry);
+  private static final Counter SEALED_CHUNKS_MISSES = Counter.builder(
+          "thirdeye_fetch_data_table_sealed_chunks")
+      .description("Number of sealed time chunks, by cache result.")
+      .tag("result", "miss")
+      .register(Metrics.globalRegistry);
+
   /**
    * Query to execute.
    */
@@ -58,7 +98,9 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
    */
   private String tableName;
   private ThirdEyeDataSource thirdEyeDataSource;
+  private Long dataSourceId;
   private DatasetConfigDTO datasetConfigDTO;
+  private @Nullable Period mutabilityPeriod;
   private List<QueryPredicate> timeseriesFilters = List.of();
 
   public String getQuery() {
@@ -84,6 +126,7 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   public void init(final DataFetcherSpec dataFetcherSpec) {
     this.query = dataFetcherSpec.getQuery();
     this.tableName = dataFetcherSpec.getTableName();
+    this.mutabilityPeriod = dataFetcherSpec.getMutabilityPeriod();
     if (tableName != null) {
       // tableName is not set when the datafetcher is used for the query enumerator for instance
       final DatasetConfigManager datasetDao = Objects.requireNonNull(
@@ -102,6 +145,7 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
         .orElse(dataFetcherSpec.getNamespace());
     final DataSourceDTO dataSourceDto = dataSourceDao.findByNameAndNamespaceOrUnsetNamespace(dataSource, datasourceNamespace);
     requireNonNull(dataSourceDto);
+    this.dataSourceId = dataSourceDto.getId();
     final DataSourceCache dataSourceCache = requireNonNull(dataFetcherSpec.getDataSourceCache());
     this.thirdEyeDataSource = requireNonNull(dataSourceCache
         .getDataSource(dataSourceDto), "data source is unavailable");
@@ -119,12 +163,144 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   @Override
   public DataTable getDataTable(Interval detectionInterval) throws Exception {
     String queryWithFilters = injectFilters(query);
-    DataSourceRequest preparedRequest = applyMacros(detectionInterval, queryWithFilters);
-    DataTable result = thirdEyeDataSource.fetchDataTable(preparedRequest);
+    final MacroEngine macroEngine = macroEngine(detectionInterval, queryWithFilters);
+    DataSourceRequest preparedRequest = applyMacros(macroEngine);
+    final List<Interval> sealedChunks = macroEngine == null ? List.of()
+        : sealedChunks(detectionInterval, macroEngine.timeChunkGranularity(),
+            sealedBefore(DateTime.now()));
+    DataTable result = sealedChunks.isEmpty()
+        ? thirdEyeDataSource.fetchDataTable(preparedRequest)
+        : fetchByChunks(detectionInterval, queryWithFilters, sealedChunks);
     result.addProperties(preparedRequest.getProperties());
     return result;
   }
 
+  /**
+   * Fetches the sealed chunks from the cache, and the head and the tail of the interval that are
+   * not covered by sealed chunks from the datasource.
+   */
+  private DataTable fetchByChunks(final Interval detectionInterval, final String queryWithFilters,
+      final List<Interval> sealedChunks) throws Exception {
+    final List<DataFrame> parts = new ArrayList<>();
+    final DateTime sealedStart = sealedChunks.get(0).getStart();
+    final DateTime sealedEnd = sealedChunks.get(sealedChunks.size() - 1).getEnd();
+    if (detectionInterval.getStart().isBefore(sealedStart)) {
+      parts.add(fetch(new Interval(detectionInterval.getStart(), sealedStart), queryWithFilters));
+    }
+    for (final Interval chunk : sealedChunks) {
+      parts.add(fetchSealedChunk(chunk, queryWithFilters));
+    }
+    if (sealedEnd.isBefore(detectionInterval.getEnd())) {
+      parts.add(fetch(new Interval(sealedEnd, detectionInterval.getEnd()), queryWithFilters));
+    }
+    // empty results may have no column at all - they must not set the columns of the result
+    final List<DataFrame> nonEmptyParts = parts.stream()
+        .filter(df -> !df.getSeriesNames().isEmpty())
+        .collect(Collectors.toList());
+    final DataFrame merged = nonEmptyParts.isEmpty()
+        ? parts.get(0)
+        : DataFrame.concatenate(nonEmptyParts);
+    // cached dataframes are shared - always return a copy
+    return SimpleDataTable.fromDataFrame(new DataFrame(merged));
+  }
+
+  private DataFrame fetchSealedChunk(final Interval chunk, final String queryWithFilters)
+      throws Exception {
+    final DataSourceRequest request = requireNonNull(macroEngine(chunk, queryWithFilters))
+        .prepareRequest();
+    final ChunkKey key = new ChunkKey(dataSourceId, request);
+    final SealedChunk cached = SEALED_CHUNKS.getIfPresent(key);
+    // the chunk may have been cached by an alert with a shorter mutability period
+    if (cached != null && !chunk.getEnd().isAfter(sealedBefore(cached.fetchTime()))) {
+      SEALED_CHUNKS_HITS.increment();
+      return cached.df();
+    }
+    SEALED_CHUNKS_MISSES.increment();
+    final DateTime fetchTime = DateTime.now();
+    final DataFrame df = thirdEyeDataSource.fetchDataTable(request).getDataFrame();
+    SEALED_CHUNKS.put(key, new SealedChunk(df, fetchTime));
+    return df;
+  }
+
+  private DataFrame fetch(final Interval interval, final String queryWithFilters)
+      throws Exception {
+    final DataSourceRequest request = requireNonNull(macroEngine(interval, queryWithFilters))
+        .prepareRequest();
+    return thirdEyeDataSource.fetchDataTable(request).getDataFrame();
+  }
+
+  /**
+   * Returns the time before which data is not expected to change anymore, at the given time.
+   */
+  private DateTime sealedBefore(final DateTime now) {
+    final Period mutabilityPeriod = optional(this.mutabilityPeriod)
+        .or(() -> optional(datasetConfigDTO)
+            .map(DatasetConfigDTO::getMutabilityPeriod)
+            .map(p -> isoPeriod(p, DEFAULT_MUTABILITY_PERIOD)))
+        .orElse(DEFAULT_MUTABILITY_PERIOD);
+    final Period completenessDelay = optional(datasetConfigDTO)
+        .map(DatasetConfigDTO::getCompletenessDelay)
+        .map(p -> isoPeriod(p, Period.ZERO))
+        .orElse(Period.ZERO);
+    final DateTime mutableStart = now.minus(mutabilityPeriod);
+    final DateTime incompleteStart = now.minus(completenessDelay);
+    return mutableStart.isBefore(incompleteStart) ? mutableStart : incompleteStart;
+  }
+
+  /**
+   * Returns the sealed chunks of the interval: the chunks fully contained in the interval that end
+   * before sealedBefore. The chunks are consecutive.
+   *
+   * Chunks are aligned in the timezone of the interval on days, weeks or months, so that they
+   * contain complete time buckets. Returns an empty list if the query cannot be split in chunks.
+   */
+  @VisibleForTesting
+  static List<Interval> sealedChunks(final Interval interval,
+      final @Nullable Period granularity, final DateTime sealedBefore) {
+    final Period chunkPeriod = granularity == null ? null : chunkPeriod(granularity);
+    if (chunkPeriod == null) {
+      return List.of();
+    }
+    DateTime chunkStart = interval.getStart().withTimeAtStartOfDay();
+    if (chunkPeriod.getWeeks() == 1) {
+      chunkStart = chunkStart.withDayOfWeek(DateTimeConstants.MONDAY);
+    } else if (chunkPeriod.getMonths() == 1) {
+      chunkStart = chunkStart.withDayOfMonth(1);
+    }
+    final List<Interval> chunks = new ArrayList<>();
+    DateTime chunkEnd = chunkStart.plus(chunkPeriod);
+    while (!chunkEnd.isAfter(interval.getEnd()) && !chunkEnd.isAfter(sealedBefore)) {
+      if (!chunkStart.isBefore(interval.getStart())) {
+        chunks.add(new Interval(chunkStart, chunkEnd));
+      }
+      chunkStart = chunkEnd;
+      chunkEnd = chunkStart.plus(chunkPeriod);
+    }
+    return chunks;
+  }
+
+  /**
+   * Chunks are big enough to limit the number of queries when the cache is cold: a day of
+   * sub-hourly buckets, a week of hourly buckets, a month of daily buckets.
+   */
+  private static @Nullable Period chunkPeriod(final Period granularity) {
+    if (granularity.equals(Period.days(1))) {
+      return Period.months(1);
+    }
+    if (granularity.getYears() != 0 || granularity.getMonths() != 0
+        || granularity.getWeeks() != 0 || granularity.getDays() != 0) {
+      return null;
+    }
+    final long granularityMillis = granularity.toStandardDuration().getMillis();
+    if (granularityMillis <= 0 || DateTimeConstants.MILLIS_PER_DAY % granularityMillis != 0) {
+      // buckets are not aligned on days
+      return null;
+    }
+    return granularityMillis < DateTimeConstants.MILLIS_PER_HOUR
+        ? Period.days(1)
+        : Period.weeks(1);
+  }
+
   private String injectFilters(final String query) {
     if (timeseriesFilters.isEmpty()) {
       return query;
@@ -136,17 +312,27 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
     return new FilterEngine(sqlLanguage, query, timeseriesFilters).prepareQuery();
   }
 
-  private DataSourceRequest applyMacros(final Interval detectionInterval,
+  /**
+   * Returns null if macros are not supported by the datasource.
+   */
+  private @Nullable MacroEngine macroEngine(final Interval detectionInterval,
       final String queryWithFilters) {
     SqlLanguage sqlLanguage = thirdEyeDataSource.getSqlLanguage();
     SqlExpressionBuilder sqlExpressionBuilder = thirdEyeDataSource.getSqlExpressionBuilder();
     boolean macrosSupported = sqlLanguage != null && sqlExpressionBuilder != null;
-    if (macrosSupported) {
-      return new MacroEngine(sqlLanguage,
-          sqlExpressionBuilder,
-          detectionInterval,
-          datasetConfigDTO,
-          queryWithFilters).prepareRequest();
+    if (!macrosSupported) {
+      return null;
+    }
+    return new MacroEngine(sqlLanguage,
+        sqlExpressionBuilder,
+        detectionInterval,
+        datasetConfigDTO,
+        queryWithFilters);
+  }
+
+  private DataSourceRequest applyMacros(final @Nullable MacroEngine macroEngine) {
+    if (macroEngine != null) {
+      return macroEngine.prepareRequest();
     }
 
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
@@ -166,4 +352,8 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
     // todo fetch info from database with a DAO
     return DimensionType.STRING;
   }
+
+  private record ChunkKey(Long dataSourceId, DataSourceRequest request) {}
+
+  private record SealedChunk(DataFrame df, DateTime fetchTime) {}
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.detectionpipeline.operator.ForkJoinResult.ForkJoinResultItem;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.detection.model.TimeSeries;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the results of a fork join in a single {@link CombinerResult}.
+ *
+ * Each output of the sub-plan of each enumeration item is tagged with its enumeration item.
+ * Failed items are skipped: the fork join only passes failed items when partial results are
+ * allowed, see {@link ForkJoinOperator}.
+ */
+public class CombinerOperator extends DetectionPipelineOperator {
+
+  public static final String DEFAULT_INPUT_KEY = "input_Combiner";
+  public static final String DEFAULT_OUTPUT_KEY = "output_Combiner";
+
+  private static final Logger LOG = LoggerFactory.getLogger(CombinerOperator.class);
+
+  public CombinerOperator() {
+    super();
+  }
+
+  @Override
+  public void init(final OperatorContext context) {
+    super.init(context);
+  }
+
+  @Override
+  public void execute() throws Exception {
+    final ForkJoinResult forkJoinResult = (ForkJoinResult) requireNonNull(
+        inputMap.get(DEFAULT_INPUT_KEY), "Combiner input is not set");
+
+    final Map<String, OperatorResult> results = new LinkedHashMap<>();
+    int failures = 0;
+    for (final ForkJoinResultItem item : forkJoinResult.getItems()) {
+      if (!item.isSuccess()) {
+        failures++;
+        continue;
+      }
+      for (final OperatorResult result : item.results().values()) {
+        results.put(String.valueOf(results.size()),
+            withEnumerationItem(result, item.enumerationItem()));
+      }
+    }
+    if (failures > 0) {
+      LOG.warn("Partial fork join result: {} of {} enumeration items failed and are skipped.",
+          failures,
+          forkJoinResult.getItems().size());
+    }
+    setOutput(DEFAULT_OUTPUT_KEY, new CombinerResult(results));
+  }
+
+  private static OperatorResult withEnumerationItem(final OperatorResult result,
+      final EnumerationItemDTO enumerationItem) {
+    if (result instanceof AnomalyDetectorOperatorResult detectorResult) {
+      return AnomalyDetectorOperatorResult.builder()
+          .setAnomalies(detectorResult.getAnomalies())
+          .setTimeseries(detectorResult.getTimeseries())
+          .setRawData(detectorResult.getRawData())
+          .setEnumerationItem(enumerationItem)
+          .build();
+    }
+    return new EnumerationItemResult(result, enumerationItem);
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "CombinerOperator";
+  }
+
+  private static class EnumerationItemResult implements OperatorResult {
+
+    private final OperatorResult delegate;
+    private final EnumerationItemDTO enumerationItem;
+
+    private EnumerationItemResult(final OperatorResult delegate,
+        final EnumerationItemDTO enumerationItem) {
+      this.delegate = delegate;
+      this.enumerationItem = enumerationItem;
+    }
+
+    @Override
+    public long getLastTimestamp() {
+      return delegate.getLastTimestamp();
+    }
+
+    @Override
+    public @Nullable List<AnomalyDTO> getAnomalies() {
+      return delegate.getAnomalies();
+    }
+
+    @Override
+    public @Nullable EnumerationItemDTO getEnumerationItem() {
+      return enumerationItem;
+    }
+
+    @Override
+    public @Nullable List<EnumerationItemDTO> getEnumerationItems() {
+      return delegate.getEnumerationItems();
+    }
+
+    @Override
+    public @Nullable Map<String, List> getRawData() {
+      return delegate.getRawData();
+    }
+
+    @Override
+    public @Nullable TimeSeries getTimeseries() {
+      return delegate.getTimeseries();
+    }
+  }
+}
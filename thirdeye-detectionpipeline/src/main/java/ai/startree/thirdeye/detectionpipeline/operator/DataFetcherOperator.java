@@ -61,6 +61,7 @@ public class DataFetcherOperator extends DetectionPipelineOperator {
     spec.setDatasetDao(requireNonNull(applicationContext.datasetConfigManager()));
     spec.setDataSourceDao(requireNonNull(applicationContext.dataSourceDao()));
     spec.setNamespace(pipelineContext.getNamespace());
+    spec.setMutabilityPeriod(pipelineContext.getMutabilityPeriod());
     spec.setTimeseriesFilters(predicates);
 
     final GenericDataFetcher genericDataFetcher = new GenericDataFetcher();
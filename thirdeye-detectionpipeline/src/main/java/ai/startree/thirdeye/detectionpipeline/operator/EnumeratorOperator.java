@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
+import ai.startree.thirdeye.detectionpipeline.ApplicationContext;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
+import ai.startree.thirdeye.spi.detection.Enumerator;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.util.List;
+import java.util.Map;
+
+public class EnumeratorOperator extends DetectionPipelineOperator {
+
+  public static final String DEFAULT_OUTPUT_KEY = "enumeration_items";
+  public static final String DEFAULT_ENUMERATOR_TYPE = "default";
+  private static final String PROP_ID_KEYS = "idKeys";
+
+  private Enumerator enumerator;
+  private Map<String, Object> params;
+  private EnumerationItemMaintainer enumerationItemMaintainer;
+  private Long alertId;
+  private DetectionPipelineUsage usage;
+
+  public EnumeratorOperator() {
+    super();
+  }
+
+  @Override
+  public void init(final OperatorContext context) {
+    super.init(context);
+    final ApplicationContext applicationContext = context.getPlanNodeContext()
+        .getApplicationContext();
+    params = optional(planNode.getParams()).map(TemplatableMap::valueMap).orElse(Map.of());
+    final String type = optional(params.get(PROP_TYPE))
+        .map(Object::toString)
+        .orElse(DEFAULT_ENUMERATOR_TYPE);
+    enumerator = requireNonNull(applicationContext.detectionRegistry()).buildEnumerator(type);
+    enumerationItemMaintainer = applicationContext.enumerationItemMaintainer();
+
+    final DetectionPipelineContext detectionPipelineContext = context.getPlanNodeContext()
+        .getDetectionPipelineContext();
+    alertId = detectionPipelineContext.getAlertId();
+    usage = detectionPipelineContext.getUsage();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void execute() throws Exception {
+    final List<EnumerationItemDTO> enumerationItems = enumerator.enumerate(
+        new Enumerator.Context()
+            .setParams(params)
+            .setInputMap(inputMap));
+
+    // items are persisted for detection only - the anomalies reference them
+    final List<EnumerationItemDTO> outputs =
+        alertId != null && DetectionPipelineUsage.DETECTION.equals(usage)
+            ? enumerationItemMaintainer.sync(enumerationItems,
+            (List<String>) params.get(PROP_ID_KEYS),
+            alertId)
+            : enumerationItems;
+    setOutput(DEFAULT_OUTPUT_KEY, new EnumeratorResult(outputs));
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "EnumeratorOperator";
+  }
+
+  public static class EnumeratorResult implements OperatorResult {
+
+    private final List<EnumerationItemDTO> enumerationItems;
+
+    public EnumeratorResult(final List<EnumerationItemDTO> enumerationItems) {
+      this.enumerationItems = enumerationItems;
+    }
+
+    @Override
+    public List<EnumerationItemDTO> getEnumerationItems() {
+      return enumerationItems;
+    }
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.detectionpipeline.ApplicationContext;
+import ai.startree.thirdeye.detectionpipeline.ContextKey;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContextMapper;
+import ai.startree.thirdeye.detectionpipeline.ForkJoinConfiguration;
+import ai.startree.thirdeye.detectionpipeline.Operator;
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
+import ai.startree.thirdeye.detectionpipeline.PlanNode;
+import ai.startree.thirdeye.detectionpipeline.PlanNodeContext;
+import ai.startree.thirdeye.detectionpipeline.PlanNodeFactory;
+import ai.startree.thirdeye.detectionpipeline.operator.ForkJoinResult.ForkJoinResultItem;
+import ai.startree.thirdeye.mapper.PlanNodeMapper;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import ai.startree.thirdeye.util.StringTemplateUtils;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the sub-plan of the root node once per enumeration item, in parallel, and merges the
+ * results with the combiner node.
+ *
+ * The sub-plans run on the sub-task executor, with at most parallelism items in flight. The
+ * operator thread only waits: every item runs in the executor, so an item that runs for longer
+ * than the fork join timeout is always cancelled. Time spent in the queue of the executor does
+ * not count, but an item that waits in the queue for longer than the timeout fails as well.
+ * Failed items are reported in the {@link ForkJoinResult}. In a detection run, a failed item
+ * fails the fork join: the alert is not moved forward, so the windows of the failed items are
+ * detected again in the next run. In the other usages, the successful items are combined and the
+ * fork join fails only if all the items fail.
+ */
+public class ForkJoinOperator extends DetectionPipelineOperator {
+
+  public static final String K_ENUMERATOR = "enumerator";
+  public static final String K_ROOT = "root";
+  public static final String K_COMBINER = "combiner";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ForkJoinOperator.class);
+
+  private PlanNodeContext planNodeContext;
+  private PlanNode enumerator;
+  private PlanNode root;
+  private PlanNode combiner;
+  private ExecutorService subTaskExecutor;
+  private int parallelism;
+  private Duration timeout;
+
+  public ForkJoinOperator() {
+    super();
+  }
+
+  @Override
+  public void init(final OperatorContext context) {
+    super.init(context);
+    planNodeContext = context.getPlanNodeContext();
+    final Map<String, Object> params = optional(planNode.getParams())
+        .map(TemplatableMap::valueMap)
+        .orElse(Map.of());
+    enumerator = planNode(params, K_ENUMERATOR);
+    root = planNode(params, K_ROOT);
+    combiner = planNode(params, K_COMBINER);
+
+    final ApplicationContext applicationContext = planNodeContext.getApplicationContext();
+    subTaskExecutor = requireNonNull(applicationContext.subTaskExecutor());
+    final ForkJoinConfiguration forkJoinConfiguration = applicationContext.configuration()
+        .getForkjoin();
+    parallelism = forkJoinConfiguration.getParallelism();
+    timeout = forkJoinConfiguration.getTimeout();
+  }
+
+  private PlanNode planNode(final Map<String, Object> params, final String key) {
+    final Object nodeName = params.get(key);
+    checkArgument(nodeName != null, "'%s' is not set in ForkJoin node %s",
+        key,
+        planNodeContext.getName());
+    final PlanNode node = planNodeContext.getPipelinePlanNodes().get(nodeName.toString());
+    checkArgument(node != null, "%s node \"%s\" found in ForkJoin node %s does not exist",
+        key,
+        nodeName,
+        planNodeContext.getName());
+    return node;
+  }
+
+  @Override
+  public void execute() throws Exception {
+    final List<EnumerationItemDTO> enumerationItems = enumerate();
+    final List<ForkJoinResultItem> items = forkJoin(enumerationItems);
+
+    combiner.setInput(CombinerOperator.DEFAULT_INPUT_KEY, new ForkJoinResult(items));
+    final Operator combinerOperator = combiner.buildOperator();
+    combinerOperator.execute();
+    combinerOperator.getOutputs().forEach(this::setOutput);
+  }
+
+  private List<EnumerationItemDTO> enumerate() throws Exception {
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+    PlanExecutor.executePlanNode(planNodeContext.getPipelinePlanNodes(), enumerator, resultMap);
+    return PlanExecutor.getOutput(resultMap, enumerator.getName()).values().stream()
+        .map(OperatorResult::getEnumerationItems)
+        .filter(e -> e != null)
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException(String.format(
+            "Node %s did not output enumeration items", enumerator.getName())));
+  }
+
+  private List<ForkJoinResultItem> forkJoin(final List<EnumerationItemDTO> enumerationItems)
+      throws Exception {
+    final List<ItemTask> tasks = enumerationItems.stream()
+        .map(ItemTask::new)
+        .toList();
+    final List<ForkJoinResultItem> items = new ArrayList<>(tasks.size());
+    int submitted = 0;
+    try {
+      for (final ItemTask task : tasks) {
+        // bounded concurrency: at most parallelism items are queued or running
+        for (; submitted < Math.min(items.size() + parallelism, tasks.size()); submitted++) {
+          subTaskExecutor.execute(tasks.get(submitted));
+        }
+        items.add(task.await());
+      }
+    } finally {
+      tasks.forEach(t -> t.cancel(true));
+    }
+
+    final List<ForkJoinResultItem> failures = items.stream()
+        .filter(i -> !i.isSuccess())
+        .toList();
+    if (failures.isEmpty()) {
+      return items;
+    }
+    if (failures.size() == items.size()) {
+      throw new RuntimeException(String.format("All %d enumeration items failed",
+          items.size()), failures.get(0).error());
+    }
+    if (planNodeContext.getDetectionPipelineContext().getUsage()
+        == DetectionPipelineUsage.DETECTION) {
+      throw new RuntimeException(String.format("%d of %d enumeration items failed: %s",
+          failures.size(),
+          items.size(),
+          failures.stream().map(i -> i.enumerationItem().getName()).toList()),
+          failures.get(0).error());
+    }
+    return items;
+  }
+
+  /**
+   * Runs the sub-plan of the root node with the enumeration item. The plan nodes are rebuilt with
+   * the enumeration item set in their context and the enumeration item params rendered in their
+   * params. The sub-plan runs sequentially in the caller thread.
+   */
+  private Map<String, OperatorResult> execute(final EnumerationItemDTO enumerationItem)
+      throws Exception {
+    final DetectionPipelineContext detectionPipelineContext = DetectionPipelineContextMapper.INSTANCE
+        .clone(planNodeContext.getDetectionPipelineContext())
+        .setEnumerationItem(enumerationItem);
+    final Map<String, PlanNode> pipelinePlanNodes = planNodeContext.getPipelinePlanNodes();
+    final Map<String, PlanNode> subPlanNodes = new HashMap<>();
+    collectSubPlanNodes(pipelinePlanNodes, root, subPlanNodes);
+    final Map<String, PlanNode> itemPlanNodes = new HashMap<>();
+    for (final Entry<String, PlanNode> e : subPlanNodes.entrySet()) {
+      itemPlanNodes.put(e.getKey(), buildForItem(e.getValue(), enumerationItem,
+          detectionPipelineContext, itemPlanNodes));
+    }
+
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+    PlanExecutor.executePlanNode(itemPlanNodes, itemPlanNodes.get(root.getName()), resultMap);
+    return PlanExecutor.getOutput(resultMap, root.getName());
+  }
+
+  private static void collectSubPlanNodes(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode node, final Map<String, PlanNode> subPlanNodes) {
+    if (subPlanNodes.put(node.getName(), node) != null) {
+      return;
+    }
+    for (final InputBean input : optional(node.getPlanNodeInputs()).orElse(emptyList())) {
+      final PlanNode inputNode = pipelinePlanNodes.get(input.getSourcePlanNode());
+      // missing nodes are reported by the PlanExecutor
+      if (inputNode != null) {
+        collectSubPlanNodes(pipelinePlanNodes, inputNode, subPlanNodes);
+      }
+    }
+  }
+
+  private static PlanNode buildForItem(final PlanNode node,
+      final EnumerationItemDTO enumerationItem,
+      final DetectionPipelineContext detectionPipelineContext,
+      final Map<String, PlanNode> itemPlanNodes) throws Exception {
+    final PlanNodeBean planNodeBean = node.getContext().getPlanNodeBean();
+    final Map<String, Object> itemParams = enumerationItem.getParams();
+    final PlanNodeBean itemPlanNodeBean = itemParams == null || itemParams.isEmpty()
+        ? PlanNodeMapper.INSTANCE.clone(planNodeBean)
+        : StringTemplateUtils.applyContext(planNodeBean, itemParams);
+    final PlanNodeContext context = PlanNodeContext.copy(node.getContext())
+        .setDetectionPipelineContext(detectionPipelineContext)
+        .setPlanNodeBean(itemPlanNodeBean)
+        .setPipelinePlanNodes(itemPlanNodes);
+    return PlanNodeFactory.build(node.getClass(), context);
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "ForkJoinOperator";
+  }
+
+  private class ItemTask extends FutureTask<Map<String, OperatorResult>> {
+
+    private final EnumerationItemDTO enumerationItem;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile long startNanos;
+
+    private ItemTask(final EnumerationItemDTO enumerationItem) {
+      super(() -> execute(enumerationItem));
+      this.enumerationItem = enumerationItem;
+    }
+
+    @Override
+    public void run() {
+      startNanos = System.nanoTime();
+      started.countDown();
+      super.run();
+    }
+
+    private ForkJoinResultItem await() throws InterruptedException {
+      try {
+        if (!started.await(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+          cancel(true);
+          return failure(new TimeoutException(String.format(
+              "Enumeration item did not start within %s", timeout)));
+        }
+        final long elapsed = System.nanoTime() - startNanos;
+        final Map<String, OperatorResult> results = get(
+            Math.max(timeout.toNanos() - elapsed, 0), TimeUnit.NANOSECONDS);
+        return new ForkJoinResultItem(enumerationItem, results, null);
+      } catch (final TimeoutException e) {
+        cancel(true);
+        return failure(new TimeoutException(String.format(
+            "Enumeration item timed out after %s", timeout)));
+      } catch (final ExecutionException e) {
+        return failure(e.getCause() instanceof Exception cause ? cause : e);
+      }
+    }
+
+    private ForkJoinResultItem failure(final Exception error) {
+      LOG.warn("Fork join sub-plan failed for enumeration item {} with params {}",
+          enumerationItem.getName(),
+          enumerationItem.getParams(),
+          error);
+      return new ForkJoinResultItem(enumerationItem, Map.of(), error);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Results of the sub-plan of a fork join, one item per enumeration item, in the order of the
+ * enumeration items. The sub-plan of an item may have failed: its outputs are then empty and the
+ * error is set.
+ */
+public class ForkJoinResult implements OperatorResult {
+
+  private final List<ForkJoinResultItem> items;
+
+  public ForkJoinResult(final List<ForkJoinResultItem> items) {
+    this.items = items;
+  }
+
+  public List<ForkJoinResultItem> getItems() {
+    return items;
+  }
+
+  public record ForkJoinResultItem(EnumerationItemDTO enumerationItem,
+                                   Map<String, OperatorResult> results,
+                                   @Nullable Exception error) {
+
+    public boolean isSuccess() {
+      return error == null;
+    }
+  }
+}
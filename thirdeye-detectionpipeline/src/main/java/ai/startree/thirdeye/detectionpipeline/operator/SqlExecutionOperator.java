@@ -74,10 +74,14 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
 
   @Override
   public final void execute() throws Exception {
-    Connection connection = getConnection();
-    initTables(connection);
-    runQueries(connection);
-    dataTableToSqlAdapter.tearDown(connection);
+    try (final Connection connection = getConnection()) {
+      try {
+        initTables(connection);
+        runQueries(connection);
+      } finally {
+        dataTableToSqlAdapter.tearDown(connection);
+      }
+    }
   }
 
   private Connection getConnection() throws ClassNotFoundException, SQLException {
@@ -13,31 +13,44 @@
  */
 package ai.startree.thirdeye.detectionpipeline.operator.sql;
 
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
 import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
 
+  private static final int INSERT_BATCH_SIZE = 1000;
+
   private final Logger LOG = LoggerFactory.getLogger(getClass());
 
   private final List<String> insertedTable = new ArrayList<>();
 
   private final Properties properties = new Properties();
 
+  /**
+   * Each adapter gets its own in-memory database. Without a name, the url "jdbc:hsqldb:mem"
+   * opens a file database named "mem" in the working directory.
+   */
+  private final String databaseName = "thirdeye_" + UUID.randomUUID().toString().replace("-", "");
+
   @Override
   public String jdbcConnection() {
-    return "jdbc:hsqldb:mem";
+    return "jdbc:hsqldb:mem:" + databaseName;
   }
 
   @Override
@@ -66,6 +79,9 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     for (final String tableName : insertedTable) {
       destroyTable(connection, tableName);
     }
+    insertedTable.clear();
+    // release the in-memory database - closes the connection
+    connection.prepareCall("SHUTDOWN").execute();
   }
 
   private void destroyTable(final Connection c, final String tableName) throws SQLException {
@@ -90,19 +106,67 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     // Create the table.
     createTable(c, tableName, df);
 
-    // Insert all rows into the table
+    // Insert all rows into the table with a single prepared statement
+    final String insertionStatement = getInsertionStatement(tableName, df.getSeriesNames().size());
+    final boolean autoCommit = c.getAutoCommit();
+    c.setAutoCommit(false);
+    try (final PreparedStatement statement = c.prepareStatement(insertionStatement)) {
+      insertRows(statement, df);
+      c.commit();
+    } catch (final SQLException e) {
+      LOG.error("Failed to insert rows in table: {}, insertion sql: {}",
+          tableName,
+          insertionStatement,
+          e);
+      c.rollback();
+      throw e;
+    } finally {
+      c.setAutoCommit(autoCommit);
+    }
+  }
+
+  private void insertRows(final PreparedStatement statement, final DataFrame df)
+      throws SQLException {
+    final List<Series> series = new ArrayList<>(df.getSeries().values());
     for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
-      final String insertionStatement = getRowInsertionStatement(tableName, rowIdx, df);
-      try {
-        c.prepareCall(insertionStatement).execute();
-      } catch (final SQLException e) {
-        LOG.error("Failed to insert row idx: {}, insertion sql: {}",
-            rowIdx,
-            insertionStatement,
-            e);
-        throw e;
+      for (int colIdx = 0; colIdx < series.size(); colIdx++) {
+        setParameter(statement, colIdx + 1, series.get(colIdx), rowIdx);
+      }
+      statement.addBatch();
+      if ((rowIdx + 1) % INSERT_BATCH_SIZE == 0) {
+        statement.executeBatch();
       }
     }
+    if (df.size() % INSERT_BATCH_SIZE != 0) {
+      statement.executeBatch();
+    }
+  }
+
+  private static void setParameter(final PreparedStatement statement, final int parameterIdx,
+      final Series series, final int rowIdx) throws SQLException {
+    if (series.isNull(rowIdx)) {
+      statement.setNull(parameterIdx, getJdbcType(series.type()));
+      return;
+    }
+    switch (series.type()) {
+      case LONG:
+        statement.setLong(parameterIdx, series.getLong(rowIdx));
+        break;
+      case DOUBLE:
+        statement.setDouble(parameterIdx, series.getDouble(rowIdx));
+        break;
+      case STRING:
+        statement.setString(parameterIdx, series.getString(rowIdx));
+        break;
+      case BOOLEAN:
+        statement.setBoolean(parameterIdx, BooleanSeries.booleanValueOf(series.getBoolean(rowIdx)));
+        break;
+      case OBJECT:
+        statement.setObject(parameterIdx, series.getObject(rowIdx));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown type " + series.type().name());
+    }
   }
 
   private void createTable(final Connection c, final String tableName, final DataFrame dataFrame)
@@ -122,23 +186,12 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     }
   }
 
-  private String getRowInsertionStatement(final String tableName,
-      final int rowIdx,
-      final DataFrame dataFrame) {
+  private String getInsertionStatement(final String tableName, final int columnCount) {
     final StringBuilder sb = new StringBuilder(
         "INSERT INTO " + tableName + " VALUES (");
-    final List<String> seriesNames = dataFrame.getSeriesNames();
-    for (int colIdx = 0; colIdx < seriesNames.size(); colIdx++) {
-      final Object value = dataFrame.getObject(seriesNames.get(colIdx), rowIdx);
-
-      // If string, then wrap with quotes
-      final String quoteWith = value instanceof String ? "'" : "";
-      sb
-          .append(quoteWith)
-          .append(value)
-          .append(quoteWith);
-
-      if (colIdx < seriesNames.size() - 1) {
+    for (int colIdx = 0; colIdx < columnCount; colIdx++) {
+      sb.append("?");
+      if (colIdx < columnCount - 1) {
         sb.append(", ");
       }
     }
@@ -169,11 +222,29 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
       case DOUBLE:
         return "DOUBLE";
       case STRING:
-        return "VARCHAR(128)";
+        // no length limit - HSQLDB stores in-memory strings with their actual length
+        return "LONGVARCHAR";
       case BOOLEAN:
         return "BOOLEAN";
       case OBJECT:
-        return "VARBINARY(128)";
+        return "OTHER";
+      default:
+        throw new IllegalArgumentException("Unknown type " + seriesType.name());
+    }
+  }
+
+  private static int getJdbcType(final SeriesType seriesType) {
+    switch (seriesType) {
+      case LONG:
+        return Types.BIGINT;
+      case DOUBLE:
+        return Types.DOUBLE;
+      case STRING:
+        return Types.LONGVARCHAR;
+      case BOOLEAN:
+        return Types.BOOLEAN;
+      case OBJECT:
+        return Types.OTHER;
       default:
         throw new IllegalArgumentException("Unknown type " + seriesType.name());
     }
@@ -20,6 +20,8 @@ import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.detection.AbstractSpec;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.Period;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class DataFetcherSpec extends AbstractSpec {
@@ -61,7 +63,13 @@ public class DataFetcherSpec extends AbstractSpec {
    * Expected to be set during DataFetcherOperator init.
    */
   private String namespace;
-  
+
+  /**
+   * Expected to be set during DataFetcherOperator init. Mutability period of the alert, overrides
+   * the one of the dataset.
+   */
+  private @Nullable Period mutabilityPeriod;
+
 
   public String getDataSource() {
     return dataSource;
@@ -135,4 +143,13 @@ public class DataFetcherSpec extends AbstractSpec {
     this.dataSourceDao = dataSourceDao;
     return this;
   }
+
+  public @Nullable Period getMutabilityPeriod() {
+    return mutabilityPeriod;
+  }
+
+  public DataFetcherSpec setMutabilityPeriod(final @Nullable Period mutabilityPeriod) {
+    this.mutabilityPeriod = mutabilityPeriod;
+    return this;
+  }
 }
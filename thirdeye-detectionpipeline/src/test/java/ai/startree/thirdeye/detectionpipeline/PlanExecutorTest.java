@@ -14,12 +14,16 @@
 package ai.startree.thirdeye.detectionpipeline;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.PlanExecutionProfile.NodeProfile;
+import ai.startree.thirdeye.detectionpipeline.operator.CombinerOperator;
+import ai.startree.thirdeye.detectionpipeline.operator.CombinerResult;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator.EchoResult;
 import ai.startree.thirdeye.detectionpipeline.plan.EchoPlanNode;
@@ -30,10 +34,19 @@ import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
 import ai.startree.thirdeye.spi.detection.Enumerator;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.annotations.BeforeMethod;
@@ -103,4 +116,182 @@ public class PlanExecutorTest {
     final EchoResult echoResult = (EchoResult) result;
     assertThat(echoResult.text()).isEqualTo(echoInput);
   }
+
+  @Test(timeOut = 10_000)
+  public void testExecutePlanNodeDagInParallel() throws Exception {
+    // diamond: root <- (a, b) <- c
+    // a and b wait for each other: they only complete if they run at the same time
+    final CyclicBarrier siblings = new CyclicBarrier(2);
+    final NodeAction awaitSibling = () -> siblings.await(5, TimeUnit.SECONDS);
+    final Map<String, PlanNode> pipelinePlanNodes = new HashMap<>();
+    pipelinePlanNodes.put("c", echoNode("c", List.of()));
+    pipelinePlanNodes.put("a", echoNode("a", List.of("c"), awaitSibling));
+    pipelinePlanNodes.put("b", echoNode("b", List.of("c"), awaitSibling));
+    pipelinePlanNodes.put("root", echoNode("root", List.of("a", "b")));
+
+    // a single executor thread: the caller thread runs the other sibling
+    final ExecutorService executorService = Executors.newFixedThreadPool(1);
+    try {
+      final HashMap<ContextKey, OperatorResult> resultMap = new HashMap<>();
+      PlanExecutor.executePlanNode(pipelinePlanNodes,
+          pipelinePlanNodes.get("root"),
+          resultMap,
+          executorService);
+
+      assertThat(resultMap.size()).isEqualTo(4);
+      for (final String nodeName : List.of("a", "b", "c", "root")) {
+        final EchoResult result = (EchoResult) resultMap.get(
+            PlanExecutor.key(nodeName, EchoOperator.DEFAULT_OUTPUT_KEY));
+        assertThat(result.text()).isEqualTo(nodeName);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void testExecutePlanNodeFailureCancelsRunningSiblings() throws Exception {
+    final CountDownLatch bStarted = new CountDownLatch(1);
+    final CountDownLatch bInterrupted = new CountDownLatch(1);
+    final AtomicBoolean rootExecuted = new AtomicBoolean();
+    final Map<String, PlanNode> pipelinePlanNodes = new HashMap<>();
+    pipelinePlanNodes.put("a", echoNode("a", List.of(), () -> {
+      assertThat(bStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      throw new IllegalStateException("a failed");
+    }));
+    pipelinePlanNodes.put("b", echoNode("b", List.of(), () -> {
+      bStarted.countDown();
+      try {
+        Thread.sleep(60_000);
+      } catch (final InterruptedException e) {
+        bInterrupted.countDown();
+        throw e;
+      }
+    }));
+    pipelinePlanNodes.put("root", echoNode("root", List.of("a", "b"),
+        () -> rootExecuted.set(true)));
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(1);
+    try {
+      assertThatThrownBy(() -> PlanExecutor.executePlanNode(pipelinePlanNodes,
+          pipelinePlanNodes.get("root"),
+          new HashMap<>(),
+          executorService))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessage("a failed");
+
+      // b is interrupted whether it runs in the executor or in the caller thread
+      assertThat(bInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(rootExecuted.get()).isFalse();
+      assertThat(Thread.interrupted()).isFalse();
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testExecutePlanNodeRecordsProfile() throws Exception {
+    final PlanExecutionProfile profile = new PlanExecutionProfile();
+    final EchoPlanNode node = new EchoPlanNode();
+    node.init(new PlanNodeContext()
+        .setName("root")
+        .setDetectionPipelineContext(new DetectionPipelineContext()
+            .setDetectionInterval(new Interval(0L, 0L, DateTimeZone.UTC))
+            .setProfile(profile))
+        .setPlanNodeBean(new PlanNodeBean()
+            .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, "root"))));
+
+    PlanExecutor.executePlanNode(new HashMap<>(), node, new HashMap<>());
+
+    assertThat(profile.getNodeProfiles().size()).isEqualTo(1);
+    final NodeProfile nodeProfile = profile.getNodeProfiles().get(0);
+    assertThat(nodeProfile.nodeName()).isEqualTo("root");
+    assertThat(nodeProfile.nodeType()).isEqualTo(EchoPlanNode.TYPE);
+    assertThat(nodeProfile.wallTimeNanos()).isGreaterThan(0L);
+    assertThat(nodeProfile.outputRows()).isEqualTo(0L);
+  }
+
+  @Test
+  public void testExecutePlanNodeWithMissingInputNode() {
+    final Map<String, PlanNode> pipelinePlanNodes = new HashMap<>();
+    pipelinePlanNodes.put("root", echoNode("root", List.of("missing")));
+
+    assertThatThrownBy(() -> PlanExecutor.executePlanNode(pipelinePlanNodes,
+        pipelinePlanNodes.get("root"),
+        new HashMap<>()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("missing");
+  }
+
+  @Test
+  public void testForkJoin() throws Exception {
+    when(enumerator.enumerate(any())).thenReturn(List.of(
+        new EnumerationItemDTO().setName("a").setParams(Map.of("text", "a")),
+        // fails to render the echo node - no text param
+        new EnumerationItemDTO().setName("b").setParams(Map.of("other", "b")),
+        new EnumerationItemDTO().setName("c").setParams(Map.of("text", "c"))));
+    final List<PlanNodeBean> planNodeBeans = List.of(
+        new PlanNodeBean()
+            .setName("root")
+            .setType("ForkJoin")
+            .setParams(TemplatableMap.fromValueMap(Map.of(
+                "enumerator", "enumerator",
+                "root", "echo",
+                "combiner", "combiner"))),
+        new PlanNodeBean().setName("enumerator").setType("Enumerator"),
+        new PlanNodeBean().setName("combiner").setType("Combiner"),
+        new PlanNodeBean()
+            .setName("echo")
+            .setType("Echo")
+            .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, "${text}")));
+
+    final Map<String, OperatorResult> outputs = planExecutor.runAndGetRootOutputs(planNodeBeans,
+        new DetectionPipelineContext()
+            .setDetectionInterval(new Interval(0L, 0L, DateTimeZone.UTC)));
+
+    final CombinerResult combinerResult = (CombinerResult) outputs.get(
+        CombinerOperator.DEFAULT_OUTPUT_KEY);
+    assertThat(combinerResult.getDetectionResults().stream()
+        .map(r -> r.getEnumerationItem().getName())
+        .toList()).isEqualTo(List.of("a", "c"));
+  }
+
+  private static EchoPlanNode echoNode(final String name, final List<String> inputNodes) {
+    return echoNode(name, inputNodes, () -> {});
+  }
+
+  /**
+   * Returns an echo node that runs the action in the thread that executes the node.
+   */
+  private static EchoPlanNode echoNode(final String name, final List<String> inputNodes,
+      final NodeAction action) {
+    final EchoPlanNode node = new EchoPlanNode() {
+      @Override
+      public Operator buildOperator() throws Exception {
+        action.run();
+        return super.buildOperator();
+      }
+    };
+    node.init(new PlanNodeContext()
+        .setName(name)
+        .setDetectionPipelineContext(new DetectionPipelineContext()
+            .setDetectionInterval(new Interval(0L, 0L, DateTimeZone.UTC)))
+        .setPlanNodeBean(new PlanNodeBean()
+            .setName(name)
+            .setInputs(inputNodes.stream()
+                .map(inputNode -> new InputBean()
+                    .setTargetProperty(inputNode)
+                    .setSourcePlanNode(inputNode)
+                    .setSourceProperty(EchoOperator.DEFAULT_OUTPUT_KEY))
+                .toList())
+            .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, name))
+        )
+    );
+    return node;
+  }
+
+  private interface NodeAction {
+
+    void run() throws Exception;
+  }
 }
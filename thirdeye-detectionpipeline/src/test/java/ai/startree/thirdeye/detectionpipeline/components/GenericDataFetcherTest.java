@@ -13,12 +13,38 @@
  */
 package ai.startree.thirdeye.detectionpipeline.components;
 
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.datasource.query.QueryPredicate;
+import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
+import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
+import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdeyeSqlDialect;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import ai.startree.thirdeye.spi.metric.DimensionType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.Period;
 import org.testng.annotations.Test;
 
 public class GenericDataFetcherTest {
@@ -27,6 +53,11 @@ public class GenericDataFetcherTest {
   public static final String RHS = "value1";
   public static final String LHS = "dim1";
 
+  private static final String HOURLY_QUERY = "SELECT __timeGroup(ts, 'EPOCH_MILLIS', 'PT1H') AS t,"
+      + " SUM(met) FROM tableName WHERE __timeFilter(ts, 'EPOCH_MILLIS') GROUP BY t ORDER BY t";
+  // the sealed chunks cache is static - each test uses its own data source
+  private static final AtomicLong DATA_SOURCE_IDS = new AtomicLong();
+
   @Test
   public void testToQueryPredicate() {
     final GenericDataFetcher genericDataFetcher = new GenericDataFetcher();
@@ -38,4 +69,179 @@ public class GenericDataFetcherTest {
     assertThat(res.getDataset()).isEqualTo(TABLE_NAME);
     assertThat(res.getMetricType()).isEqualTo(DimensionType.STRING);
   }
+
+  @Test
+  public void testSealedChunksOfHourlyQuery() {
+    final DateTimeZone zone = DateTimeZone.forID("America/Los_Angeles");
+    // Wednesday 2024-01-03 to Thursday 2024-01-25 at noon
+    final Interval interval = new Interval(new DateTime(2024, 1, 3, 12, 0, zone),
+        new DateTime(2024, 1, 25, 12, 0, zone));
+    final DateTime sealedBefore = new DateTime(2024, 1, 24, 0, 0, zone);
+
+    final List<Interval> chunks = GenericDataFetcher.sealedChunks(interval, Period.hours(1),
+        sealedBefore);
+
+    // weeks starting on monday - the partial first week and the mutable last week are excluded
+    assertThat(chunks).containsExactly(
+        new Interval(new DateTime(2024, 1, 8, 0, 0, zone), new DateTime(2024, 1, 15, 0, 0, zone)),
+        new Interval(new DateTime(2024, 1, 15, 0, 0, zone), new DateTime(2024, 1, 22, 0, 0, zone)));
+  }
+
+  @Test
+  public void testSealedChunksOfDailyAndSubHourlyQueries() {
+    final Interval interval = new Interval(new DateTime(2024, 1, 15, 0, 0, DateTimeZone.UTC),
+        new DateTime(2024, 4, 2, 0, 0, DateTimeZone.UTC));
+    final DateTime sealedBefore = interval.getEnd();
+
+    assertThat(GenericDataFetcher.sealedChunks(interval, Period.days(1), sealedBefore))
+        .containsExactly(
+            new Interval(new DateTime(2024, 2, 1, 0, 0, DateTimeZone.UTC),
+                new DateTime(2024, 3, 1, 0, 0, DateTimeZone.UTC)),
+            new Interval(new DateTime(2024, 3, 1, 0, 0, DateTimeZone.UTC),
+                new DateTime(2024, 4, 1, 0, 0, DateTimeZone.UTC)));
+    assertThat(GenericDataFetcher.sealedChunks(interval, Period.minutes(15), sealedBefore))
+        .hasSize(78)
+        .allMatch(chunk -> chunk.toPeriod().equals(Period.days(1)));
+  }
+
+  @Test
+  public void testSealedChunksOfUnalignedGranularity() {
+    final Interval interval = new Interval(new DateTime(2024, 1, 1, 0, 0, DateTimeZone.UTC),
+        new DateTime(2024, 6, 1, 0, 0, DateTimeZone.UTC));
+
+    assertThat(GenericDataFetcher.sealedChunks(interval, Period.hours(7), interval.getEnd()))
+        .isEmpty();
+    assertThat(GenericDataFetcher.sealedChunks(interval, Period.weeks(1), interval.getEnd()))
+        .isEmpty();
+    assertThat(GenericDataFetcher.sealedChunks(interval, null, interval.getEnd())).isEmpty();
+  }
+
+  @Test
+  public void testFetchByChunks() throws Exception {
+    final DateTime now = DateTime.now(DateTimeZone.UTC);
+    final Interval interval = new Interval(now.minusWeeks(6), now);
+    final List<Interval> requests = new ArrayList<>();
+    final ThirdEyeDataSource dataSource = chunkDataSource(requests);
+    final long dataSourceId = DATA_SOURCE_IDS.incrementAndGet();
+    // the mutability period of the alert overrides the one of the dataset
+    final GenericDataFetcher dataFetcher = dataFetcher(dataSource, dataSourceId, Period.days(7));
+
+    final DataFrame first = dataFetcher.getDataTable(interval).getDataFrame();
+
+    // head, sealed weekly chunks and mutable tail, in time order and contiguous
+    assertThat(requests.size()).isGreaterThanOrEqualTo(4);
+    assertThat(requests.get(0).getStart()).isEqualTo(interval.getStart());
+    assertThat(requests.get(requests.size() - 1).getEnd()).isEqualTo(interval.getEnd());
+    for (int i = 1; i < requests.size(); i++) {
+      assertThat(requests.get(i).getStart()).isEqualTo(requests.get(i - 1).getEnd());
+    }
+    final List<Interval> sealed = requests.subList(1, requests.size() - 1);
+    assertThat(sealed).allMatch(chunk -> chunk.toPeriod().equals(Period.weeks(1)));
+    final Interval tail = requests.get(requests.size() - 1);
+    assertThat(tail.getStart().isAfter(now.minusDays(14))).isTrue();
+    assertThat(tail.getStart().isAfter(now.minusDays(7))).isFalse();
+    // concatenated in time order
+    assertThat(first.getLongs("start").toList()).isEqualTo(requests.stream()
+        .map(Interval::getStartMillis)
+        .toList());
+
+    // sealed chunks are served by the cache - the head and the mutable tail are fetched again
+    final List<Interval> firstRequests = List.copyOf(requests);
+    requests.clear();
+    final DataFrame second = dataFetcher.getDataTable(interval).getDataFrame();
+    assertThat(requests).isEqualTo(List.of(firstRequests.get(0), tail));
+    assertThat(second).isEqualTo(first);
+
+    // with the default mutability period of 1 day, more chunks are sealed
+    requests.clear();
+    dataFetcher(dataSource, dataSourceId, null).getDataTable(interval);
+    final Interval defaultTail = requests.get(requests.size() - 1);
+    assertThat(defaultTail.getStart().isAfter(now.minusDays(8))).isTrue();
+  }
+
+  private static GenericDataFetcher dataFetcher(final ThirdEyeDataSource dataSource,
+      final long dataSourceId, final Period mutabilityPeriod) {
+    final DatasetConfigManager datasetDao = mock(DatasetConfigManager.class);
+    when(datasetDao.findByNameAndNamespaceOrUnsetNamespace(TABLE_NAME, null))
+        .thenReturn(new DatasetConfigDTO().setDataset(TABLE_NAME));
+    final DataSourceDTO dataSourceDto = new DataSourceDTO().setName("dataSource");
+    dataSourceDto.setId(dataSourceId);
+    final DataSourceManager dataSourceDao = mock(DataSourceManager.class);
+    when(dataSourceDao.findByNameAndNamespaceOrUnsetNamespace("dataSource", null))
+        .thenReturn(dataSourceDto);
+    final DataSourceCache dataSourceCache = mock(DataSourceCache.class);
+    when(dataSourceCache.getDataSource(dataSourceDto)).thenReturn(dataSource);
+
+    final DataFetcherSpec spec = new DataFetcherSpec()
+        .setDatasetDao(datasetDao)
+        .setDataSourceDao(dataSourceDao)
+        .setDataSourceCache(dataSourceCache)
+        .setTimeseriesFilters(List.of())
+        .setMutabilityPeriod(mutabilityPeriod);
+    spec.setDataSource("dataSource");
+    spec.setTableName(TABLE_NAME);
+    spec.setQuery(HOURLY_QUERY);
+    final GenericDataFetcher dataFetcher = new GenericDataFetcher();
+    dataFetcher.init(spec);
+    return dataFetcher;
+  }
+
+  /**
+   * Returns a data source that records the time filter of the requests, and answers a single row
+   * with the bounds of the time filter.
+   */
+  private static ThirdEyeDataSource chunkDataSource(final List<Interval> requests)
+      throws Exception {
+    final ThirdEyeDataSource dataSource = mock(ThirdEyeDataSource.class);
+    when(dataSource.getSqlLanguage()).thenReturn(new TestSqlLanguage());
+    when(dataSource.getSqlExpressionBuilder()).thenReturn(new TestSqlExpressionBuilder());
+    when(dataSource.fetchDataTable(any())).thenAnswer(i -> {
+      final DataSourceRequest request = i.getArgument(0);
+      final long start = Long.parseLong(request.getProperties().get(MIN_TIME_MILLIS.toString()));
+      final long end = Long.parseLong(request.getProperties().get(MAX_TIME_MILLIS.toString()));
+      requests.add(new Interval(start, end, DateTimeZone.UTC));
+      return SimpleDataTable.fromDataFrame(new DataFrame()
+          .addSeries("start", start)
+          .addSeries("end", end));
+    });
+    return dataSource;
+  }
+
+  private static class TestSqlLanguage implements SqlLanguage {
+
+    @Override
+    public ThirdEyeSqlParserConfig getSqlParserConfig() {
+      return new ThirdEyeSqlParserConfig.Builder()
+          .withLex("MYSQL_ANSI")
+          .withConformance("BABEL")
+          .withParserFactory("SqlBabelParserImpl")
+          .build();
+    }
+
+    @Override
+    public ThirdeyeSqlDialect getSqlDialect() {
+      return new ThirdeyeSqlDialect.Builder()
+          .withBaseDialect("AnsiSqlDialect")
+          .withIdentifierQuoteString("\"")
+          .build();
+    }
+  }
+
+  private static class TestSqlExpressionBuilder implements SqlExpressionBuilder {
+
+    @Override
+    public String getTimeFilterExpression(final String timeColumn, final Interval filterInterval,
+        final String timeColumnFormat) {
+      return String.format("%s >= %d AND %s < %d", timeColumn, filterInterval.getStartMillis(),
+          timeColumn, filterInterval.getEndMillis());
+    }
+
+    @Override
+    public String getTimeGroupExpression(final String timeColumn, final String timeFormat,
+        final Period granularity, final String timezone) {
+      return String.format("FLOOR(%s / %d) * %d", timeColumn,
+          granularity.toStandardDuration().getMillis(),
+          granularity.toStandardDuration().getMillis());
+    }
+  }
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineConfiguration;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
+import ai.startree.thirdeye.detectionpipeline.DetectionRegistry;
+import ai.startree.thirdeye.detectionpipeline.ForkJoinConfiguration;
+import ai.startree.thirdeye.detectionpipeline.Operator;
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
+import ai.startree.thirdeye.detectionpipeline.PlanNodeContext;
+import ai.startree.thirdeye.detectionpipeline.PlanNodeFactory;
+import ai.startree.thirdeye.detectionpipeline.PostProcessorRegistry;
+import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator.EchoResult;
+import ai.startree.thirdeye.detectionpipeline.plan.DetectionPipelinePlanNode;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
+import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
+import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
+import ai.startree.thirdeye.spi.detection.Enumerator;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ForkJoinOperatorTest {
+
+  // state of the probe operators of the running test
+  private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+  private static final AtomicInteger MAX_IN_FLIGHT = new AtomicInteger();
+  private static final Set<String> INTERRUPTED = ConcurrentHashMap.newKeySet();
+  private static CountDownLatch interruptedLatch;
+
+  private PlanExecutor planExecutor;
+  private Enumerator enumerator;
+
+  @BeforeMethod
+  public void setUp() {
+    IN_FLIGHT.set(0);
+    MAX_IN_FLIGHT.set(0);
+    INTERRUPTED.clear();
+    interruptedLatch = new CountDownLatch(1);
+    enumerator = mock(Enumerator.class);
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void tearDown() throws Exception {
+    if (planExecutor != null) {
+      planExecutor.close();
+      planExecutor = null;
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void testTimedOutItemIsCancelled() throws Exception {
+    planExecutor = planExecutor(3, 3, Duration.ofMillis(500));
+    when(enumerator.enumerate(any())).thenReturn(List.of(
+        item("a", 200),
+        item("slow", 60_000),
+        item("c", 0)));
+
+    final CombinerResult combinerResult = runForkJoin(DetectionPipelineUsage.EVALUATION);
+
+    assertThat(combinerResult.getDetectionResults().stream()
+        .map(r -> r.getEnumerationItem().getName())
+        .toList()).isEqualTo(List.of("a", "c"));
+    assertThat(interruptedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(INTERRUPTED).isEqualTo(Set.of("slow"));
+  }
+
+  @Test(timeOut = 10_000)
+  public void testFailedItemFailsDetection() throws Exception {
+    planExecutor = planExecutor(3, 3, Duration.ofMillis(500));
+    when(enumerator.enumerate(any())).thenReturn(List.of(
+        item("a", 0),
+        item("slow", 60_000),
+        item("c", 0)));
+
+    // the alert must not move forward past the windows of the failed item
+    assertThatThrownBy(() -> runForkJoin(DetectionPipelineUsage.DETECTION))
+        .hasStackTraceContaining("1 of 3 enumeration items failed: [slow]");
+    assertThat(interruptedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(INTERRUPTED).isEqualTo(Set.of("slow"));
+  }
+
+  @Test(timeOut = 10_000)
+  public void testInFlightItemsAreBoundedByParallelism() throws Exception {
+    final int parallelism = 2;
+    // more threads than the parallelism: the bound comes from the fork join, not from the pool
+    planExecutor = planExecutor(parallelism, 8, Duration.ofSeconds(5));
+    final List<String> names = IntStream.range(0, 8).mapToObj(i -> "item" + i).toList();
+    when(enumerator.enumerate(any())).thenReturn(names.stream()
+        .map(name -> item(name, 50))
+        .toList());
+
+    final CombinerResult combinerResult = runForkJoin(DetectionPipelineUsage.DETECTION);
+
+    assertThat(combinerResult.getDetectionResults().stream()
+        .map(r -> r.getEnumerationItem().getName())
+        .toList()).isEqualTo(names);
+    assertThat(MAX_IN_FLIGHT.get()).isBetween(1, parallelism);
+    assertThat(INTERRUPTED.isEmpty()).isTrue();
+  }
+
+  private PlanExecutor planExecutor(final int parallelism, final int threads,
+      final Duration timeout) {
+    final DetectionRegistry detectionRegistry = mock(DetectionRegistry.class);
+    when(detectionRegistry.buildEnumerator("default")).thenReturn(enumerator);
+    final PlanNodeFactory planNodeFactory = new PlanNodeFactory();
+    planNodeFactory.registerPlanNodeClass(ProbePlanNode.class);
+    return new PlanExecutor(planNodeFactory,
+        mock(DataSourceCache.class),
+        detectionRegistry,
+        mock(PostProcessorRegistry.class),
+        mock(EventManager.class),
+        mock(DataSourceManager.class),
+        mock(DatasetConfigManager.class),
+        new DetectionPipelineConfiguration().setForkjoin(new ForkJoinConfiguration()
+            .setParallelism(parallelism)
+            .setThreads(threads)
+            .setTimeout(timeout)),
+        mock(EnumerationItemMaintainer.class));
+  }
+
+  private CombinerResult runForkJoin(final DetectionPipelineUsage usage) throws Exception {
+    final List<PlanNodeBean> planNodeBeans = List.of(
+        new PlanNodeBean()
+            .setName("root")
+            .setType("ForkJoin")
+            .setParams(TemplatableMap.fromValueMap(Map.of(
+                "enumerator", "enumerator",
+                "root", "probe",
+                "combiner", "combiner"))),
+        new PlanNodeBean().setName("enumerator").setType("Enumerator"),
+        new PlanNodeBean().setName("combiner").setType("Combiner"),
+        new PlanNodeBean()
+            .setName("probe")
+            .setType(ProbePlanNode.TYPE)
+            .setParams(TemplatableMap.fromValueMap(Map.of(
+                ProbeOperator.K_NAME, "${name}",
+                ProbeOperator.K_SLEEP_MILLIS, "${sleepMillis}"))));
+
+    final Map<String, OperatorResult> outputs = planExecutor.runAndGetRootOutputs(planNodeBeans,
+        new DetectionPipelineContext()
+            .setUsage(usage)
+            .setDetectionInterval(new Interval(0L, 0L, DateTimeZone.UTC)));
+    return (CombinerResult) outputs.get(CombinerOperator.DEFAULT_OUTPUT_KEY);
+  }
+
+  private static EnumerationItemDTO item(final String name, final long sleepMillis) {
+    return new EnumerationItemDTO()
+        .setName(name)
+        .setParams(Map.of("name", name, "sleepMillis", sleepMillis));
+  }
+
+  public static class ProbePlanNode extends DetectionPipelinePlanNode {
+
+    public static final String TYPE = "ForkJoinOperatorTestProbe";
+
+    public ProbePlanNode() {
+      super();
+    }
+
+    @Override
+    public void init(final PlanNodeContext planNodeContext) {
+      super.init(planNodeContext);
+    }
+
+    @Override
+    public String getType() {
+      return TYPE;
+    }
+
+    @Override
+    public Map<String, Object> getParams() {
+      return planNodeBean.getParams().valueMap();
+    }
+
+    @Override
+    public Operator buildOperator() throws Exception {
+      final ProbeOperator operator = new ProbeOperator();
+      operator.init(createOperatorContext()
+          .setDetectionInterval(this.detectionInterval)
+          .setInputsMap(inputsMap)
+          .setPlanNode(planNodeBean));
+      return operator;
+    }
+  }
+
+  /**
+   * Sleeps for the configured duration and records the number of concurrently running probes
+   * and the probes that were interrupted.
+   */
+  public static class ProbeOperator extends DetectionPipelineOperator {
+
+    private static final String K_NAME = "name";
+    private static final String K_SLEEP_MILLIS = "sleepMillis";
+
+    public ProbeOperator() {
+      super();
+    }
+
+    @Override
+    public void init(final OperatorContext context) {
+      super.init(context);
+    }
+
+    @Override
+    public void execute() throws Exception {
+      final Map<String, Object> params = getPlanNode().getParams().valueMap();
+      final String name = params.get(K_NAME).toString();
+      final long sleepMillis = Long.parseLong(params.get(K_SLEEP_MILLIS).toString());
+      MAX_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (final InterruptedException e) {
+        INTERRUPTED.add(name);
+        interruptedLatch.countDown();
+        throw e;
+      } finally {
+        IN_FLIGHT.decrementAndGet();
+      }
+      setOutput(EchoOperator.DEFAULT_OUTPUT_KEY, new EchoResult(name));
+    }
+
+    @Override
+    public String getOperatorName() {
+      return "ForkJoinOperatorTestProbeOperator";
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.testng.annotations.Test;
+
+public class HyperSqlDataTableToSqlAdapterTest {
+
+  @Test
+  public void testLoadTables() throws Exception {
+    final String longString = Strings.repeat("a", 500);
+    final int rowCount = 2500;
+    final long[] timestamps = new long[rowCount];
+    final double[] values = new double[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      timestamps[i] = i;
+      values[i] = i % 2 == 0 ? DoubleSeries.NULL : i * 0.5;
+    }
+    final String[] labels = new String[rowCount];
+    labels[0] = "it's";
+    labels[1] = longString;
+    final byte[] flags = new byte[rowCount];
+    flags[0] = BooleanSeries.TRUE;
+    flags[1] = BooleanSeries.NULL;
+    final DataFrame input = new DataFrame()
+        .addSeries("ts", LongSeries.buildFrom(timestamps))
+        .addSeries("met", DoubleSeries.buildFrom(values))
+        .addSeries("label", StringSeries.buildFrom(labels))
+        .addSeries("flag", BooleanSeries.buildFrom(flags));
+
+    final HyperSqlDataTableToSqlAdapter adapter = new HyperSqlDataTableToSqlAdapter();
+    Class.forName(adapter.jdbcDriverClassName());
+    try (final Connection connection = DriverManager.getConnection(adapter.jdbcConnection(),
+        adapter.jdbcProperties())) {
+      adapter.loadTables(connection, ImmutableMap.of("input_data",
+          SimpleDataTable.fromDataFrame(input)));
+      final Statement statement = connection.createStatement();
+      final ResultSet resultSet = statement.executeQuery(
+          "SELECT ts, met, label, flag FROM input_data ORDER BY ts");
+      final DataFrame output = DataFrame.fromResultSet(resultSet);
+      adapter.tearDown(connection);
+
+      assertThat(output.size()).isEqualTo(rowCount);
+      assertThat(output.getLongs("ts").getLong(rowCount - 1)).isEqualTo(rowCount - 1);
+      assertThat(output.getDoubles("met").isNull(0)).isTrue();
+      assertThat(output.getDouble("met", 1)).isEqualTo(0.5);
+      assertThat(output.getString("label", 0)).isEqualTo("it's");
+      assertThat(output.getString("label", 1)).isEqualTo(longString);
+      assertThat(output.getStrings("label").isNull(2)).isTrue();
+      assertThat(output.getBoolean("flag", 0)).isEqualTo(BooleanSeries.TRUE);
+      assertThat(output.getBooleans("flag").isNull(1)).isTrue();
+      assertThat(output.getBoolean("flag", 2)).isEqualTo(BooleanSeries.FALSE);
+    }
+  }
+
+  @Test
+  public void testJdbcConnectionIsUniqueInMemoryDatabase() throws Exception {
+    final HyperSqlDataTableToSqlAdapter adapter1 = new HyperSqlDataTableToSqlAdapter();
+    final HyperSqlDataTableToSqlAdapter adapter2 = new HyperSqlDataTableToSqlAdapter();
+    assertThat(adapter1.jdbcConnection()).startsWith("jdbc:hsqldb:mem:");
+    assertThat(adapter1.jdbcConnection()).isNotEqualTo(adapter2.jdbcConnection());
+
+    Class.forName(adapter1.jdbcDriverClassName());
+    final DataFrame input = new DataFrame().addSeries("ts", LongSeries.buildFrom(1L, 2L));
+    try (final Connection connection1 = DriverManager.getConnection(adapter1.jdbcConnection(),
+        adapter1.jdbcProperties());
+        final Connection connection2 = DriverManager.getConnection(adapter2.jdbcConnection(),
+            adapter2.jdbcProperties())) {
+      adapter1.loadTables(connection1, ImmutableMap.of("input_data",
+          SimpleDataTable.fromDataFrame(input)));
+      final ResultSet tables = connection2.getMetaData()
+          .getTables(null, null, "INPUT_DATA", null);
+      assertThat(tables.next()).isFalse();
+      adapter1.tearDown(connection1);
+    }
+    // tear down shuts the database down - it does not exist anymore
+    assertThatThrownBy(() -> DriverManager.getConnection(
+        adapter1.jdbcConnection() + ";ifexists=true", adapter1.jdbcProperties()))
+        .isInstanceOf(SQLException.class);
+    assertThat(new File("mem.script")).doesNotExist();
+  }
+}
@@ -482,4 +482,66 @@ public class MacroEngineTest {
 
     prepareRequestAndAssert(inputQuery, INPUT_INTERVAL, expectedQuery, expectedProperties);
   }
+
+  @Test
+  public void testParsedQueryIsReusedWithDifferentIntervals() {
+    // the same query is parsed once - the macros must still be expanded for each interval
+    final String inputQuery = String.format(
+        "select * from tableName where __timeFilter(timeCol, '%s')", INPUT_TIME_COLUMN_FORMAT);
+    final Interval otherInterval = new Interval(INPUT_END_TIME, INPUT_END_TIME + 1000L,
+        DateTimeZone.UTC);
+
+    for (final Interval interval : List.of(INPUT_INTERVAL, otherInterval, INPUT_INTERVAL)) {
+      final String expectedQuery = String.format("SELECT * FROM tableName WHERE %s",
+          MOCK_SQL_EXPRESSION_BUILDER.getTimeFilterExpression("timeCol", interval,
+              INPUT_TIME_COLUMN_FORMAT));
+      final Map<String, String> expectedProperties = ImmutableMap.of(
+          MacroMetadataKeys.MIN_TIME_MILLIS.toString(),
+          String.valueOf(interval.getStartMillis()),
+          MacroMetadataKeys.MAX_TIME_MILLIS.toString(),
+          String.valueOf(interval.getEndMillis()));
+      prepareRequestAndAssert(inputQuery, interval, expectedQuery, expectedProperties);
+    }
+  }
+
+  @Test
+  public void testQueryWithoutMacro() {
+    final String inputQuery = "select a, b from tableName where c > 3";
+    prepareRequestAndAssert(inputQuery, INPUT_INTERVAL, "SELECT a, b FROM tableName WHERE c > 3",
+        Map.of());
+  }
+
+  @DataProvider(name = "timeChunkGranularity")
+  public Object[][] timeChunkGranularity() {
+    final String select = "SELECT __timeGroup(timeCol, 'EPOCH', 'PT1H') AS ts, SUM(met) FROM tableName";
+    final String where = " WHERE __timeFilter(timeCol, 'EPOCH') AND dim = 'a'";
+    return new Object[][]{
+        {select + where + " GROUP BY ts", Period.hours(1)},
+        {select + where + " GROUP BY 1 ORDER BY ts", Period.hours(1)},
+        {select + " WHERE __timeFilter(timeCol, 'EPOCH', 'P0D') GROUP BY __timeGroup(timeCol, 'EPOCH', 'PT1H')",
+            Period.hours(1)},
+        // lookback: the query reads data outside the interval
+        {select + " WHERE __timeFilter(timeCol, 'EPOCH', 'P1D') GROUP BY ts", null},
+        // the time filter does not restrict the whole query
+        {select + " WHERE __timeFilter(timeCol, 'EPOCH') OR dim = 'a' GROUP BY ts", null},
+        {select + " GROUP BY ts", null},
+        {select + where + " GROUP BY dim", null},
+        {select + where + " GROUP BY ts ORDER BY ts DESC", null},
+        {select + where + " GROUP BY ts ORDER BY ts LIMIT 10", null},
+        {select + where + " AND dim IN (SELECT dim FROM other) GROUP BY ts", null},
+        {"SELECT __timeGroup(timeCol, 'EPOCH', 'PT1H') AS ts, __timeGroup(timeCol, 'EPOCH', 'P1D') AS day FROM tableName"
+            + where + " GROUP BY ts, day", null},
+        {"SELECT * FROM tableName" + where, null},
+    };
+  }
+
+  @Test(dataProvider = "timeChunkGranularity")
+  public void testTimeChunkGranularity(final String inputQuery, final Period expected) {
+    final MacroEngine macroEngine = new MacroEngine(MOCK_SQL_LANGUAGE,
+        MOCK_SQL_EXPRESSION_BUILDER,
+        INPUT_INTERVAL,
+        DATASET_CONFIG_DTO,
+        inputQuery);
+    assertThat(macroEngine.timeChunkGranularity()).isEqualTo(expected);
+  }
 }
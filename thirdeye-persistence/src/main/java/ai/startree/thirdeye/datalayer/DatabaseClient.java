@@ -25,6 +25,8 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.sql.DataSource;
@@ -43,6 +45,8 @@ public class DatabaseClient {
   private final Counter dbCallCounter;
   private final io.micrometer.core.instrument.Counter dbTransactionCounterOfSuccess;
   private final io.micrometer.core.instrument.Counter dbTransactionCounterOfException;
+  // callbacks of the open transactions, run once the transaction is committed
+  private final Map<Connection, List<Runnable>> afterCommitCallbacks = new ConcurrentHashMap<>();
 
   @Inject
   public DatabaseClient(final DataSource dataSource, final MetricRegistry metricRegistry) {
@@ -66,12 +70,14 @@ public class DatabaseClient {
       throws SQLException {
     dbCallCounter.inc();
     try (Connection connection = dataSource.getConnection()) {
+      final List<Runnable> callbacks = new ArrayList<>();
+      afterCommitCallbacks.put(connection, callbacks);
+      final T t;
       try {
         connection.setAutoCommit(false);
-        final T t = operation.handle(connection);
+        t = operation.handle(connection);
         connection.commit();
         dbTransactionCounterOfSuccess.increment();
-        return t;
       } catch (final Exception e) {
         LOG.error("Exception while executing query task", e);
         dbTransactionCounterOfException.increment();
@@ -85,6 +91,35 @@ public class DatabaseClient {
           }
         }
         return defaultReturn;
+      } finally {
+        afterCommitCallbacks.remove(connection);
+      }
+      runAll(callbacks);
+      return t;
+    }
+  }
+
+  /**
+   * Runs the callback once the transaction of the connection is committed. The callback is not
+   * run if the transaction is rolled back. If the connection is not in a transaction of
+   * {@link #executeTransaction}, the callback is run immediately.
+   */
+  public void afterCommit(final Connection connection, final Runnable callback) {
+    final List<Runnable> callbacks = afterCommitCallbacks.get(connection);
+    if (callbacks == null) {
+      callback.run();
+    } else {
+      callbacks.add(callback);
+    }
+  }
+
+  private static void runAll(final List<Runnable> callbacks) {
+    for (final Runnable callback : callbacks) {
+      try {
+        callback.run();
+      } catch (final RuntimeException e) {
+        // the transaction is committed - a failing callback must not fail it
+        LOG.error("Exception while running a callback after commit", e);
       }
     }
   }
@@ -13,10 +13,13 @@
  */
 package ai.startree.thirdeye.datalayer;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.datalayer.util.GenericResultSetMapper;
 import ai.startree.thirdeye.datalayer.util.SqlQueryBuilder;
+import ai.startree.thirdeye.datalayer.util.SqlQueryBuilder.BatchStatement;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
@@ -28,6 +31,10 @@ import io.micrometer.core.instrument.Timer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -95,6 +102,17 @@ public class DatabaseOrm {
   public <E extends AbstractEntity> List<E> findAll(final Predicate predicate, final Long limit,
       final Long offset, final Class<E> clazz, final Connection connection)
       throws Exception {
+    return findAll(predicate, null, false, limit, offset, clazz, connection);
+  }
+
+  /**
+   * Same as {@link #findAll(Predicate, Long, Long, Class, Connection)} with the rows ordered by
+   * the orderByKey column of the entity, if not null.
+   */
+  public <E extends AbstractEntity> List<E> findAll(final @Nullable Predicate predicate,
+      final @Nullable String orderByKey, final boolean desc, final Long limit, final Long offset,
+      final Class<E> clazz, final Connection connection)
+      throws Exception {
     final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
     final long tStart = System.nanoTime();
     try {
@@ -102,6 +120,8 @@ public class DatabaseOrm {
           .createFindByParamsStatementWithLimit(connection,
               clazz,
               predicate,
+              orderByKey,
+              desc,
               limit,
               offset)) {
         try (final ResultSet resultSet = selectStatement.executeQuery()) {
@@ -141,33 +161,169 @@ public class DatabaseOrm {
     }
   }
 
-  public <E extends AbstractEntity> Integer update(final E entity, final Predicate predicate,
-      final Connection connection)
+  /**
+   * Inserts the entities with a single batched statement. The entities must be of the same class.
+   *
+   * @return the generated ids, in the order of the entities
+   */
+  public <E extends AbstractEntity> List<Long> saveAll(final List<E> entities,
+      final Connection connection) throws Exception {
+    if (entities.isEmpty()) {
+      return List.of();
+    }
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement batchInsertStmt = sqlQueryBuilder
+          .createBatchInsertStatement(connection, entities)) {
+        for (final int affectedRows : batchInsertStmt.executeBatch()) {
+          checkState(affectedRows == 1 || affectedRows == Statement.SUCCESS_NO_INFO,
+              "Batch insert failed: %s rows affected", affectedRows);
+        }
+        final List<Long> ids = new ArrayList<>(entities.size());
+        try (final ResultSet generatedKeys = batchInsertStmt.getGeneratedKeys()) {
+          while (generatedKeys.next()) {
+            ids.add(generatedKeys.getLong(1));
+          }
+        }
+        checkState(ids.size() == entities.size(),
+            "Batch insert of %s entities returned %s generated keys", entities.size(), ids.size());
+        return ids;
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfCreate);
+    }
+  }
+
+  /**
+   * Updates the row of the entity, without reading it first. The create time of the row is not
+   * updated, the version of the row is incremented.
+   *
+   * Optimistic locking: if the version of the entity is known (not 0), the row is only updated
+   * if it is still at this version, and the version of the entity is incremented on success.
+   * Conflicts are detected with the affected row count: 0 rows are updated if the row does not
+   * exist, was updated concurrently, or does not match the predicate.
+   *
+   * @return the number of affected rows
+   */
+  public <E extends AbstractEntity> Integer update(final E entity,
+      final @Nullable Predicate predicate, final Connection connection)
       throws Exception {
-    final E dbEntity = (E) find(entity.getId(), entity.getClass(), connection);
-    final Predicate finalPredicate;
-    final String idCol = getIdColumnName(entity.getClass());
-    if (predicate == null) {
-      finalPredicate = Predicate.EQ(idCol, entity.getId());
-    } else {
-      finalPredicate = Predicate.AND(predicate, Predicate.EQ(idCol, entity.getId()));
+    final Predicate finalPredicate = rowPredicate(entity, predicate);
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement baseTableInsertStmt = sqlQueryBuilder
+          .createUpdateStatement(connection, entity, null, finalPredicate)) {
+        final int affectedRows = baseTableInsertStmt.executeUpdate();
+        if (affectedRows == 1) {
+          incrementKnownVersion(entity);
+        }
+        return affectedRows;
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfUpdate);
+    }
+  }
+
+  /**
+   * Matches the row of the entity. If the version of the entity is known, the row must also still
+   * be at this version.
+   */
+  private Predicate rowPredicate(final AbstractEntity entity,
+      final @Nullable Predicate predicate) {
+    Predicate rowPredicate = Predicate.EQ(getIdColumnName(entity.getClass()), entity.getId());
+    if (entity.getVersion() > 0) {
+      rowPredicate = Predicate.AND(rowPredicate, Predicate.EQ("version", entity.getVersion()));
+    }
+    return predicate == null ? rowPredicate : Predicate.AND(predicate, rowPredicate);
+  }
+
+  /**
+   * The update statement incremented the version of the row. Keeps the entity in sync when its
+   * version is known.
+   */
+  private static void incrementKnownVersion(final AbstractEntity entity) {
+    if (entity.getVersion() > 0) {
+      entity.setVersion(entity.getVersion() + 1);
+    }
+  }
+
+  /**
+   * Updates the rows of the entities by id, with batched statements. Same as
+   * {@link #update(AbstractEntity, Predicate, Connection)} for each entity, including the version
+   * check.
+   *
+   * @return the number of affected rows of each entity, in the order of the entities
+   */
+  public <E extends AbstractEntity> int[] updateAll(final List<E> entities,
+      final Connection connection) throws Exception {
+    final int[] affectedRows = new int[entities.size()];
+    if (entities.isEmpty()) {
+      return affectedRows;
+    }
+    final List<Predicate> predicates = new ArrayList<>(entities.size());
+    for (final E entity : entities) {
+      predicates.add(rowPredicate(entity, null));
+    }
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    final List<BatchStatement> batchStatements = sqlQueryBuilder.createBatchUpdateStatements(
+        connection, entities, predicates);
+    try {
+      for (final BatchStatement batchStatement : batchStatements) {
+        final int[] batchAffectedRows = batchStatement.statement().executeBatch();
+        for (int i = 0; i < batchAffectedRows.length; i++) {
+          // the driver may not report the count of a successful update
+          affectedRows[batchStatement.entityIndices().get(i)] =
+              batchAffectedRows[i] == Statement.SUCCESS_NO_INFO ? 1 : batchAffectedRows[i];
+        }
+      }
+      for (int i = 0; i < entities.size(); i++) {
+        if (affectedRows[i] == 1) {
+          incrementKnownVersion(entities.get(i));
+        }
+      }
+      return affectedRows;
+    } finally {
+      for (final BatchStatement batchStatement : batchStatements) {
+        batchStatement.statement().close();
+      }
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfUpdate);
     }
-    if (dbEntity != null) {
-      final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
-      final long tStart = System.nanoTime();
-      entity.setCreateTime(dbEntity.getCreateTime());
-      try {
-        try (final PreparedStatement baseTableInsertStmt = sqlQueryBuilder
-            .createUpdateStatement(connection, entity, null, finalPredicate)) {
-          return baseTableInsertStmt.executeUpdate();
+  }
+
+  /**
+   * Runs a raw parameterized UPDATE statement. Use for targeted column updates that do not need
+   * to read or re-serialize the entity.
+   *
+   * @param parameters the values bound in order to the ? placeholders of the statement
+   * @return the number of affected rows
+   */
+  public int executeUpdate(final String parameterizedSQL, final List<Object> parameters,
+      final Connection connection) throws Exception {
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement updateStatement = connection.prepareStatement(
+          parameterizedSQL)) {
+        int parameterIndex = 1;
+        for (final Object parameter : parameters) {
+          updateStatement.setObject(parameterIndex++, parameter);
         }
-      } finally {
-        dbWriteCallCounter.inc();
-        dbWriteDuration.update(System.nanoTime() - tStart);
-        sample.stop(dbCrudTimerOfUpdate);
+        return updateStatement.executeUpdate();
       }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfUpdate);
     }
-    return 0;
   }
 
   public <E extends AbstractEntity> String getIdColumnName(final Class<E> clazz) {
@@ -215,6 +371,32 @@ public class DatabaseOrm {
     }
   }
 
+  /**
+   * Returns the update time of the rows matching the predicate, by id.
+   */
+  public <E extends AbstractEntity> Map<Long, Timestamp> findUpdateTimes(
+      final Predicate predicate, final Class<E> clazz, final Connection connection)
+      throws Exception {
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createFindUpdateTimesStatement(connection, predicate, clazz)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          final Map<Long, Timestamp> updateTimes = new HashMap<>();
+          while (resultSet.next()) {
+            updateTimes.put(resultSet.getLong(1), resultSet.getTimestamp(2));
+          }
+          return updateTimes;
+        }
+      }
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfRead);
+    }
+  }
+
   public <E extends AbstractEntity> List<E> runSQL(
       final String parameterizedSQL,
       final Map<String, Object> parameterMap,
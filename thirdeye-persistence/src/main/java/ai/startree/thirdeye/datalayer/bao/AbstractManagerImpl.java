@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.datalayer.bao;
 
+import ai.startree.thirdeye.datalayer.dao.DtoCache;
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
@@ -21,6 +22,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import com.google.inject.persist.Transactional;
 import java.sql.Timestamp;
 import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
@@ -28,11 +30,23 @@ public abstract class AbstractManagerImpl<E extends AbstractDTO> implements Abst
 
   protected final GenericPojoDao genericPojoDao;
   private final Class<? extends AbstractDTO> dtoClass;
+  private final @Nullable DtoCache<E> dtoCache;
 
   protected AbstractManagerImpl(final Class<? extends AbstractDTO> dtoClass,
       final GenericPojoDao genericPojoDao) {
     this.dtoClass = dtoClass;
     this.genericPojoDao = genericPojoDao;
+    this.dtoCache = null;
+  }
+
+  /**
+   * Use this constructor to serve {@link #findById} from a process-wide {@link DtoCache}.
+   */
+  protected AbstractManagerImpl(final Class<E> dtoClass, final GenericPojoDao genericPojoDao,
+      final boolean cached) {
+    this.dtoClass = dtoClass;
+    this.genericPojoDao = genericPojoDao;
+    this.dtoCache = cached ? new DtoCache<>(genericPojoDao, dtoClass) : null;
   }
 
   @Override
@@ -65,6 +79,9 @@ public abstract class AbstractManagerImpl<E extends AbstractDTO> implements Abst
 
   @Override
   public E findById(final Long id) {
+    if (dtoCache != null) {
+      return dtoCache.get(id);
+    }
     return (E) genericPojoDao.get(id, dtoClass);
   }
 
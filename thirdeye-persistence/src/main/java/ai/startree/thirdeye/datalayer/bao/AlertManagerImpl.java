@@ -38,7 +38,7 @@ public class AlertManagerImpl extends AbstractManagerImpl<AlertDTO> implements
   @Inject
   public AlertManagerImpl(final GenericPojoDao genericPojoDao,
       final MetricRegistry metricRegistry) {
-    super(AlertDTO.class, genericPojoDao);
+    super(AlertDTO.class, genericPojoDao, true);
     // TODO CYRIL micrometer migration - test for CachedGauge   
     Gauge.builder("thirdeye_active_alerts",
             memoizeWithExpiration(this::countActive, METRICS_CACHE_TIMEOUT.toMinutes(),
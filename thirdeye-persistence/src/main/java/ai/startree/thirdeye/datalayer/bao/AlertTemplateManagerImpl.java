@@ -25,6 +25,6 @@ public class AlertTemplateManagerImpl extends AbstractManagerImpl<AlertTemplateD
 
   @Inject
   public AlertTemplateManagerImpl(GenericPojoDao genericPojoDao) {
-    super(AlertTemplateDTO.class, genericPojoDao);
+    super(AlertTemplateDTO.class, genericPojoDao, true);
   }
 }
@@ -13,34 +13,34 @@
  */
 package ai.startree.thirdeye.datalayer.bao;
 
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_UNKNOWN;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
@@ -54,10 +54,6 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
 
   private static final Logger LOG = LoggerFactory.getLogger(AnomalyManagerImpl.class);
 
-  // TODO inject as dependency
-  private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(10,
-      new ThreadFactoryBuilder().setNameFormat("anomaly-manager-%d").build());
-
   @Inject
   public AnomalyManagerImpl(final GenericPojoDao genericPojoDao) {
     super(AnomalyDTO.class, genericPojoDao);
@@ -151,13 +147,106 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     return childIds;
   }
 
+  @Override
+  public void saveDetectionResults(final List<AnomalyDTO> anomalies, final AlertDTO alert) {
+    // children are saved before their parents: the parents reference the ids of their children
+    // a child shared by multiple parents is saved once: anomalies are identified by reference
+    final Map<AnomalyDTO, Integer> heights = new IdentityHashMap<>();
+    final List<List<AnomalyDTO>> anomaliesByHeight = new ArrayList<>();
+    for (final AnomalyDTO anomaly : anomalies) {
+      addByHeight(anomaly, Collections.newSetFromMap(new IdentityHashMap<>()), heights,
+          anomaliesByHeight);
+    }
+    final List<AnomalyDTO> createdAnomalies = new ArrayList<>();
+    final boolean saved = genericPojoDao.executeTransaction((connection) -> {
+      for (final List<AnomalyDTO> sameHeightAnomalies : anomaliesByHeight) {
+        final List<AnomalyDTO> anomaliesToCreate = new ArrayList<>();
+        for (final AnomalyDTO anomaly : sameHeightAnomalies) {
+          final AnomalyDTO mergeAnomalyBean = convertMergeAnomalyDTO2Bean(anomaly);
+          mergeAnomalyBean.setChildIds(childIds(anomaly));
+          if (anomaly.getId() == null) {
+            anomaliesToCreate.add(mergeAnomalyBean);
+          } else {
+            checkUpdated(genericPojoDao.update(mergeAnomalyBean, null, connection),
+                mergeAnomalyBean);
+          }
+        }
+        createdAnomalies.addAll(anomaliesToCreate);
+        genericPojoDao.create(anomaliesToCreate, connection);
+      }
+      // a stale alert fails the transaction: its lastTimestamp would not move forward and the
+      // next run would detect the same anomalies again
+      checkUpdated(genericPojoDao.update(alert, null, connection), alert);
+      return true;
+    }, false);
+    if (!saved) {
+      // the ids set by the rolled back transaction do not exist
+      createdAnomalies.forEach(anomaly -> anomaly.setId(null));
+      throw new ThirdEyeException(ERR_UNKNOWN,
+          "Failed to save the detection results of alert " + alert.getId());
+    }
+  }
+
+  /**
+   * Adds the anomaly and its children to the list of anomalies of the same height. The height of
+   * an anomaly without children is 0. An anomaly already added is not added again.
+   *
+   * @param ancestors the anomalies on the path from the root anomaly, to detect cycles
+   * @param heights the height of the anomalies already added
+   * @return the height of the anomaly
+   */
+  private static int addByHeight(final AnomalyDTO anomaly, final Set<AnomalyDTO> ancestors,
+      final Map<AnomalyDTO, Integer> heights, final List<List<AnomalyDTO>> anomaliesByHeight) {
+    final Integer knownHeight = heights.get(anomaly);
+    if (knownHeight != null) {
+      return knownHeight;
+    }
+    ancestors.add(anomaly);
+    int height = 0;
+    for (final AnomalyDTO child : optional(anomaly.getChildren()).orElse(Set.of())) {
+      // Prevent cycles
+      if (ancestors.contains(child)) {
+        throw new IllegalArgumentException("Loop detected! Child anomaly referencing ancestor");
+      }
+      child.setAuth(anomaly.getAuth());
+      child.setChild(true);
+      height = Math.max(height,
+          addByHeight(child, ancestors, heights, anomaliesByHeight) + 1);
+    }
+    ancestors.remove(anomaly);
+    while (anomaliesByHeight.size() <= height) {
+      anomaliesByHeight.add(new ArrayList<>());
+    }
+    anomaliesByHeight.get(height).add(anomaly);
+    heights.put(anomaly, height);
+    return height;
+  }
+
+  private static void checkUpdated(final int updated, final AbstractDTO entity) {
+    if (updated != 1) {
+      throw new ThirdEyeException(ERR_UNKNOWN, String.format(
+          "%s %d was not updated: it does not exist or was modified concurrently (version %d)",
+          entity.getClass().getSimpleName(),
+          entity.getId(),
+          entity.getVersion()));
+    }
+  }
+
+  private static Set<Long> childIds(final AnomalyDTO anomaly) {
+    final Set<Long> childIds = new HashSet<>();
+    for (final AnomalyDTO child : optional(anomaly.getChildren()).orElse(Set.of())) {
+      childIds.add(child.getId());
+    }
+    return childIds;
+  }
+
   @Override
   public AnomalyDTO findById(final Long id) {
     final AnomalyDTO anomaly = genericPojoDao.get(id, AnomalyDTO.class);
     if (anomaly == null) {
       return null;
     }
-    return decorate(anomaly, new HashSet<>());
+    return decorate(List.of(anomaly)).get(0);
   }
 
   @Override
@@ -223,8 +312,7 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
       if (candidate.getChildIds() != null && !candidate.getChildIds().isEmpty()) {
         for (final Long id : candidate.getChildIds()) {
           if (entity.getId().equals(id)) {
-            return decorate(candidate,
-                new HashSet<>(Collections.singleton(candidate.getId())));
+            return decorate(List.of(candidate)).get(0);
           }
         }
       }
@@ -242,60 +330,119 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     return entity;
   }
 
+  /**
+   * Sets the feedback and the children of the anomalies, recursively.
+   *
+   * The children are loaded level by level: the children of all the anomalies of a level are
+   * fetched with a single query. The feedbacks of all the anomalies are fetched with a single
+   * query. The number of queries depends on the depth of the anomaly trees, not on the number of
+   * anomalies.
+   *
+   * An anomaly reached from several parents is loaded and decorated once. Its children exclude
+   * its ancestors through any of these parents, so the result does not depend on the order of
+   * the anomalies and the decorated anomalies never form a cycle.
+   */
   @Override
-  public List<AnomalyDTO> decorate(final List<AnomalyDTO> l) {
-    final List<Future<AnomalyDTO>> fList = l.stream()
-        .map(anomalyDTO -> EXECUTOR_SERVICE.submit(() -> decorate(anomalyDTO, new HashSet<>())))
-        .collect(Collectors.toList());
-
-    final List<AnomalyDTO> outList = new ArrayList<>(l.size());
-    for (final Future<AnomalyDTO> f : fList) {
-      try {
-        outList.add(f.get(60, TimeUnit.SECONDS));
-      } catch (final InterruptedException | TimeoutException | ExecutionException e) {
-        LOG.warn("Failed to convert MergedAnomalyResultDTO from bean: {}", e.toString());
+  public List<AnomalyDTO> decorate(final List<AnomalyDTO> anomalies) {
+    final List<AnomalyDTO> allAnomalies = new ArrayList<>(anomalies);
+    final Map<Long, AnomalyDTO> loaded = new HashMap<>();
+    List<AnomalyNode> level = new ArrayList<>(anomalies.size());
+    for (final AnomalyDTO anomaly : anomalies) {
+      loaded.putIfAbsent(anomaly.getId(), anomaly);
+      final Set<Long> treeIds = new HashSet<>();
+      treeIds.add(anomaly.getId());
+      level.add(new AnomalyNode(anomaly, treeIds));
+    }
+    while (!level.isEmpty()) {
+      final Set<Long> levelChildIds = new HashSet<>();
+      for (final AnomalyNode node : level) {
+        for (final Long childId : optional(node.anomaly().getChildIds()).orElse(Set.of())) {
+          if (childId != null && !node.treeIds().contains(childId)
+              && !loaded.containsKey(childId)) {
+            levelChildIds.add(childId);
+          }
+        }
+      }
+      final Map<Long, AnomalyDTO> levelChildren = levelChildIds.isEmpty()
+          ? Map.of()
+          : genericPojoDao.get(new ArrayList<>(levelChildIds), AnomalyDTO.class).stream()
+              .collect(Collectors.toMap(AnomalyDTO::getId, Function.identity()));
+      allAnomalies.addAll(levelChildren.values());
+
+      // a child reached from several parents of the level gets the tree ids of all of them
+      final Map<Long, AnomalyNode> nextLevel = new LinkedHashMap<>();
+      // children that were loaded before this level: they may be decorated already
+      final List<Map.Entry<AnomalyDTO, AnomalyDTO>> loadedChildren = new ArrayList<>();
+      for (final AnomalyNode node : level) {
+        final Set<AnomalyDTO> children = new HashSet<>();
+        for (final Long childId : optional(node.anomaly().getChildIds()).orElse(Set.of())) {
+          if (childId == null || node.treeIds().contains(childId)) {
+            continue;
+          }
+          final AnomalyDTO loadedChild = loaded.get(childId);
+          if (loadedChild != null) {
+            loadedChildren.add(Map.entry(node.anomaly(), loadedChild));
+            continue;
+          }
+          final AnomalyDTO child = levelChildren.get(childId);
+          if (child == null) {
+            LOG.warn("Child anomaly {} of anomaly {} not found", childId, node.anomaly().getId());
+            continue;
+          }
+          children.add(child);
+          nextLevel.computeIfAbsent(childId,
+                  id -> new AnomalyNode(child, new HashSet<>(Set.of(id))))
+              .treeIds()
+              .addAll(node.treeIds());
+        }
+        node.anomaly().setChildren(children);
+      }
+      for (final Map.Entry<AnomalyDTO, AnomalyDTO> e : loadedChildren) {
+        final AnomalyDTO parent = e.getKey();
+        final AnomalyDTO child = e.getValue();
+        if (!reaches(child, parent, Collections.newSetFromMap(new IdentityHashMap<>()))) {
+          parent.getChildren().add(child);
+        }
       }
+      levelChildren.forEach(loaded::putIfAbsent);
+      level = new ArrayList<>(nextLevel.values());
     }
+    decorateWithFeedback(allAnomalies);
 
-    return outList;
+    return anomalies;
   }
 
-  private AnomalyDTO decorate(final AnomalyDTO anomaly, final Set<Long> visitedAnomalyIds) {
-    if (anomaly.getAnomalyFeedbackId() != null) {
-      final AnomalyFeedbackDTO anomalyFeedbackDTO = genericPojoDao
-          .get(anomaly.getAnomalyFeedbackId(), AnomalyFeedbackDTO.class);
-      anomaly.setFeedback(anomalyFeedbackDTO);
+  /**
+   * Returns true if {@code target} is {@code from} or one of its decorated descendants.
+   */
+  private static boolean reaches(final AnomalyDTO from, final AnomalyDTO target,
+      final Set<AnomalyDTO> visited) {
+    if (from == target) {
+      return true;
     }
-
-    visitedAnomalyIds.add(anomaly.getId());
-    anomaly.setChildren(getChildAnomalies(anomaly, visitedAnomalyIds));
-
-    return anomaly;
-  }
-
-  private Set<AnomalyDTO> getChildAnomalies(
-      final AnomalyDTO anomalyDTO, final Set<Long> visitedAnomalyIds) {
-    final Set<AnomalyDTO> children = new HashSet<>();
-    if (anomalyDTO.getChildIds() != null) {
-      for (final Long id : anomalyDTO.getChildIds()) {
-        if (id == null || visitedAnomalyIds.contains(id)) {
-          continue;
-        }
-
-        final AnomalyDTO childBean = genericPojoDao.get(id,
-            AnomalyDTO.class);
-        final AnomalyDTO child = decorate(childBean, visitedAnomalyIds);
-        children.add(child);
+    if (!visited.add(from)) {
+      return false;
+    }
+    for (final AnomalyDTO child : optional(from.getChildren()).orElse(Set.of())) {
+      if (reaches(child, target, visited)) {
+        return true;
       }
     }
-    return children;
+    return false;
   }
 
+  // treeIds: ids of the anomaly and of its ancestors in all the trees - used to prevent cycles
+  private record AnomalyNode(AnomalyDTO anomaly, Set<Long> treeIds) {}
+
   private List<AnomalyDTO> decorateWithFeedback(final List<AnomalyDTO> anomalies) {
     final List<Long> feedbackIds = anomalies.stream()
         .map(AnomalyDTO::getAnomalyFeedbackId)
         .filter(Objects::nonNull)
+        .distinct()
         .collect(Collectors.toList());
+    if (feedbackIds.isEmpty()) {
+      return anomalies;
+    }
 
     final List<AnomalyFeedbackDTO> feedbacks = genericPojoDao.get(feedbackIds,
         AnomalyFeedbackDTO.class);
@@ -336,9 +483,7 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     if (predicate != null) {
       finalPredicate = Predicate.AND(finalPredicate, predicate);
     }
-    return findByPredicate(finalPredicate).stream()
-        .map(anomaly -> decorate(anomaly, new HashSet<>()))
-        .collect(Collectors.toList());
+    return findByPredicate(finalPredicate);
   }
 
   private Predicate toPredicate(final AnomalyFilter af) {
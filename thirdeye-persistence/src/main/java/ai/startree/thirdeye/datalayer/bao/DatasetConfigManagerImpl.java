@@ -33,7 +33,7 @@ public class DatasetConfigManagerImpl extends AbstractManagerImpl<DatasetConfigD
 
   @Inject
   public DatasetConfigManagerImpl(GenericPojoDao genericPojoDao) {
-    super(DatasetConfigDTO.class, genericPojoDao);
+    super(DatasetConfigDTO.class, genericPojoDao, true);
   }
 
   @Override
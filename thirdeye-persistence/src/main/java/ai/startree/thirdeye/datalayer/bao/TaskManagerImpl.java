@@ -149,26 +149,21 @@ public class TaskManagerImpl implements TaskManager {
     task.setStatus(TaskStatus.RUNNING);
     task.setWorkerId(workerId);
     task.setStartTime(System.currentTimeMillis());
-    final int currentVersion = task.getVersion();
-    task.setVersion(currentVersion + 1);
-    final Predicate predicate = Predicate.AND(
-        Predicate.EQ("version", currentVersion),
-        Predicate.EQ("status", TaskStatus.WAITING.toString())
-    );
+    // the update checks and increments the version of the task
+    final Predicate predicate = Predicate.EQ("status", TaskStatus.WAITING.toString());
     return dao.update(task, predicate) == 1;
   }
 
+  @Override
+  public List<TaskDTO> acquireTasksToRun(final long workerId, final int limit) {
+    return dao.acquireTasksToRun(workerId, limit);
+  }
+
   @Override
   public void updateStatusAndTaskEndTime(final Long id, final TaskStatus oldStatus,
       final TaskStatus newStatus,
       final Long taskEndTime, final String message) {
-    final TaskDTO task = findById(id);
-    if (task.getStatus().equals(oldStatus)) {
-      task.setStatus(newStatus);
-      task.setEndTime(taskEndTime);
-      task.setMessage(message);
-      save(task);
-    }
+    dao.updateStatusAndEndTime(id, oldStatus, newStatus, taskEndTime, message);
   }
 
   @Override
@@ -180,9 +175,7 @@ public class TaskManagerImpl implements TaskManager {
 
   @Override
   public void updateLastActive(final Long id) {
-    final TaskDTO task = findById(id);
-    task.setLastActive(new Timestamp(System.currentTimeMillis()));
-    save(task);
+    dao.updateLastActive(id, new Timestamp(System.currentTimeMillis()));
   }
 
   @Override
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toDto;
+
+import ai.startree.thirdeye.datalayer.entity.GenericJsonEntity;
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import java.io.Closeable;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide cache of the rows of a dto class, by id.
+ *
+ * The cache holds the json rows, so each read returns a new dto that callers can modify.
+ * Entries are invalidated when the entity is updated or deleted through the
+ * {@link GenericPojoDao} of this process, once the transaction of the write is committed. Writes
+ * from other processes are detected by a periodic poll of the update time of the cached rows:
+ * rows that changed or were deleted are evicted. The polls run until the cache or the
+ * {@link GenericPojoDao} is closed.
+ */
+public class DtoCache<E extends AbstractDTO> implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DtoCache.class);
+
+  private static final Duration POLL_PERIOD = Duration.ofSeconds(30);
+  private static final long MAXIMUM_SIZE = 10_000;
+  private static final int POLL_BATCH_SIZE = 1000;
+
+  private final GenericPojoDao genericPojoDao;
+  private final Class<E> dtoClass;
+  private final Cache<Long, GenericJsonEntity> cache;
+  // incremented on each write - a row read before a write is not cached
+  private final AtomicLong writeCount = new AtomicLong();
+  private final Consumer<List<Long>> writeListener = this::invalidate;
+  private final ScheduledFuture<?> pollFuture;
+
+  public DtoCache(final GenericPojoDao genericPojoDao, final Class<E> dtoClass) {
+    this.genericPojoDao = genericPojoDao;
+    this.dtoClass = dtoClass;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .build();
+    genericPojoDao.addWriteListener(dtoClass, writeListener);
+    pollFuture = genericPojoDao.schedulePoll(this::poll, POLL_PERIOD);
+  }
+
+  public @Nullable E get(final Long id) {
+    try {
+      GenericJsonEntity entity = cache.getIfPresent(id);
+      if (entity == null) {
+        final long writeCountBeforeRead = writeCount.get();
+        entity = genericPojoDao.getEntity(id, dtoClass);
+        if (entity == null) {
+          return null;
+        }
+        if (writeCount.get() == writeCountBeforeRead) {
+          cache.put(id, entity);
+        }
+      }
+      return toDto(entity, dtoClass);
+    } catch (final Exception e) {
+      LOG.error("Could not get {} with id {}", dtoClass.getSimpleName(), id, e);
+      return null;
+    }
+  }
+
+  public void invalidate(final List<Long> ids) {
+    writeCount.incrementAndGet();
+    cache.invalidateAll(ids);
+  }
+
+  public void invalidateAll() {
+    writeCount.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  /**
+   * Evicts the cached rows that were updated or deleted since they were read.
+   */
+  void poll() {
+    try {
+      final List<Long> cachedIds = new ArrayList<>(cache.asMap().keySet());
+      for (final List<Long> ids : Lists.partition(cachedIds, POLL_BATCH_SIZE)) {
+        final Map<Long, Timestamp> updateTimes = genericPojoDao.getUpdateTimes(ids);
+        final List<Long> changedIds = new ArrayList<>();
+        for (final Long id : ids) {
+          final GenericJsonEntity cached = cache.getIfPresent(id);
+          if (cached != null && (!updateTimes.containsKey(id)
+              || !Objects.equals(updateTimes.get(id), cached.getUpdateTime()))) {
+            changedIds.add(id);
+          }
+        }
+        if (!changedIds.isEmpty()) {
+          invalidate(changedIds);
+        }
+      }
+    } catch (final Exception e) {
+      // changes cannot be detected - do not throw to keep the periodic poll scheduled
+      LOG.error("Could not poll the update times of {}. Invalidating the cache.",
+          dtoClass.getSimpleName(), e);
+      invalidateAll();
+    }
+  }
+
+  /**
+   * Stops the poll and the invalidation of the cache, and empties it.
+   */
+  @Override
+  public void close() {
+    pollFuture.cancel(false);
+    genericPojoDao.removeWriteListener(dtoClass, writeListener);
+    invalidateAll();
+  }
+}
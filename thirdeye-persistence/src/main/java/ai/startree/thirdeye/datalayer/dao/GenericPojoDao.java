@@ -20,6 +20,7 @@ import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.t
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_LIMIT_VALUE;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_OFFSET_VALUE;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_OFFSET_WITHOUT_LIMIT;
+import static ai.startree.thirdeye.spi.util.ExecutorUtils.shutdownExecutionService;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -28,6 +29,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datalayer.DatabaseClient;
+import ai.startree.thirdeye.datalayer.DatabaseClient.DBOperation;
 import ai.startree.thirdeye.datalayer.DatabaseOrm;
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
@@ -40,14 +42,28 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.lang.reflect.Field;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import org.apache.commons.collections4.CollectionUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.reflections.ReflectionUtils;
@@ -64,6 +80,14 @@ public class GenericPojoDao {
 
   private final DatabaseOrm databaseOrm;
   private final DatabaseClient databaseClient;
+  private final Map<Class<? extends AbstractDTO>, List<Consumer<List<Long>>>> writeListeners =
+      new ConcurrentHashMap<>();
+  /* To poll the DtoCaches */
+  private final ScheduledExecutorService cachePollExecutor =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setNameFormat("dto-cache-poll-%d")
+          .setDaemon(true)
+          .build());
 
   @Inject
   public GenericPojoDao(final DatabaseOrm databaseOrm,
@@ -111,9 +135,11 @@ public class GenericPojoDao {
     try {
       return databaseClient.executeTransaction((connection) -> {
         final GenericJsonEntity e = toGenericJsonEntity(pojo);
+        e.setVersion(1);
         final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
         final Long generatedKey = databaseOrm.save(e, connection);
         pojo.setId(generatedKey);
+        pojo.setVersion(1);
         if (indexClass != null) {
           final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(
               pojo,
@@ -132,26 +158,54 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Updates the pojo in its own transaction, without going through the batch path of
+   * {@link #update(List)}.
+   *
+   * @return the number of rows that are affected: 1, or 0 if the update failed.
+   */
   public <E extends AbstractDTO> int update(final E pojo) {
-    return update(List.of(pojo));
+    return update(pojo, null);
+  }
+
+  /**
+   * Creates the pojos in a single transaction, with batched statements. The ids of the pojos are
+   * set. If the transaction fails, nothing is created and the ids of the pojos are not set.
+   *
+   * @return the number of pojos created.
+   */
+  public <E extends AbstractDTO> int create(final List<E> pojos) {
+    if (CollectionUtils.isEmpty(pojos)) {
+      return 0;
+    }
+    final boolean created = executeTransaction((connection) -> {
+      create(pojos, connection);
+      return true;
+    }, false);
+    if (!created) {
+      pojos.forEach(pojo -> pojo.setId(null));
+      return 0;
+    }
+    return pojos.size();
   }
 
   /**
-   * Update the list of pojos in transaction mode. Every transaction contains MAX_BATCH_SIZE of
-   * entries. By default,
-   * this method update the entries in one transaction. If any entries cause an exception, this
-   * method will
-   * update the entries one-by-one (i.e., in separated transactions) and skip the one that causes
-   * exceptions.
+   * Update the list of pojos in a single transaction, with batched statements. If the
+   * transaction fails, this method updates the entries one-by-one (i.e., in separated
+   * transactions) and skips the ones that cause exceptions.
    *
-   * @param pojos the pojo to be updated, whose ID cannot be null; otherwise, it will be
-   *     ignored.
+   * @param pojos the pojo to be updated, whose ID cannot be null.
    * @return the number of rows that are affected.
    */
   public <E extends AbstractDTO> int update(final List<E> pojos) {
     if (CollectionUtils.isEmpty(pojos)) {
       return 0;
     }
+    final Integer batchUpdateCounter = executeTransaction(
+        (connection) -> update(pojos, connection), null);
+    if (batchUpdateCounter != null) {
+      return batchUpdateCounter;
+    }
     int updateCounter = 0;
     for (final E pojo : pojos) {
       try {
@@ -166,30 +220,11 @@ public class GenericPojoDao {
   public <E extends AbstractDTO> int update(final E pojo, final Predicate predicate) {
     checkNotNull(pojo.getId(), "An id is required to update the entity: %s", pojo);
 
-    /* Update updateTime before DB update. Restore if update fails */
+    /* updateTime is updated before DB update. Restore if update fails */
     final Timestamp lastUpdateTime = pojo.getUpdateTime();
-    pojo.setUpdateTime(new Timestamp(System.currentTimeMillis()));
-
     try {
-      final GenericJsonEntity genericJsonEntity = toGenericJsonEntity(pojo);
-      final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
-      return databaseClient.executeTransaction((connection) -> {
-        Integer ret = databaseOrm.update(genericJsonEntity, predicate, connection);
-        //update indexes
-        if (ret == 1) {
-          if (indexClass != null) {
-            final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(pojo,
-                indexClass,
-                genericJsonEntity.getJsonVal());
-            //updates all columns in the index table by default
-            ret = databaseOrm.update(abstractIndexEntity, null, connection);
-          }
-        }
-        if (ret > 1) {
-          throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
-        }
-        return ret;
-      }, 0);
+      return databaseClient.executeTransaction(
+          (connection) -> update(pojo, predicate, connection), 0);
     } catch (final Exception e) {
       pojo.setUpdateTime(lastUpdateTime);
       LOG.error("Could not update entity : {}", pojo, e);
@@ -197,6 +232,180 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Creates the pojos within the transaction of the connection. The base rows, and the index rows
+   * of each pojo class, are inserted with a batched statement each. The ids of the pojos are set.
+   */
+  public <E extends AbstractDTO> void create(final List<E> pojos, final Connection connection)
+      throws Exception {
+    if (pojos.isEmpty()) {
+      return;
+    }
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    final List<GenericJsonEntity> entities = new ArrayList<>(pojos.size());
+    for (final E pojo : pojos) {
+      checkArgument(pojo.getId() == null, "id must be null for create flow.");
+      /* Populate createTime before DB insert if not present already */
+      if (pojo.getCreateTime() == null) {
+        pojo.setCreateTime(now);
+      }
+      final GenericJsonEntity entity = toGenericJsonEntity(pojo);
+      entity.setVersion(1);
+      entities.add(entity);
+    }
+    final List<Long> ids = databaseOrm.saveAll(entities, connection);
+
+    final Map<Class<? extends AbstractIndexEntity>, List<AbstractIndexEntity>> indexEntities =
+        new LinkedHashMap<>();
+    for (int i = 0; i < pojos.size(); i++) {
+      final E pojo = pojos.get(i);
+      pojo.setId(ids.get(i));
+      pojo.setVersion(1);
+      final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
+      if (indexClass != null) {
+        final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(
+            pojo,
+            indexClass,
+            entities.get(i).getJsonVal());
+        abstractIndexEntity.setVersion(1);
+        abstractIndexEntity.setCreateTime(pojo.getCreateTime());
+        indexEntities.computeIfAbsent(indexClass, k -> new ArrayList<>())
+            .add(abstractIndexEntity);
+      }
+    }
+    for (final List<AbstractIndexEntity> sameClassIndexEntities : indexEntities.values()) {
+      databaseOrm.saveAll(sameClassIndexEntities, connection);
+    }
+  }
+
+  /**
+   * Updates the pojo within the transaction of the connection. The updateTime of the pojo is set.
+   *
+   * If the version of the pojo is known (not 0, e.g. the pojo was read from the database), the
+   * row is only updated if it is still at this version, and the version of the pojo is
+   * incremented. A pojo that was updated concurrently is not updated: 0 is returned.
+   *
+   * @return the number of rows that are affected.
+   */
+  public <E extends AbstractDTO> int update(final E pojo, final @Nullable Predicate predicate,
+      final Connection connection) throws Exception {
+    checkNotNull(pojo.getId(), "An id is required to update the entity: %s", pojo);
+    pojo.setUpdateTime(new Timestamp(System.currentTimeMillis()));
+
+    final GenericJsonEntity genericJsonEntity = toGenericJsonEntity(pojo);
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
+    Integer ret = databaseOrm.update(genericJsonEntity, predicate, connection);
+    //update indexes
+    if (ret == 1) {
+      if (indexClass != null) {
+        final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(pojo,
+            indexClass,
+            genericJsonEntity.getJsonVal());
+        //updates all columns in the index table by default
+        ret = databaseOrm.update(unversioned(abstractIndexEntity), null, connection);
+      }
+    }
+    if (ret > 1) {
+      throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
+    }
+    if (ret == 0) {
+      logNotUpdated(pojo);
+    } else {
+      pojo.setVersion(genericJsonEntity.getVersion());
+    }
+    databaseClient.afterCommit(connection,
+        () -> notifyWrite(pojo.getClass(), List.of(pojo.getId())));
+    return ret;
+  }
+
+  /**
+   * Updates the pojos within the transaction of the connection, with batched statements. The
+   * updateTime of the pojos is set. The versions of the pojos are checked and incremented as in
+   * {@link #update(AbstractDTO, Predicate, Connection)}.
+   *
+   * @return the number of rows that are affected.
+   */
+  public <E extends AbstractDTO> int update(final List<E> pojos, final Connection connection)
+      throws Exception {
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    final List<GenericJsonEntity> entities = new ArrayList<>(pojos.size());
+    for (final E pojo : pojos) {
+      checkNotNull(pojo.getId(), "An id is required to update the entity: %s", pojo);
+      pojo.setUpdateTime(now);
+      entities.add(toGenericJsonEntity(pojo));
+    }
+    final int[] updated = databaseOrm.updateAll(entities, connection);
+
+    //update indexes of the updated entities
+    int updateCounter = 0;
+    final List<AbstractIndexEntity> indexEntities = new ArrayList<>(pojos.size());
+    for (int i = 0; i < pojos.size(); i++) {
+      if (updated[i] > 1) {
+        throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
+      }
+      final E pojo = pojos.get(i);
+      if (updated[i] == 1) {
+        final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
+        if (indexClass != null) {
+          //updates all columns in the index table by default
+          indexEntities.add(unversioned(
+              toAbstractIndexEntity(pojo, indexClass, entities.get(i).getJsonVal())));
+        } else {
+          updateCounter++;
+        }
+      } else {
+        logNotUpdated(pojo);
+      }
+    }
+    for (final int indexUpdated : databaseOrm.updateAll(indexEntities, connection)) {
+      if (indexUpdated > 1) {
+        throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
+      }
+      updateCounter += indexUpdated;
+    }
+    for (int i = 0; i < pojos.size(); i++) {
+      if (updated[i] == 1) {
+        pojos.get(i).setVersion(entities.get(i).getVersion());
+      }
+    }
+    final Map<Class<? extends AbstractDTO>, List<Long>> idsPerClass = new LinkedHashMap<>();
+    for (final E pojo : pojos) {
+      idsPerClass.computeIfAbsent(pojo.getClass(), k -> new ArrayList<>()).add(pojo.getId());
+    }
+    databaseClient.afterCommit(connection, () -> idsPerClass.forEach(this::notifyWrite));
+    return updateCounter;
+  }
+
+  /**
+   * The index row is updated in the transaction of its base row, after the version check of the
+   * base row: the index row is not checked again.
+   */
+  private static AbstractIndexEntity unversioned(final AbstractIndexEntity indexEntity) {
+    indexEntity.setVersion(0);
+    return indexEntity;
+  }
+
+  private static void logNotUpdated(final AbstractDTO pojo) {
+    LOG.warn("{} {} was not updated: it does not exist, does not match the predicate, "
+            + "or was updated concurrently (expected version {})",
+        pojo.getClass().getSimpleName(), pojo.getId(), pojo.getVersion());
+  }
+
+  /**
+   * Runs the operation in a single transaction. The transaction is rolled back if the operation
+   * throws.
+   *
+   * @return the result of the operation, or defaultReturn if the transaction was rolled back
+   */
+  public <T> T executeTransaction(final DBOperation<T> operation, final T defaultReturn) {
+    try {
+      return databaseClient.executeTransaction(operation, defaultReturn);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return defaultReturn;
+    }
+  }
+
   public <E extends AbstractDTO> List<E> list(final Class<E> beanClass, final long limit,
       final long offset) {
     try {
@@ -239,24 +448,81 @@ public class GenericPojoDao {
 
   public <E extends AbstractDTO> E get(final Long id, final Class<E> pojoClass) {
     try {
-      final GenericJsonEntity genericJsonEntity = databaseClient.executeTransaction(
-          (connection) -> databaseOrm.find(id, GenericJsonEntity.class, connection),
-          null);
-      if (genericJsonEntity == null) {
-        return null;
-      }
-      final String type = SubEntities.getType(pojoClass);
-      /* Object with id just not match type. Hence, return null */
-      if (!type.equals(genericJsonEntity.getType())) {
-        return null;
-      }
-      return toDto(genericJsonEntity, pojoClass);
+      final GenericJsonEntity genericJsonEntity = getEntity(id, pojoClass);
+      return genericJsonEntity == null ? null : toDto(genericJsonEntity, pojoClass);
     } catch (final JsonProcessingException | SQLException e) {
       LOG.error(e.getMessage(), e);
       return null;
     }
   }
 
+  /**
+   * Returns the row of the entity, or null if the entity does not exist or is not of the
+   * pojoClass type.
+   */
+  @Nullable GenericJsonEntity getEntity(final Long id,
+      final Class<? extends AbstractDTO> pojoClass) throws SQLException {
+    final GenericJsonEntity genericJsonEntity = databaseClient.executeTransaction(
+        (connection) -> databaseOrm.find(id, GenericJsonEntity.class, connection),
+        null);
+    if (genericJsonEntity == null) {
+      return null;
+    }
+    final String type = SubEntities.getType(pojoClass);
+    /* Object with id just not match type. Hence, return null */
+    if (!type.equals(genericJsonEntity.getType())) {
+      return null;
+    }
+    return genericJsonEntity;
+  }
+
+  /**
+   * Returns the update time of the entities by id. Entities that do not exist are not in the
+   * returned map.
+   */
+  Map<Long, Timestamp> getUpdateTimes(final List<Long> ids) throws SQLException {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    return databaseClient.executeTransaction(
+        (connection) -> databaseOrm.findUpdateTimes(
+            Predicate.IN(databaseOrm.getIdColumnName(GenericJsonEntity.class), ids.toArray()),
+            GenericJsonEntity.class,
+            connection),
+        Map.of());
+  }
+
+  /**
+   * Registers a listener called with the ids of the entities of the beanClass that are updated
+   * or deleted. Updates done in a transaction are notified once the transaction is committed.
+   */
+  public void addWriteListener(final Class<? extends AbstractDTO> beanClass,
+      final Consumer<List<Long>> listener) {
+    writeListeners.computeIfAbsent(beanClass, k -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  public void removeWriteListener(final Class<? extends AbstractDTO> beanClass,
+      final Consumer<List<Long>> listener) {
+    optional(writeListeners.get(beanClass)).ifPresent(listeners -> listeners.remove(listener));
+  }
+
+  /**
+   * Schedules the periodic poll of a {@link DtoCache}. The polls stop when the dao is closed.
+   */
+  ScheduledFuture<?> schedulePoll(final Runnable poll, final Duration period) {
+    return cachePollExecutor.scheduleWithFixedDelay(poll,
+        period.toMillis(),
+        period.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  private void notifyWrite(final Class<? extends AbstractDTO> beanClass, final List<Long> ids) {
+    final List<Consumer<List<Long>>> listeners = writeListeners.get(beanClass);
+    if (listeners != null && !ids.isEmpty()) {
+      listeners.forEach(listener -> listener.accept(ids));
+    }
+  }
+
   public AbstractDTO getRaw(final Long id) {
     try {
       final GenericJsonEntity genericJsonEntity = databaseClient.executeTransaction(
@@ -297,6 +563,8 @@ public class GenericPojoDao {
    * If you wish to get all the entities then please use {@link #getAll} as the fetchEntities method does a
    * two-step operation to get the entities whereas {@link #getAll} gets the entities in a single
    * operation.
+   * If the filter has an orderByKey, the entities are returned in this order. Ordering by baseId
+   * with a baseId > lastId predicate and a limit fetches pages efficiently.
    *
    * @param daoFilter required filters to fetchEntities the result.
    */
@@ -307,7 +575,16 @@ public class GenericPojoDao {
       return emptyList();
     }
     final Class<? extends AbstractDTO> beanClass = daoFilter.getBeanClass();
-    return (List<E>) get(ids, beanClass);
+    final List<E> entities = (List<E>) get(ids, beanClass);
+    if (daoFilter.getOrderByKey() != null) {
+      // the entities are fetched by id - restore the order of the filter
+      final Map<Long, Integer> positions = new HashMap<>();
+      for (int i = 0; i < ids.size(); i++) {
+        positions.put(ids.get(i), i);
+      }
+      entities.sort(Comparator.comparing(e -> positions.get(e.getId())));
+    }
+    return entities;
   }
 
   private <E extends AbstractDTO> List<E> fetchEntities(final Class<E> pojoClass,
@@ -338,6 +615,8 @@ public class GenericPojoDao {
       //find the matching ids
       final List<? extends AbstractIndexEntity> indexEntities = databaseClient.executeTransaction(
           (connection) -> databaseOrm.findAll(daoFilter.getPredicate(),
+              daoFilter.getOrderByKey(),
+              daoFilter.isDesc(),
               daoFilter.getLimit(),
               daoFilter.getOffset(),
               indexClass,
@@ -389,7 +668,7 @@ public class GenericPojoDao {
       final Class<E> pojoClass) {
     final Class<? extends AbstractIndexEntity> indexEntityClass = BEAN_INDEX_MAP.get(pojoClass);
     try {
-      return databaseClient.executeTransaction((connection) -> {
+      final int deleted = databaseClient.executeTransaction((connection) -> {
         // delete entry from base table
         databaseOrm.delete(
             Predicate.IN(databaseOrm.getIdColumnName(GenericJsonEntity.class),
@@ -402,6 +681,8 @@ public class GenericPojoDao {
             indexEntityClass,
             connection);
       }, 0);
+      notifyWrite(pojoClass, idsToDelete);
+      return deleted;
     } catch (final SQLException e) {
       LOG.error(e.getMessage(), e);
       return 0;
@@ -414,4 +695,12 @@ public class GenericPojoDao {
         new DaoFilter().setPredicate(predicate).setBeanClass(pojoClass));
     return delete(idsToDelete, pojoClass);
   }
+
+  /**
+   * Stops the polls of the {@link DtoCache}s. Changes made by other processes are not detected
+   * anymore.
+   */
+  public void close() {
+    shutdownExecutionService(cachePollExecutor);
+  }
 }
@@ -13,7 +13,7 @@
  */
 package ai.startree.thirdeye.datalayer.dao;
 
-import static java.util.Objects.requireNonNull;
+import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.datalayer.DatabaseClient;
 import ai.startree.thirdeye.datalayer.DatabaseOrm;
@@ -23,19 +23,25 @@ import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import ai.startree.thirdeye.spi.task.TaskStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import org.apache.commons.collections4.CollectionUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +51,7 @@ public class TaskDao {
   private static final Logger LOG = LoggerFactory.getLogger(TaskDao.class);
   private static final boolean IS_DEBUG = LOG.isDebugEnabled();
   private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
+  private static final ObjectReader TASK_READER = OBJECT_MAPPER.readerFor(TaskDTO.class);
 
   private final DatabaseOrm databaseOrm;
   private final DatabaseClient databaseClient;
@@ -64,16 +71,20 @@ public class TaskDao {
     final Timestamp currentTime = new java.sql.Timestamp(System.currentTimeMillis());
     entity.setCreateTime(currentTime);
     entity.setUpdateTime(currentTime);
-    entity.setVersion(dto.getVersion() == 0 ? 1 : dto.getVersion());
+    entity.setVersion(dto.getVersion());
     return entity;
   }
 
   private TaskDTO toDto(final TaskEntity entity) throws JsonProcessingException {
-    TaskDTO dto = OBJECT_MAPPER.readValue(entity.getJsonVal(), TaskDTO.class);
+    final TaskDTO dto = TASK_READER.readValue(entity.getJsonVal());
     dto.setId(entity.getId());
     dto.setCreateTime(entity.getCreateTime());
     dto.setUpdateTime(entity.getUpdateTime());
     dto.setVersion(entity.getVersion());
+    // column-backed fields: these columns can be updated without re-writing the json
+    if (entity.getLastActive() != null) {
+      dto.setLastActive(entity.getLastActive());
+    }
     return dto;
   }
 
@@ -98,9 +109,14 @@ public class TaskDao {
     }
     try {
       final TaskEntity entity = toEntity(pojo);
-      return databaseClient.executeTransaction(
+      entity.setVersion(1);
+      final Long id = databaseClient.executeTransaction(
           (connection) -> databaseOrm.save(entity, connection),
           null);
+      if (id != null) {
+        pojo.setVersion(1);
+      }
+      return id;
     } catch (JsonProcessingException | SQLException e) {
       LOG.error(e.getMessage(), e);
       return null;
@@ -146,15 +162,71 @@ public class TaskDao {
   public int update(final TaskDTO pojo, final Predicate predicate) {
     try {
       final TaskEntity entity = toEntity(pojo);
-      return databaseClient.executeTransaction(
+      final int updated = databaseClient.executeTransaction(
           (connection) -> databaseOrm.update(entity, predicate, connection),
           0);
+      pojo.setVersion(entity.getVersion());
+      return updated;
     } catch (JsonProcessingException | SQLException e) {
       LOG.error(e.getMessage(), e);
       return 0;
     }
   }
 
+  /**
+   * Updates the last_active column only. The json is not re-written: last_active is read from
+   * its column when the entity is loaded.
+   */
+  public int updateLastActive(final Long id, final Timestamp lastActive) {
+    final String sql = "UPDATE task_entity SET last_active = ? WHERE id = ?";
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> databaseOrm.executeUpdate(sql, List.of(lastActive, id), connection),
+          0);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
+  /**
+   * Updates the status, end time and message of a task if its status is oldStatus, in a single
+   * statement. The json is patched in place with JSON_SET, so the entity is not read nor
+   * re-serialized. The version is incremented, like a read-modify-write update would.
+   * A null endTime is persisted as 0, the default end time of a TaskDTO - end_time is not
+   * nullable.
+   *
+   * @return the number of affected rows. 0 if the task does not exist or if its status is not
+   *     oldStatus.
+   */
+  public int updateStatusAndEndTime(final Long id, final TaskStatus oldStatus,
+      final TaskStatus newStatus, final @Nullable Long endTime, final String message) {
+    final String sql = """
+        UPDATE task_entity
+        SET status = ?, end_time = ?, update_time = ?, version = version + 1,
+        json_val = JSON_SET(json_val, '$.status', ?, '$.endTime', ?, '$.message', ?)
+        WHERE id = ? AND status = ?
+        """;
+    final long endTimeValue = endTime == null ? 0L : endTime;
+    final List<Object> parameters = Arrays.asList(
+        newStatus.toString(),
+        endTimeValue,
+        new Timestamp(System.currentTimeMillis()),
+        newStatus.toString(),
+        endTimeValue,
+        message,
+        id,
+        oldStatus.toString());
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> databaseOrm.executeUpdate(sql, parameters, connection),
+          0);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
   public List<TaskDTO> getAll() {
     try {
       final List<TaskEntity> entities = databaseClient.executeTransaction(
@@ -201,11 +273,26 @@ public class TaskDao {
     );
   }
 
+  /**
+   * Returns the tasks matching the predicate of the filter, or all the tasks if the predicate is
+   * null. The order, limit and offset of the filter are applied.
+   */
   public List<TaskDTO> filter(final DaoFilter daoFilter) {
-    requireNonNull(daoFilter.getPredicate(),
-        "If the predicate is null, you can just do "
-            + "getAll() which doesn't need to fetch IDs first");
-    return get(daoFilter.getPredicate());
+    try {
+      final List<TaskEntity> entities = databaseClient.executeTransaction(
+          (connection) -> databaseOrm.findAll(daoFilter.getPredicate(),
+              daoFilter.getOrderByKey(),
+              daoFilter.isDesc(),
+              daoFilter.getLimit(),
+              daoFilter.getOffset(),
+              TaskEntity.class,
+              connection),
+          Collections.emptyList());
+      return toDto(entities);
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Collections.emptyList();
+    }
   }
 
   public List<TaskDTO> get(final Map<String, Object> filterParams) {
@@ -272,6 +359,57 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Claims up to limit WAITING tasks for the given worker in a single transaction.
+   * Candidate rows are locked with FOR UPDATE SKIP LOCKED, so concurrent workers claim disjoint
+   * sets of tasks instead of racing on the version column. At most one task per ref_id is
+   * claimed. Rows that are not claimed are released when the transaction commits.
+   *
+   * @return the claimed tasks, in RUNNING status. Empty if no task could be claimed.
+   */
+  public List<TaskDTO> acquireTasksToRun(final long workerId, final int limit) {
+    checkArgument(limit > 0, "limit must be strictly positive. Got %s", limit);
+    final String queryClause = String.format("""
+        WHERE status = 'WAITING'
+        AND ref_id not in (select ref_id from task_entity where status = 'RUNNING')
+        ORDER BY create_time ASC LIMIT %d
+        FOR UPDATE SKIP LOCKED
+        """, limit);
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> {
+            final List<TaskEntity> candidates = databaseOrm.runSQL(queryClause,
+                Collections.emptyMap(), TaskEntity.class, connection);
+            final Set<Long> claimedRefIds = new HashSet<>();
+            final List<TaskDTO> claimed = new ArrayList<>();
+            final long now = System.currentTimeMillis();
+            for (final TaskEntity candidate : candidates) {
+              if (candidate.getRefId() != null && !claimedRefIds.add(candidate.getRefId())) {
+                // tasks of a given ref_id run sequentially - only claim the oldest one
+                continue;
+              }
+              final TaskDTO task = toDto(candidate);
+              task.setStatus(TaskStatus.RUNNING)
+                  .setWorkerId(workerId)
+                  .setStartTime(now)
+                  .setLastActive(new Timestamp(now));
+              // the update checks and increments the version of the task
+              final TaskEntity entity = toEntity(task);
+              final int updated = databaseOrm.update(entity, null, connection);
+              if (updated == 1) {
+                task.setVersion(entity.getVersion());
+                claimed.add(task);
+              }
+            }
+            return claimed;
+          },
+          Collections.emptyList());
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Collections.emptyList();
+    }
+  }
+
   /**
    * Dump all entities of type entityClass to logger
    * This utility is useful to dump the entire table. However, it gets executed in code regularly in
@@ -19,10 +19,19 @@ import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GenericJsonEntityDtoMapper {
 
   public static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
+  // readers are immutable and thread-safe - they are created once per dto class
+  private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+  public static ObjectReader readerFor(final Class<?> beanClass) {
+    return READERS.computeIfAbsent(beanClass, OBJECT_MAPPER::readerFor);
+  }
 
   public static <E extends AbstractDTO> String toJsonString(final E pojo)
       throws JsonProcessingException {
@@ -31,7 +40,6 @@ public class GenericJsonEntityDtoMapper {
 
   public static <E extends AbstractDTO> GenericJsonEntity toGenericJsonEntity(final E pojo)
       throws JsonProcessingException {
-    final int version = pojo.getVersion() == 0 ? 1 : pojo.getVersion();
     final String jsonVal = toJsonString(pojo);
 
     final GenericJsonEntity entity = new GenericJsonEntity()
@@ -42,7 +50,7 @@ public class GenericJsonEntityDtoMapper {
         .setId(pojo.getId())
         .setCreateTime(pojo.getCreateTime())
         .setUpdateTime(pojo.getUpdateTime())
-        .setVersion(version);
+        .setVersion(pojo.getVersion());
 
     return entity;
   }
@@ -50,7 +58,7 @@ public class GenericJsonEntityDtoMapper {
   public static <DtoT extends AbstractDTO> DtoT toDto(final GenericJsonEntity entity,
       final Class<DtoT> beanClass)
       throws JsonProcessingException {
-    DtoT dto = OBJECT_MAPPER.readValue(entity.getJsonVal(), beanClass);
+    final DtoT dto = readerFor(beanClass).readValue(entity.getJsonVal());
     dto
         .setId(entity.getId())
         .setVersion(entity.getVersion())
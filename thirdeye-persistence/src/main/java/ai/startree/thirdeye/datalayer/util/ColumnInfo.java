@@ -13,14 +13,25 @@
  */
 package ai.startree.thirdeye.datalayer.util;
 
+import com.google.common.base.Throwables;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 
 class ColumnInfo {
 
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class,
+      Object.class);
+
   private String columnNameInDB;
   private int sqlType;
   private String columnNameInEntity;
   private Field field;
+  // field accessors resolved once - cheaper than Field.get and Field.set on each statement
+  private MethodHandle getter;
+  private MethodHandle setter;
 
   public String getColumnNameInDB() {
     return columnNameInDB;
@@ -55,6 +66,35 @@ class ColumnInfo {
 
   public ColumnInfo setField(final Field field) {
     this.field = field;
+    try {
+      // the field is accessible - the lookup does not check access
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+      this.setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+    } catch (final IllegalAccessException e) {
+      throw new IllegalStateException("Field is not accessible: " + field, e);
+    }
     return this;
   }
+
+  /**
+   * Returns the value of the field of the entity. The value of a primitive field is boxed.
+   */
+  public Object getValue(final Object entity) {
+    try {
+      return (Object) getter.invokeExact(entity);
+    } catch (final Throwable e) {
+      Throwables.throwIfUnchecked(e);
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public void setValue(final Object entity, final Object value) {
+    try {
+      setter.invokeExact(entity, value);
+    } catch (final Throwable e) {
+      Throwables.throwIfUnchecked(e);
+      throw new IllegalStateException(e);
+    }
+  }
 }
@@ -14,15 +14,13 @@
 package ai.startree.thirdeye.datalayer.util;
 
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
+import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import java.lang.reflect.Field;
-import java.sql.Clob;
+import java.lang.reflect.Constructor;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
-import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -31,6 +29,8 @@ import java.util.List;
 @Singleton
 public class GenericResultSetMapper {
 
+  private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
+
   private final EntityMappingHolder entityMappingHolder;
 
   @Inject
@@ -51,36 +51,54 @@ public class GenericResultSetMapper {
         entityMappingHolder.columnInfoPerTable.get(tableName);
     final List<E> entityList = new ArrayList<>();
 
-    final ObjectMapper mapper = new ObjectMapper();
+    // resolve the columns once per result set
+    final ResultSetMetaData resultSetMetaData = rs.getMetaData();
+    final int numColumns = resultSetMetaData.getColumnCount();
+    final ColumnInfo[] columnInfos = new ColumnInfo[numColumns + 1];
+    for (int i = 1; i <= numColumns; i++) {
+      final String dbColumnName = resultSetMetaData.getColumnLabel(i).toLowerCase();
+      columnInfos[i] = columnInfoMap.get(dbColumnName);
+    }
+    final Constructor<E> constructor = entityClass.getDeclaredConstructor();
+
     while (rs.next()) {
-      final AbstractEntity entityObj;
-      final ResultSetMetaData resultSetMetaData = rs.getMetaData();
-      final int numColumns = resultSetMetaData.getColumnCount();
-      final ObjectNode objectNode = mapper.createObjectNode();
+      final E entityObj = constructor.newInstance();
       for (int i = 1; i <= numColumns; i++) {
-        final String dbColumnName = resultSetMetaData.getColumnLabel(i).toLowerCase();
-        final ColumnInfo columnInfo = columnInfoMap.get(dbColumnName);
-        final Field field = columnInfo.getField();
+        final ColumnInfo columnInfo = columnInfos[i];
         final Object val;
         if (columnInfo.getSqlType() == Types.CLOB) {
-          final Clob clob = rs.getClob(i);
-          val = clob.getSubString(1, (int) clob.length());
+          val = rs.getString(i);
         } else {
           val = rs.getObject(i);
         }
         if (val == null) {
           continue;
         }
-        if (field.getType().isAssignableFrom(Timestamp.class)) {
-          objectNode.put(field.getName(), ((Timestamp) val).getTime());
-        } else {
-          objectNode.put(field.getName(), val.toString());
-        }
+        columnInfo.setValue(entityObj, toFieldValue(val, columnInfo.getField().getType()));
       }
-      entityObj = mapper.treeToValue(objectNode, entityClass);
-      entityList.add((E) entityObj);
+      entityList.add(entityObj);
     }
 
     return entityList;
   }
+
+  private static Object toFieldValue(final Object val, final Class<?> fieldType) {
+    if (fieldType.isInstance(val)) {
+      return val;
+    }
+    if (val instanceof Number) {
+      final Number number = (Number) val;
+      if (fieldType == Long.class || fieldType == long.class) {
+        return number.longValue();
+      }
+      if (fieldType == Integer.class || fieldType == int.class) {
+        return number.intValue();
+      }
+    }
+    if (fieldType == String.class) {
+      return val.toString();
+    }
+    // rare types - let jackson coerce the value
+    return OBJECT_MAPPER.convertValue(val.toString(), fieldType);
+  }
 }
@@ -13,13 +13,13 @@
  */
 package ai.startree.thirdeye.datalayer.util;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import com.google.common.collect.BiMap;
-import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.lang.reflect.Array;
@@ -53,125 +53,154 @@ public class SqlQueryBuilder {
   private static final String NAME_REGEX = "[a-z][_a-z0-9]*";
   private static final Pattern PARAM_PATTERN =
       Pattern.compile(":(" + NAME_REGEX + ")", Pattern.CASE_INSENSITIVE);
-  private static final Set<String> AUTO_UPDATE_COLUMN_SET =
-      Sets.newHashSet("id", "last_modified");
-  //insert sql per table
-  private final Map<String, String> insertSqlMap = new HashMap<>();
   private final EntityMappingHolder entityMappingHolder;
+  // statement templates per entity class simple name - computed once at startup
+  private final Map<String, TableTemplate> templatePerEntityName;
 
   @Inject
   public SqlQueryBuilder(final EntityMappingHolder entityMappingHolder) {
     this.entityMappingHolder = entityMappingHolder;
+    final Map<String, TableTemplate> templatePerEntityName = new HashMap<>();
+    entityMappingHolder.tableToEntityNameMap.forEach((tableName, entityName) ->
+        templatePerEntityName.put(entityName, new TableTemplate(tableName,
+            entityMappingHolder.columnInfoPerTable.get(tableName),
+            entityMappingHolder.columnMappingPerTable.get(tableName))));
+    this.templatePerEntityName = Map.copyOf(templatePerEntityName);
   }
 
-  public static String generateInsertSql(final String tableName,
-      final LinkedHashMap<String, ColumnInfo> columnInfoMap) {
-
-    final StringBuilder values = new StringBuilder(" VALUES");
-    final StringBuilder names = new StringBuilder();
-    names.append("(");
-    values.append("(");
-    String delim = "";
-    for (final ColumnInfo columnInfo : columnInfoMap.values()) {
-      final String columnName = columnInfo.getColumnNameInDB();
-      if (columnInfo.getField() != null && !AUTO_UPDATE_COLUMN_SET.contains(columnName.toLowerCase())) {
-        names.append(delim);
-        names.append(columnName);
-        values.append(delim);
-        values.append("?");
-        delim = ",";
-      }
-    }
-    names.append(")");
-    values.append(")");
-
-    return "INSERT INTO " + tableName + names + values;
+  private TableTemplate template(final Class<? extends AbstractEntity> entityClass) {
+    return requireNonNull(templatePerEntityName.get(entityClass.getSimpleName()),
+        "No table registered for entity class " + entityClass.getSimpleName());
   }
 
   public PreparedStatement createInsertStatement(final Connection conn, final AbstractEntity entity)
       throws Exception {
-    final String tableName = requireNonNull(
-        entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName()));
-    return createInsertStatement(conn, tableName, entity);
+    final TableTemplate template = template(entity.getClass());
+    final PreparedStatement preparedStatement =
+        conn.prepareStatement(template.getInsertSql(), Statement.RETURN_GENERATED_KEYS);
+    setInsertParameters(conn, preparedStatement, template, entity);
+    return preparedStatement;
   }
 
-  public PreparedStatement createInsertStatement(final Connection conn, final String tableName,
-      final AbstractEntity entity) throws Exception {
-    if (!insertSqlMap.containsKey(tableName)) {
-      final String insertSql = generateInsertSql(tableName,
-          entityMappingHolder.columnInfoPerTable.get(tableName.toLowerCase()));
-      insertSqlMap.put(tableName, insertSql);
+  /**
+   * Creates a single insert statement with one batch of parameters per entity.
+   * The entities must be of the same class.
+   */
+  public PreparedStatement createBatchInsertStatement(final Connection conn,
+      final List<? extends AbstractEntity> entities) throws Exception {
+    checkArgument(!entities.isEmpty(), "No entity to insert");
+    final Class<? extends AbstractEntity> entityClass = entities.get(0).getClass();
+    final TableTemplate template = template(entityClass);
+    final PreparedStatement preparedStatement =
+        conn.prepareStatement(template.getInsertSql(), Statement.RETURN_GENERATED_KEYS);
+    for (final AbstractEntity entity : entities) {
+      checkArgument(entity.getClass() == entityClass,
+          "Cannot insert %s and %s in the same batch", entityClass, entity.getClass());
+      setInsertParameters(conn, preparedStatement, template, entity);
+      preparedStatement.addBatch();
     }
+    return preparedStatement;
+  }
 
-    final String sql = insertSqlMap.get(tableName);
-    final PreparedStatement preparedStatement =
-        conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
-        entityMappingHolder.columnInfoPerTable.get(tableName);
+  private static void setInsertParameters(final Connection conn,
+      final PreparedStatement preparedStatement, final TableTemplate template,
+      final AbstractEntity entity) throws Exception {
     int parameterIndex = 1;
-    for (final ColumnInfo columnInfo : columnInfoMap.values()) {
-      if (columnInfo.getField() != null
-          && !AUTO_UPDATE_COLUMN_SET.contains(columnInfo.getColumnNameInDB().toLowerCase())) {
-        final Object val = columnInfo.getField().get(entity);
-        if (val != null) {
-          if (columnInfo.getSqlType() == Types.CLOB) {
-            final Clob clob = conn.createClob();
-            clob.setString(1, val.toString());
-            preparedStatement.setClob(parameterIndex++, clob);
-          } else if (columnInfo.getSqlType() == Types.TIMESTAMP) {
-            preparedStatement.setObject(parameterIndex++, val, columnInfo.getSqlType());
-          } else {
-            preparedStatement.setObject(parameterIndex++, val.toString(), columnInfo.getSqlType());
-          }
+    for (final ColumnInfo columnInfo : template.getInsertColumns()) {
+      final Object val = columnInfo.getValue(entity);
+      if (val != null) {
+        if (columnInfo.getSqlType() == Types.CLOB) {
+          final Clob clob = conn.createClob();
+          clob.setString(1, val.toString());
+          preparedStatement.setClob(parameterIndex++, clob);
+        } else if (columnInfo.getSqlType() == Types.TIMESTAMP) {
+          preparedStatement.setObject(parameterIndex++, val, columnInfo.getSqlType());
         } else {
-          preparedStatement.setNull(parameterIndex++, columnInfo.getSqlType());
+          preparedStatement.setObject(parameterIndex++, val.toString(), columnInfo.getSqlType());
         }
+      } else {
+        preparedStatement.setNull(parameterIndex++, columnInfo.getSqlType());
       }
     }
-    return preparedStatement;
   }
 
   public PreparedStatement createUpdateStatement(final Connection connection, final AbstractEntity entity,
       final Set<String> fieldsToUpdate, final Predicate predicate) throws Exception {
-    final String tableName =
-        entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName());
-    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
-        entityMappingHolder.columnInfoPerTable.get(tableName);
+    final UpdateSql updateSql = updateSql(entity, fieldsToUpdate, predicate);
+    final PreparedStatement prepareStatement = connection.prepareStatement(updateSql.sql());
+    setUpdateParameters(prepareStatement, updateSql);
+    return prepareStatement;
+  }
+
+  /**
+   * Creates the update statements of the entities, with one batch of parameters per entity.
+   * The non-null columns of an entity are updated, so entities with the same non-null columns
+   * share a statement.
+   *
+   * @param predicates the predicate of each entity
+   */
+  public List<BatchStatement> createBatchUpdateStatements(final Connection connection,
+      final List<? extends AbstractEntity> entities, final List<Predicate> predicates)
+      throws Exception {
+    checkArgument(entities.size() == predicates.size(), "One predicate per entity is required");
+    final Map<String, BatchStatement> statements = new LinkedHashMap<>();
+    try {
+      for (int i = 0; i < entities.size(); i++) {
+        final UpdateSql updateSql = updateSql(entities.get(i), null, predicates.get(i));
+        BatchStatement batchStatement = statements.get(updateSql.sql());
+        if (batchStatement == null) {
+          batchStatement = new BatchStatement(connection.prepareStatement(updateSql.sql()),
+              new ArrayList<>());
+          statements.put(updateSql.sql(), batchStatement);
+        }
+        setUpdateParameters(batchStatement.statement(), updateSql);
+        batchStatement.statement().addBatch();
+        batchStatement.entityIndices().add(i);
+      }
+    } catch (final Exception e) {
+      for (final BatchStatement batchStatement : statements.values()) {
+        batchStatement.statement().close();
+      }
+      throw e;
+    }
+    return new ArrayList<>(statements.values());
+  }
 
-    final StringBuilder sqlBuilder = new StringBuilder("UPDATE " + tableName + " SET ");
-    String delim = "";
+  private UpdateSql updateSql(final AbstractEntity entity, final Set<String> fieldsToUpdate,
+      final Predicate predicate) {
+    final TableTemplate template = template(entity.getClass());
+    final List<ColumnInfo> updatableColumns = template.getUpdatableColumns();
+    final List<Integer> updatedColumns = new ArrayList<>(updatableColumns.size());
     final List<Pair<String, Object>> parametersList = new ArrayList<>();
-    for (final ColumnInfo columnInfo : columnInfoMap.values()) {
-      final String columnNameInDB = columnInfo.getColumnNameInDB();
-      if (!AUTO_UPDATE_COLUMN_SET.contains(columnNameInDB)
-          && (fieldsToUpdate == null || fieldsToUpdate.contains(columnInfo.getColumnNameInEntity()))) {
-        Object val = columnInfo.getField().get(entity);
+    for (int i = 0; i < updatableColumns.size(); i++) {
+      final ColumnInfo columnInfo = updatableColumns.get(i);
+      if (fieldsToUpdate == null || fieldsToUpdate.contains(columnInfo.getColumnNameInEntity())) {
+        Object val = columnInfo.getValue(entity);
         if (val != null) {
           if (Enum.class.isAssignableFrom(val.getClass())) {
             val = val.toString();
           }
-          sqlBuilder.append(delim);
-          sqlBuilder.append(columnNameInDB);
-          sqlBuilder.append("=");
-          sqlBuilder.append("?");
-          delim = ",";
-          parametersList.add(new ImmutablePair<>(columnNameInDB, val));
+          updatedColumns.add(i);
+          parametersList.add(new ImmutablePair<>(columnInfo.getColumnNameInDB(), val));
         }
       }
     }
-    final BiMap<String, String> entityNameToDBNameMapping =
-        entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
+    final StringBuilder sqlBuilder = new StringBuilder(template.updateSetClause(updatedColumns));
     final StringBuilder whereClause = new StringBuilder(" WHERE ");
-    generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
+    generateWhereClause(template.getEntityNameToDBNameMapping(), predicate, parametersList,
+        whereClause);
     sqlBuilder.append(whereClause);
+    return new UpdateSql(sqlBuilder.toString(), parametersList, template.getColumnInfoMap());
+  }
+
+  private static void setUpdateParameters(final PreparedStatement prepareStatement,
+      final UpdateSql updateSql) throws Exception {
     int parameterIndex = 1;
-    final PreparedStatement prepareStatement = connection.prepareStatement(sqlBuilder.toString());
-    for (final Pair<String, Object> paramEntry : parametersList) {
+    for (final Pair<String, Object> paramEntry : updateSql.parameters()) {
       final String dbFieldName = paramEntry.getKey();
-      final ColumnInfo info = columnInfoMap.get(dbFieldName);
+      final ColumnInfo info = updateSql.columnInfoMap().get(dbFieldName);
       prepareStatement.setObject(parameterIndex++, paramEntry.getValue(), info.getSqlType());
     }
-    return prepareStatement;
   }
 
   public PreparedStatement createDeleteStatement(final Connection connection,
@@ -204,17 +233,35 @@ public class SqlQueryBuilder {
   public PreparedStatement createFindByParamsStatementWithLimit(final Connection connection,
       final Class<? extends AbstractEntity> entityClass, final Predicate predicate, final Long limit, final Long offset)
       throws Exception {
+    return createFindByParamsStatementWithLimit(connection, entityClass, predicate, null, false,
+        limit, offset);
+  }
+
+  /**
+   * Same as {@link #createFindByParamsStatementWithLimit(Connection, Class, Predicate, Long, Long)}
+   * with the rows ordered by the orderByKey column, if not null. orderByKey is the name of the
+   * column in the entity.
+   */
+  public PreparedStatement createFindByParamsStatementWithLimit(final Connection connection,
+      final Class<? extends AbstractEntity> entityClass, final @Nullable Predicate predicate,
+      final @Nullable String orderByKey, final boolean desc, final Long limit, final Long offset)
+      throws Exception {
     final String tableName = entityMappingHolder.tableToEntityNameMap.inverse()
         .get(entityClass.getSimpleName());
     final StringBuilder sqlBuilder = new StringBuilder("SELECT * FROM " + tableName);
     final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    final BiMap<String, String> entityNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
     if(predicate != null) {
-      final BiMap<String, String> entityNameToDBNameMapping =
-          entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
       final StringBuilder whereClause = new StringBuilder(" WHERE ");
       generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
       sqlBuilder.append(whereClause);
     }
+    if (orderByKey != null) {
+      final String orderByColumn = checkNotNull(entityNameToDBNameMapping.get(orderByKey),
+          "Unknown column to order by: %s", orderByKey);
+      sqlBuilder.append(" ORDER BY ").append(orderByColumn).append(desc ? " DESC" : " ASC");
+    }
     if (limit != null) {
       sqlBuilder.append(" LIMIT ").append(limit);
     }
@@ -278,6 +325,32 @@ public class SqlQueryBuilder {
     return preparedStatement;
   }
 
+  /**
+   * Creates "SELECT id, update_time FROM table WHERE ...". Used to check whether rows changed
+   * without reading the whole rows.
+   */
+  public PreparedStatement createFindUpdateTimesStatement(final Connection connection,
+      final Predicate predicate, final Class<? extends AbstractEntity> entityClass)
+      throws Exception {
+    final TableTemplate template = template(entityClass);
+    final BiMap<String, String> entityNameToDBNameMapping = template.getEntityNameToDBNameMapping();
+    final StringBuilder sqlBuilder = new StringBuilder("SELECT ")
+        .append(entityNameToDBNameMapping.get("id")).append(", ")
+        .append(entityNameToDBNameMapping.get("updateTime"))
+        .append(" FROM ").append(template.getTableName());
+    final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    final StringBuilder whereClause = new StringBuilder(" WHERE ");
+    generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
+    sqlBuilder.append(whereClause);
+    final PreparedStatement preparedStatement = connection.prepareStatement(sqlBuilder.toString());
+    int parameterIndex = 1;
+    for (final Pair<String, Object> pair : parametersList) {
+      final ColumnInfo info = template.getColumnInfoMap().get(pair.getKey());
+      preparedStatement.setObject(parameterIndex++, pair.getValue(), info.getSqlType());
+    }
+    return preparedStatement;
+  }
+
   private void generateWhereClause(final BiMap<String, String> entityNameToDBNameMapping,
       final Predicate predicate, final List<Pair<String, Object>> parametersList, final StringBuilder whereClause) {
     String columnName = null;
@@ -398,4 +471,14 @@ public class SqlQueryBuilder {
 
     return ps;
   }
+
+  /**
+   * A statement with a batch of parameters per entity.
+   *
+   * @param entityIndices the index of the entity of each batch
+   */
+  public record BatchStatement(PreparedStatement statement, List<Integer> entityIndices) {}
+
+  private record UpdateSql(String sql, List<Pair<String, Object>> parameters,
+                           Map<String, ColumnInfo> columnInfoMap) {}
 }
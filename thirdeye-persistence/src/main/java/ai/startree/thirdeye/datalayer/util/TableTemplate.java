@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import com.google.common.collect.BiMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statement templates of a table, computed once from the column mapping of the table.
+ */
+class TableTemplate {
+
+  private static final Set<String> AUTO_UPDATE_COLUMN_SET = Set.of("id", "last_modified");
+  // columns written on insert only - updates never change them
+  private static final Set<String> CREATE_ONLY_COLUMN_SET = Set.of("create_time");
+  // optimistic lock column - incremented by every update instead of being set
+  static final String VERSION_COLUMN = "version";
+  // a SET clause is cached for each combination of updated columns
+  private static final int MAX_CACHED_UPDATE_COLUMNS = Long.SIZE;
+
+  private final String tableName;
+  private final LinkedHashMap<String, ColumnInfo> columnInfoMap;
+  private final BiMap<String, String> entityNameToDBNameMapping;
+  private final String insertSql;
+  private final List<ColumnInfo> insertColumns;
+  private final List<ColumnInfo> updatableColumns;
+  private final boolean versioned;
+  private final Map<Long, String> updateSetClauses = new ConcurrentHashMap<>();
+
+  TableTemplate(final String tableName, final LinkedHashMap<String, ColumnInfo> columnInfoMap,
+      final BiMap<String, String> dbNameToEntityNameMapping) {
+    this.tableName = tableName;
+    this.columnInfoMap = columnInfoMap;
+    this.entityNameToDBNameMapping = dbNameToEntityNameMapping.inverse();
+
+    final List<ColumnInfo> insertColumns = new ArrayList<>();
+    final List<ColumnInfo> updatableColumns = new ArrayList<>();
+    boolean versioned = false;
+    for (final ColumnInfo columnInfo : columnInfoMap.values()) {
+      final String columnName = columnInfo.getColumnNameInDB().toLowerCase();
+      if (columnInfo.getField() == null || AUTO_UPDATE_COLUMN_SET.contains(columnName)) {
+        continue;
+      }
+      insertColumns.add(columnInfo);
+      if (VERSION_COLUMN.equals(columnName)) {
+        versioned = true;
+      } else if (!CREATE_ONLY_COLUMN_SET.contains(columnName)) {
+        updatableColumns.add(columnInfo);
+      }
+    }
+    this.versioned = versioned;
+    this.insertColumns = List.copyOf(insertColumns);
+    this.updatableColumns = List.copyOf(updatableColumns);
+    this.insertSql = generateInsertSql(tableName, insertColumns);
+  }
+
+  private static String generateInsertSql(final String tableName,
+      final List<ColumnInfo> insertColumns) {
+    final StringBuilder names = new StringBuilder("(");
+    final StringBuilder values = new StringBuilder(" VALUES(");
+    String delim = "";
+    for (final ColumnInfo columnInfo : insertColumns) {
+      names.append(delim).append(columnInfo.getColumnNameInDB());
+      values.append(delim).append("?");
+      delim = ",";
+    }
+    names.append(")");
+    values.append(")");
+    return "INSERT INTO " + tableName + names + values;
+  }
+
+  String getTableName() {
+    return tableName;
+  }
+
+  LinkedHashMap<String, ColumnInfo> getColumnInfoMap() {
+    return columnInfoMap;
+  }
+
+  BiMap<String, String> getEntityNameToDBNameMapping() {
+    return entityNameToDBNameMapping;
+  }
+
+  String getInsertSql() {
+    return insertSql;
+  }
+
+  /**
+   * The columns bound by the insert statement, in the order of the parameters.
+   */
+  List<ColumnInfo> getInsertColumns() {
+    return insertColumns;
+  }
+
+  /**
+   * The columns that can be set by an update statement. The version column is not one of them:
+   * see {@link #updateSetClause(List)}.
+   */
+  List<ColumnInfo> getUpdatableColumns() {
+    return updatableColumns;
+  }
+
+  /**
+   * Returns "UPDATE table SET col1=?,col2=?" for the given updatable columns. If the table has a
+   * version column, the clause also increments it: "UPDATE table SET
+   * version=COALESCE(version,0)+1,col1=?,col2=?".
+   *
+   * @param updatedColumns the index in {@link #getUpdatableColumns()} of the updated columns,
+   *     in increasing order
+   */
+  String updateSetClause(final List<Integer> updatedColumns) {
+    if (updatableColumns.size() > MAX_CACHED_UPDATE_COLUMNS) {
+      return generateUpdateSetClause(updatedColumns);
+    }
+    long mask = 0L;
+    for (final int columnIndex : updatedColumns) {
+      mask |= 1L << columnIndex;
+    }
+    return updateSetClauses.computeIfAbsent(mask, k -> generateUpdateSetClause(updatedColumns));
+  }
+
+  private String generateUpdateSetClause(final List<Integer> updatedColumns) {
+    final StringBuilder sqlBuilder = new StringBuilder("UPDATE " + tableName + " SET ");
+    String delim = "";
+    if (versioned) {
+      // rows written before versioning have a null version
+      sqlBuilder.append(VERSION_COLUMN).append("=COALESCE(").append(VERSION_COLUMN).append(",0)+1");
+      delim = ",";
+    }
+    for (final int columnIndex : updatedColumns) {
+      sqlBuilder.append(delim)
+          .append(updatableColumns.get(columnIndex).getColumnNameInDB())
+          .append("=?");
+      delim = ",";
+    }
+    return sqlBuilder.toString();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DatabaseClientTest {
+
+  private Connection connection;
+  private DatabaseClient databaseClient;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    connection = mock(Connection.class);
+    final DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    databaseClient = new DatabaseClient(dataSource, new MetricRegistry());
+  }
+
+  @Test
+  public void testAfterCommitRunsOnceCommitted() throws Exception {
+    final List<String> events = new ArrayList<>();
+
+    final String result = databaseClient.executeTransaction(c -> {
+      databaseClient.afterCommit(c, () -> events.add("callback"));
+      events.add("operation");
+      return "result";
+    }, null);
+
+    assertThat(result).isEqualTo("result");
+    assertThat(events).isEqualTo(List.of("operation", "callback"));
+  }
+
+  @Test
+  public void testAfterCommitIsDroppedOnRollback() throws Exception {
+    final List<String> events = new ArrayList<>();
+    doThrow(new SQLException("commit failed")).when(connection).commit();
+
+    final String result = databaseClient.executeTransaction(c -> {
+      databaseClient.afterCommit(c, () -> events.add("callback"));
+      return "result";
+    }, "default");
+
+    assertThat(result).isEqualTo("default");
+    assertThat(events).isEmpty();
+  }
+
+  @Test
+  public void testAfterCommitOutsideTransactionRunsImmediately() {
+    final List<String> events = new ArrayList<>();
+
+    databaseClient.afterCommit(connection, () -> events.add("callback"));
+
+    assertThat(events).isEqualTo(List.of("callback"));
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.bao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class AnomalyManagerImplTest {
+
+  private static AnomalyDTO anomaly(final long id, final Long feedbackId, final Long... childIds) {
+    final AnomalyDTO anomaly = new AnomalyDTO()
+        .setAnomalyFeedbackId(feedbackId)
+        .setChildIds(Set.of(childIds));
+    anomaly.setId(id);
+    return anomaly;
+  }
+
+  private static AnomalyFeedbackDTO feedback(final long id) {
+    final AnomalyFeedbackDTO feedback = new AnomalyFeedbackDTO();
+    feedback.setId(id);
+    return feedback;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E> List<E> fetch(final Map<Long, E> db, final Object ids) {
+    return ((Collection<Long>) ids).stream()
+        .map(db::get)
+        .filter(e -> e != null)
+        .collect(Collectors.toList());
+  }
+
+  @DataProvider
+  public static Object[][] rootOrders() {
+    return new Object[][]{{false}, {true}};
+  }
+
+  @Test(dataProvider = "rootOrders")
+  public void testDecorateLoadsEachLevelWithOneQuery(final boolean reversed) {
+    // 1 -> (3, 4), 2 -> (4), 4 -> (5, 1), 6 is missing
+    final List<AnomalyDTO> children = List.of(
+        anomaly(3L, 30L),
+        anomaly(4L, null, 5L, 1L),
+        anomaly(5L, 50L, 6L),
+        // returned if the cycle 4 -> 1 is not detected
+        anomaly(1L, null));
+    final Map<Long, AnomalyDTO> anomalyDb = children.stream()
+        .collect(Collectors.toMap(AnomalyDTO::getId, Function.identity()));
+    final Map<Long, AnomalyFeedbackDTO> feedbackDb = Map.of(
+        10L, feedback(10L), 30L, feedback(30L), 50L, feedback(50L));
+    final GenericPojoDao genericPojoDao = mock(GenericPojoDao.class);
+    when(genericPojoDao.get(anyList(), eq(AnomalyDTO.class)))
+        .thenAnswer(i -> fetch(anomalyDb, i.getArgument(0)));
+    when(genericPojoDao.get(anyList(), eq(AnomalyFeedbackDTO.class)))
+        .thenAnswer(i -> fetch(feedbackDb, i.getArgument(0)));
+
+    final AnomalyDTO root1 = anomaly(1L, 10L, 3L, 4L);
+    final AnomalyDTO root2 = anomaly(2L, null, 4L);
+    final List<AnomalyDTO> roots = reversed ? List.of(root2, root1) : List.of(root1, root2);
+    final List<AnomalyDTO> decorated = new AnomalyManagerImpl(genericPojoDao).decorate(roots);
+
+    assertThat(decorated).isEqualTo(roots);
+    assertThat(root1.getFeedback()).isSameAs(feedbackDb.get(10L));
+    assertThat(root1.getChildren()).extracting(AnomalyDTO::getId).containsExactlyInAnyOrder(3L, 4L);
+    assertThat(root2.getChildren()).extracting(AnomalyDTO::getId).containsExactly(4L);
+    final AnomalyDTO child3 = anomalyDb.get(3L);
+    assertThat(child3.getFeedback()).isSameAs(feedbackDb.get(30L));
+    assertThat(child3.getChildren()).isEmpty();
+    // 4 is shared by the trees of root1 and root2: its children exclude its ancestors in both
+    // trees, whatever the order of the roots. 1 is an ancestor of 4 in the tree of root1.
+    assertThat(anomalyDb.get(4L).getChildren()).extracting(AnomalyDTO::getId).containsExactly(5L);
+    final AnomalyDTO child5 = anomalyDb.get(5L);
+    assertThat(child5.getFeedback()).isSameAs(feedbackDb.get(50L));
+    assertThat(child5.getChildren()).isEmpty();
+
+    // one query per level of children, one query for the feedbacks
+    verify(genericPojoDao, times(3)).get(anyList(), eq(AnomalyDTO.class));
+    verify(genericPojoDao, times(1)).get(anyList(), eq(AnomalyFeedbackDTO.class));
+    verify(genericPojoDao, never()).get(any(Long.class), any());
+  }
+
+  @Test
+  public void testDecorateDoesNotLinkACycleAcrossTrees() {
+    // 7 -> (8), 9 -> (10), 8 -> (9), 10 -> (8): 8 -> 9 -> 10 -> 8 is a cycle
+    final Map<Long, AnomalyDTO> anomalyDb = Map.of(
+        8L, anomaly(8L, null, 9L),
+        10L, anomaly(10L, null, 8L));
+    final GenericPojoDao genericPojoDao = mock(GenericPojoDao.class);
+    when(genericPojoDao.get(anyList(), eq(AnomalyDTO.class)))
+        .thenAnswer(i -> fetch(anomalyDb, i.getArgument(0)));
+
+    final AnomalyDTO root7 = anomaly(7L, null, 8L);
+    final AnomalyDTO root9 = anomaly(9L, null, 10L);
+    new AnomalyManagerImpl(genericPojoDao).decorate(List.of(root7, root9));
+
+    assertThat(root7.getChildren()).containsExactly(anomalyDb.get(8L));
+    assertThat(root9.getChildren()).containsExactly(anomalyDb.get(10L));
+    assertThat(anomalyDb.get(8L).getChildren()).containsExactly(root9);
+    // linking 8 would close the cycle
+    assertThat(anomalyDb.get(10L).getChildren()).isEmpty();
+  }
+}
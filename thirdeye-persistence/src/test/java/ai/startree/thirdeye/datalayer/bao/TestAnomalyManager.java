@@ -15,8 +15,10 @@ package ai.startree.thirdeye.datalayer.bao;
 
 import static ai.startree.thirdeye.datalayer.DatalayerTestUtils.collectIds;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
+import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
@@ -405,6 +407,82 @@ public class TestAnomalyManager {
     Assert.assertEquals(readChildren.get(1).getChildren().iterator().next().getEndTime(), 1800);
   }
 
+  @Test
+  public void testSaveDetectionResults() {
+    final AlertDTO alert = mockDetectionConfig();
+    detectionConfigDAO.save(alert);
+    alert.setLastTimestamp(3000L);
+
+    final AnomalyDTO existing = anomaly(500, 1000);
+    anomalyManager.save(existing);
+    existing.setEndTime(1200);
+
+    final AnomalyDTO parent = anomaly(1000, 2000);
+    final AnomalyDTO child1 = anomaly(1000, 1500);
+    final AnomalyDTO child2 = anomaly(1500, 2000);
+    final AnomalyDTO child3 = anomaly(1600, 1800);
+    child2.setChildren(new HashSet<>(Arrays.asList(child3)));
+    parent.setChildren(new HashSet<>(Arrays.asList(child1, child2)));
+
+    anomalyManager.saveDetectionResults(List.of(existing, parent), alert);
+
+    assertThat(anomalyManager.findById(existing.getId()).getEndTime()).isEqualTo(1200);
+    final AnomalyDTO read = anomalyManager.findById(parent.getId());
+    assertThat(read.getChildren().size()).isEqualTo(2);
+    final AnomalyDTO readChild2 = anomalyManager.findById(child2.getId());
+    assertThat(readChild2.isChild()).isTrue();
+    assertThat(readChild2.getChildren().iterator().next().getId()).isEqualTo(child3.getId());
+    assertThat(detectionConfigDAO.findById(alert.getId()).getLastTimestamp()).isEqualTo(3000L);
+  }
+
+  @Test
+  public void testSaveDetectionResultsWithStaleAlert() {
+    final AlertDTO alert = mockDetectionConfig();
+    detectionConfigDAO.save(alert);
+    final int staleVersion = alert.getVersion();
+    detectionConfigDAO.update(alert);
+    alert.setVersion(staleVersion);
+    alert.setLastTimestamp(3000L);
+    final int anomalyCount = anomalyManager.findAll().size();
+
+    final AnomalyDTO parent = anomaly(1000, 2000);
+    final AnomalyDTO child = anomaly(1000, 1500);
+    parent.setChildren(new HashSet<>(Arrays.asList(child)));
+
+    assertThatThrownBy(() -> anomalyManager.saveDetectionResults(List.of(parent), alert))
+        .isInstanceOf(ThirdEyeException.class);
+
+    // the transaction is rolled back: no anomaly is saved and the alert is not updated
+    assertThat(anomalyManager.findAll().size()).isEqualTo(anomalyCount);
+    assertThat(parent.getId()).isNull();
+    assertThat(child.getId()).isNull();
+    assertThat(detectionConfigDAO.findById(alert.getId()).getLastTimestamp())
+        .isNotEqualTo(3000L);
+  }
+
+  @Test
+  public void testSaveDetectionResultsWithSharedChild() {
+    final AlertDTO alert = mockDetectionConfig();
+    detectionConfigDAO.save(alert);
+    final int anomalyCount = anomalyManager.findAll().size();
+
+    final AnomalyDTO shared = anomaly(1000, 1500);
+    final AnomalyDTO parent1 = anomaly(1000, 2000);
+    final AnomalyDTO parent2 = anomaly(900, 1500);
+    parent1.setChildren(new HashSet<>(Arrays.asList(shared)));
+    parent2.setChildren(new HashSet<>(Arrays.asList(shared)));
+
+    anomalyManager.saveDetectionResults(List.of(parent1, parent2), alert);
+
+    // the shared child is created once
+    assertThat(anomalyManager.findAll().size()).isEqualTo(anomalyCount + 3);
+    assertThat(shared.getId()).isNotNull();
+    assertThat(anomalyManager.findById(parent1.getId()).getChildren().stream()
+        .map(AnomalyDTO::getId).toList()).isEqualTo(List.of(shared.getId()));
+    assertThat(anomalyManager.findById(parent2.getId()).getChildren().stream()
+        .map(AnomalyDTO::getId).toList()).isEqualTo(List.of(shared.getId()));
+  }
+
   @Test
   public void testUpdateToAnomalyHierarchy() {
     final AnomalyDTO parent = new AnomalyDTO();
@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.datalayer.bao;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import ai.startree.thirdeye.aspect.TimeProvider;
 import ai.startree.thirdeye.datalayer.DatalayerTestUtils;
@@ -126,12 +127,52 @@ public class TestAnomalyTaskManager {
     TaskStatus newStatus = TaskStatus.COMPLETED;
     CLOCK.tick(50);
     long taskEndTime = System.currentTimeMillis();
+    final int version = taskDAO.findById(anomalyTaskId1).getVersion();
     taskDAO.updateStatusAndTaskEndTime(anomalyTaskId1, oldStatus, newStatus, taskEndTime,
         "testMessage");
     TaskDTO anomalyTask = taskDAO.findById(anomalyTaskId1);
     Assert.assertEquals(anomalyTask.getStatus(), newStatus);
     Assert.assertEquals(anomalyTask.getEndTime(), taskEndTime);
     Assert.assertEquals(anomalyTask.getMessage(), "testMessage");
+    Assert.assertEquals(anomalyTask.getVersion(), version + 1);
+  }
+
+  @Test(dependsOnMethods = {"testUpdateStatusAndTaskEndTime"})
+  public void testUpdateStatusAndTaskEndTimeWithNullEndTime() {
+    taskDAO.updateStatusAndTaskEndTime(anomalyTaskId1, TaskStatus.COMPLETED, TaskStatus.COMPLETED,
+        null, "testMessage2");
+    TaskDTO anomalyTask = taskDAO.findById(anomalyTaskId1);
+    Assert.assertEquals(anomalyTask.getStatus(), TaskStatus.COMPLETED);
+    // no end time: persisted as the default end time
+    Assert.assertEquals(anomalyTask.getEndTime(), 0L);
+    Assert.assertEquals(anomalyTask.getMessage(), "testMessage2");
+  }
+
+  @Test(dependsOnMethods = {"testUpdateStatusAndTaskEndTimeWithNullEndTime"})
+  public void testAcquireTasksToRun() {
+    final long workerId = 2L;
+    final List<TaskDTO> claimed = taskDAO.acquireTasksToRun(workerId, 10);
+    assertThat(claimed).hasSize(1);
+    assertThat(claimed.get(0).getId()).isEqualTo(anomalyTaskId2);
+
+    final TaskDTO anomalyTask = taskDAO.findById(anomalyTaskId2);
+    assertThat(anomalyTask.getStatus()).isEqualTo(TaskStatus.RUNNING);
+    assertThat(anomalyTask.getWorkerId()).isEqualTo(workerId);
+    assertThat(anomalyTask.getVersion()).isEqualTo(claimed.get(0).getVersion());
+
+    // no WAITING task left
+    assertThat(taskDAO.acquireTasksToRun(workerId, 10)).isEmpty();
+  }
+
+  @Test(dependsOnMethods = {"testAcquireTasksToRun"})
+  public void testUpdateLastActive() {
+    CLOCK.tick(60_000);
+    final long heartbeatTime = System.currentTimeMillis();
+    taskDAO.updateLastActive(anomalyTaskId2);
+    final TaskDTO anomalyTask = taskDAO.findById(anomalyTaskId2);
+    // MySQL timestamps have a second precision
+    assertThat(anomalyTask.getLastActive().getTime()).isCloseTo(heartbeatTime, within(1000L));
+    assertThat(anomalyTask.getStatus()).isEqualTo(TaskStatus.RUNNING);
   }
 
   @Test(dependsOnMethods = {"testCreate"})
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toGenericJsonEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.entity.GenericJsonEntity;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DtoCacheTest {
+
+  private static final long ID = 1L;
+  private static final Timestamp UPDATE_TIME = new Timestamp(1_700_000_000_000L);
+
+  private GenericPojoDao genericPojoDao;
+  private ScheduledFuture<?> pollFuture;
+  private DtoCache<AlertTemplateDTO> dtoCache;
+
+  private static GenericJsonEntity entity(final String name, final Timestamp updateTime)
+      throws Exception {
+    final AlertTemplateDTO dto = new AlertTemplateDTO().setName(name);
+    dto.setId(ID);
+    dto.setUpdateTime(updateTime);
+    return toGenericJsonEntity(dto);
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    genericPojoDao = mock(GenericPojoDao.class);
+    when(genericPojoDao.getEntity(ID, AlertTemplateDTO.class))
+        .thenReturn(entity("t1", UPDATE_TIME))
+        .thenReturn(entity("t2", new Timestamp(UPDATE_TIME.getTime() + 1)));
+    pollFuture = mock(ScheduledFuture.class);
+    doReturn(pollFuture).when(genericPojoDao).schedulePoll(any(), any());
+    dtoCache = new DtoCache<>(genericPojoDao, AlertTemplateDTO.class);
+  }
+
+  @Test
+  public void testGetIsCached() throws Exception {
+    final AlertTemplateDTO first = dtoCache.get(ID);
+    final AlertTemplateDTO second = dtoCache.get(ID);
+
+    verify(genericPojoDao, times(1)).getEntity(ID, AlertTemplateDTO.class);
+    assertThat(first.getName()).isEqualTo("t1");
+    assertThat(first.getUpdateTime()).isEqualTo(UPDATE_TIME);
+    // each read returns a new dto
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.getName()).isEqualTo("t1");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLocalWriteInvalidates() throws Exception {
+    final ArgumentCaptor<Consumer<List<Long>>> listener = ArgumentCaptor.forClass(Consumer.class);
+    verify(genericPojoDao).addWriteListener(eq(AlertTemplateDTO.class), listener.capture());
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t1");
+
+    listener.getValue().accept(List.of(ID));
+
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t2");
+  }
+
+  @Test
+  public void testPollInvalidatesChangedRows() throws Exception {
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t1");
+
+    when(genericPojoDao.getUpdateTimes(any())).thenReturn(Map.of(ID, UPDATE_TIME));
+    dtoCache.poll();
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t1");
+
+    // the row was updated by another process
+    when(genericPojoDao.getUpdateTimes(any())).thenReturn(
+        Map.of(ID, new Timestamp(UPDATE_TIME.getTime() + 1)));
+    dtoCache.poll();
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t2");
+    verify(genericPojoDao, times(2)).getEntity(ID, AlertTemplateDTO.class);
+  }
+
+  @Test
+  public void testPollInvalidatesDeletedRows() throws Exception {
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t1");
+
+    when(genericPojoDao.getUpdateTimes(any())).thenReturn(Map.of());
+    dtoCache.poll();
+
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t2");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCloseStopsPollAndInvalidation() throws Exception {
+    final ArgumentCaptor<Consumer<List<Long>>> listener = ArgumentCaptor.forClass(Consumer.class);
+    verify(genericPojoDao).addWriteListener(eq(AlertTemplateDTO.class), listener.capture());
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t1");
+
+    dtoCache.close();
+
+    verify(pollFuture).cancel(false);
+    verify(genericPojoDao).removeWriteListener(AlertTemplateDTO.class, listener.getValue());
+    // the cache is emptied
+    assertThat(dtoCache.get(ID).getName()).isEqualTo("t2");
+  }
+}
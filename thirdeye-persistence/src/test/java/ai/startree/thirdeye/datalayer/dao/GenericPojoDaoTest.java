@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.DatabaseClient;
+import ai.startree.thirdeye.datalayer.DatabaseOrm;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class GenericPojoDaoTest {
+
+  private DatabaseOrm databaseOrm;
+  private GenericPojoDao genericPojoDao;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    final DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+    databaseOrm = mock(DatabaseOrm.class);
+    genericPojoDao = new GenericPojoDao(databaseOrm,
+        new DatabaseClient(dataSource, new MetricRegistry()));
+  }
+
+  @Test
+  public void testUpdateSinglePojoDoesNotUseTheBatchPath() throws Exception {
+    when(databaseOrm.update(any(), any(), any())).thenThrow(new SQLException("update failed"));
+    final AlertDTO alert = new AlertDTO();
+    alert.setId(1L);
+    alert.setName("alert");
+
+    assertThat(genericPojoDao.update(alert)).isEqualTo(0);
+
+    // a failed update runs once: no batch attempt, no one-by-one fallback
+    verify(databaseOrm, times(1)).update(any(), any(), any());
+    verify(databaseOrm, never()).updateAll(anyList(), any());
+  }
+}
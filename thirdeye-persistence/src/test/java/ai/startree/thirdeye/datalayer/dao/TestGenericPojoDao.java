@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import java.util.List;
@@ -204,4 +205,60 @@ public class TestGenericPojoDao {
     }
     assertThat(entryCount).isEqualTo(TOTAL_ANOMALIES);
   }
+
+  @Test(timeOut = 60000L)
+  public void batchCreateAndUpdateTest() {
+    final List<AlertTemplateDTO> templates = List.of(
+        new AlertTemplateDTO().setName("batch1"),
+        new AlertTemplateDTO().setName("batch2"));
+    assertThat(dao.create(templates)).isEqualTo(2);
+    assertThat(templates.get(0).getId()).isNotNull();
+    assertThat(templates.get(1).getId()).isNotNull();
+
+    templates.get(0).setDescription("description1");
+    templates.get(1).setDescription("description2");
+    assertThat(dao.update(templates)).isEqualTo(2);
+    assertThat(dao.get(templates.get(1).getId(), AlertTemplateDTO.class).getDescription())
+        .isEqualTo("description2");
+
+    // a duplicate name fails the whole batch
+    final List<AlertTemplateDTO> duplicates = List.of(
+        new AlertTemplateDTO().setName("batch3"),
+        new AlertTemplateDTO().setName("batch1"));
+    assertThat(dao.create(duplicates)).isEqualTo(0);
+    assertThat(duplicates.get(0).getId()).isNull();
+    assertThat(dao.get(new DaoFilter().setPredicate(Predicate.EQ(NAME, "batch3"))
+        .setBeanClass(AlertTemplateDTO.class))).isEmpty();
+
+    dao.delete(List.of(templates.get(0).getId(), templates.get(1).getId()),
+        AlertTemplateDTO.class);
+  }
+
+  @Test(timeOut = 60000L)
+  public void updateWithStaleVersionTest() {
+    final AlertTemplateDTO template = new AlertTemplateDTO().setName("versioned");
+    dao.create(template);
+    assertThat(template.getVersion()).isEqualTo(1);
+    final AlertTemplateDTO stale = dao.get(template.getId(), AlertTemplateDTO.class);
+
+    template.setDescription("description1");
+    assertThat(dao.update(template)).isEqualTo(1);
+    assertThat(template.getVersion()).isEqualTo(2);
+
+    // the stale copy was read at version 1: it is not updated
+    stale.setDescription("staleDescription");
+    assertThat(dao.update(stale)).isEqualTo(0);
+    assertThat(stale.getVersion()).isEqualTo(1);
+    final AlertTemplateDTO dbTemplate = dao.get(template.getId(), AlertTemplateDTO.class);
+    assertThat(dbTemplate.getDescription()).isEqualTo("description1");
+    assertThat(dbTemplate.getVersion()).isEqualTo(2);
+
+    // batched updates check the version too
+    stale.setVersion(dbTemplate.getVersion());
+    assertThat(dao.update(List.of(stale, template))).isEqualTo(1);
+    assertThat(dao.get(template.getId(), AlertTemplateDTO.class).getDescription())
+        .isEqualTo("staleDescription");
+
+    dao.delete(template.getId(), AlertTemplateDTO.class);
+  }
 }
@@ -63,9 +63,15 @@ public class TestTaskDao {
   @Test(dependsOnMethods = {"saveTest"})
   public void updateTest() {
     TaskDTO dto = dao.getAll().get(0);
-    dto.setVersion(dto.getVersion()+1);
+    final int version = dto.getVersion();
     assertThat(dao.update(dto)).isEqualTo(1);
-    assertThat(dao.get(dto.getId()).getVersion()).isEqualTo(dto.getVersion());
+    assertThat(dto.getVersion()).isEqualTo(version + 1);
+    assertThat(dao.get(dto.getId()).getVersion()).isEqualTo(version + 1);
+
+    // a copy read before the update is at a stale version: it is not updated
+    dto.setVersion(version);
+    assertThat(dao.update(dto)).isEqualTo(0);
+    assertThat(dao.get(dto.getId()).getVersion()).isEqualTo(version + 1);
   }
 
   @Test(dependsOnMethods = {"updateTest"})
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
+import ai.startree.thirdeye.datalayer.entity.TaskEntity;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class GenericResultSetMapperTest {
+
+  private static ColumnInfo columnInfo(final String dbColumn, final int sqlType,
+      final Class<?> entityClass, final String fieldName) throws NoSuchFieldException {
+    final Field field = entityClass.getDeclaredField(fieldName);
+    field.setAccessible(true);
+    return new ColumnInfo()
+        .setColumnNameInDB(dbColumn)
+        .setSqlType(sqlType)
+        .setColumnNameInEntity(fieldName)
+        .setField(field);
+  }
+
+  @Test
+  public void testMapAll() throws Exception {
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap = new LinkedHashMap<>();
+    columnInfoMap.put("id", columnInfo("id", Types.BIGINT, AbstractEntity.class, "id"));
+    columnInfoMap.put("version", columnInfo("version", Types.INTEGER, AbstractEntity.class,
+        "version"));
+    columnInfoMap.put("create_time", columnInfo("create_time", Types.TIMESTAMP,
+        AbstractEntity.class, "createTime"));
+    columnInfoMap.put("job_id", columnInfo("job_id", Types.BIGINT, TaskEntity.class, "jobId"));
+    columnInfoMap.put("status", columnInfo("status", Types.VARCHAR, TaskEntity.class, "status"));
+    columnInfoMap.put("json_val", columnInfo("json_val", Types.CLOB, TaskEntity.class,
+        "jsonVal"));
+    final EntityMappingHolder entityMappingHolder = new EntityMappingHolder();
+    entityMappingHolder.tableToEntityNameMap.put("task_entity", TaskEntity.class.getSimpleName());
+    entityMappingHolder.columnInfoPerTable.put("task_entity", columnInfoMap);
+
+    final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(6);
+    when(metaData.getColumnLabel(1)).thenReturn("ID");
+    when(metaData.getColumnLabel(2)).thenReturn("version");
+    when(metaData.getColumnLabel(3)).thenReturn("create_time");
+    when(metaData.getColumnLabel(4)).thenReturn("job_id");
+    when(metaData.getColumnLabel(5)).thenReturn("status");
+    when(metaData.getColumnLabel(6)).thenReturn("json_val");
+    final Timestamp createTime = new Timestamp(1_700_000_000_000L);
+    final ResultSet rs = mock(ResultSet.class);
+    when(rs.getMetaData()).thenReturn(metaData);
+    when(rs.next()).thenReturn(true, true, false);
+    when(rs.getObject(1)).thenReturn(1L, 2L);
+    when(rs.getObject(2)).thenReturn(3, 4);
+    when(rs.getObject(3)).thenReturn(createTime, null);
+    // an INT column mapped to a long field
+    when(rs.getObject(4)).thenReturn(5, 6);
+    when(rs.getObject(5)).thenReturn("RUNNING", null);
+    when(rs.getString(6)).thenReturn("{\"a\":1}", "{}");
+
+    final List<TaskEntity> entities = new GenericResultSetMapper(entityMappingHolder)
+        .mapAll(rs, TaskEntity.class);
+
+    assertThat(entities).hasSize(2);
+    final TaskEntity first = entities.get(0);
+    assertThat(first.getId()).isEqualTo(1L);
+    assertThat(first.getVersion()).isEqualTo(3);
+    assertThat(first.getCreateTime()).isEqualTo(createTime);
+    assertThat(first.getJobId()).isEqualTo(5L);
+    assertThat(first.getStatus()).isEqualTo("RUNNING");
+    assertThat(first.getJsonVal()).isEqualTo("{\"a\":1}");
+    final TaskEntity second = entities.get(1);
+    assertThat(second.getId()).isEqualTo(2L);
+    assertThat(second.getCreateTime()).isNull();
+    assertThat(second.getJobId()).isEqualTo(6L);
+    assertThat(second.getStatus()).isNull();
+    assertThat(second.getJsonVal()).isEqualTo("{}");
+  }
+}
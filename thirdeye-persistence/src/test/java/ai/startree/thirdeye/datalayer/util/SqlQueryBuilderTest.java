@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
+import ai.startree.thirdeye.datalayer.entity.TaskEntity;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SqlQueryBuilderTest {
+
+  private EntityMappingHolder entityMappingHolder;
+  private Connection connection;
+  private PreparedStatement statement;
+  private SqlQueryBuilder sqlQueryBuilder;
+
+  private static void addColumn(final EntityMappingHolder entityMappingHolder,
+      final String dbColumn, final int sqlType, final Class<?> entityClass,
+      final String fieldName) throws NoSuchFieldException {
+    final ColumnInfo columnInfo = new ColumnInfo()
+        .setColumnNameInDB(dbColumn)
+        .setSqlType(sqlType);
+    if (fieldName != null) {
+      final Field field = entityClass.getDeclaredField(fieldName);
+      field.setAccessible(true);
+      columnInfo.setColumnNameInEntity(fieldName).setField(field);
+      entityMappingHolder.columnMappingPerTable.get("task_entity").put(dbColumn, fieldName);
+    }
+    entityMappingHolder.columnInfoPerTable.get("task_entity").put(dbColumn, columnInfo);
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    entityMappingHolder = new EntityMappingHolder();
+    entityMappingHolder.tableToEntityNameMap.put("task_entity", TaskEntity.class.getSimpleName());
+    entityMappingHolder.columnInfoPerTable.put("task_entity", new LinkedHashMap<>());
+    final BiMap<String, String> columnMapping = HashBiMap.create();
+    entityMappingHolder.columnMappingPerTable.put("task_entity", columnMapping);
+    addColumn(entityMappingHolder, "id", Types.BIGINT, AbstractEntity.class, "id");
+    addColumn(entityMappingHolder, "create_time", Types.TIMESTAMP, AbstractEntity.class,
+        "createTime");
+    addColumn(entityMappingHolder, "last_modified", Types.TIMESTAMP, null, null);
+    addColumn(entityMappingHolder, "status", Types.VARCHAR, TaskEntity.class, "status");
+    addColumn(entityMappingHolder, "job_id", Types.BIGINT, TaskEntity.class, "jobId");
+    addColumn(entityMappingHolder, "ref_id", Types.BIGINT, TaskEntity.class, "refId");
+
+    connection = mock(Connection.class);
+    statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+    sqlQueryBuilder = new SqlQueryBuilder(entityMappingHolder);
+  }
+
+  @Test
+  public void testCreateInsertStatement() throws Exception {
+    final Timestamp createTime = new Timestamp(1_700_000_000_000L);
+    final TaskEntity entity = new TaskEntity().setStatus("WAITING").setJobId(3L);
+    entity.setCreateTime(createTime);
+
+    sqlQueryBuilder.createInsertStatement(connection, entity);
+
+    verify(connection).prepareStatement(
+        "INSERT INTO task_entity(create_time,status,job_id,ref_id) VALUES(?,?,?,?)",
+        PreparedStatement.RETURN_GENERATED_KEYS);
+    verify(statement).setObject(1, createTime, Types.TIMESTAMP);
+    verify(statement).setObject(2, "WAITING", Types.VARCHAR);
+    verify(statement).setObject(3, "3", Types.BIGINT);
+    verify(statement).setNull(4, Types.BIGINT);
+  }
+
+  @Test
+  public void testCreateUpdateStatement() throws Exception {
+    final TaskEntity entity = new TaskEntity().setStatus("RUNNING").setJobId(3L);
+    entity.setId(7L);
+    entity.setCreateTime(new Timestamp(1_700_000_000_000L));
+
+    sqlQueryBuilder.createUpdateStatement(connection, entity, null, Predicate.EQ("id", 7L));
+
+    // null values, the id and the creation time are not updated
+    verify(connection).prepareStatement(
+        "UPDATE task_entity SET status=?,job_id=? WHERE id = ?");
+    verify(statement).setObject(1, "RUNNING", Types.VARCHAR);
+    verify(statement).setObject(2, 3L, Types.BIGINT);
+    verify(statement).setObject(3, 7L, Types.BIGINT);
+  }
+
+  @Test
+  public void testCreateUpdateStatementIncrementsVersion() throws Exception {
+    addColumn(entityMappingHolder, "version", Types.INTEGER, AbstractEntity.class, "version");
+    sqlQueryBuilder = new SqlQueryBuilder(entityMappingHolder);
+    final TaskEntity entity = new TaskEntity().setStatus("RUNNING").setJobId(3L);
+    entity.setId(7L);
+    entity.setVersion(2);
+
+    sqlQueryBuilder.createUpdateStatement(connection, entity, null,
+        Predicate.AND(Predicate.EQ("id", 7L), Predicate.EQ("version", 2)));
+
+    // the version is incremented by the statement, not set from the entity
+    verify(connection).prepareStatement(
+        "UPDATE task_entity SET version=COALESCE(version,0)+1,status=?,job_id=? "
+            + "WHERE (id = ?  AND version = ?)");
+    verify(statement).setObject(1, "RUNNING", Types.VARCHAR);
+    verify(statement).setObject(2, 3L, Types.BIGINT);
+    verify(statement).setObject(3, 7L, Types.BIGINT);
+    verify(statement).setObject(4, 2, Types.INTEGER);
+  }
+}
@@ -39,10 +39,13 @@ import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.util.TimeUtils;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Chronology;
-import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.DateTimeField;
 import org.joda.time.Interval;
 import org.joda.time.Period;
 import org.joda.time.ReadableInterval;
@@ -201,25 +204,36 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
           detectionInterval.getStartMillis(), inputTimes.sliceFrom(Math.max(0,inputTimes.size()-10)).toString());
     }
 
-    // todo cyril compute mean and std in a single pass
-    // https://nestedsoftware.com/2018/03/20/calculating-a-moving-average-on-streaming-data-5a7k.22879.html
-    // https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Welford's_online_algorithm
+    final Chronology chronology = detectionInterval.getChronology();
+    final DoubleSeries values = inputDF.getDoubles(COL_VALUE);
     final boolean applyMask = inputDF.contains(COL_MASK);
+    final BooleanSeries mask = applyMask ? inputDF.getBooleans(COL_MASK) : null;
+    final long[] seasonalBuckets = seasonalBuckets(inputTimes, chronology);
+    final Map<Long, RollingMeanVariance> bucketToStats = new HashMap<>();
+    // the lookback window of index k is [windowStart, windowEnd[ = [k - lookback, k[
+    // statistics are maintained incrementally while the window slides
+    int windowStart = 0;
+    int windowEnd = 0;
     for (int k = firstDetectionIndex; k < size; k++) {
-      if (applyMask && BooleanSeries.isTrue(inputDF.getBoolean(COL_MASK, k))) {
+      if (applyMask && BooleanSeries.isTrue(mask.getBoolean(k))) {
         // this point is masked - skip it
         continue;
       }
-      final long forecastTime = inputTimes.getLong(k);
-      final DataFrame lookbackDf = getLookbackDf(inputDF, forecastTime, detectionInterval.getChronology());
-      final DoubleSeries periodMask = buildPeriodMask(lookbackDf, forecastTime, detectionInterval.getChronology());
-      DoubleSeries maskedValues = lookbackDf.getDoubles(COL_VALUE).multiply(periodMask);
-      if (applyMask) {
-        // todo cyril perf - COL_MASK.fillNull().not() can be computed once outside of the loop
-        maskedValues = maskedValues.filter(lookbackDf.getBooleans(COL_MASK).fillNull().not());
+      final int lookbackStart = lookbackStart(k, inputTimes.getLong(k), chronology);
+      for (; windowEnd < k; windowEnd++) {
+        if (isTrainingValue(values, mask, windowEnd)) {
+          bucketToStats.computeIfAbsent(seasonalBuckets[windowEnd], b -> new RollingMeanVariance())
+              .add(values.getDouble(windowEnd));
+        }
       }
-      double mean = maskedValues.mean().value();
-      double std = maskedValues.std().value();
+      for (; windowStart < lookbackStart; windowStart++) {
+        if (isTrainingValue(values, mask, windowStart)) {
+          bucketToStats.get(seasonalBuckets[windowStart]).remove(values.getDouble(windowStart));
+        }
+      }
+      final RollingMeanVariance stats = bucketToStats.get(seasonalBuckets[k]);
+      double mean = stats == null ? DoubleSeries.NULL : stats.mean();
+      double std = stats == null ? DoubleSeries.NULL : stats.std();
       if (Double.isNaN(mean)) {
         // mean and std can be null if all values are masked or null
         mean = 0.0;
@@ -245,41 +259,43 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     return resultDF;
   }
 
-  private DoubleSeries buildPeriodMask(final DataFrame lookbackDf, final long forecastTime,
-      final Chronology chronology) {
-    if (seasonality.equals(Period.ZERO)) {
-      // no seasonality --> no mask
-      return DoubleSeries.fillValues(lookbackDf.size(), 1);
-    }
-    final DateTime forecastDateTime = new DateTime(forecastTime, chronology);
-    final DoubleSeries.Builder mask = DoubleSeries.builder();
-    final LongSeries lookbackEpochs = lookbackDf.get(COL_TIME).getLongs();
-    for (int idx = 0; idx < lookbackEpochs.size(); idx++) {
-      final DateTime lookbackDateTime = new DateTime(lookbackEpochs.get(idx), chronology);
-      mask.addValues(isSeasonalityMatch(forecastDateTime, lookbackDateTime) ? 1. : null);
-    }
-    return mask.build();
+  private static boolean isTrainingValue(final DoubleSeries values,
+      final @Nullable BooleanSeries mask, final int idx) {
+    return !values.isNull(idx) && (mask == null || !BooleanSeries.isTrue(mask.getBoolean(idx)));
   }
 
-  private boolean isSeasonalityMatch(final DateTime dt1, final DateTime dt2) {
-    final boolean isSameTimeInDay =
-        dt1.getHourOfDay() == dt2.getHourOfDay() && dt1.getMinuteOfHour() == dt2.getMinuteOfHour()
-            && dt1.getSecondOfMinute() == dt2.getSecondOfMinute()
-            && dt1.getMillisOfSecond() == dt2.getMillisOfSecond();
+  /**
+   * Returns the seasonal bucket of each time. Two times are in the same bucket if they have the
+   * same time in day (and the same day of week for weekly seasonality) in the given chronology.
+   */
+  private long[] seasonalBuckets(final LongSeries times, final Chronology chronology) {
+    final long[] buckets = new long[times.size()];
+    if (seasonality.equals(Period.ZERO)) {
+      // no seasonality --> a single bucket
+      return buckets;
+    }
+    final boolean weekly;
     if (seasonality.equals(Period.days(7))) {
-      return isSameTimeInDay && dt1.getDayOfWeek() == dt2.getDayOfWeek();
+      weekly = true;
     } else if (seasonality.equals(Period.days(1))) {
-      return isSameTimeInDay;
+      weekly = false;
     } else {
       throw new UnsupportedOperationException();
     }
+    final DateTimeField millisOfDay = chronology.millisOfDay();
+    final DateTimeField dayOfWeek = chronology.dayOfWeek();
+    for (int i = 0; i < buckets.length; i++) {
+      final long time = times.getLong(i);
+      buckets[i] = millisOfDay.get(time);
+      if (weekly) {
+        buckets[i] += (long) dayOfWeek.get(time) * DateTimeConstants.MILLIS_PER_DAY;
+      }
+    }
+    return buckets;
   }
 
-  private DataFrame getLookbackDf(final DataFrame inputDF, final long endTimeMillis,
+  private int lookbackStart(final int indexEnd, final long endTimeMillis,
       final Chronology chronology) {
-    final int indexEnd = inputDF.getLongs(COL_TIME).find(endTimeMillis);
-    checkArgument(indexEnd != -1,
-        "Could not find index of endTime %s. endTime should exist in inputDf. This should not happen.", endTimeMillis);
     int indexStart = indexEnd - lookback;
     if (indexStart < 0) {
       if (TimeUtils.timezonesAreEquivalent(chronology.getZone().toString(), UTC_TIMEZONE)) {
@@ -294,11 +310,67 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
         indexStart = 0;
       }
     }
-    
-    return inputDF.slice(indexStart, indexEnd);
+    return indexStart;
   }
 
   private double bounded(final double val) {
     return Math.min(metricMaximumValue, Math.max(val, metricMinimumValue));
   }
+
+  /**
+   * Mean and sample variance of a sliding set of values, updated in O(1) when a value enters or
+   * leaves the set.
+   * The mean is computed from a compensated running sum, in the same way as
+   * {@link DoubleSeries#mean()}. The sum of squares of differences from the mean is updated with
+   * Welford's online algorithm.
+   * See https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Welford's_online_algorithm
+   */
+  private static class RollingMeanVariance {
+
+    private long count = 0;
+    // Neumaier summation - the compensation avoids drifting when values are added then removed
+    private double sum = 0;
+    private double compensation = 0;
+    // sum of squares of differences from the mean
+    private double m2 = 0;
+
+    void add(final double value) {
+      final double previousMean = count == 0 ? value : mean();
+      count++;
+      addToSum(value);
+      m2 += (value - previousMean) * (value - mean());
+    }
+
+    void remove(final double value) {
+      final double previousMean = mean();
+      count--;
+      if (count == 0) {
+        sum = 0;
+        compensation = 0;
+        m2 = 0;
+        return;
+      }
+      addToSum(-value);
+      // rounding errors can make m2 slightly negative when all values are equal
+      m2 = Math.max(0, m2 - (value - previousMean) * (value - mean()));
+    }
+
+    private void addToSum(final double value) {
+      final double t = sum + value;
+      if (Math.abs(sum) >= Math.abs(value)) {
+        compensation += (sum - t) + value;
+      } else {
+        compensation += (value - t) + sum;
+      }
+      sum = t;
+    }
+
+    double mean() {
+      return count == 0 ? DoubleSeries.NULL : (sum + compensation) / count;
+    }
+
+    double std() {
+      return count <= 1 ? DoubleSeries.NULL : Math.sqrt(m2 / (count - 1));
+    }
+  }
 }
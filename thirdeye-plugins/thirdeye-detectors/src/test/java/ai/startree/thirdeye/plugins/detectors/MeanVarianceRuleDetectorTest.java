@@ -582,6 +582,61 @@ public class MeanVarianceRuleDetectorTest {
     assertThat(outputAnomalySeries).isEqualTo(expectedAnomalySeries);
   }
 
+  @Test
+  public void testRollingStatisticsMatchWindowStatisticsWithDailySeasonality() {
+    // 10 days of hourly data, with nulls and masked points
+    final int size = 240;
+    final long hourMillis = 3600_000L;
+    final long[] times = new long[size];
+    final double[] values = new double[size];
+    final byte[] mask = new byte[size];
+    for (int i = 0; i < size; i++) {
+      times[i] = DECEMBER_18_2020 + i * hourMillis;
+      values[i] = i % 17 == 0 ? DoubleSeries.NULL : 1000 + (i % 24) * 10 + ((i * 37) % 11) * 0.3;
+      mask[i] = i % 13 == 0 ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+    }
+    final DataFrame currentDf = new DataFrame()
+        .addSeries(Constants.COL_TIME, LongSeries.buildFrom(times))
+        .addSeries(Constants.COL_VALUE, DoubleSeries.buildFrom(values))
+        .addSeries(Constants.COL_MASK, BooleanSeries.buildFrom(mask));
+    final int lookback = 120;
+    final int firstDetectionIndex = 168;
+    final Interval interval = new Interval(times[firstDetectionIndex],
+        times[size - 1] + hourMillis, DateTimeZone.UTC);
+
+    final MeanVarianceRuleDetectorSpec spec = new MeanVarianceRuleDetectorSpec();
+    spec.setMonitoringGranularity("PT1H");
+    spec.setLookbackPeriod("P5D");
+    spec.setSeasonalityPeriod("P1D");
+    spec.setSensitivity(0);
+    final MeanVarianceRuleDetector detector = new MeanVarianceRuleDetector();
+    detector.init(spec);
+    final DataFrame outputDf = detector.runDetection(interval,
+        Map.of(AnomalyDetector.KEY_CURRENT, SimpleDataTable.fromDataFrame(currentDf)))
+        .getDataFrame();
+
+    for (int k = firstDetectionIndex; k < size; k++) {
+      if (mask[k] == BooleanSeries.TRUE) {
+        assertThat(outputDf.getDoubles(Constants.COL_VALUE).isNull(k)).isTrue();
+        continue;
+      }
+      // same hour of day in the lookback window
+      final DoubleSeries.Builder training = DoubleSeries.builder();
+      for (int i = k - lookback; i < k; i++) {
+        if ((k - i) % 24 == 0 && mask[i] == BooleanSeries.FALSE && !DoubleSeries.isNull(values[i])) {
+          training.addValues(values[i]);
+        }
+      }
+      final DoubleSeries trainingValues = training.build();
+      final double expectedMean = trainingValues.mean().value();
+      final double expectedStd = trainingValues.std().value();
+      assertThat(outputDf.getDouble(Constants.COL_VALUE, k)).isCloseTo(expectedMean,
+          Offset.offset(1e-9));
+      assertThat(outputDf.getDouble(Constants.COL_UPPER_BOUND, k)).isCloseTo(
+          expectedMean + 1.5 * expectedStd, Offset.offset(1e-9));
+    }
+  }
+
   @Test
   public void testComputeLookbackStepsWithDayGranularity() {
     String period = "P14D";
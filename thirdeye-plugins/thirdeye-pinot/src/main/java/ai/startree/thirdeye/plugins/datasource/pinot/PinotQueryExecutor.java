@@ -17,7 +17,12 @@ import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeDataFrame
 import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSet;
 import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSetGroup;
 import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSetMetaData;
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.detection.v2.ColumnType;
 import ai.startree.thirdeye.spi.detection.v2.ColumnType.ColumnDataType;
 import ai.startree.thirdeye.spi.util.Pair;
@@ -28,6 +33,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.pinot.client.Connection;
@@ -43,6 +49,8 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
 
   private static final Logger LOG = LoggerFactory.getLogger(PinotQueryExecutor.class);
 
+  private static final String NULL_STRING = "null";
+
   private static final String SQL_QUERY_FORMAT = "sql";
   private static final String PQL_QUERY_FORMAT = "pql";
   private final PinotConnectionManager pinotConnectionManager;
@@ -75,26 +83,20 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
   }
 
   private static ColumnType getColumnTypeFromPinotResultSet(final ResultSet resultSet,
-      final String columnName) {
-    for (int i = 0; i < resultSet.getColumnCount(); i++) {
-      if (columnName.equalsIgnoreCase(resultSet.getColumnName(i))) {
-        try {
-          final ColumnType columnType = ColumnType.pinotTypeToColumnType(
-              resultSet.getColumnDataType(i));
-          // todo cyril - remove this - temporary adding log to understand when a client has a FLOAT column type
-          if (columnType.getType().equals(ColumnDataType.FLOAT)) {
-            LOG.info(
-                "\"" + resultSet.getColumnName(i) + "\" column returned by Pinot is of type FLOAT");
-          }
-          return columnType;
-        } catch (final Throwable e) {
-          // Pinot client doesn't provide type for pql, so default to DOUBLE type for metric column.
-          return new ColumnType(ColumnDataType.DOUBLE);
-        }
+      final int columnIdx) {
+    try {
+      final ColumnType columnType = ColumnType.pinotTypeToColumnType(
+          resultSet.getColumnDataType(columnIdx));
+      // todo cyril - remove this - temporary adding log to understand when a client has a FLOAT column type
+      if (columnType.getType().equals(ColumnDataType.FLOAT)) {
+        LOG.info("\"" + resultSet.getColumnName(columnIdx)
+            + "\" column returned by Pinot is of type FLOAT");
       }
+      return columnType;
+    } catch (final Throwable e) {
+      // Pinot client doesn't provide type for pql, so default to DOUBLE type for metric column.
+      return new ColumnType(ColumnDataType.DOUBLE);
     }
-    // Pinot client doesn't provide type for groupKeys, so default to String type.
-    return new ColumnType(ColumnDataType.STRING);
   }
 
   /**
@@ -103,7 +105,8 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
    * @param resultSet A result set from Pinot.
    * @return an unified {@link ThirdEyeDataFrameResultSet}.
    */
-  private static ThirdEyeDataFrameResultSet fromPinotResultSet(final ResultSet resultSet) {
+  @VisibleForTesting
+  static ThirdEyeDataFrameResultSet fromPinotResultSet(final ResultSet resultSet) {
     // Build the meta data of this result set
     final List<String> groupKeyColumnNames = new ArrayList<>();
     final List<ColumnType> groupKeyColumnTypes = new ArrayList<>();
@@ -131,9 +134,8 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
     final List<String> metricColumnNames = new ArrayList<>();
     final List<ColumnType> metricColumnTypes = new ArrayList<>();
     for (int columnIdx = 0; columnIdx < resultSet.getColumnCount(); columnIdx++) {
-      final String columnName = resultSet.getColumnName(columnIdx);
-      metricColumnNames.add(columnName);
-      metricColumnTypes.add(getColumnTypeFromPinotResultSet(resultSet, columnName));
+      metricColumnNames.add(resultSet.getColumnName(columnIdx));
+      metricColumnTypes.add(getColumnTypeFromPinotResultSet(resultSet, columnIdx));
     }
     final ThirdEyeResultSetMetaData thirdEyeResultSetMetaData =
         new ThirdEyeResultSetMetaData(groupKeyColumnNames,
@@ -141,45 +143,145 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
             groupKeyColumnTypes,
             metricColumnTypes);
 
-    // Build the DataFrame - FIXME CYRIL - this is not necessary to build a DataFrame at this point
-    final List<String> columnNameWithDataType = new ArrayList<>();
+    // Decode the values column by column, directly into the arrays backing the series
+    final DataFrame dataFrame = new DataFrame();
+    final int rowCount = resultSet.getRowCount();
     //   Always cast dimension values to STRING type
-    for (final String groupColumnName : thirdEyeResultSetMetaData.getGroupKeyColumnNames()) {
-      columnNameWithDataType.add(groupColumnName + ":STRING");
+    for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
+      dataFrame.addSeries(groupKeyColumnNames.get(groupByColumnIdx),
+          decodeGroupKeyColumn(resultSet, groupByColumnIdx, rowCount));
     }
-    columnNameWithDataType.addAll(thirdEyeResultSetMetaData.getMetricColumnNames());
-    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNameWithDataType);
-    final int rowCount = resultSet.getRowCount();
-    final int metricColumnCount = resultSet.getColumnCount();
-    final int totalColumnCount = groupByColumnCount + metricColumnCount;
-    // Dump the values in ResultSet to the DataFrame
+    for (int metricColumnIdx = 0; metricColumnIdx < metricColumnNames.size(); metricColumnIdx++) {
+      dataFrame.addSeries(metricColumnNames.get(metricColumnIdx),
+          decodeColumn(resultSet, metricColumnIdx, rowCount,
+              metricColumnTypes.get(metricColumnIdx).getType()));
+    }
+    // Build ThirdEye's result set
+    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+  }
+
+  private static StringSeries decodeGroupKeyColumn(final ResultSet resultSet,
+      final int groupByColumnIdx, final int rowCount) {
+    final String[] values = new String[rowCount];
     for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
-      final String[] columnsOfTheRow = new String[totalColumnCount];
-      // GroupBy column value(i.e., dimension values)
-      for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
-        String valueString = null;
-        try {
-          valueString = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
-        } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
-        }
-        columnsOfTheRow[groupByColumnIdx] = valueString;
+      try {
+        values[rowIdx] = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
+      } catch (final Exception e) {
+        // Do nothing and subsequently insert a null value to the current series.
       }
-      // Metric column's value
-      for (int metricColumnIdx = 0; metricColumnIdx < metricColumnCount; metricColumnIdx++) {
-        String valueString = null;
-        try {
-          valueString = resultSet.getString(rowIdx, metricColumnIdx);
-        } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
+    }
+    return StringSeries.buildFrom(values);
+  }
+
+  /**
+   * Decodes a column directly into the primitive array backing the series of its final type.
+   * Each value is parsed once. Types that are not supported by
+   * {@link ThirdEyeResultSetDataTable} are kept as strings.
+   */
+  private static Series decodeColumn(final ResultSet resultSet, final int columnIdx,
+      final int rowCount, final ColumnDataType type) {
+    switch (type) {
+      case BOOLEAN:
+        final byte[] bVals = new byte[rowCount];
+        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+          final String value = cellString(resultSet, rowIdx, columnIdx);
+          bVals[rowIdx] = isNull(value) ? BooleanSeries.NULL
+              : BooleanSeries.valueOf(Boolean.parseBoolean(value));
         }
-        columnsOfTheRow[metricColumnIdx + groupByColumnCount] = valueString;
-      }
-      dfBuilder.append(columnsOfTheRow);
+        return BooleanSeries.buildFrom(bVals);
+      case INT:
+        final long[] iVals = new long[rowCount];
+        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+          iVals[rowIdx] = parseIntegerOrNull(cellString(resultSet, rowIdx, columnIdx), rowIdx,
+              columnIdx);
+        }
+        return LongSeries.buildFrom(iVals);
+      case LONG:
+      case OBJECT:
+        // OBJECT is parsed as LONG - see ThirdEyeResultSetDataTable
+        final long[] lVals = new long[rowCount];
+        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+          lVals[rowIdx] = parseLongOrNull(cellString(resultSet, rowIdx, columnIdx), rowIdx,
+              columnIdx);
+        }
+        return LongSeries.buildFrom(lVals);
+      case FLOAT:
+      case DOUBLE:
+        final double[] dVals = new double[rowCount];
+        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+          dVals[rowIdx] = parseDoubleOrNull(cellString(resultSet, rowIdx, columnIdx), rowIdx,
+              columnIdx);
+        }
+        return DoubleSeries.buildFrom(dVals);
+      default:
+        final String[] sVals = new String[rowCount];
+        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+          sVals[rowIdx] = cellString(resultSet, rowIdx, columnIdx);
+        }
+        return StringSeries.buildFrom(sVals);
     }
-    final DataFrame dataFrame = dfBuilder.build();
-    // Build ThirdEye's result set
-    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+  }
+
+  private static @Nullable String cellString(final ResultSet resultSet, final int rowIdx,
+      final int columnIdx) {
+    try {
+      return resultSet.getString(rowIdx, columnIdx);
+    } catch (final Exception e) {
+      // Do nothing and subsequently insert a null value to the current series.
+      return null;
+    }
+  }
+
+  private static boolean isNull(final @Nullable String value) {
+    return value == null || NULL_STRING.equals(value);
+  }
+
+  private static long parseIntegerOrNull(final @Nullable String value, final int rowIdx,
+      final int columnIdx) {
+    if (isNull(value)) {
+      return LongSeries.NULL;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (final NumberFormatException e) {
+      return parsingError(rowIdx, columnIdx, e, LongSeries.NULL);
+    }
+  }
+
+  private static long parseLongOrNull(final @Nullable String value, final int rowIdx,
+      final int columnIdx) {
+    if (isNull(value)) {
+      return LongSeries.NULL;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (final NumberFormatException e) {
+      return parsingError(rowIdx, columnIdx, e, LongSeries.NULL);
+    }
+  }
+
+  private static double parseDoubleOrNull(final @Nullable String value, final int rowIdx,
+      final int columnIdx) {
+    if (isNull(value)) {
+      return DoubleSeries.NULL;
+    }
+    try {
+      return Double.parseDouble(value);
+    } catch (final NumberFormatException e) {
+      LOG.error("Could not get value of position {},{}. Replacing by null. Error: ", rowIdx,
+          columnIdx, e);
+      ThirdEyeResultSetDataTable.parsingErrorCounter.increment();
+      return DoubleSeries.NULL;
+    }
+  }
+
+  // TODO CYRIL - don't replace by null - throw directly - this may break things for existing table though - need to analyze metrics first
+  private static long parsingError(final int rowIdx, final int columnIdx,
+      final NumberFormatException e, final long nullValue) {
+    LOG.error("Could not get value of position {},{}. Replacing by null. Error: ", rowIdx,
+        columnIdx, e);
+    ThirdEyeResultSetDataTable.parsingErrorCounter.increment();
+    return nullValue;
   }
 
   private static List<Pair<Integer, Integer>> rowColCounts(final ResultSetGroup resultSetGroup) {
@@ -13,11 +13,14 @@
  */
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
+import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeDataFrameResultSet;
 import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSet;
 import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
 import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.detection.v2.AbstractDataTableImpl;
 import ai.startree.thirdeye.spi.detection.v2.ColumnType.ColumnDataType;
@@ -34,7 +37,7 @@ public class ThirdEyeResultSetDataTable extends AbstractDataTableImpl {
   // this counter should always be zero - if it's not, then the type fetching is incorrect, the parsing in this class is not implemented correctly or some behaviour changed in Pinot
   private static final Counter unknownDataTypeCounter = Metrics.counter("thirdeye_pinot_unknown_data_type_error_total");
   // this counter should always be zero - if it's not, then the parsing in this class is not implemented correctly or some behaviour changed in Pinot
-  private static final Counter parsingErrorCounter = Metrics.counter("thirdeye_pinot_value_parsing_error_total");
+  static final Counter parsingErrorCounter = Metrics.counter("thirdeye_pinot_value_parsing_error_total");
 
   private final DataFrame dataFrame;
 
@@ -48,6 +51,14 @@ public class ThirdEyeResultSetDataTable extends AbstractDataTableImpl {
   }
 
   private DataFrame generateDataFrame(final ThirdEyeResultSet thirdEyeResultSet) {
+    if (thirdEyeResultSet instanceof ThirdEyeDataFrameResultSet) {
+      final DataFrame decoded = ((ThirdEyeDataFrameResultSet) thirdEyeResultSet).getDataFrame();
+      if (hasExpectedSeriesTypes(thirdEyeResultSet, decoded)) {
+        // values were already decoded into typed series - see PinotQueryExecutor
+        // shallow copy: the result set is cached and shared between queries
+        return new DataFrame(decoded);
+      }
+    }
     final DataFrame df = new DataFrame();
     final int rowCount = thirdEyeResultSet.getRowCount();
     // TODO CYRIL check if groupKey is still used
@@ -123,6 +134,52 @@ public class ThirdEyeResultSetDataTable extends AbstractDataTableImpl {
     return df;
   }
 
+  private static boolean hasExpectedSeriesTypes(final ThirdEyeResultSet thirdEyeResultSet,
+      final DataFrame decoded) {
+    for (int colIdx = 0; colIdx < thirdEyeResultSet.getGroupKeyLength(); colIdx++) {
+      if (!hasType(decoded, thirdEyeResultSet.getGroupKeyColumnName(colIdx), SeriesType.STRING)) {
+        return false;
+      }
+    }
+    for (int colIdx = 0; colIdx < thirdEyeResultSet.getColumnCount(); colIdx++) {
+      final String columnName = thirdEyeResultSet.getColumnName(colIdx);
+      final ColumnDataType type = thirdEyeResultSet.getColumnType(colIdx).getType();
+      final SeriesType expectedSeriesType;
+      switch (type) {
+        case BOOLEAN:
+          expectedSeriesType = SeriesType.BOOLEAN;
+          break;
+        case INT:
+        case LONG:
+          expectedSeriesType = SeriesType.LONG;
+          break;
+        case FLOAT:
+        case DOUBLE:
+          expectedSeriesType = SeriesType.DOUBLE;
+          break;
+        case STRING:
+          expectedSeriesType = SeriesType.STRING;
+          break;
+        default:
+          // OBJECT and unknown types go through the generic path to keep the warnings and errors
+          return false;
+      }
+      if (!hasType(decoded, columnName, expectedSeriesType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasType(final DataFrame df, final String columnName,
+      final SeriesType seriesType) {
+    if (!df.contains(columnName)) {
+      return false;
+    }
+    final Series series = df.get(columnName);
+    return series.type() == seriesType;
+  }
+
   private byte boolOrNull(final ThirdEyeResultSet thirdEyeResultSet, final int rowIdx,
       final int colIdx) {
     final Boolean aBoolean = thirdEyeResultSet.getBoolean(rowIdx, colIdx);
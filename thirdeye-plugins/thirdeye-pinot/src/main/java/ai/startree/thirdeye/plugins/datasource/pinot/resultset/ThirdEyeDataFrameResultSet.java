@@ -46,6 +46,10 @@ public class ThirdEyeDataFrameResultSet extends AbstractThirdEyeResultSet {
     return metaDataAllColumns.equals(dataFrame.getSeries().keySet());
   }
 
+  public DataFrame getDataFrame() {
+    return dataFrame;
+  }
+
   @Override
   public int getRowCount() {
     return dataFrame.size();
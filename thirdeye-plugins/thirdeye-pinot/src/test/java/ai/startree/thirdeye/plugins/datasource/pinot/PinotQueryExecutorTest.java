@@ -14,9 +14,17 @@
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import org.apache.pinot.client.ResultSet;
 import org.testng.annotations.Test;
 
 public class PinotQueryExecutorTest {
@@ -56,4 +64,55 @@ public class PinotQueryExecutorTest {
     assertThat(output).isEqualTo(expectedOptionString+BASE_QUERY);
 
   }
+
+  @Test
+  public void testFromPinotResultSetDecodesTypedColumns() {
+    final ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getGroupKeyLength()).thenReturn(0);
+    when(resultSet.getRowCount()).thenReturn(2);
+    when(resultSet.getColumnCount()).thenReturn(6);
+    final String[] names = {"ts", "value", "dim", "count", "flag", "unknown"};
+    final String[] types = {"LONG", "DOUBLE", "STRING", "INT", "BOOLEAN", "BIG_DECIMAL"};
+    final String[][] cells = {
+        {"1000", "1.5", "1.50", "3", "true", "10"},
+        {"2000", "null", "b", "notAnInt", "null", "20"}};
+    for (int col = 0; col < names.length; col++) {
+      when(resultSet.getColumnName(col)).thenReturn(names[col]);
+      when(resultSet.getColumnDataType(col)).thenReturn(types[col]);
+      for (int row = 0; row < cells.length; row++) {
+        when(resultSet.getString(row, col)).thenReturn(cells[row][col]);
+      }
+    }
+
+    final DataFrame df = PinotQueryExecutor.fromPinotResultSet(resultSet).getDataFrame();
+
+    assertThat(df.get("ts")).isEqualTo(LongSeries.buildFrom(1000L, 2000L));
+    assertThat(df.get("value")).isEqualTo(DoubleSeries.buildFrom(1.5, DoubleSeries.NULL));
+    // strings are not re-interpreted
+    assertThat(df.get("dim")).isEqualTo(StringSeries.buildFrom("1.50", "b"));
+    assertThat(df.get("count")).isEqualTo(LongSeries.buildFrom(3L, LongSeries.NULL));
+    assertThat(df.get("flag")).isEqualTo(
+        BooleanSeries.buildFrom(BooleanSeries.TRUE, BooleanSeries.NULL));
+    // unknown Pinot types are read as DOUBLE - see getColumnTypeFromPinotResultSet
+    assertThat(df.get("unknown")).isEqualTo(DoubleSeries.buildFrom(10, 20));
+
+    final DataFrame tableDf = new ThirdEyeResultSetDataTable(
+        PinotQueryExecutor.fromPinotResultSet(resultSet)).getDataFrame();
+    assertThat(tableDf).isEqualTo(df);
+  }
+
+  @Test
+  public void testFromPinotResultSetWithEmptyResult() {
+    final ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getGroupKeyLength()).thenReturn(0);
+    when(resultSet.getRowCount()).thenReturn(0);
+    when(resultSet.getColumnCount()).thenReturn(1);
+    when(resultSet.getColumnName(0)).thenReturn("value");
+    when(resultSet.getColumnDataType(0)).thenReturn("DOUBLE");
+
+    final DataFrame df = PinotQueryExecutor.fromPinotResultSet(resultSet).getDataFrame();
+
+    assertThat(df.size()).isEqualTo(0);
+    assertThat(df.contains("value")).isTrue();
+  }
 }
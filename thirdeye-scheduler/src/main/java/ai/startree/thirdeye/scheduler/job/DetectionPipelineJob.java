@@ -25,13 +25,11 @@ import ai.startree.thirdeye.alert.AlertTemplateRenderer;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
-import ai.startree.thirdeye.spi.datalayer.dto.AlertMetadataDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
-import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskType;
-import ai.startree.thirdeye.spi.util.TimeUtils;
+import ai.startree.thirdeye.spi.util.AlertMetadataUtils;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import java.io.IOException;
@@ -134,10 +132,7 @@ public class DetectionPipelineJob implements Job {
 
   @NonNull
   private static Period getMutabilityPeriod(final AlertTemplateDTO templateWithProperties) {
-    return optional(templateWithProperties.getMetadata())
-        .map(AlertMetadataDTO::getDataset)
-        .map(DatasetConfigDTO::getMutabilityPeriod)
-        .map(TimeUtils::isoPeriod)
+    return optional(AlertMetadataUtils.getMutabilityPeriod(templateWithProperties.getMetadata()))
         .orElse(Period.ZERO);
   }
 }
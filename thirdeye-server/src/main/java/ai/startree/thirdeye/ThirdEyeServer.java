@@ -25,6 +25,7 @@ import ai.startree.thirdeye.config.BackendSentryConfiguration;
 import ai.startree.thirdeye.config.ThirdEyeServerConfiguration;
 import ai.startree.thirdeye.datalayer.DataSourceBuilder;
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
+import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
 import ai.startree.thirdeye.healthcheck.DatabaseHealthCheck;
 import ai.startree.thirdeye.json.ThirdEyeJsonProcessingExceptionMapper;
@@ -246,6 +247,9 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
 
         /* Shutdown Enumeration Item Maintainer thread */
         injector.getInstance(EnumerationItemMaintainer.class).close();
+
+        /* Shutdown the dto cache poll thread */
+        injector.getInstance(GenericPojoDao.class).close();
       }
     };
   }
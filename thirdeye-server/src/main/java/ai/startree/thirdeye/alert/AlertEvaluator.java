@@ -16,11 +16,13 @@ package ai.startree.thirdeye.alert;
 import static ai.startree.thirdeye.alert.AlertEvaluatorResponseMapper.toAlertEvaluationApi;
 import static ai.startree.thirdeye.core.ExceptionHandler.handleAlertEvaluationException;
 import static ai.startree.thirdeye.mapper.ApiBeanMapper.toAlertTemplateApi;
+import static ai.startree.thirdeye.spi.util.AlertMetadataUtils.getMutabilityPeriod;
 import static ai.startree.thirdeye.spi.util.SpiUtils.bool;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static ai.startree.thirdeye.util.ResourceUtils.ensure;
 
 import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
+import ai.startree.thirdeye.detectionpipeline.PlanExecutionProfile;
 import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
 import ai.startree.thirdeye.spi.api.AlertApi;
 import ai.startree.thirdeye.spi.api.AlertEvaluationApi;
@@ -85,8 +87,17 @@ public class AlertEvaluator {
   // does not resolve namespace - assumes namespace is set in the request by the consumer 
   public AlertEvaluationApi evaluate(final AlertEvaluationApi request)
       throws ExecutionException {
+    return evaluate(request, false);
+  }
+
+  /**
+   * @param profile if true, the execution profile of each plan node is returned with the
+   *     evaluation
+   */
+  public AlertEvaluationApi evaluate(final AlertEvaluationApi request, final boolean profile)
+      throws ExecutionException {
     try {
-      return evaluate0(request);
+      return evaluate0(request, profile);
     } catch (final WebApplicationException e) {
       throw e;
     } catch (final Exception e) {
@@ -95,7 +106,7 @@ public class AlertEvaluator {
     return null;
   }
 
-  private AlertEvaluationApi evaluate0(final AlertEvaluationApi request)
+  private AlertEvaluationApi evaluate0(final AlertEvaluationApi request, final boolean profile)
       throws Exception {
     final long startTime = request.getStart().getTime();
     final long endTime = request.getEnd().getTime();
@@ -113,7 +124,9 @@ public class AlertEvaluator {
         .setNamespace(optional(request.getAlert().getAuth()).map(
             AuthorizationConfigurationApi::getNamespace).orElse(null))
         .setUsage(DetectionPipelineUsage.EVALUATION)
-        .setDetectionInterval(detectionInterval);
+        .setDetectionInterval(detectionInterval)
+        .setMutabilityPeriod(getMutabilityPeriod(templateWithProperties.getMetadata()))
+        .setProfile(profile ? new PlanExecutionProfile() : null);
 
     // inject custom evaluation context
     final EvaluationContextApi evaluationContext = request.getEvaluationContext();
@@ -142,7 +155,9 @@ public class AlertEvaluator {
         .process(result, request);
 
     return toAlertEvaluationApi(processed)
-        .setAlert(new AlertApi().setTemplate(toAlertTemplateApi(templateWithProperties)));
+        .setAlert(new AlertApi().setTemplate(toAlertTemplateApi(templateWithProperties)))
+        .setProfile(optional(context.getProfile()).map(AlertEvaluatorResponseMapper::toApi)
+            .orElse(null));
   }
 
   private String findEnumeratorNodeName(final List<PlanNodeBean> nodes) {
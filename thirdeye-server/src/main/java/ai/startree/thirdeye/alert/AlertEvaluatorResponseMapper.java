@@ -16,12 +16,14 @@ package ai.startree.thirdeye.alert;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static java.util.stream.Collectors.toList;
 
+import ai.startree.thirdeye.detectionpipeline.PlanExecutionProfile;
 import ai.startree.thirdeye.detectionpipeline.operator.CombinerResult;
 import ai.startree.thirdeye.mapper.ApiBeanMapper;
 import ai.startree.thirdeye.spi.api.AlertEvaluationApi;
 import ai.startree.thirdeye.spi.api.DetectionDataApi;
 import ai.startree.thirdeye.spi.api.DetectionEvaluationApi;
 import ai.startree.thirdeye.spi.api.EnumerationItemApi;
+import ai.startree.thirdeye.spi.api.PlanNodeProfileApi;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.detection.model.TimeSeries;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
@@ -45,6 +47,22 @@ public abstract class AlertEvaluatorResponseMapper {
     return new AlertEvaluationApi().setDetectionEvaluations(map);
   }
 
+  public static List<PlanNodeProfileApi> toApi(final PlanExecutionProfile profile) {
+    return profile.getNodeProfiles().stream()
+        .map(p -> new PlanNodeProfileApi()
+            .setName(p.nodeName())
+            .setType(p.nodeType())
+            .setWallTimeMillis(toMillis(p.wallTimeNanos()))
+            .setCpuTimeMillis(p.cpuTimeNanos() < 0 ? null : toMillis(p.cpuTimeNanos()))
+            .setAllocatedBytes(p.allocatedBytes() < 0 ? null : p.allocatedBytes())
+            .setOutputRows(p.outputRows()))
+        .collect(toList());
+  }
+
+  private static double toMillis(final long nanos) {
+    return nanos / 1_000_000d;
+  }
+
   private static DetectionDataApi getData(final OperatorResult operatorResult) {
     final var rawData = operatorResult.getRawData();
     if (rawData != null && !rawData.isEmpty()) {
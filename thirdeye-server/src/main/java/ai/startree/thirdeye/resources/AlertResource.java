@@ -150,13 +150,15 @@ public class AlertResource extends CrudResource<AlertApi, AlertDTO> {
   @Timed(percentiles = {0.5, 0.75, 0.90, 0.95, 0.98, 0.99, 0.999})
   public Response evaluate(
       @Parameter(hidden = true) @Auth final ThirdEyeServerPrincipal principal,
-      @Schema(example = EVALUATE_SWAGGER_EXAMPLE) final AlertEvaluationApi request
+      @Schema(example = EVALUATE_SWAGGER_EXAMPLE) final AlertEvaluationApi request,
+      @Parameter(description = "return the execution profile of each plan node")
+      @QueryParam("profile") final boolean profile
   ) throws ExecutionException {
     ensureExists(request.getStart(), "start");
     ensureExists(request.getEnd(), "end");
     ensureExists(request.getAlert(), "alert");
 
-    return Response.ok(alertService.evaluate(principal, request)).build();
+    return Response.ok(alertService.evaluate(principal, request, profile)).build();
   }
 
   @Operation(summary = "Delete associated anomalies and rerun detection till present")
@@ -257,7 +257,8 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
 
   public AlertEvaluationApi evaluate(
       final ThirdEyeServerPrincipal principal,
-      final AlertEvaluationApi request
+      final AlertEvaluationApi request,
+      final boolean profile
   ) throws ExecutionException {
     final long safeEndTime = safeEndTime(request.getEnd().getTime());
     request.setEnd(new Date(safeEndTime));
@@ -277,7 +278,7 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
       // inject namespace in the request - looks hacky todo cyril consider rewrite
       alertApi.setAuth(new AuthorizationConfigurationApi().setNamespace(alertDto.namespace()));
     }
-    final AlertEvaluationApi results = alertEvaluator.evaluate(request);
+    final AlertEvaluationApi results = alertEvaluator.evaluate(request, profile);
     final Map<String, DetectionEvaluationApi> filtered = allowedEvaluations(principal,
         results.getDetectionEvaluations());
     return results.setDetectionEvaluations(filtered);
@@ -52,18 +52,35 @@ import org.slf4j.LoggerFactory;
 public abstract class CrudService<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT extends AbstractDTO> {
 
   private static final Logger LOG = LoggerFactory.getLogger(CrudService.class);
+  private static final String ID_INDEX_COLUMN = "baseId";
+  private static final long LIST_PAGE_SIZE = 1000;
   protected final AuthorizationManager authorizationManager;
 
   protected final AbstractManager<DtoT> dtoManager;
   protected final ImmutableMap<String, String> apiToIndexMap;
+  private final String idIndexColumn;
 
   public CrudService(final AuthorizationManager authorizationManager,
       final AbstractManager<DtoT> dtoManager,
       final ImmutableMap<String, String> apiToIndexMap) {
+    this(authorizationManager, dtoManager, apiToIndexMap, ID_INDEX_COLUMN);
+  }
+
+  /**
+   * Use this constructor if the entities are not stored in an index table: the id is then not
+   * stored in the baseId column.
+   *
+   * @param idIndexColumn the column of the id, used to filter and to page by id
+   */
+  protected CrudService(final AuthorizationManager authorizationManager,
+      final AbstractManager<DtoT> dtoManager,
+      final ImmutableMap<String, String> apiToIndexMap,
+      final String idIndexColumn) {
     this.authorizationManager = authorizationManager;
     this.dtoManager = dtoManager;
+    this.idIndexColumn = idIndexColumn;
     this.apiToIndexMap = ImmutableMap.<String, String>builder()
-        .put("id", "baseId")
+        .put("id", idIndexColumn)
         .putAll(apiToIndexMap)
         .build();
   }
@@ -116,21 +133,64 @@ public abstract class CrudService<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT exten
     return toApi(dtoT, cache);
   }
 
+  /**
+   * Lists the entities the principal can read.
+   *
+   * Entities are fetched in pages ordered by id (keyset pagination): each page is selected with
+   * an id > last id predicate, so the stream is consumed lazily and only the requested entities
+   * are loaded. The limit applies to the authorized entities. To fetch the next page, pass the
+   * id of the last entity of the previous page with {@code id=[gt]<lastId>}.
+   * If an offset is passed, the page is selected in the database before authorization.
+   */
   public Stream<ApiT> list(
       final ThirdEyeServerPrincipal principal,
       final MultivaluedMap<String, String> queryParameters
   ) {
-    final List<DtoT> results = queryParameters.size() > 0
-        ? dtoManager.filter(new DaoFilterBuilder(apiToIndexMap).buildFilter(queryParameters))
-        : dtoManager.findAll();
+    final DaoFilter filter = new DaoFilterBuilder(apiToIndexMap).buildFilter(queryParameters);
     // FIXME CYRIL ADD namespace in-app filter - then add query level filter
+    //  the namespace is only stored in the json value - it cannot be a sql predicate yet
 
     final RequestCache cache = createRequestCache();
-    return results.stream()
-        .filter(dto -> authorizationManager.hasAccess(principal, dto, AccessType.READ))
+    final Stream<DtoT> dtos;
+    final Long limit = filter.getLimit();
+    if (filter.getOffset() != null) {
+      dtos = dtoManager.filter(filter).stream();
+    } else if (limit != null && limit == 0) {
+      return Stream.empty();
+    } else {
+      final long pageSize = limit == null ? LIST_PAGE_SIZE : Math.min(limit, LIST_PAGE_SIZE);
+      dtos = keysetPages(filter.getPredicate(), pageSize).flatMap(List::stream);
+    }
+    final Stream<DtoT> authorized = dtos
+        .filter(dto -> authorizationManager.hasAccess(principal, dto, AccessType.READ));
+    return (limit == null || filter.getOffset() != null ? authorized : authorized.limit(limit))
         .map(dto -> toApi(dto, cache));
   }
 
+  private Stream<List<DtoT>> keysetPages(final @Nullable Predicate predicate,
+      final long pageSize) {
+    return Stream.iterate(fetchPage(predicate, null, pageSize),
+        page -> !page.isEmpty(),
+        page -> page.size() < pageSize
+            ? List.of()
+            : fetchPage(predicate, page.get(page.size() - 1).getId(), pageSize));
+  }
+
+  private List<DtoT> fetchPage(final @Nullable Predicate predicate, final @Nullable Long afterId,
+      final long pageSize) {
+    Predicate pagePredicate = predicate;
+    if (afterId != null) {
+      final Predicate afterIdPredicate = Predicate.GT(idIndexColumn, afterId);
+      pagePredicate = predicate == null
+          ? afterIdPredicate
+          : Predicate.AND(predicate, afterIdPredicate);
+    }
+    return dtoManager.filter(new DaoFilter()
+        .setPredicate(pagePredicate)
+        .setOrderByKey(idIndexColumn)
+        .setLimit(pageSize));
+  }
+
   @NonNull
   public List<ApiT> createMultiple(final ThirdEyePrincipal principal,
       final List<ApiT> list) {
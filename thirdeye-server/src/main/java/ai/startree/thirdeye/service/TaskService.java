@@ -43,7 +43,8 @@ public class TaskService extends CrudService<TaskApi, TaskDTO> {
   @Inject
   public TaskService(final TaskManager taskManager,
       final AuthorizationManager authorizationManager) {
-    super(authorizationManager, taskManager, API_TO_INDEX_FILTER_MAP);
+    // tasks are stored in the task_entity table - there is no index table
+    super(authorizationManager, taskManager, API_TO_INDEX_FILTER_MAP, "id");
     this.taskManager = taskManager;
   }
 
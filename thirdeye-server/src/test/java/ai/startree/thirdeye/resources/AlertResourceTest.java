@@ -232,7 +232,8 @@ public class AlertResourceTest {
         new AlertEvaluationApi()
             .setAlert(new AlertApi().setTemplate(new AlertTemplateApi().setId(1L)))
             .setStart(new Date())
-            .setEnd(new Date())
+            .setEnd(new Date()),
+        false
     );
   }
 
@@ -260,7 +261,7 @@ public class AlertResourceTest {
 
     when(alertTemplateManager.findById(1L)).thenReturn(alertTemplateDto);
     when(alertManager.findById(2L)).thenReturn(alertDto);
-    when(alertEvaluator.evaluate(alertEvaluationApi))
+    when(alertEvaluator.evaluate(alertEvaluationApi, false))
         .thenReturn(new AlertEvaluationApi().setDetectionEvaluations(new HashMap<>()));
 
     new AlertResource(new AlertService(
@@ -275,7 +276,7 @@ public class AlertResourceTest {
         new TimeConfiguration(),
         newAuthorizationManager(alertTemplateRenderer,
             SingleNamespaceAuthorizer.of("allowedNamespace"))
-    )).evaluate(nobody(), alertEvaluationApi);
+    )).evaluate(nobody(), alertEvaluationApi, false);
   }
 
   @Test
@@ -303,7 +304,7 @@ public class AlertResourceTest {
 
     when(alertTemplateManager.findById(1L)).thenReturn(alertTemplateDto);
     when(alertManager.findById(2L)).thenReturn(alertDto);
-    when(alertEvaluator.evaluate(alertEvaluationApi))
+    when(alertEvaluator.evaluate(alertEvaluationApi, false))
         .thenReturn(new AlertEvaluationApi().setDetectionEvaluations(
             new HashMap<>() {{
               put("allowedEval",
@@ -331,7 +332,7 @@ public class AlertResourceTest {
             SingleNamespaceAuthorizer.of("allowedNamespace", AccessType.READ)))
     );
 
-    try (final Response resp = alertResource.evaluate(nobody(), alertEvaluationApi)) {
+    try (final Response resp = alertResource.evaluate(nobody(), alertEvaluationApi, false)) {
       assertThat(resp.getStatus()).isEqualTo(200);
 
       final var results = ((AlertEvaluationApi) resp.getEntity());
@@ -361,7 +362,7 @@ public class AlertResourceTest {
         .setEnd(new Date());
 
     when(alertTemplateManager.findById(1L)).thenReturn(alertTemplateDto);
-    when(alertEvaluator.evaluate(alertEvaluationApi))
+    when(alertEvaluator.evaluate(alertEvaluationApi, false))
         .thenReturn(new AlertEvaluationApi().setDetectionEvaluations(new HashMap<>()));
 
     new AlertResource(new AlertService(
@@ -376,7 +377,7 @@ public class AlertResourceTest {
         new TimeConfiguration(),
         newAuthorizationManager(alertTemplateRenderer,
             SingleNamespaceAuthorizer.of("readonlyNamespace", AccessType.READ)))
-    ).evaluate(nobody(), alertEvaluationApi);
+    ).evaluate(nobody(), alertEvaluationApi, false);
   }
 
   @Test
@@ -401,7 +402,7 @@ public class AlertResourceTest {
         .setEnd(new Date());
 
     when(alertTemplateManager.findById(1L)).thenReturn(alertTemplateDto);
-    when(alertEvaluator.evaluate(alertEvaluationApi))
+    when(alertEvaluator.evaluate(alertEvaluationApi, false))
         .thenReturn(new AlertEvaluationApi().setDetectionEvaluations(
             new HashMap<>() {{
               put("allowedEval",
@@ -428,7 +429,7 @@ public class AlertResourceTest {
         newAuthorizationManager(alertTemplateRenderer,
             SingleNamespaceAuthorizer.of("allowedNamespace"))));
 
-    try (final Response resp = resource.evaluate(nobody(), alertEvaluationApi)) {
+    try (final Response resp = resource.evaluate(nobody(), alertEvaluationApi, false)) {
       assertThat(resp.getStatus()).isEqualTo(200);
 
       final var results = ((AlertEvaluationApi) resp.getEntity());
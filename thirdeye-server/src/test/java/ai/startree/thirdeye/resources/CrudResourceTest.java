@@ -17,6 +17,8 @@ import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ai.startree.thirdeye.alert.AlertTemplateRenderer;
@@ -32,6 +34,8 @@ import ai.startree.thirdeye.service.CrudService;
 import ai.startree.thirdeye.spi.api.ThirdEyeCrudApi;
 import ai.startree.thirdeye.spi.auth.AuthenticationType;
 import ai.startree.thirdeye.spi.auth.ThirdEyeAuthorizer;
+import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AbstractManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
@@ -39,12 +43,14 @@ import com.google.common.collect.ImmutableMap;
 import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import org.mockito.ArgumentCaptor;
 import org.mockito.stubbing.Answer;
 import org.testng.annotations.Test;
 
@@ -130,7 +136,7 @@ public class CrudResourceTest {
     final DummyManager manager = mock(DummyManager.class);
     final UriInfo uriInfo = mock(UriInfo.class);
     when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>());
-    when(manager.findAll()).thenReturn(Arrays.asList(
+    when(manager.filter(any(DaoFilter.class))).thenReturn(Arrays.asList(
         (DummyDto) new DummyDto().setId(1L),
         (DummyDto) new DummyDto().setId(2L),
         (DummyDto) new DummyDto().setId(3L)
@@ -152,7 +158,7 @@ public class CrudResourceTest {
     final DummyManager manager = mock(DummyManager.class);
     final UriInfo uriInfo = mock(UriInfo.class);
     when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>());
-    when(manager.findAll()).thenReturn(Arrays.asList(
+    when(manager.filter(any(DaoFilter.class))).thenReturn(Arrays.asList(
         (DummyDto) new DummyDto().setId(1L),
         (DummyDto) new DummyDto().setId(2L),
         (DummyDto) new DummyDto().setId(3L)
@@ -171,6 +177,38 @@ public class CrudResourceTest {
     }
   }
 
+  @Test
+  public void testList_withKeysetPagination() {
+    final DummyManager manager = mock(DummyManager.class);
+    final UriInfo uriInfo = mock(UriInfo.class);
+    final MultivaluedHashMap<String, String> queryParameters = new MultivaluedHashMap<>();
+    queryParameters.putSingle("limit", "2");
+    when(uriInfo.getQueryParameters()).thenReturn(queryParameters);
+    // pages of 2 entities, ordered by id
+    when(manager.filter(any(DaoFilter.class))).thenReturn(
+        Arrays.asList((DummyDto) new DummyDto().setId(1L), (DummyDto) new DummyDto().setId(2L)),
+        Arrays.asList((DummyDto) new DummyDto().setId(3L), (DummyDto) new DummyDto().setId(4L)),
+        List.of());
+
+    final DummyResource resource = new DummyResource(manager, ImmutableMap.of(),
+        (principal, identifier, accessType) -> Set.of("2", "4").contains(identifier.getName()));
+    try (Response resp = resource.list(nobody(), uriInfo)) {
+      final List<DummyApi> entities = ((Stream<DummyApi>) resp.getEntity()).toList();
+      // the limit applies to the authorized entities
+      assertThat(entities).extracting(DummyApi::getId).containsExactly(2L, 4L);
+    }
+
+    final ArgumentCaptor<DaoFilter> filters = ArgumentCaptor.forClass(DaoFilter.class);
+    verify(manager, times(2)).filter(filters.capture());
+    assertThat(filters.getAllValues()).allSatisfy(filter -> {
+      assertThat(filter.getOrderByKey()).isEqualTo("baseId");
+      assertThat(filter.getLimit()).isEqualTo(2L);
+    });
+    assertThat(filters.getAllValues().get(0).getPredicate()).isNull();
+    assertThat(filters.getAllValues().get(1).getPredicate())
+        .isEqualTo(Predicate.GT("baseId", 2L));
+  }
+
   @Test(expectedExceptions = ForbiddenException.class)
   public void testGet_withNoAccess() {
     final DummyManager manager = mock(DummyManager.class);
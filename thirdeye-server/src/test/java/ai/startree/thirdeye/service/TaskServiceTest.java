@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.alert.AlertTemplateRenderer;
+import ai.startree.thirdeye.auth.AuthConfiguration;
+import ai.startree.thirdeye.auth.AuthorizationManager;
+import ai.startree.thirdeye.auth.NamespaceResolver;
+import ai.startree.thirdeye.auth.ThirdEyeServerPrincipal;
+import ai.startree.thirdeye.datalayer.DatabaseClient;
+import ai.startree.thirdeye.datalayer.DatabaseOrm;
+import ai.startree.thirdeye.datalayer.bao.TaskManagerImpl;
+import ai.startree.thirdeye.datalayer.dao.TaskDao;
+import ai.startree.thirdeye.datalayer.entity.TaskEntity;
+import ai.startree.thirdeye.spi.api.TaskApi;
+import ai.startree.thirdeye.spi.auth.AuthenticationType;
+import ai.startree.thirdeye.spi.auth.ThirdEyeAuthorizer;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Connection;
+import java.util.List;
+import javax.sql.DataSource;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Lists tasks through a TaskService backed by a TaskManagerImpl and a TaskDao. Only the
+ * statements are mocked.
+ */
+public class TaskServiceTest {
+
+  private static final ThirdEyeServerPrincipal PRINCIPAL = new ThirdEyeServerPrincipal("nobody",
+      "", AuthenticationType.OAUTH);
+
+  private DatabaseOrm databaseOrm;
+  private TaskManagerImpl taskManager;
+
+  private static TaskEntity task(final long id) {
+    final TaskEntity entity = new TaskEntity();
+    entity.setId(id);
+    entity.setJsonVal("{}");
+    return entity;
+  }
+
+  private static List<Long> ids(final List<TaskApi> tasks) {
+    return tasks.stream().map(TaskApi::getId).toList();
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    final DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+    databaseOrm = mock(DatabaseOrm.class);
+    final TaskDao taskDao = new TaskDao(databaseOrm,
+        new DatabaseClient(dataSource, new MetricRegistry()));
+    taskManager = new TaskManagerImpl(taskDao, new MetricRegistry());
+  }
+
+  private TaskService taskService(final ThirdEyeAuthorizer thirdEyeAuthorizer) {
+    return new TaskService(taskManager,
+        new AuthorizationManager(mock(AlertTemplateRenderer.class),
+            mock(AlertManager.class),
+            thirdEyeAuthorizer, mock(NamespaceResolver.class),
+            new AuthConfiguration()));
+  }
+
+  @Test
+  public void testListWithoutQueryParameters() throws Exception {
+    when(databaseOrm.findAll(any(), any(), anyBoolean(), any(), any(), eq(TaskEntity.class),
+        any())).thenReturn(List.of(task(1L), task(2L)));
+
+    final List<TaskApi> tasks = taskService((principal, identifier, accessType) -> true)
+        .list(PRINCIPAL, new MultivaluedHashMap<>())
+        .toList();
+
+    assertThat(ids(tasks)).isEqualTo(List.of(1L, 2L));
+    // the first page has no predicate and is ordered by the id column of task_entity
+    verify(databaseOrm).findAll(isNull(), eq("id"), eq(false), eq(1000L), isNull(),
+        eq(TaskEntity.class), any());
+  }
+
+  @Test
+  public void testListPagesById() throws Exception {
+    when(databaseOrm.findAll(any(), any(), anyBoolean(), any(), any(), eq(TaskEntity.class),
+        any())).thenReturn(List.of(task(1L), task(2L)), List.of(task(3L)));
+    final MultivaluedHashMap<String, String> queryParameters = new MultivaluedHashMap<>();
+    queryParameters.putSingle("limit", "2");
+
+    final List<TaskApi> tasks = taskService(
+        (principal, identifier, accessType) -> !identifier.getName().equals("1"))
+        .list(PRINCIPAL, queryParameters)
+        .toList();
+
+    assertThat(ids(tasks)).isEqualTo(List.of(2L, 3L));
+    verify(databaseOrm).findAll(isNull(), eq("id"), eq(false), eq(2L), isNull(),
+        eq(TaskEntity.class), any());
+    verify(databaseOrm).findAll(eq(Predicate.GT("id", 2L)), eq("id"), eq(false), eq(2L),
+        isNull(), eq(TaskEntity.class), any());
+  }
+}
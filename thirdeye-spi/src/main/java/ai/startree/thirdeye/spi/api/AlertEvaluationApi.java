@@ -16,6 +16,7 @@ package ai.startree.thirdeye.spi.api;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 @JsonInclude(Include.NON_NULL)
@@ -29,6 +30,10 @@ public class AlertEvaluationApi {
   private EvaluationContextApi evaluationContext;
   private Date lastTimestamp;
   Boolean dryRun;
+  /**
+   * Execution profile of each plan node. Only set if profiling is requested.
+   */
+  private List<PlanNodeProfileApi> profile;
 
   public AlertApi getAlert() {
     return alert;
@@ -104,4 +109,13 @@ public class AlertEvaluationApi {
     this.dryRun = dryRun;
     return this;
   }
+
+  public List<PlanNodeProfileApi> getProfile() {
+    return profile;
+  }
+
+  public AlertEvaluationApi setProfile(final List<PlanNodeProfileApi> profile) {
+    this.profile = profile;
+    return this;
+  }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+@JsonInclude(Include.NON_NULL)
+public class PlanNodeProfileApi {
+
+  private String name;
+  private String type;
+  private Double wallTimeMillis;
+  /**
+   * Not set if the jvm does not support measuring the thread cpu time.
+   */
+  private Double cpuTimeMillis;
+  /**
+   * Not set if the jvm does not support measuring the thread allocated memory.
+   */
+  private Long allocatedBytes;
+  private Long outputRows;
+
+  public String getName() {
+    return name;
+  }
+
+  public PlanNodeProfileApi setName(final String name) {
+    this.name = name;
+    return this;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public PlanNodeProfileApi setType(final String type) {
+    this.type = type;
+    return this;
+  }
+
+  public Double getWallTimeMillis() {
+    return wallTimeMillis;
+  }
+
+  public PlanNodeProfileApi setWallTimeMillis(final Double wallTimeMillis) {
+    this.wallTimeMillis = wallTimeMillis;
+    return this;
+  }
+
+  public Double getCpuTimeMillis() {
+    return cpuTimeMillis;
+  }
+
+  public PlanNodeProfileApi setCpuTimeMillis(final Double cpuTimeMillis) {
+    this.cpuTimeMillis = cpuTimeMillis;
+    return this;
+  }
+
+  public Long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public PlanNodeProfileApi setAllocatedBytes(final Long allocatedBytes) {
+    this.allocatedBytes = allocatedBytes;
+    return this;
+  }
+
+  public Long getOutputRows() {
+    return outputRows;
+  }
+
+  public PlanNodeProfileApi setOutputRows(final Long outputRows) {
+    this.outputRows = outputRows;
+    return this;
+  }
+}
@@ -15,6 +15,7 @@ package ai.startree.thirdeye.spi.datalayer.bao;
 
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import java.util.List;
 
@@ -26,6 +27,14 @@ public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
 
   void updateAnomalyFeedback(AnomalyDTO entity);
 
+  /**
+   * Saves the anomalies of a detection run, their children, and updates the alert in a single
+   * transaction. Nothing is saved if the transaction fails.
+   *
+   * @throws ai.startree.thirdeye.spi.ThirdEyeException if the transaction failed
+   */
+  void saveDetectionResults(List<AnomalyDTO> anomalies, AlertDTO alert);
+
   AnomalyDTO convertMergeAnomalyDTO2Bean(AnomalyDTO entity);
 
   List<AnomalyDTO> decorate(List<AnomalyDTO> anomalyDTOList);
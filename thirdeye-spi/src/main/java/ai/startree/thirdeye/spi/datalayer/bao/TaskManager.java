@@ -40,6 +40,14 @@ public interface TaskManager extends AbstractManager<TaskDTO> {
 
   boolean acquireTaskToRun(TaskDTO taskDTO, final long workerId);
 
+  /**
+   * Atomically claims up to limit WAITING tasks for the given worker, in a single round trip.
+   * Concurrent callers never claim the same task.
+   *
+   * @return the claimed tasks, already in RUNNING status. Empty if no task is available.
+   */
+  List<TaskDTO> acquireTasksToRun(final long workerId, final int limit);
+
   List<TaskDTO> findByStatusAndWorkerId(Long workerId, TaskStatus status);
 
   void updateStatusAndTaskEndTime(Long id, TaskStatus oldStatus, TaskStatus newStatus,
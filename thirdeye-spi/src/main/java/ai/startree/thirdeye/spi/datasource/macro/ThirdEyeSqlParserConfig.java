@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.spi.datasource.macro;
 
+import java.util.Objects;
+
 /**
  * Subset of Calcite SqlParser.Config configuration.
  * Makes spi not dependent on Calcite.
@@ -62,6 +64,27 @@ public class ThirdEyeSqlParserConfig {
     return unquotedCasing;
   }
 
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final ThirdEyeSqlParserConfig that = (ThirdEyeSqlParserConfig) o;
+    return Objects.equals(lex, that.lex) && Objects.equals(conformance, that.conformance)
+        && Objects.equals(parserFactory, that.parserFactory)
+        && Objects.equals(quoting, that.quoting)
+        && Objects.equals(quotedCasing, that.quotedCasing)
+        && Objects.equals(unquotedCasing, that.unquotedCasing);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(lex, conformance, parserFactory, quoting, quotedCasing, unquotedCasing);
+  }
+
   public static class Builder {
 
     private String lex;
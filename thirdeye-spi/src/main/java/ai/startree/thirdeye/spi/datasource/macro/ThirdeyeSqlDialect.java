@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.spi.datasource.macro;
 
+import java.util.Objects;
+
 /**
  * Subset of Calcite ThirdeyeSqlDialect configuration.
  * Makes spi not dependent on Calcite.
@@ -80,6 +82,32 @@ public class ThirdeyeSqlDialect {
     return unquotedCasing;
   }
 
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final ThirdeyeSqlDialect that = (ThirdeyeSqlDialect) o;
+    return Objects.equals(baseDialect, that.baseDialect)
+        && Objects.equals(caseSensitive, that.caseSensitive)
+        && Objects.equals(identifierQuoteString, that.identifierQuoteString)
+        && Objects.equals(identifierEscapedQuoteString, that.identifierEscapedQuoteString)
+        && Objects.equals(literalEscapedQuoteString, that.literalEscapedQuoteString)
+        && Objects.equals(literalQuoteString, that.literalQuoteString)
+        && Objects.equals(quotedCasing, that.quotedCasing)
+        && Objects.equals(unquotedCasing, that.unquotedCasing);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(baseDialect, caseSensitive, identifierQuoteString,
+        identifierEscapedQuoteString, literalEscapedQuoteString, literalQuoteString, quotedCasing,
+        unquotedCasing);
+  }
+
   public static class Builder {
 
     private String baseDialect;
@@ -20,6 +20,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.AlertMetadataDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Chronology;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Period;
@@ -48,6 +49,19 @@ public class AlertMetadataUtils {
         .orElse(Period.ZERO);
   }
 
+  /**
+   * Returns the mutability period of the alert, null if it is not set.
+   */
+  public static @Nullable Period getMutabilityPeriod(final AlertMetadataDTO metadata) {
+    return optional(metadata)
+        .map(AlertMetadataDTO::getDataset)
+        .map(DatasetConfigDTO::getMutabilityPeriod)
+        // templates can have an empty string as default property
+        .filter(StringUtils::isNotEmpty)
+        .map(TimeUtils::isoPeriod)
+        .orElse(null);
+  }
+
   @NonNull
   public static Period getGranularity(final AlertMetadataDTO metadata) {
     return optional(metadata)
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares task claims between the {@link TaskDriverRunnable} of a worker.
+ *
+ * Only one runnable claims tasks at a time. It claims as many tasks as there are idle runnables
+ * (capped by {@link TaskDriverConfiguration#getTaskFetchSizeCap()}) in a single database
+ * round trip, and hands the extra tasks to the other idle runnables. A claimed task is in
+ * RUNNING status, so tasks are never claimed ahead of the capacity to run them.
+ *
+ * On shutdown, {@link #close()} resets the claimed tasks that were not handed over to a
+ * runnable to WAITING, so that other workers can run them.
+ */
+public class TaskClaimQueue {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskClaimQueue.class);
+
+  private final TaskManager taskManager;
+  private final long workerId;
+  private final int fetchSizeCap;
+
+  private final BlockingQueue<TaskDTO> claimedTasks = new LinkedBlockingQueue<>();
+  private final AtomicInteger idleRunners = new AtomicInteger(0);
+  private final ReentrantLock claimLock = new ReentrantLock();
+  private volatile boolean closed = false;
+
+  public TaskClaimQueue(final TaskManager taskManager, final long workerId,
+      final int fetchSizeCap) {
+    checkArgument(fetchSizeCap > 0, "taskFetchSizeCap must be strictly positive");
+    this.taskManager = taskManager;
+    this.workerId = workerId;
+    this.fetchSizeCap = fetchSizeCap;
+  }
+
+  /**
+   * Must be called by a runnable when it starts looking for a task.
+   */
+  public void markIdle() {
+    idleRunners.incrementAndGet();
+  }
+
+  /**
+   * Must be called by a runnable when it stops looking for a task.
+   */
+  public void markBusy() {
+    idleRunners.decrementAndGet();
+  }
+
+  /**
+   * Returns a task already claimed for this worker, or claims a new batch of tasks.
+   * Returns null if no task is available, or if another runnable is currently claiming tasks.
+   */
+  public @Nullable TaskDTO poll() {
+    final TaskDTO alreadyClaimed = claimedTasks.poll();
+    if (alreadyClaimed != null) {
+      return alreadyClaimed;
+    }
+    if (closed || !claimLock.tryLock()) {
+      // another runnable is claiming - the claimed tasks will be handed over in await()
+      return null;
+    }
+    try {
+      if (closed) {
+        return null;
+      }
+      final int limit = Math.min(Math.max(idleRunners.get(), 1), fetchSizeCap);
+      final List<TaskDTO> tasks = taskManager.acquireTasksToRun(workerId, limit);
+      claimedTasks.addAll(tasks);
+    } finally {
+      claimLock.unlock();
+    }
+    return claimedTasks.poll();
+  }
+
+  /**
+   * Waits for a task claimed by another runnable.
+   *
+   * @return null if no task was handed over before the timeout.
+   */
+  public @Nullable TaskDTO await(final Duration timeout) throws InterruptedException {
+    return claimedTasks.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops claiming tasks and resets the claimed tasks not handed over to a runnable yet from
+   * RUNNING to WAITING. Waits for an in-progress claim to finish.
+   *
+   * @return the released tasks
+   */
+  public List<TaskDTO> close() {
+    claimLock.lock();
+    try {
+      closed = true;
+      final List<TaskDTO> released = new ArrayList<>();
+      claimedTasks.drainTo(released);
+      for (final TaskDTO task : released) {
+        try {
+          taskManager.updateStatusAndTaskEndTime(task.getId(),
+              TaskStatus.RUNNING,
+              TaskStatus.WAITING,
+              null,
+              String.format("Released by worker %s at shutdown", workerId));
+        } catch (final Exception e) {
+          LOG.error("Failed to release task {} at shutdown of worker {}", task.getId(), workerId,
+              e);
+        }
+      }
+      if (!released.isEmpty()) {
+        LOG.info("Released {} claimed tasks at shutdown of worker {}", released.size(), workerId);
+      }
+      return released;
+    } finally {
+      claimLock.unlock();
+    }
+  }
+}
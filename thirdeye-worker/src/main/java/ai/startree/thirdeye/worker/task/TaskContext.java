@@ -25,6 +25,7 @@ public class TaskContext {
   private TaskManager taskManager;
   private TaskRunnerFactory taskRunnerFactory;
   private MetricRegistry metricRegistry;
+  private TaskClaimQueue taskClaimQueue;
 
   public TaskDriverConfiguration getConfig() {
     return config;
@@ -81,4 +82,13 @@ public class TaskContext {
     this.metricRegistry = metricRegistry;
     return this;
   }
+
+  public TaskClaimQueue getTaskClaimQueue() {
+    return taskClaimQueue;
+  }
+
+  public TaskContext setTaskClaimQueue(final TaskClaimQueue taskClaimQueue) {
+    this.taskClaimQueue = taskClaimQueue;
+    return this;
+  }
 }
@@ -38,6 +38,7 @@ public class TaskDriver {
   private final TaskDriverConfiguration config;
   private final Long workerId;
   private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private final TaskClaimQueue taskClaimQueue;
 
   @Inject
   public TaskDriver(final TaskManager taskManager,
@@ -49,6 +50,7 @@ public class TaskDriver {
     this.taskDriverThreadPoolManager = taskDriverThreadPoolManager;
     config = taskDriverConfiguration;
     workerId = fetchWorkerId(config);
+    taskClaimQueue = new TaskClaimQueue(taskManager, workerId, config.getTaskFetchSizeCap());
 
     taskContext = new TaskContext()
         .setTaskManager(taskManager)
@@ -56,7 +58,8 @@ public class TaskDriver {
         .setTaskRunnerFactory(taskRunnerFactory)
         .setMetricRegistry(metricRegistry)
         .setConfig(taskDriverConfiguration)
-        .setWorkerId(workerId);
+        .setWorkerId(workerId)
+        .setTaskClaimQueue(taskClaimQueue);
   }
 
   private Long fetchWorkerId(final TaskDriverConfiguration config) {
@@ -109,6 +112,8 @@ public class TaskDriver {
   }
 
   public void shutdown() {
+    // tasks claimed but not started yet would stay RUNNING until the orphan task cleanup
+    taskClaimQueue.close();
     taskDriverThreadPoolManager.shutdown();
   }
 }
@@ -28,6 +28,7 @@ import com.google.inject.Singleton;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Timer.Sample;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Future;
@@ -48,6 +49,7 @@ public class TaskDriverRunnable implements Runnable {
   private final TaskDriverConfiguration config;
   private final long workerId;
   private final TaskRunnerFactory taskRunnerFactory;
+  private final TaskClaimQueue taskClaimQueue;
 
   @Deprecated //  use thirdeye_task_run
   private final Counter taskExceptionCounter;
@@ -71,6 +73,7 @@ public class TaskDriverRunnable implements Runnable {
     this.config = taskContext.getConfig();
     this.workerId = taskContext.getWorkerId();
     this.taskRunnerFactory = taskContext.getTaskRunnerFactory();
+    this.taskClaimQueue = taskContext.getTaskClaimQueue();
 
     final MetricRegistry metricRegistry = taskContext.getMetricRegistry();
     // deprecated - use thirdeye_task_run
@@ -189,57 +192,50 @@ public class TaskDriverRunnable implements Runnable {
    * @return null if system is shutting down.
    */
   private TaskDTO waitForTask() {
-    while (!isShutdown()) {
-      final TaskDTO nextTask;
-      try {
-        nextTask = taskManager.findNextTaskToRun();
-      } catch (Exception e) {
-        LOG.error("Failed to fetch a new task to run", e);
-        taskRunnerWaitIdleTimer.record(() -> sleep(true));
-        continue;
-      }
-      if (nextTask == null) {
-        // no task found
-        taskRunnerWaitIdleTimer.record(() -> sleep(false));
-        continue;
-      }
-      if (isShutdown()) {
-        break;
-      }
-      try {
-        boolean success = taskManager.acquireTaskToRun(nextTask, workerId);
-        if (success) {
+    taskClaimQueue.markIdle();
+    try {
+      while (!isShutdown()) {
+        TaskDTO nextTask;
+        boolean hasFetchError = false;
+        try {
+          nextTask = taskClaimQueue.poll();
+        } catch (Exception e) {
+          LOG.error("Failed to acquire a new task to run from worker id {}", workerId, e);
+          nextTask = null;
+          hasFetchError = true;
+        }
+        if (nextTask == null) {
+          // no task found - wait for a task claimed by another runnable of this worker
+          final boolean sleepAfterError = hasFetchError;
+          nextTask = taskRunnerWaitIdleTimer.record(() -> waitForClaimedTask(sleepAfterError));
+        }
+        if (nextTask != null) {
+          // the task is RUNNING for this worker - run it even if the system is shutting down
           final long waitTime = System.currentTimeMillis() - nextTask.getCreateTime().getTime();
           taskWaitTimer.record(waitTime, TimeUnit.MILLISECONDS);
           return nextTask;
-        } else {
-          LOG.debug("Failed to acquire task {} referencing {} from worker id {}. Task was locked, or edited by another transaction.)", nextTask.getId(),
-              nextTask.getRefId(), workerId);
-          // don't sleep - look for a next task
-          continue;  
         }
-      } catch (Exception e) {
-        LOG.warn("Failed to acquire task {} from worker id {})", nextTask, workerId, e);
-        taskRunnerWaitIdleTimer.record(() -> sleep(true));
-        continue;
       }
+      return null;
+    } finally {
+      taskClaimQueue.markBusy();
     }
-    return null;
   }
 
-  private void sleep(final boolean hasFetchError) {
+  private TaskDTO waitForClaimedTask(final boolean hasFetchError) {
     final long sleepTime = hasFetchError
         ? config.getTaskFailureDelay().toMillis()
         : config.getNoTaskDelay().toMillis() + RANDOM
             .nextInt((int) config.getRandomDelayCap().toMillis());
-    // sleep for few seconds if not tasks found - avoid cpu thrashing
+    // wait for few seconds if not tasks found - avoid cpu thrashing
     // also add some extra random number of milliseconds to allow threads to start at different times
     try {
-      Thread.sleep(sleepTime);
+      return taskClaimQueue.await(Duration.ofMillis(sleepTime));
     } catch (InterruptedException e) {
       if (!isShutdown()) {
         LOG.warn(e.getMessage(), e);
       }
+      return null;
     }
   }
 
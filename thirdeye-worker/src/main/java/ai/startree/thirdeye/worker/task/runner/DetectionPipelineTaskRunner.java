@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.worker.task.runner;
 
 import static ai.startree.thirdeye.spi.Constants.METRICS_TIMER_PERCENTILES;
+import static ai.startree.thirdeye.spi.util.AlertMetadataUtils.getMutabilityPeriod;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
@@ -160,13 +161,11 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
         alert.getLastTimestamp());
 
     alert.setLastTimestamp(newLastTimestamp);
-    // TODO CYRIL: lastTimestamp and updateTime are used by consumers to known when an alert has run
-    //  to improve consistency the anomaly save and the update of the alert should be in a single
-    //  transaction this would also improve failure cases
-    optional(result.getAnomalies())
-        .orElse(Collections.emptyList())
-        .forEach(anomalyManager::save);
-    alertManager.update(alert);
+    // lastTimestamp and updateTime are used by consumers to known when an alert has run
+    // the anomalies and the alert are saved in a single transaction
+    anomalyManager.saveDetectionResults(
+        optional(result.getAnomalies()).orElse(Collections.emptyList()),
+        alert);
 
     LOG.info("Completed detection task for id {} between {} and {}. Detected {} anomalies.",
         alert.getId(),
@@ -189,7 +188,8 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
         .setAlertId(alert.getId())
         .setNamespace(alert.namespace())
         .setUsage(DetectionPipelineUsage.DETECTION)
-        .setDetectionInterval(detectionInterval);
+        .setDetectionInterval(detectionInterval)
+        .setMutabilityPeriod(getMutabilityPeriod(templateWithProperties.getMetadata()));
     final var detectionPipelineResultMap = planExecutor.runAndGetRootOutputs(
         templateWithProperties.getNodes(),
         context);
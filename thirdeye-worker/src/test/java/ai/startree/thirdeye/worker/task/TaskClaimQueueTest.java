@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import java.time.Duration;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class TaskClaimQueueTest {
+
+  private static final long WORKER_ID = 7L;
+
+  private static TaskDTO task(final long id) {
+    final TaskDTO task = new TaskDTO();
+    task.setId(id);
+    return task;
+  }
+
+  @Test
+  public void testPollHandsOverBatch() throws InterruptedException {
+    final TaskManager taskManager = mock(TaskManager.class);
+    when(taskManager.acquireTasksToRun(WORKER_ID, 2)).thenReturn(List.of(task(1L), task(2L)));
+    final TaskClaimQueue queue = new TaskClaimQueue(taskManager, WORKER_ID, 10);
+    queue.markIdle();
+    queue.markIdle();
+
+    assertThat(queue.poll().getId()).isEqualTo(1L);
+    assertThat(queue.await(Duration.ofMillis(10)).getId()).isEqualTo(2L);
+    verify(taskManager, times(1)).acquireTasksToRun(anyLong(), anyInt());
+  }
+
+  @Test
+  public void testCloseReleasesClaimedTasksNotStarted() {
+    final TaskManager taskManager = mock(TaskManager.class);
+    when(taskManager.acquireTasksToRun(WORKER_ID, 3))
+        .thenReturn(List.of(task(1L), task(2L), task(3L)));
+    final TaskClaimQueue queue = new TaskClaimQueue(taskManager, WORKER_ID, 10);
+    queue.markIdle();
+    queue.markIdle();
+    queue.markIdle();
+
+    // task 1 is handed over to a runnable, tasks 2 and 3 stay in the local queue
+    assertThat(queue.poll().getId()).isEqualTo(1L);
+
+    final List<TaskDTO> released = queue.close();
+
+    assertThat(released).extracting(TaskDTO::getId).containsExactly(2L, 3L);
+    verify(taskManager).updateStatusAndTaskEndTime(eq(2L), eq(TaskStatus.RUNNING),
+        eq(TaskStatus.WAITING), isNull(), anyString());
+    verify(taskManager).updateStatusAndTaskEndTime(eq(3L), eq(TaskStatus.RUNNING),
+        eq(TaskStatus.WAITING), isNull(), anyString());
+    verify(taskManager, never()).updateStatusAndTaskEndTime(eq(1L), eq(TaskStatus.RUNNING),
+        eq(TaskStatus.WAITING), isNull(), anyString());
+  }
+
+  @Test
+  public void testNoClaimAfterClose() throws InterruptedException {
+    final TaskManager taskManager = mock(TaskManager.class);
+    final TaskClaimQueue queue = new TaskClaimQueue(taskManager, WORKER_ID, 10);
+    queue.markIdle();
+
+    assertThat(queue.close()).isEmpty();
+    assertThat(queue.poll()).isNull();
+    assertThat(queue.await(Duration.ofMillis(10))).isNull();
+    verify(taskManager, never()).acquireTasksToRun(anyLong(), anyInt());
+  }
+}